@@ -0,0 +1,80 @@
+package com.island.bookingapi.benchmark;
+
+import com.island.bookingapi.cache.SingleFlight;
+import com.island.bookingapi.calendar.CalendarHistory;
+import com.island.bookingapi.calendar.CalendarIndex;
+import com.island.bookingapi.metrics.BookingMetrics;
+import com.island.bookingapi.service.AvailabilityService;
+import com.island.bookingapi.store.JpaBookingStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Availability over ranges of 30, 365 and 3650 days with one day out of three booked,
+ * answered from the database path (list filtering) and from the loaded CalendarIndex.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AvailabilityServiceBenchmark {
+
+    @Param({"30", "365", "3650"})
+    private int rangeDays;
+
+    private LocalDate from;
+    private LocalDate to;
+    private AvailabilityService databaseAvailabilityService;
+    private AvailabilityService indexAvailabilityService;
+
+    @Setup
+    public void setUp() {
+        this.from = LocalDate.now().plusDays(1);
+        this.to = this.from.plusDays(this.rangeDays - 1);
+        List<LocalDate> bookedDays = this.from.datesUntil(this.to.plusDays(1)).filter(day -> day.toEpochDay() % 3 == 0)
+                .collect(Collectors.toList());
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        BookingMetrics bookingMetrics = new BookingMetrics(meterRegistry);
+        SingleFlight<List<LocalDate>, List<LocalDate>> singleFlight = new SingleFlight<>("availability", Duration.ofSeconds(2), meterRegistry);
+        CalendarIndex emptyIndex = new CalendarIndex();
+        this.databaseAvailabilityService = new AvailabilityService(new JpaBookingStore(null, StubRepositories.calendarRepository(bookedDays), null),
+                emptyIndex, bookingMetrics, singleFlight, new CalendarHistory(emptyIndex, meterRegistry, false, 72, 32));
+        CalendarIndex calendarIndex = new CalendarIndex();
+        calendarIndex.beginLoad();
+        long[] words = new long[(int) (this.to.toEpochDay() >>> 6) + 1];
+        for (LocalDate day : bookedDays) {
+            words[(int) (day.toEpochDay() >>> 6)] |= 1L << day.toEpochDay();
+        }
+        calendarIndex.completeLoad(words);
+        this.indexAvailabilityService = new AvailabilityService(new JpaBookingStore(null, StubRepositories.calendarRepository(bookedDays), null),
+                calendarIndex, bookingMetrics, singleFlight, new CalendarHistory(calendarIndex, meterRegistry, false, 72, 32));
+    }
+
+    @Benchmark
+    public List<LocalDate> fromDatabase() {
+        return this.databaseAvailabilityService.getAvailableDates(this.from, this.to);
+    }
+
+    @Benchmark
+    public List<LocalDate> fromIndex() {
+        return this.indexAvailabilityService.getAvailableDates(this.from, this.to);
+    }
+}
@@ -0,0 +1,83 @@
+package com.island.bookingapi.benchmark;
+
+import com.island.bookingapi.calendar.EpochDayRange;
+import com.island.bookingapi.model.CalendarAvailability;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Materialization of the days of a stay as done by BookingService.saveBooking and cancelBookingDays, and of
+ * the nights added by a booking update, with {@code datesUntil} against {@link EpochDayRange}.
+ * Allocations per call are reported by the gc profiler as {@code gc.alloc.rate.norm}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BookingDatesBenchmark {
+
+    @Param({"1", "3"})
+    private int nights;
+
+    private LocalDate arrivalDate;
+    private LocalDate departureDate;
+    private LocalDate oldArrivalDate;
+
+    @Setup
+    public void setUp() {
+        this.arrivalDate = LocalDate.now().plusDays(10);
+        this.departureDate = this.arrivalDate.plusDays(this.nights);
+        this.oldArrivalDate = this.arrivalDate.minusDays(1);
+    }
+
+    @Benchmark
+    public List<LocalDate> cancelBookingDays() {
+        return this.arrivalDate.datesUntil(this.departureDate).collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<CalendarAvailability> saveBooking() {
+        List<LocalDate> bookingDates = this.arrivalDate.datesUntil(this.departureDate).collect(Collectors.toList());
+        return bookingDates.stream().map(CalendarAvailability::new).collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<LocalDate> cancelBookingDaysRange() {
+        return EpochDayRange.ofStay(this.arrivalDate, this.departureDate).asDates();
+    }
+
+    @Benchmark
+    public int stayNightsRange() {
+        int[] sum = new int[1];
+        EpochDayRange.ofStay(this.arrivalDate, this.departureDate).forEachDay(day -> sum[0] += day);
+        return sum[0];
+    }
+
+    @Benchmark
+    public List<LocalDate> updatedNights() {
+        List<LocalDate> oldNights = this.oldArrivalDate.datesUntil(this.departureDate.minusDays(1)).collect(Collectors.toList());
+        return this.arrivalDate.datesUntil(this.departureDate).filter(night -> !oldNights.contains(night)).collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<LocalDate> updatedNightsRange() {
+        EpochDayRange oldStay = EpochDayRange.ofStay(this.oldArrivalDate, this.departureDate.minusDays(1));
+        return EpochDayRange.ofStay(this.arrivalDate, this.departureDate).datesNotIn(oldStay);
+    }
+}
@@ -0,0 +1,46 @@
+package com.island.bookingapi.benchmark;
+
+import com.island.bookingapi.request.CreateBookingControllerRequest;
+import com.island.bookingapi.validation.DateRangeValidator;
+import com.island.bookingapi.validation.ValidateDateRange;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Validation of a valid stay, the path every accepted booking request goes through.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DateRangeValidatorBenchmark {
+
+    private DateRangeValidator validator;
+    private CreateBookingControllerRequest request;
+
+    @Setup
+    public void setUp() {
+        this.validator = new DateRangeValidator();
+        this.validator.initialize(CreateBookingControllerRequest.class.getAnnotation(ValidateDateRange.class));
+        LocalDate arrival = LocalDate.now().plusDays(10);
+        this.request = new CreateBookingControllerRequest("Pepito Juarez", "pepito@gmail.com", arrival, arrival.plusDays(2));
+    }
+
+    @Benchmark
+    public boolean isValid() {
+        return this.validator.isValid(this.request, null);
+    }
+}
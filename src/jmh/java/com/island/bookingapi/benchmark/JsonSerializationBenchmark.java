@@ -0,0 +1,61 @@
+package com.island.bookingapi.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.island.bookingapi.dto.AvailabilityDTO;
+import com.island.bookingapi.dto.BookingDTO;
+import com.island.bookingapi.model.BookingStatus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Serialization of the response bodies with an ObjectMapper configured as the one of Spring MVC.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonSerializationBenchmark {
+
+    private ObjectMapper objectMapper;
+    private AvailabilityDTO availabilityDTO;
+    private BookingDTO bookingDTO;
+
+    @Setup
+    public void setUp() {
+        this.objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        LocalDate from = LocalDate.now().plusDays(1);
+        LocalDate to = from.plusDays(30);
+        this.availabilityDTO = AvailabilityDTO.builder().from(from).to(to)
+                .availableDates(from.datesUntil(to.plusDays(1)).collect(Collectors.toList())).build();
+        this.bookingDTO = BookingDTO.builder().bookingId(1L).userName("Pepito Juarez").userEmail("pepito@gmail.com")
+                .arrivalDate(from).departureDate(from.plusDays(2)).createdAt(LocalDateTime.now())
+                .updatedAt(LocalDateTime.now()).status(BookingStatus.ACTIVE).build();
+    }
+
+    @Benchmark
+    public byte[] availabilityDTO() throws JsonProcessingException {
+        return this.objectMapper.writeValueAsBytes(this.availabilityDTO);
+    }
+
+    @Benchmark
+    public byte[] bookingDTO() throws JsonProcessingException {
+        return this.objectMapper.writeValueAsBytes(this.bookingDTO);
+    }
+}
@@ -0,0 +1,107 @@
+package com.island.bookingapi.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.island.bookingapi.converter.BookingProtobufCodec;
+import com.island.bookingapi.dto.AvailabilityDTO;
+import com.island.bookingapi.dto.BookingDTO;
+import com.island.bookingapi.model.BookingStatus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Encoding and decoding of the response bodies in every negotiated format. The size of each
+ * payload is printed at setup, the wire bytes are not measured by JMH. The DTOs have no Jackson
+ * deserializer, so the Jackson formats decode to a tree.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PayloadCodecBenchmark {
+
+    @Param({"json", "smile", "cbor", "protobuf"})
+    private String format;
+
+    private ObjectMapper objectMapper;
+    private AvailabilityDTO availabilityDTO;
+    private BookingDTO bookingDTO;
+    private byte[] availabilityBytes;
+    private byte[] bookingBytes;
+
+    @Setup
+    public void setUp() throws IOException {
+        switch (this.format) {
+            case "smile":
+                this.objectMapper = Jackson2ObjectMapperBuilder.json().factory(new SmileFactory()).build();
+                break;
+            case "cbor":
+                this.objectMapper = Jackson2ObjectMapperBuilder.json().factory(new CBORFactory()).build();
+                break;
+            default:
+                this.objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        }
+        LocalDate from = LocalDate.now().plusDays(1);
+        LocalDate to = from.plusDays(30);
+        this.availabilityDTO = AvailabilityDTO.builder().from(from).to(to)
+                .availableDates(from.datesUntil(to.plusDays(1)).collect(Collectors.toList())).build();
+        this.bookingDTO = BookingDTO.builder().bookingId(1L).userName("Pepito Juarez").userEmail("pepito@gmail.com")
+                .arrivalDate(from).departureDate(from.plusDays(2)).createdAt(LocalDateTime.now())
+                .updatedAt(LocalDateTime.now()).status(BookingStatus.ACTIVE).build();
+        this.availabilityBytes = this.encodeAvailability();
+        this.bookingBytes = this.encodeBooking();
+        System.out.printf("%n%s: availability %d bytes, booking %d bytes%n", this.format, this.availabilityBytes.length,
+                this.bookingBytes.length);
+    }
+
+    @Benchmark
+    public byte[] encodeAvailability() throws IOException {
+        if ("protobuf".equals(this.format)) {
+            return BookingProtobufCodec.encode(this.availabilityDTO);
+        }
+        return this.objectMapper.writeValueAsBytes(this.availabilityDTO);
+    }
+
+    @Benchmark
+    public Object decodeAvailability() throws IOException {
+        if ("protobuf".equals(this.format)) {
+            return BookingProtobufCodec.decodeAvailability(this.availabilityBytes);
+        }
+        return this.objectMapper.readTree(this.availabilityBytes);
+    }
+
+    @Benchmark
+    public byte[] encodeBooking() throws IOException {
+        if ("protobuf".equals(this.format)) {
+            return BookingProtobufCodec.encode(this.bookingDTO);
+        }
+        return this.objectMapper.writeValueAsBytes(this.bookingDTO);
+    }
+
+    @Benchmark
+    public Object decodeBooking() throws IOException {
+        if ("protobuf".equals(this.format)) {
+            return BookingProtobufCodec.decodeBooking(this.bookingBytes);
+        }
+        return this.objectMapper.readTree(this.bookingBytes);
+    }
+}
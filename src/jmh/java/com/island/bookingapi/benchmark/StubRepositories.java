@@ -0,0 +1,32 @@
+package com.island.bookingapi.benchmark;
+
+import com.island.bookingapi.repository.CalendarAvailableRepository;
+
+import java.lang.reflect.Proxy;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Repositories answering from memory, so benchmarks measure the service code and not the database.
+ */
+final class StubRepositories {
+
+    private StubRepositories() {
+    }
+
+    /**
+     * Calendar repository whose booked dates queries always return the given days
+     *
+     * @param bookedDays booked days returned by the queries
+     * @return CalendarAvailableRepository
+     */
+    static CalendarAvailableRepository calendarRepository(List<LocalDate> bookedDays) {
+        return (CalendarAvailableRepository) Proxy.newProxyInstance(CalendarAvailableRepository.class.getClassLoader(),
+                new Class<?>[]{CalendarAvailableRepository.class}, (proxy, method, args) -> {
+                    if (method.getReturnType().equals(List.class)) {
+                        return bookedDays;
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+}
@@ -0,0 +1,134 @@
+package com.island.bookingapi.archive;
+
+import com.island.bookingapi.repository.ArchivedBookingRepository;
+import com.island.bookingapi.repository.ArchivedCalendarAvailabilityRepository;
+import com.island.bookingapi.repository.BookingRepository;
+import com.island.bookingapi.repository.CalendarAvailableRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Keeps the booking and calendar tables down to the recent past and the bookable horizon.
+ * <p>
+ * Bookings whose stay ended and calendar days older than the retention are moved to the archive
+ * tables. Every batch is its own short transaction copying the rows and deleting them from the hot
+ * table, so only the rows of the batch are locked and the API keeps running while the job works.
+ * Archived bookings are still found by id, they can no longer be modified.
+ */
+@Service
+@ConditionalOnProperty(name = "booking.archive.enabled", havingValue = "true")
+public class ArchiveMaintenanceService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ArchiveMaintenanceService.class);
+
+    private final BookingRepository bookingRepository;
+    private final CalendarAvailableRepository calendarAvailableRepository;
+    private final ArchivedBookingRepository archivedBookingRepository;
+    private final ArchivedCalendarAvailabilityRepository archivedCalendarAvailabilityRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Counter archivedBookings;
+    private final Counter archivedDays;
+    private final int retentionDays;
+    private final int batchSize;
+    private final long batchPauseMillis;
+
+    public ArchiveMaintenanceService(BookingRepository bookingRepository, CalendarAvailableRepository calendarAvailableRepository,
+                                     ArchivedBookingRepository archivedBookingRepository,
+                                     ArchivedCalendarAvailabilityRepository archivedCalendarAvailabilityRepository,
+                                     PlatformTransactionManager transactionManager, MeterRegistry meterRegistry,
+                                     @Value("${booking.archive.retention-days:30}") int retentionDays,
+                                     @Value("${booking.archive.batch-size:500}") int batchSize,
+                                     @Value("${booking.archive.batch-pause-ms:50}") long batchPauseMillis) {
+        this.bookingRepository = bookingRepository;
+        this.calendarAvailableRepository = calendarAvailableRepository;
+        this.archivedBookingRepository = archivedBookingRepository;
+        this.archivedCalendarAvailabilityRepository = archivedCalendarAvailabilityRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.archivedBookings = Counter.builder("booking.archive.rows").tag("table", "booking")
+                .description("Rows moved to the archive tables").register(meterRegistry);
+        this.archivedDays = Counter.builder("booking.archive.rows").tag("table", "calendar_availability")
+                .description("Rows moved to the archive tables").register(meterRegistry);
+        this.retentionDays = retentionDays;
+        this.batchSize = batchSize;
+        this.batchPauseMillis = batchPauseMillis;
+    }
+
+    /**
+     * Moves the bookings departed and the calendar days passed before the cutoff to the archive
+     */
+    @Scheduled(cron = "${booking.archive.cron:0 30 3 * * *}")
+    public void archive() {
+        this.archive(LocalDate.now().minusDays(this.retentionDays));
+    }
+
+    /**
+     * Moves the bookings departed and the calendar days passed before the cutoff to the archive
+     *
+     * @param cutoff first day kept in the hot tables
+     * @return number of rows moved
+     */
+    public long archive(LocalDate cutoff) {
+        long start = System.nanoTime();
+        long bookings = this.moveInBatches(
+                () -> this.bookingRepository.getIdsDepartedBefore(cutoff, PageRequest.of(0, this.batchSize)),
+                ids -> {
+                    this.archivedBookingRepository.archiveBookings(ids);
+                    this.bookingRepository.deleteByIds(ids);
+                }, this.archivedBookings);
+        long days = this.moveInBatches(
+                () -> this.calendarAvailableRepository.getIdsBefore(cutoff, PageRequest.of(0, this.batchSize)),
+                ids -> {
+                    this.archivedCalendarAvailabilityRepository.archiveDays(ids);
+                    this.calendarAvailableRepository.deleteByIds(ids);
+                }, this.archivedDays);
+        LOGGER.info("Archived {} bookings and {} calendar days before {} in {} ms", bookings, days, cutoff,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        return bookings + days;
+    }
+
+    private long moveInBatches(Supplier<List<Long>> nextBatch, Consumer<List<Long>> move, Counter counter) {
+        long moved = 0;
+        while (true) {
+            Integer count = this.transactionTemplate.execute(status -> {
+                List<Long> ids = nextBatch.get();
+                if (!ids.isEmpty()) {
+                    move.accept(ids);
+                }
+                return ids.size();
+            });
+            moved += count;
+            counter.increment(count);
+            if (count < this.batchSize) {
+                return moved;
+            }
+            if (!this.pause()) {
+                return moved;
+            }
+        }
+    }
+
+    private boolean pause() {
+        try {
+            Thread.sleep(this.batchPauseMillis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.island.bookingapi.batch;
+
+/**
+ * How a batch of booking operations is applied
+ */
+public enum BatchMode {
+    /**
+     * All the operations are applied or none, a failed operation rolls back the batch
+     */
+    ATOMIC,
+    /**
+     * The operations that can be applied are, the failed ones are reported
+     */
+    BEST_EFFORT
+}
@@ -0,0 +1,486 @@
+package com.island.bookingapi.batch;
+
+import com.island.bookingapi.calendar.EpochDayRange;
+import com.island.bookingapi.contention.DayContentionTracker;
+import com.island.bookingapi.event.BookingBatchEvent;
+import com.island.bookingapi.event.BookingChangedEvent;
+import com.island.bookingapi.exception.BookingNotFoundException;
+import com.island.bookingapi.exception.CancelledBookingException;
+import com.island.bookingapi.exception.QuotaExceededException;
+import com.island.bookingapi.metrics.BookingMetrics;
+import com.island.bookingapi.model.Booking;
+import com.island.bookingapi.model.BookingStatus;
+import com.island.bookingapi.outbox.OutboxWriter;
+import com.island.bookingapi.quota.GuestQuotaTracker;
+import com.island.bookingapi.request.BookingBatchRequest;
+import com.island.bookingapi.request.BookingOperationRequest;
+import com.island.bookingapi.request.CreateBookingControllerRequest;
+import com.island.bookingapi.request.UpdateBookingControllerRequest;
+import com.island.bookingapi.store.BookingStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Applies a batch of create, update and cancel operations with the rules of the BookingService.
+ * <p>
+ * The bookings of the batch are read at once and the calendar with a single read over the days they span.
+ * The nights released by any operation are free for all of them, so bookings can shift or swap their dates
+ * within a batch, and the operations wanting the same free night get it in order. An operation of a best
+ * effort batch left out keeps its old nights, the others are checked again without it. The calendar
+ * is written with one delete of the nights released and one insert of the nights booked by the batch as
+ * a whole, and a single {@link BookingBatchEvent} is published after the commit.
+ * <p>
+ * A night taken by a concurrent booking between the read and the insert fails the whole transaction on
+ * the unique constraint of the calendar: an atomic batch is then reported as conflicting, a best effort
+ * one is applied again one operation per transaction.
+ */
+@Service
+@ConditionalOnProperty(name = "booking.batch.enabled", havingValue = "true")
+public class BookingBatchService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BookingBatchService.class);
+    private static final String NOT_APPLIED = "Not applied, another operation of the batch failed";
+
+    private final BookingStore bookingStore;
+    private final GuestQuotaTracker guestQuotaTracker;
+    private final DayContentionTracker contentionTracker;
+    private final BookingMetrics bookingMetrics;
+    private final ObjectProvider<OutboxWriter> outboxWriter;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Validator validator;
+    private final TransactionTemplate transactionTemplate;
+
+    public BookingBatchService(BookingStore bookingStore, GuestQuotaTracker guestQuotaTracker, DayContentionTracker contentionTracker,
+                               BookingMetrics bookingMetrics, ObjectProvider<OutboxWriter> outboxWriter,
+                               ApplicationEventPublisher eventPublisher, Validator validator, PlatformTransactionManager transactionManager) {
+        this.bookingStore = bookingStore;
+        this.guestQuotaTracker = guestQuotaTracker;
+        this.contentionTracker = contentionTracker;
+        this.bookingMetrics = bookingMetrics;
+        this.outboxWriter = outboxWriter;
+        this.eventPublisher = eventPublisher;
+        this.validator = validator;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Applies the operations of the batch
+     *
+     * @param request batch
+     * @return one result per operation, in the order of the batch
+     */
+    public List<BookingOperationResult> execute(BookingBatchRequest request) {
+        List<BookingOperationRequest> operations = request.getOperations();
+        List<BookingOperationResult> invalid = this.validate(operations);
+        try {
+            return this.transactionTemplate.execute(status -> this.apply(operations, new ArrayList<>(invalid), request.getMode(), status));
+        } catch (DataIntegrityViolationException e) {
+            // some of the nights were booked by another transaction after the calendar was read
+            this.bookingMetrics.conflict();
+            if (request.getMode() == BatchMode.ATOMIC) {
+                return operations.stream().map(operation -> failed(operation.getType(), HttpStatus.CONFLICT,
+                        "Days booked by a concurrent request, the batch was not applied")).collect(Collectors.toList());
+            }
+            LOGGER.info("Batch of {} operations conflicted, applying them one by one", operations.size());
+            List<BookingOperationResult> results = new ArrayList<>(invalid);
+            for (int i = 0; i < operations.size(); i++) {
+                if (results.get(i) == null) {
+                    results.set(i, this.applyAlone(operations.get(i)));
+                }
+            }
+            return results;
+        }
+    }
+
+    private BookingOperationResult applyAlone(BookingOperationRequest operation) {
+        try {
+            return this.transactionTemplate.execute(status -> this.apply(Collections.singletonList(operation),
+                    new ArrayList<>(Collections.singletonList(null)), BatchMode.BEST_EFFORT, status)).get(0);
+        } catch (DataIntegrityViolationException e) {
+            this.bookingMetrics.conflict();
+            return failed(operation.getType(), HttpStatus.BAD_REQUEST, "Days not available");
+        }
+    }
+
+    /**
+     * @param results the failures of the validation, filled with the results of the other operations
+     */
+    private List<BookingOperationResult> apply(List<BookingOperationRequest> operations, List<BookingOperationResult> results,
+                                               BatchMode mode, TransactionStatus status) {
+        Set<Long> bookingIds = new HashSet<>();
+        for (int i = 0; i < operations.size(); i++) {
+            if (results.get(i) == null && operations.get(i).getType() != BookingOperationType.CREATE) {
+                bookingIds.add(operations.get(i).getBookingId());
+            }
+        }
+        Map<Long, Booking> bookings = this.bookingStore.findBookingsByIds(bookingIds).stream()
+                .collect(Collectors.toMap(Booking::getId, Function.identity()));
+        List<PlannedOperation> planned = new ArrayList<>(operations.size());
+        for (int i = 0; i < operations.size(); i++) {
+            if (results.get(i) != null) {
+                continue;
+            }
+            try {
+                planned.add(this.prepare(i, operations.get(i), bookings));
+            } catch (BookingNotFoundException | CancelledBookingException | QuotaExceededException e) {
+                results.set(i, failed(operations.get(i).getType(), statusOf(e), e.getMessage()));
+            }
+        }
+        Nights nights = this.readNights(planned);
+        // an operation left out keeps its booking on its old nights, the others are checked again without it
+        while (this.checkNights(planned, nights, results) && mode == BatchMode.BEST_EFFORT) {
+            planned.removeIf(operation -> results.get(operation.index) != null);
+        }
+        if (mode == BatchMode.ATOMIC && results.stream().anyMatch(Objects::nonNull)) {
+            // the quota taken by the operations is given back by the rollback
+            status.setRollbackOnly();
+            for (PlannedOperation operation : planned) {
+                if (results.get(operation.index) == null) {
+                    results.set(operation.index, failed(operation.type, HttpStatus.FAILED_DEPENDENCY, NOT_APPLIED));
+                }
+            }
+            return results;
+        }
+        this.write(planned, nights, results);
+        return results;
+    }
+
+    /**
+     * Checks every operation as the single operation endpoint would, and that no two operations change the same booking
+     *
+     * @return the failures, null for the operations to apply
+     */
+    private List<BookingOperationResult> validate(List<BookingOperationRequest> operations) {
+        List<BookingOperationResult> results = new ArrayList<>(operations.size());
+        Map<Long, Integer> changedBookings = new HashMap<>();
+        for (int i = 0; i < operations.size(); i++) {
+            String violations = this.validate(operations.get(i), i, changedBookings);
+            results.add(violations.isEmpty() ? null : failed(operations.get(i).getType(), HttpStatus.BAD_REQUEST, violations));
+        }
+        return results;
+    }
+
+    private String validate(BookingOperationRequest operation, int index, Map<Long, Integer> changedBookings) {
+        Set<? extends ConstraintViolation<?>> violations;
+        switch (operation.getType()) {
+            case CREATE:
+                violations = this.validator.validate(new CreateBookingControllerRequest(operation.getUserName(),
+                        operation.getUserEmail(), operation.getArrivalDate(), operation.getDepartureDate()));
+                break;
+            case UPDATE:
+                violations = this.validator.validate(new UpdateBookingControllerRequest(operation.getUserName(),
+                        operation.getUserEmail(), operation.getArrivalDate(), operation.getDepartureDate()));
+                break;
+            default:
+                violations = Collections.emptySet();
+        }
+        if (!violations.isEmpty()) {
+            return violations.stream().map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                    .sorted().collect(Collectors.joining(", "));
+        }
+        if (operation.getType() == BookingOperationType.CREATE) {
+            return "";
+        }
+        if (operation.getBookingId() == null) {
+            return "bookingId: must not be null";
+        }
+        Integer previous = changedBookings.putIfAbsent(operation.getBookingId(), index);
+        return previous == null ? "" : String.format("Booking %d is already changed by operation %d of the batch",
+                operation.getBookingId(), previous);
+    }
+
+    /**
+     * Reads the booked nights of all the stays of the batch, the old ones and the new ones, with one query
+     */
+    private Nights readNights(List<PlannedOperation> planned) {
+        int start = Integer.MAX_VALUE;
+        int end = Integer.MIN_VALUE;
+        for (PlannedOperation operation : planned) {
+            for (EpochDayRange stay : Arrays.asList(operation.oldStay, operation.stay)) {
+                if (!stay.isEmpty()) {
+                    start = Math.min(start, stay.getStart());
+                    end = Math.max(end, stay.getEnd());
+                }
+            }
+        }
+        if (start >= end) {
+            return new Nights(0, Collections.emptyList());
+        }
+        return new Nights(start, this.bookingStore.getBookedDates(LocalDate.ofEpochDay(start), LocalDate.ofEpochDay(end - 1L)));
+    }
+
+    /**
+     * Checks the booking of the operation and takes its quota before the nights are checked, as the BookingService does
+     */
+    private PlannedOperation prepare(int index, BookingOperationRequest operation, Map<Long, Booking> bookings) {
+        if (operation.getArrivalDate() != null) {
+            this.contentionTracker.recordAttempt(operation.getArrivalDate(), operation.getDepartureDate());
+        }
+        if (operation.getType() == BookingOperationType.CREATE) {
+            this.guestQuotaTracker.reserve(operation.getUserEmail());
+            return new PlannedOperation(index, operation, null, EpochDayRange.EMPTY,
+                    EpochDayRange.ofStay(operation.getArrivalDate(), operation.getDepartureDate()), operation.getUserEmail());
+        }
+        Booking booking = bookings.get(operation.getBookingId());
+        if (booking == null) {
+            this.bookingMetrics.notFound();
+            throw new BookingNotFoundException();
+        }
+        if (booking.getStatus().equals(BookingStatus.CANCELLED.getId())) {
+            this.bookingMetrics.cancelledBooking();
+            throw new CancelledBookingException();
+        }
+        EpochDayRange oldStay = EpochDayRange.ofStay(booking.getArrivalDate(), booking.getDepartureDate());
+        if (operation.getType() == BookingOperationType.CANCEL) {
+            return new PlannedOperation(index, operation, booking, oldStay, EpochDayRange.EMPTY, null);
+        }
+        String newEmail = operation.getUserEmail();
+        String reservedEmail = null;
+        if (newEmail != null && !newEmail.equalsIgnoreCase(booking.getUserEmail())) {
+            this.guestQuotaTracker.reserve(newEmail);
+            reservedEmail = newEmail;
+        }
+        EpochDayRange stay = operation.getArrivalDate() == null ? oldStay
+                : EpochDayRange.ofStay(operation.getArrivalDate(), operation.getDepartureDate());
+        return new PlannedOperation(index, operation, booking, oldStay, stay, reservedEmail);
+    }
+
+    /**
+     * Marks the nights of the operations. The nights released by the batch are free for all its operations, so
+     * bookings can shift or swap their dates, and the operations booking the same free night get it in order
+     *
+     * @return whether some operation did not get its nights
+     */
+    private boolean checkNights(List<PlannedOperation> planned, Nights nights, List<BookingOperationResult> results) {
+        nights.reset();
+        planned.forEach(operation -> nights.release(operation.oldStay));
+        boolean conflicts = false;
+        for (PlannedOperation operation : planned) {
+            if (operation.type == BookingOperationType.CANCEL) {
+                continue;
+            }
+            List<LocalDate> takenNights = nights.taken(operation.stay);
+            if (takenNights.isEmpty()) {
+                nights.book(operation.stay);
+                continue;
+            }
+            conflicts = true;
+            this.bookingMetrics.conflict();
+            this.contentionTracker.recordConflict(takenNights);
+            if (operation.reservedEmail != null) {
+                // gives back the reservation when a best effort batch commits without the operation
+                this.guestQuotaTracker.releaseOnCommit(operation.reservedEmail);
+            }
+            results.set(operation.index, failed(operation.type, HttpStatus.BAD_REQUEST, String.format("Days not available: %s ", takenNights)));
+        }
+        return conflicts;
+    }
+
+    /**
+     * Writes the calendar change of the whole batch, then the bookings and their outbox events
+     */
+    private void write(List<PlannedOperation> planned, Nights nights, List<BookingOperationResult> results) {
+        List<LocalDate> releasedDays = nights.netReleased();
+        List<LocalDate> bookedDays = nights.netBooked();
+        if (!releasedDays.isEmpty()) {
+            this.bookingStore.releaseDays(releasedDays);
+        }
+        if (!bookedDays.isEmpty()) {
+            this.bookingStore.bookDays(bookedDays);
+        }
+        OutboxWriter writer = this.outboxWriter.getIfAvailable();
+        List<BookingChangedEvent> changes = new ArrayList<>(planned.size());
+        for (PlannedOperation operation : planned) {
+            if (operation.booking != null && (operation.type == BookingOperationType.CANCEL || operation.reservedEmail != null)) {
+                this.guestQuotaTracker.releaseOnCommit(operation.booking.getUserEmail());
+            }
+            Booking booking = operation.applyTo();
+            this.bookingStore.saveBooking(booking);
+            BookingChangedEvent change = new BookingChangedEvent(booking.getId(), operation.type.getChangeType(),
+                    operation.oldStay.asDates(), operation.stay.asDates());
+            if (writer != null) {
+                writer.append(booking, change);
+            }
+            changes.add(change);
+            this.bookingMetrics.recordCommit(operation.type.getChangeType());
+            results.set(operation.index, new BookingOperationResult(operation.type,
+                    operation.type == BookingOperationType.CREATE ? HttpStatus.CREATED : HttpStatus.OK, null, booking));
+        }
+        LOGGER.info("Applied batch of {} operations, released {} and booked {} days", planned.size(), releasedDays.size(), bookedDays.size());
+        this.eventPublisher.publishEvent(new BookingBatchEvent(releasedDays, bookedDays, changes));
+    }
+
+    private static BookingOperationResult failed(BookingOperationType type, HttpStatus status, String message) {
+        return new BookingOperationResult(type, status, message, null);
+    }
+
+    /**
+     * Same statuses as the GlobalExceptionHandler gives the single operation endpoints
+     */
+    private static HttpStatus statusOf(RuntimeException e) {
+        if (e instanceof BookingNotFoundException) {
+            return HttpStatus.NOT_FOUND;
+        }
+        if (e instanceof CancelledBookingException) {
+            return HttpStatus.METHOD_NOT_ALLOWED;
+        }
+        if (e instanceof QuotaExceededException) {
+            return HttpStatus.TOO_MANY_REQUESTS;
+        }
+        return HttpStatus.BAD_REQUEST;
+    }
+
+    /**
+     * Booked nights of the days spanned by the batch, as bits from the first of them, with the nights
+     * released and booked by the operations checked so far
+     */
+    private static final class Nights {
+
+        private final int start;
+        private final BitSet stored = new BitSet();
+        private final BitSet taken = new BitSet();
+        private final BitSet released = new BitSet();
+        private final BitSet booked = new BitSet();
+
+        Nights(int start, List<LocalDate> bookedDays) {
+            this.start = start;
+            for (LocalDate day : bookedDays) {
+                this.stored.set(Math.toIntExact(day.toEpochDay() - start));
+            }
+            this.reset();
+        }
+
+        /**
+         * Goes back to the nights booked in the store
+         */
+        void reset() {
+            this.taken.clear();
+            this.taken.or(this.stored);
+            this.released.clear();
+            this.booked.clear();
+        }
+
+        /**
+         * @return the nights of the stay taken
+         */
+        List<LocalDate> taken(EpochDayRange stay) {
+            List<LocalDate> takenNights = new ArrayList<>();
+            stay.forEachDay(day -> {
+                if (this.taken.get(day - this.start)) {
+                    takenNights.add(LocalDate.ofEpochDay(day));
+                }
+            });
+            return takenNights;
+        }
+
+        void release(EpochDayRange stay) {
+            if (!stay.isEmpty()) {
+                this.taken.clear(stay.getStart() - this.start, stay.getEnd() - this.start);
+                this.released.set(stay.getStart() - this.start, stay.getEnd() - this.start);
+            }
+        }
+
+        void book(EpochDayRange stay) {
+            if (!stay.isEmpty()) {
+                this.taken.set(stay.getStart() - this.start, stay.getEnd() - this.start);
+                this.booked.set(stay.getStart() - this.start, stay.getEnd() - this.start);
+            }
+        }
+
+        /**
+         * @return the nights released and not booked again by the batch, their rows are deleted
+         */
+        List<LocalDate> netReleased() {
+            return this.dates(this.released, this.booked);
+        }
+
+        /**
+         * @return the nights booked that were not released by the batch, their rows are inserted
+         */
+        List<LocalDate> netBooked() {
+            return this.dates(this.booked, this.released);
+        }
+
+        private List<LocalDate> dates(BitSet included, BitSet excluded) {
+            BitSet net = (BitSet) included.clone();
+            net.andNot(excluded);
+            List<LocalDate> dates = new ArrayList<>(net.cardinality());
+            net.stream().forEach(offset -> dates.add(LocalDate.ofEpochDay(this.start + (long) offset)));
+            return dates;
+        }
+    }
+
+    private static final class PlannedOperation {
+
+        private final int index;
+        private final BookingOperationType type;
+        private final BookingOperationRequest request;
+        private final Booking booking;
+        private final EpochDayRange oldStay;
+        private final EpochDayRange stay;
+        /**
+         * Guest whose quota the operation took, null when none
+         */
+        private final String reservedEmail;
+
+        PlannedOperation(int index, BookingOperationRequest request, Booking booking, EpochDayRange oldStay, EpochDayRange stay,
+                         String reservedEmail) {
+            this.index = index;
+            this.type = request.getType();
+            this.request = request;
+            this.booking = booking;
+            this.oldStay = oldStay;
+            this.stay = stay;
+            this.reservedEmail = reservedEmail;
+        }
+
+        /**
+         * @return the booking as the operation leaves it
+         */
+        Booking applyTo() {
+            switch (this.type) {
+                case CREATE:
+                    return new Booking(this.request.getUserName(), this.request.getUserEmail(), this.request.getArrivalDate(),
+                            this.request.getDepartureDate());
+                case CANCEL:
+                    this.booking.setStatus(BookingStatus.CANCELLED.getId());
+                    return this.booking;
+                default:
+                    if (this.request.getUserName() != null) {
+                        this.booking.setUserName(this.request.getUserName());
+                    }
+                    if (this.request.getUserEmail() != null) {
+                        this.booking.setUserEmail(this.request.getUserEmail());
+                    }
+                    this.booking.setArrivalDate(LocalDate.ofEpochDay(this.stay.getStart()));
+                    this.booking.setDepartureDate(LocalDate.ofEpochDay(this.stay.getEnd()));
+                    return this.booking;
+            }
+        }
+    }
+}
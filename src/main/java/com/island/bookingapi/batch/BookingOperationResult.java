@@ -0,0 +1,26 @@
+package com.island.bookingapi.batch;
+
+import com.island.bookingapi.model.Booking;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+
+/**
+ * Outcome of one operation of a batch, with the status the single operation endpoint would have answered
+ */
+@Getter
+@RequiredArgsConstructor
+public class BookingOperationResult {
+
+    private final BookingOperationType type;
+
+    private final HttpStatus status;
+
+    private final String message;
+
+    /**
+     * The booking as it is after the operation, null when it failed
+     */
+    private final Booking booking;
+
+}
@@ -0,0 +1,19 @@
+package com.island.bookingapi.batch;
+
+import com.island.bookingapi.event.BookingChangeType;
+
+public enum BookingOperationType {
+    CREATE(BookingChangeType.CREATED),
+    UPDATE(BookingChangeType.UPDATED),
+    CANCEL(BookingChangeType.CANCELLED);
+
+    private final BookingChangeType changeType;
+
+    BookingOperationType(BookingChangeType changeType) {
+        this.changeType = changeType;
+    }
+
+    public BookingChangeType getChangeType() {
+        return this.changeType;
+    }
+}
@@ -0,0 +1,182 @@
+package com.island.bookingapi.blackout;
+
+import com.island.bookingapi.calendar.CalendarChangeLog;
+import com.island.bookingapi.calendar.EpochDayRange;
+import com.island.bookingapi.event.BookingChangeType;
+import com.island.bookingapi.event.BookingChangedEvent;
+import com.island.bookingapi.event.CalendarClosedEvent;
+import com.island.bookingapi.model.Blackout;
+import com.island.bookingapi.model.Booking;
+import com.island.bookingapi.model.BookingStatus;
+import com.island.bookingapi.model.CalendarAvailability;
+import com.island.bookingapi.outbox.OutboxWriter;
+import com.island.bookingapi.quota.GuestQuotaTracker;
+import com.island.bookingapi.repository.BlackoutRepository;
+import com.island.bookingapi.repository.BookingRepository;
+import com.island.bookingapi.repository.CalendarAvailableRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Closes the island for a range of days.
+ * <p>
+ * The free days of the range are claimed in the calendar first, so no new booking gets them. The bookings
+ * overlapping the range are then cancelled in batches, every batch its own short transaction: the rows are
+ * locked, cancelled with one update and the nights they had outside the range released with one delete.
+ * Their nights inside the range stay held by the blackout. The days released meanwhile by concurrent
+ * cancellations are claimed again at the end, and a single {@link CalendarClosedEvent} brings the
+ * calendar index and the caches up to date once every batch is committed.
+ * <p>
+ * Works on the JPA tables, like the archive.
+ */
+@Service
+@ConditionalOnProperty(name = "booking.blackout.enabled", havingValue = "true")
+public class BlackoutService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BlackoutService.class);
+    private static final int MAX_CLAIM_ATTEMPTS = 5;
+
+    private final BlackoutRepository blackoutRepository;
+    private final BookingRepository bookingRepository;
+    private final CalendarAvailableRepository calendarAvailableRepository;
+    private final CalendarChangeLog calendarChangeLog;
+    private final GuestQuotaTracker guestQuotaTracker;
+    private final ObjectProvider<OutboxWriter> outboxWriter;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final Counter cancelledBookings;
+    private final int batchSize;
+
+    public BlackoutService(BlackoutRepository blackoutRepository, BookingRepository bookingRepository,
+                           CalendarAvailableRepository calendarAvailableRepository, CalendarChangeLog calendarChangeLog,
+                           GuestQuotaTracker guestQuotaTracker,
+                           ObjectProvider<OutboxWriter> outboxWriter, ApplicationEventPublisher eventPublisher,
+                           PlatformTransactionManager transactionManager, MeterRegistry meterRegistry,
+                           @Value("${booking.blackout.batch-size:500}") int batchSize) {
+        this.blackoutRepository = blackoutRepository;
+        this.bookingRepository = bookingRepository;
+        this.calendarAvailableRepository = calendarAvailableRepository;
+        this.calendarChangeLog = calendarChangeLog;
+        this.guestQuotaTracker = guestQuotaTracker;
+        this.outboxWriter = outboxWriter;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.cancelledBookings = Counter.builder("booking.blackout.cancelled")
+                .description("Bookings cancelled by blackouts").register(meterRegistry);
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Closes the days from {@code from} to {@code to}, both included, and cancels the bookings overlapping them
+     *
+     * @param from   first closed day
+     * @param to     last closed day
+     * @param reason reason of the closure
+     * @return the Blackout, with the number of bookings cancelled
+     */
+    public Blackout close(LocalDate from, LocalDate to, String reason) {
+        long start = System.nanoTime();
+        Blackout blackout = this.blackoutRepository.save(new Blackout(from, to, reason));
+        this.claimFreeDays(from, to);
+        List<BookingChangedEvent> cancellations = new ArrayList<>();
+        Set<LocalDate> releasedDays = new HashSet<>();
+        while (true) {
+            List<BookingChangedEvent> batch = this.transactionTemplate.execute(status -> this.cancelBatch(from, to, releasedDays));
+            cancellations.addAll(batch);
+            this.cancelledBookings.increment(batch.size());
+            if (batch.size() < this.batchSize) {
+                break;
+            }
+        }
+        // days released by cancellations committed while the range was being closed
+        this.claimFreeDays(from, to);
+        blackout.setCancelledBookings(cancellations.size());
+        blackout = this.blackoutRepository.save(blackout);
+        this.eventPublisher.publishEvent(new CalendarClosedEvent(EpochDayRange.ofDays(from, to).asDates(),
+                releasedDays.stream().sorted().collect(Collectors.toList()), cancellations));
+        LOGGER.info("Closed {} - {}, cancelled {} bookings in {} ms", from, to, cancellations.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        return blackout;
+    }
+
+    /**
+     * Returns the blackouts not yet over
+     *
+     * @return List<Blackout>
+     */
+    public List<Blackout> getCurrentBlackouts() {
+        return this.blackoutRepository.findEndingFrom(LocalDate.now());
+    }
+
+    private void claimFreeDays(LocalDate from, LocalDate to) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                this.transactionTemplate.executeWithoutResult(status -> {
+                    List<LocalDate> held = this.calendarAvailableRepository.getBookedDates(from, to);
+                    List<CalendarAvailability> free = EpochDayRange.ofDays(from, to).datesExcept(held).stream()
+                            .map(CalendarAvailability::new).collect(Collectors.toList());
+                    this.calendarAvailableRepository.saveAll(free);
+                    this.calendarChangeLog.record(free.stream().map(CalendarAvailability::getDay).collect(Collectors.toList()));
+                });
+                return;
+            } catch (DataIntegrityViolationException e) {
+                // a booking took some of the days after they were read, it is cancelled by the next step
+                if (attempt == MAX_CLAIM_ATTEMPTS) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private List<BookingChangedEvent> cancelBatch(LocalDate from, LocalDate to, Set<LocalDate> releasedDays) {
+        List<Booking> bookings = this.bookingRepository.findOverlapping(BookingStatus.ACTIVE.getId(), from, to,
+                PageRequest.of(0, this.batchSize));
+        if (bookings.isEmpty()) {
+            return Collections.emptyList();
+        }
+        LocalDateTime now = LocalDateTime.now();
+        this.bookingRepository.updateStatus(bookings.stream().map(Booking::getId).collect(Collectors.toList()),
+                BookingStatus.CANCELLED.getId(), now);
+        EpochDayRange closed = EpochDayRange.ofDays(from, to);
+        List<LocalDate> outside = new ArrayList<>();
+        List<BookingChangedEvent> cancellations = new ArrayList<>(bookings.size());
+        for (Booking booking : bookings) {
+            booking.setStatus(BookingStatus.CANCELLED.getId());
+            booking.setUpdatedAt(now);
+            EpochDayRange nights = EpochDayRange.ofStay(booking.getArrivalDate(), booking.getDepartureDate());
+            outside.addAll(nights.datesNotIn(closed));
+            BookingChangedEvent cancellation = new BookingChangedEvent(booking.getId(), BookingChangeType.CANCELLED,
+                    nights.asDates(), Collections.emptyList());
+            this.guestQuotaTracker.releaseOnCommit(booking.getUserEmail());
+            this.outboxWriter.ifAvailable(writer -> writer.append(booking, cancellation));
+            cancellations.add(cancellation);
+        }
+        if (!outside.isEmpty()) {
+            this.calendarAvailableRepository.deleteByDates(outside);
+            this.calendarChangeLog.record(outside);
+        }
+        releasedDays.addAll(outside);
+        return cancellations;
+    }
+}
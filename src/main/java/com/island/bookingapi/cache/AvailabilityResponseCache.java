@@ -0,0 +1,218 @@
+package com.island.bookingapi.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.island.bookingapi.calendar.CalendarIndex;
+import com.island.bookingapi.dto.AvailabilityDTO;
+import com.island.bookingapi.event.BookingBatchEvent;
+import com.island.bookingapi.event.BookingChangedEvent;
+import com.island.bookingapi.event.CalendarClosedEvent;
+import com.island.bookingapi.event.RemoteBookingChangedEvent;
+import com.island.bookingapi.service.AvailabilityService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.annotation.PreDestroy;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * JSON body of the default availability window (tomorrow plus 30 days), serialized ahead of time
+ * together with its gzip encoding, so the common request only copies bytes to the socket.
+ * <p>
+ * Bodies are built from the CalendarIndex and tagged with the index version they were read at, a body
+ * is only served while the index is still at that version. Booking changes regenerate them in the
+ * background, a change arriving while a regeneration runs queues one more. Within
+ * {@code booking.availability.cache.rollover-lead-minutes} of midnight the body of the next day is
+ * built as well, so the first requests of the day do not all miss at once.
+ */
+@Component
+public class AvailabilityResponseCache {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AvailabilityResponseCache.class);
+    private static final int MAX_REGENERATIONS = 8;
+
+    private final CalendarIndex calendarIndex;
+    private final AvailabilityService availabilityService;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final long rolloverLeadMinutes;
+    private final Counter hits;
+    private final Counter misses;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "availability-response-cache");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean regenerationQueued = new AtomicBoolean();
+    private volatile Map<LocalDate, DefaultAvailability> responses = new HashMap<>();
+
+    public AvailabilityResponseCache(CalendarIndex calendarIndex, AvailabilityService availabilityService, ObjectMapper objectMapper,
+                                     MeterRegistry meterRegistry,
+                                     @Value("${booking.availability.cache.enabled:true}") boolean enabled,
+                                     @Value("${booking.availability.cache.rollover-lead-minutes:10}") long rolloverLeadMinutes) {
+        this.calendarIndex = calendarIndex;
+        this.availabilityService = availabilityService;
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.rolloverLeadMinutes = rolloverLeadMinutes;
+        this.hits = meterRegistry.counter("booking.availability.cache", "result", "hit");
+        this.misses = meterRegistry.counter("booking.availability.cache", "result", "miss");
+    }
+
+    /**
+     * Returns the serialized default window of today, when it reflects the current state of the calendar
+     *
+     * @return Optional<DefaultAvailability>
+     */
+    public Optional<DefaultAvailability> getDefaultAvailability() {
+        if (!this.enabled || !this.calendarIndex.isLoaded()) {
+            return Optional.empty();
+        }
+        DefaultAvailability response = this.responses.get(LocalDate.now());
+        if (response == null || response.version != this.calendarIndex.getVersion()) {
+            this.misses.increment();
+            this.scheduleRegeneration();
+            return Optional.empty();
+        }
+        this.hits.increment();
+        return Optional.of(response);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookingChanged(BookingChangedEvent event) {
+        this.scheduleRegeneration();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRemoteBookingChanged(RemoteBookingChangedEvent event) {
+        this.scheduleRegeneration();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCalendarClosed(CalendarClosedEvent event) {
+        this.scheduleRegeneration();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookingBatch(BookingBatchEvent event) {
+        this.scheduleRegeneration();
+    }
+
+    /**
+     * Builds the missing or outdated bodies, covers the index load at startup and the date rollover
+     */
+    @Scheduled(fixedDelayString = "${booking.availability.cache.refresh-interval-ms:60000}", initialDelay = 1000)
+    public void refresh() {
+        if (!this.enabled || !this.calendarIndex.isLoaded()) {
+            return;
+        }
+        Map<LocalDate, DefaultAvailability> current = this.responses;
+        for (LocalDate day : this.daysToServe()) {
+            DefaultAvailability response = current.get(day);
+            if (response == null || response.version != this.calendarIndex.getVersion()) {
+                this.scheduleRegeneration();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Serializes the default window of today, and of tomorrow close to midnight, until the
+     * index does not change while doing it
+     */
+    public void regenerate() {
+        for (int i = 0; i < MAX_REGENERATIONS; i++) {
+            long version = this.calendarIndex.getVersion();
+            Map<LocalDate, DefaultAvailability> next = new HashMap<>();
+            try {
+                for (LocalDate day : this.daysToServe()) {
+                    next.put(day, this.serialize(day, version));
+                }
+            } catch (IOException e) {
+                LOGGER.warn("Could not serialize the default availability", e);
+                return;
+            }
+            this.responses = next;
+            if (version == this.calendarIndex.getVersion()) {
+                return;
+            }
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        this.executor.shutdownNow();
+    }
+
+    private void scheduleRegeneration() {
+        if (this.enabled && this.calendarIndex.isLoaded() && this.regenerationQueued.compareAndSet(false, true)) {
+            this.executor.execute(() -> {
+                // cleared first, a change arriving from now on queues another regeneration
+                this.regenerationQueued.set(false);
+                this.regenerate();
+            });
+        }
+    }
+
+    private LocalDate[] daysToServe() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDate today = now.toLocalDate();
+        if (now.plusMinutes(this.rolloverLeadMinutes).toLocalDate().isAfter(today)) {
+            return new LocalDate[]{today, today.plusDays(1)};
+        }
+        return new LocalDate[]{today};
+    }
+
+    private DefaultAvailability serialize(LocalDate today, long version) throws IOException {
+        // same window as AvailabilityController when from and to are not given
+        LocalDate from = today.plusDays(1);
+        LocalDate to = from.plusDays(30);
+        AvailabilityDTO availability = AvailabilityDTO.builder().from(from).to(to)
+                .availableDates(this.availabilityService.getAvailableDates(from, to)).build();
+        byte[] json = this.objectMapper.writeValueAsBytes(availability);
+        ByteArrayOutputStream gzip = new ByteArrayOutputStream(json.length / 2);
+        try (GZIPOutputStream output = new GZIPOutputStream(gzip)) {
+            output.write(json);
+        }
+        return new DefaultAvailability(version, json, gzip.toByteArray());
+    }
+
+    /**
+     * Serialized default availability window, the arrays are shared and must not be modified
+     */
+    public static final class DefaultAvailability {
+
+        private final long version;
+        private final byte[] json;
+        private final byte[] gzip;
+
+        DefaultAvailability(long version, byte[] json, byte[] gzip) {
+            this.version = version;
+            this.json = json;
+            this.gzip = gzip;
+        }
+
+        public byte[] getJson() {
+            return this.json;
+        }
+
+        public byte[] getGzip() {
+            return this.gzip;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.island.bookingapi.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent identical lookups: the first caller of a key runs it, the callers arriving
+ * while it runs wait for its result, or its exception, instead of running it again.
+ * <p>
+ * Nothing is kept once the lookup completes, a later call runs it again. Callers that wait longer than
+ * the timeout run the lookup themselves. Calls inside a read-write transaction always run on their own,
+ * they must see the changes of their transaction. Results are shared between threads and must not be modified.
+ *
+ * @param <K> key of the lookup
+ * @param <V> result of the lookup
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentMap<K, CompletableFuture<V>> flights = new ConcurrentHashMap<>();
+    private final long timeoutNanos;
+    private final Counter leaders;
+    private final Counter shared;
+    private final Counter timeouts;
+
+    public SingleFlight(String name, Duration timeout, MeterRegistry meterRegistry) {
+        this.timeoutNanos = timeout.toNanos();
+        this.leaders = meterRegistry.counter("booking.singleflight.calls", "flight", name, "result", "leader");
+        this.shared = meterRegistry.counter("booking.singleflight.calls", "flight", name, "result", "shared");
+        this.timeouts = meterRegistry.counter("booking.singleflight.calls", "flight", name, "result", "timeout");
+        Gauge.builder("booking.singleflight.coalescing.ratio", this, SingleFlight::coalescingRatio)
+                .description("Share of the calls answered by a lookup run for another caller")
+                .tag("flight", name).register(meterRegistry);
+    }
+
+    /**
+     * Returns the result of the lookup of the key, running it only when no other caller is running it
+     *
+     * @param key    key of the lookup
+     * @param lookup lookup to run
+     * @return V
+     */
+    public V execute(K key, Supplier<V> lookup) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return lookup.get();
+        }
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> running = this.flights.putIfAbsent(key, flight);
+        if (running != null) {
+            return this.await(running, lookup);
+        }
+        this.leaders.increment();
+        try {
+            V value = lookup.get();
+            flight.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            this.flights.remove(key, flight);
+        }
+    }
+
+    boolean isRunning(K key) {
+        return this.flights.containsKey(key);
+    }
+
+    double coalescingRatio() {
+        double total = this.leaders.count() + this.shared.count() + this.timeouts.count();
+        return total == 0 ? 0 : this.shared.count() / total;
+    }
+
+    private V await(CompletableFuture<V> running, Supplier<V> lookup) {
+        try {
+            V value = running.get(this.timeoutNanos, TimeUnit.NANOSECONDS);
+            this.shared.increment();
+            return value;
+        } catch (TimeoutException e) {
+            this.timeouts.increment();
+            return lookup.get();
+        } catch (ExecutionException e) {
+            this.shared.increment();
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw (Error) e.getCause();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted waiting for a concurrent lookup", e);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.island.bookingapi.calendar;
+
+import com.island.bookingapi.model.CalendarChange;
+import com.island.bookingapi.repository.CalendarChangeRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Records which days of the calendar every write touched, one row per write with its first and last day,
+ * so a node starting from a calendar snapshot reads again only those days.
+ * <p>
+ * Every write of {@code calendar_availability} records its days in the same transaction: bookings, blackouts
+ * and reconciler repairs alike. Rows older than {@code booking.calendar.change-log.retention-hours} are pruned,
+ * a snapshot older than that is not replayed. A change made by hand in the database must add its row too.
+ */
+@Component
+@ConditionalOnProperty(name = "booking.storage.engine", havingValue = "jpa", matchIfMissing = true)
+public class CalendarChangeLog {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CalendarChangeLog.class);
+
+    private final CalendarChangeRepository calendarChangeRepository;
+    private final long retentionHours;
+
+    public CalendarChangeLog(CalendarChangeRepository calendarChangeRepository,
+                             @Value("${booking.calendar.change-log.retention-hours:72}") long retentionHours) {
+        this.calendarChangeRepository = calendarChangeRepository;
+        this.retentionHours = retentionHours;
+    }
+
+    /**
+     * Records the days inserted or deleted, to be called in the transaction writing them
+     *
+     * @param days days written
+     */
+    public void record(Collection<LocalDate> days) {
+        if (days.isEmpty()) {
+            return;
+        }
+        LocalDate from = Collections.min(days);
+        LocalDate to = Collections.max(days);
+        this.calendarChangeRepository.save(new CalendarChange(from, to));
+    }
+
+    /**
+     * Returns the days changed since the given time, overlapping ranges merged, or empty if the log
+     * does not go that far back
+     *
+     * @param since time of the oldest change
+     * @return Optional<List<EpochDayRange>>
+     */
+    public Optional<List<EpochDayRange>> changedSince(LocalDateTime since) {
+        if (since.isBefore(LocalDateTime.now().minusHours(this.retentionHours))) {
+            return Optional.empty();
+        }
+        List<EpochDayRange> ranges = new ArrayList<>();
+        LocalDate from = null;
+        LocalDate to = null;
+        // ordered by first day, a range starting after the last day of the previous one opens a new range
+        for (CalendarChange change : this.calendarChangeRepository.findChangedSince(since)) {
+            if (from != null && change.getFromDay().isAfter(to.plusDays(1))) {
+                ranges.add(EpochDayRange.ofDays(from, to));
+                from = null;
+            }
+            if (from == null) {
+                from = change.getFromDay();
+                to = change.getToDay();
+            } else if (change.getToDay().isAfter(to)) {
+                to = change.getToDay();
+            }
+        }
+        if (from != null) {
+            ranges.add(EpochDayRange.ofDays(from, to));
+        }
+        return Optional.of(ranges);
+    }
+
+    @Scheduled(cron = "${booking.calendar.change-log.prune-cron:0 15 3 * * *}")
+    @Transactional
+    public void prune() {
+        int rows = this.calendarChangeRepository.deleteChangedBefore(LocalDateTime.now().minusHours(this.retentionHours));
+        LOGGER.info("Calendar change log pruned, {} rows deleted", rows);
+    }
+}
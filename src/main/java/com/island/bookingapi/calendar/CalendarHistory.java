@@ -0,0 +1,173 @@
+package com.island.bookingapi.calendar;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Past versions of the CalendarIndex, one per committed change, so the availability shown at a given
+ * instant can be answered without going back to the database.
+ * <p>
+ * Each version is a {@link PersistentBitmap} sharing its unchanged nodes with the previous one, a booking
+ * costs a few nodes per changed word. Versions older than {@code booking.calendar.history.retention-hours}
+ * are dropped, and the oldest ones go earlier when the estimated size goes over
+ * {@code booking.calendar.history.max-memory-mb}. Versions are timed when this instance applied the change,
+ * which follows the commit by the event delivery, and by the cluster notice for changes of other instances.
+ */
+@Component
+public class CalendarHistory implements CalendarIndex.ChangeListener {
+
+    private static final int VERSION_BYTES = 64;
+
+    private final long retentionMillis;
+    private final long maxBytes;
+    private Version[] versions = new Version[64];
+    private int head;
+    private int size;
+    private long bytes;
+    private long[] lastWords = new long[0];
+
+    public CalendarHistory(CalendarIndex calendarIndex, MeterRegistry meterRegistry,
+                           @Value("${booking.calendar.history.enabled:true}") boolean enabled,
+                           @Value("${booking.calendar.history.retention-hours:72}") long retentionHours,
+                           @Value("${booking.calendar.history.max-memory-mb:32}") long maxMemoryMb) {
+        this.retentionMillis = TimeUnit.HOURS.toMillis(retentionHours);
+        this.maxBytes = maxMemoryMb * 1024 * 1024;
+        if (enabled) {
+            calendarIndex.addChangeListener(this);
+            meterRegistry.gauge("booking.calendar.history.versions", this, CalendarHistory::getSize);
+            meterRegistry.gauge("booking.calendar.history.bytes", this, CalendarHistory::getBytes);
+        }
+    }
+
+    @Override
+    public void onChange(long version, long[] words) {
+        this.record(words, System.currentTimeMillis());
+    }
+
+    /**
+     * Returns the days not booked in the given range, both ends included, as the calendar was at the given instant
+     *
+     * @param from first day
+     * @param to   last day
+     * @param asOf instant of the calendar
+     * @return the available days, empty when the instant is not retained
+     */
+    public Optional<List<LocalDate>> getAvailableDates(LocalDate from, LocalDate to, LocalDateTime asOf) {
+        Optional<PersistentBitmap> bitmap = this.versionAt(asOf.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+        if (bitmap.isEmpty()) {
+            return Optional.empty();
+        }
+        List<LocalDate> availableDates = new ArrayList<>();
+        for (long day = from.toEpochDay(); day <= to.toEpochDay(); day++) {
+            if (!bitmap.get().isSet(day)) {
+                availableDates.add(LocalDate.ofEpochDay(day));
+            }
+        }
+        return Optional.of(availableDates);
+    }
+
+    @Scheduled(fixedDelayString = "${booking.calendar.history.evict-interval-ms:60000}")
+    public synchronized void evictExpired() {
+        this.evict(System.currentTimeMillis());
+    }
+
+    synchronized void record(long[] words, long atMillis) {
+        PersistentBitmap previous = this.size == 0 ? PersistentBitmap.EMPTY : this.get(this.size - 1).bitmap;
+        PersistentBitmap next = previous;
+        long changedWords = 0;
+        for (int i = 0; i < Math.max(words.length, this.lastWords.length); i++) {
+            long word = i < words.length ? words[i] : 0;
+            if (word != (i < this.lastWords.length ? this.lastWords[i] : 0)) {
+                next = next.withWord(i, word);
+                changedWords++;
+            }
+        }
+        this.lastWords = words;
+        if (this.size == this.versions.length) {
+            this.versions = this.toArray(this.versions.length * 2);
+            this.head = 0;
+        }
+        Version recorded = new Version(atMillis, next, VERSION_BYTES + changedWords * next.pathLength() * PersistentBitmap.NODE_BYTES);
+        this.versions[(this.head + this.size) % this.versions.length] = recorded;
+        this.size++;
+        this.bytes += recorded.bytes;
+        this.evict(atMillis);
+    }
+
+    /**
+     * Finds the last version recorded at or before the instant, by binary search
+     */
+    synchronized Optional<PersistentBitmap> versionAt(long atMillis) {
+        int low = 0;
+        int high = this.size - 1;
+        Version found = null;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            Version version = this.get(middle);
+            if (version.atMillis <= atMillis) {
+                found = version;
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return Optional.ofNullable(found).map(version -> version.bitmap);
+    }
+
+    synchronized int getSize() {
+        return this.size;
+    }
+
+    synchronized long getBytes() {
+        return this.bytes;
+    }
+
+    /**
+     * Drops the oldest versions over the memory budget, and the ones replaced before the retention.
+     * The newest version always stays, it is the current state of the calendar
+     */
+    private void evict(long nowMillis) {
+        long retainedFrom = nowMillis - this.retentionMillis;
+        while (this.size > 1 && (this.bytes > this.maxBytes || this.get(1).atMillis <= retainedFrom)) {
+            this.bytes -= this.versions[this.head].bytes;
+            this.versions[this.head] = null;
+            this.head = (this.head + 1) % this.versions.length;
+            this.size--;
+        }
+    }
+
+    private Version get(int index) {
+        return this.versions[(this.head + index) % this.versions.length];
+    }
+
+    private Version[] toArray(int length) {
+        Version[] copy = new Version[length];
+        for (int i = 0; i < this.size; i++) {
+            copy[i] = this.get(i);
+        }
+        return copy;
+    }
+
+    private static final class Version {
+
+        private final long atMillis;
+        private final PersistentBitmap bitmap;
+        private final long bytes;
+
+        Version(long atMillis, PersistentBitmap bitmap, long bytes) {
+            this.atMillis = atMillis;
+            this.bitmap = bitmap;
+            this.bytes = bytes;
+        }
+    }
+}
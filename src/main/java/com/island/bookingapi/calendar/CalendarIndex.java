@@ -0,0 +1,253 @@
+package com.island.bookingapi.calendar;
+
+import com.island.bookingapi.event.BookingBatchEvent;
+import com.island.bookingapi.event.BookingChangeType;
+import com.island.bookingapi.event.BookingChangedEvent;
+import com.island.bookingapi.event.CalendarClosedEvent;
+import com.island.bookingapi.event.RemoteBookingChangedEvent;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * In memory bitmap of the booked days of the calendar, indexed by epoch day.
+ * <p>
+ * Readers never lock, every write publishes a new copy of the bitmap.
+ * The index is only used to answer queries once it has been loaded, until then
+ * callers must go to the database. Listeners see every published bitmap, in version order.
+ */
+@Component
+public class CalendarIndex {
+
+    private volatile long[] words = new long[0];
+    private volatile long version;
+    private volatile boolean loaded;
+    private List<BookingChangedEvent> pendingChanges;
+    private final List<ChangeListener> listeners = new CopyOnWriteArrayList<>();
+
+    public void addChangeListener(ChangeListener listener) {
+        this.listeners.add(listener);
+    }
+
+    public boolean isLoaded() {
+        return this.loaded;
+    }
+
+    /**
+     * @return number of changes applied to the index since it was loaded
+     */
+    public long getVersion() {
+        return this.version;
+    }
+
+    /**
+     * Returns a copy of the bitmap, bit {@code n} is set when the epoch day {@code n} is booked
+     *
+     * @return long[]
+     */
+    public long[] copyWords() {
+        long[] current = this.words;
+        return Arrays.copyOf(current, current.length);
+    }
+
+    public boolean isBooked(LocalDate day) {
+        return isSet(this.words, day.toEpochDay());
+    }
+
+    /**
+     * Returns the days not booked in the given range, both ends included
+     *
+     * @param from first day
+     * @param to   last day
+     * @return List<LocalDate>
+     */
+    public List<LocalDate> getAvailableDates(LocalDate from, LocalDate to) {
+        long[] current = this.words;
+        long start = from.toEpochDay();
+        long end = to.toEpochDay();
+        List<LocalDate> availableDates = new ArrayList<>((int) Math.max(0, end - start + 1));
+        for (long day = start; day <= end; day++) {
+            if (!isSet(current, day)) {
+                availableDates.add(LocalDate.ofEpochDay(day));
+            }
+        }
+        return availableDates;
+    }
+
+    /**
+     * Returns the booked days in the given range, both ends included
+     *
+     * @param from first day
+     * @param to   last day
+     * @return List<LocalDate>
+     */
+    public List<LocalDate> getBookedDates(LocalDate from, LocalDate to) {
+        long[] current = this.words;
+        List<LocalDate> bookedDates = new ArrayList<>();
+        for (long day = from.toEpochDay(); day <= to.toEpochDay(); day++) {
+            if (isSet(current, day)) {
+                bookedDates.add(LocalDate.ofEpochDay(day));
+            }
+        }
+        return bookedDates;
+    }
+
+    /**
+     * Starts a load of the index. Changes committed while the load is running are
+     * recorded and replayed on top of the loaded bitmap by {@link #completeLoad(long[])}.
+     */
+    public synchronized void beginLoad() {
+        this.pendingChanges = new ArrayList<>();
+    }
+
+    /**
+     * Installs the loaded bitmap and starts serving queries from the index
+     *
+     * @param loadedWords bitmap indexed by epoch day
+     */
+    public synchronized void completeLoad(long[] loadedWords) {
+        long[] next = Arrays.copyOf(loadedWords, loadedWords.length);
+        if (this.pendingChanges != null) {
+            for (BookingChangedEvent change : this.pendingChanges) {
+                next = apply(next, change.getReleasedDays(), false);
+                next = apply(next, change.getBookedDays(), true);
+            }
+            this.pendingChanges = null;
+        }
+        this.loaded = true;
+        this.publish(next);
+    }
+
+    /**
+     * Replaces the days of the given range with the loaded ones, the days outside of it are kept.
+     * Like a load it must be started with {@link #beginLoad()}
+     *
+     * @param from       first day reloaded
+     * @param to         last day reloaded
+     * @param bookedDays booked days of the range
+     */
+    public synchronized void completeReload(LocalDate from, LocalDate to, Collection<LocalDate> bookedDays) {
+        long[] next = Arrays.copyOf(this.words, this.words.length);
+        for (long day = from.toEpochDay(); day <= to.toEpochDay(); day++) {
+            clearBit(next, day);
+        }
+        this.completeLoad(apply(next, bookedDays, true));
+    }
+
+    /**
+     * Keeps the index in sync with the bookings committed by this instance
+     *
+     * @param event BookingChangedEvent
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onBookingChanged(BookingChangedEvent event) {
+        if (this.pendingChanges != null) {
+            this.pendingChanges.add(event);
+        }
+        if (!this.loaded) {
+            return;
+        }
+        long[] next = apply(this.words, event.getReleasedDays(), false);
+        this.publish(apply(next, event.getBookedDays(), true));
+    }
+
+    /**
+     * Keeps the index in sync with the bookings committed by the other instances, through the cluster invalidation
+     *
+     * @param event RemoteBookingChangedEvent
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRemoteBookingChanged(RemoteBookingChangedEvent event) {
+        this.onBookingChanged(event.getChange());
+    }
+
+    /**
+     * Applies a whole blackout at once
+     *
+     * @param event CalendarClosedEvent
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCalendarClosed(CalendarClosedEvent event) {
+        this.onBookingChanged(new BookingChangedEvent(null, BookingChangeType.UPDATED, event.getReleasedDays(), event.getClosedDays()));
+    }
+
+    /**
+     * Applies the net change of a batch of operations at once
+     *
+     * @param event BookingBatchEvent
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookingBatch(BookingBatchEvent event) {
+        this.onBookingChanged(new BookingChangedEvent(null, BookingChangeType.UPDATED, event.getReleasedDays(), event.getBookedDays()));
+    }
+
+    /**
+     * Builds the bitmap of the given booked days, to be installed with {@link #completeLoad(long[])}
+     *
+     * @param bookedDays booked days
+     * @return long[]
+     */
+    public static long[] bitmapOf(Collection<LocalDate> bookedDays) {
+        return apply(new long[0], bookedDays, true);
+    }
+
+    private void publish(long[] next) {
+        this.words = next;
+        this.version++;
+        for (ChangeListener listener : this.listeners) {
+            listener.onChange(this.version, next);
+        }
+    }
+
+    static long[] setBit(long[] words, long epochDay) {
+        int index = (int) (epochDay >>> 6);
+        long[] target = index < words.length ? words : Arrays.copyOf(words, Math.max(index + 1, words.length * 2));
+        target[index] |= 1L << epochDay;
+        return target;
+    }
+
+    static void clearBit(long[] words, long epochDay) {
+        if (isSet(words, epochDay)) {
+            words[(int) (epochDay >>> 6)] &= ~(1L << epochDay);
+        }
+    }
+
+    private static long[] apply(long[] source, Collection<LocalDate> days, boolean booked) {
+        if (days == null || days.isEmpty()) {
+            return source;
+        }
+        long[] next = Arrays.copyOf(source, source.length);
+        for (LocalDate day : days) {
+            long epochDay = day.toEpochDay();
+            if (booked) {
+                next = setBit(next, epochDay);
+            } else {
+                clearBit(next, epochDay);
+            }
+        }
+        return next;
+    }
+
+    private static boolean isSet(long[] words, long epochDay) {
+        int index = (int) (epochDay >>> 6);
+        return epochDay >= 0 && index < words.length && (words[index] & (1L << epochDay)) != 0;
+    }
+
+    /**
+     * Notified with every bitmap published, while the index is locked
+     */
+    public interface ChangeListener {
+
+        /**
+         * @param version version of the index
+         * @param words   published bitmap, never modified afterwards
+         */
+        void onChange(long version, long[] words);
+    }
+}
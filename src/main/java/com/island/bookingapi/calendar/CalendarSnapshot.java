@@ -0,0 +1,24 @@
+package com.island.bookingapi.calendar;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Booked days bitmap of the CalendarIndex together with the time it was copied at.
+ */
+@Getter
+@RequiredArgsConstructor
+public class CalendarSnapshot {
+
+    /**
+     * Bit n is set when the epoch day n is booked
+     */
+    private final long[] words;
+
+    /**
+     * Every change committed before this time, in epoch millis, is in the bitmap. The calendar change log
+     * rows written after it are the days to read again
+     */
+    private final long createdAt;
+
+}
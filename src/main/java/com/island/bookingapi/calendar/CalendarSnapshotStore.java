@@ -0,0 +1,89 @@
+package com.island.bookingapi.calendar;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+
+/**
+ * Reads and writes calendar snapshots as memory mapped files.
+ * <p>
+ * Layout: magic (int), format (int), created at (long), word count (int) followed by the bitmap words.
+ */
+public class CalendarSnapshotStore {
+
+    private static final int MAGIC = 0x424b4353;
+    // 3: created at is the watermark of the calendar change log, older snapshots predate it
+    private static final int FORMAT = 3;
+    private static final int HEADER_SIZE = 4 + 4 + 8 + 4;
+    private static final Logger LOGGER = LoggerFactory.getLogger(CalendarSnapshotStore.class);
+
+    private final Path path;
+
+    public CalendarSnapshotStore(Path path) {
+        this.path = path;
+    }
+
+    /**
+     * Maps the snapshot file, returns empty if there is no snapshot or it cannot be read
+     *
+     * @return Optional<CalendarSnapshot>
+     */
+    public Optional<CalendarSnapshot> read() {
+        if (!Files.isRegularFile(this.path)) {
+            return Optional.empty();
+        }
+        try (FileChannel channel = FileChannel.open(this.path, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE) {
+                LOGGER.warn("Ignoring truncated calendar snapshot {}", this.path);
+                return Optional.empty();
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT) {
+                LOGGER.warn("Ignoring calendar snapshot {} with unknown format", this.path);
+                return Optional.empty();
+            }
+            long createdAt = buffer.getLong();
+            int wordCount = buffer.getInt();
+            if (wordCount < 0 || buffer.remaining() < wordCount * 8L) {
+                LOGGER.warn("Ignoring truncated calendar snapshot {}", this.path);
+                return Optional.empty();
+            }
+            long[] words = new long[wordCount];
+            buffer.asLongBuffer().get(words);
+            return Optional.of(new CalendarSnapshot(words, createdAt));
+        } catch (IOException e) {
+            LOGGER.warn("Could not read calendar snapshot {}", this.path, e);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Writes the snapshot to a temporary file and moves it over the previous one,
+     * so a crash never leaves a half written snapshot behind
+     *
+     * @param snapshot CalendarSnapshot
+     * @throws IOException if the snapshot cannot be written
+     */
+    public void write(CalendarSnapshot snapshot) throws IOException {
+        Path directory = this.path.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temporary = directory.resolve(this.path.getFileName() + ".tmp");
+        long size = HEADER_SIZE + snapshot.getWords().length * 8L;
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.putInt(MAGIC).putInt(FORMAT).putLong(snapshot.getCreatedAt()).putInt(snapshot.getWords().length);
+            buffer.asLongBuffer().put(snapshot.getWords());
+            buffer.force();
+        }
+        Files.move(temporary, this.path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
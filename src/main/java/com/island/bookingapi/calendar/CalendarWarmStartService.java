@@ -0,0 +1,149 @@
+package com.island.bookingapi.calendar;
+
+import com.island.bookingapi.repository.CalendarAvailableRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loads the CalendarIndex at startup from the last calendar snapshot plus the changes
+ * committed after it, and keeps the snapshot up to date in the background.
+ * <p>
+ * The snapshot is a copy of the index taken at a known time, the {@link CalendarChangeLog} rows written
+ * since then, less {@code booking.calendar.snapshot.settle-seconds} for the transactions still running and
+ * the clocks of the other instances, tell which days must be read again. A snapshot older than the change
+ * log is dropped and the bookable window read.
+ */
+@Service
+@Order(0)
+@ConditionalOnProperty(name = "booking.calendar.snapshot.enabled", havingValue = "true")
+public class CalendarWarmStartService implements ApplicationRunner {
+
+    private final CalendarAvailableRepository calendarAvailableRepository;
+    private final CalendarChangeLog calendarChangeLog;
+    private final CalendarIndex calendarIndex;
+    private final CalendarSnapshotStore snapshotStore;
+    private final TransactionTemplate transactionTemplate;
+    private final long settleSeconds;
+    private static final Logger LOGGER = LoggerFactory.getLogger(CalendarWarmStartService.class);
+
+    public CalendarWarmStartService(CalendarAvailableRepository calendarAvailableRepository, CalendarChangeLog calendarChangeLog,
+                                    CalendarIndex calendarIndex,
+                                    PlatformTransactionManager transactionManager,
+                                    @Value("${booking.calendar.snapshot.path}") String snapshotPath,
+                                    @Value("${booking.calendar.snapshot.settle-seconds:60}") long settleSeconds) {
+        this.calendarAvailableRepository = calendarAvailableRepository;
+        this.calendarChangeLog = calendarChangeLog;
+        this.calendarIndex = calendarIndex;
+        this.snapshotStore = new CalendarSnapshotStore(Paths.get(snapshotPath));
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.transactionTemplate.setReadOnly(true);
+        this.settleSeconds = settleSeconds;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        this.warmStart();
+    }
+
+    /**
+     * Loads the CalendarIndex. When a snapshot exists only the days the changes made since it may have touched
+     * are read, otherwise the bookable window (today onwards).
+     */
+    public void warmStart() {
+        long start = System.nanoTime();
+        this.calendarIndex.beginLoad();
+        Optional<CalendarSnapshot> snapshot = this.snapshotStore.read();
+        long[] words = snapshot.map(this::replay).orElseGet(this::loadBookableWindow);
+        this.calendarIndex.completeLoad(words);
+        LOGGER.info("Calendar index loaded {} in {} ms", snapshot.isPresent() ? "from snapshot" : "from database",
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    /**
+     * Writes a new snapshot of the CalendarIndex, the database is not read
+     */
+    @Scheduled(fixedDelayString = "${booking.calendar.snapshot.interval-ms:60000}",
+            initialDelayString = "${booking.calendar.snapshot.interval-ms:60000}")
+    public void writeSnapshot() {
+        if (!this.calendarIndex.isLoaded()) {
+            return;
+        }
+        // taken before the copy, every change committed before it is already in the index
+        long createdAt = System.currentTimeMillis();
+        CalendarSnapshot snapshot = new CalendarSnapshot(this.calendarIndex.copyWords(), createdAt);
+        try {
+            this.snapshotStore.write(snapshot);
+            LOGGER.info("Calendar snapshot written at version {}", this.calendarIndex.getVersion());
+        } catch (IOException e) {
+            LOGGER.warn("Could not write calendar snapshot", e);
+        }
+    }
+
+    @EventListener(ContextClosedEvent.class)
+    public void shutdown() {
+        this.writeSnapshot();
+    }
+
+    /**
+     * Reads again the days changed since the snapshot, in the same transaction as the change log so no change
+     * falls between the two reads
+     */
+    private long[] replay(CalendarSnapshot snapshot) {
+        LocalDateTime since = LocalDateTime.ofInstant(Instant.ofEpochMilli(snapshot.getCreatedAt()), ZoneId.systemDefault())
+                .minusSeconds(this.settleSeconds);
+        return this.transactionTemplate.execute(status -> {
+            Optional<List<EpochDayRange>> changed = this.calendarChangeLog.changedSince(since);
+            if (changed.isEmpty()) {
+                LOGGER.info("Calendar snapshot older than the change log, reading the bookable window");
+                return this.readBookableWindow();
+            }
+            long[] words = snapshot.getWords().clone();
+            for (EpochDayRange range : changed.get()) {
+                for (int day = range.getStart(); day < range.getEnd(); day++) {
+                    CalendarIndex.clearBit(words, day);
+                }
+                for (LocalDate day : this.calendarAvailableRepository.getBookedDates(LocalDate.ofEpochDay(range.getStart()),
+                        LocalDate.ofEpochDay(range.getEnd() - 1L))) {
+                    words = CalendarIndex.setBit(words, day.toEpochDay());
+                }
+            }
+            LOGGER.info("Calendar snapshot replayed, {} ranges read again", changed.get().size());
+            return words;
+        });
+    }
+
+    private long[] loadBookableWindow() {
+        return this.transactionTemplate.execute(status -> this.readBookableWindow());
+    }
+
+    private long[] readBookableWindow() {
+        long[] words = new long[0];
+        for (LocalDate day : this.calendarAvailableRepository.getBookedDatesFrom(LocalDate.now())) {
+            words = CalendarIndex.setBit(words, day.toEpochDay());
+        }
+        return words;
+    }
+}
@@ -0,0 +1,195 @@
+package com.island.bookingapi.calendar;
+
+import java.time.LocalDate;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.function.IntConsumer;
+
+/**
+ * Consecutive days as a pair of epoch days, the start included and the end excluded, so a stay is the range
+ * of its nights from the arrival to the departure.
+ * <p>
+ * The services work on ranges and only turn them into {@link LocalDate}s where a list of days is handed on:
+ * {@link #asDates()} is a view creating each date when it is read, iterating with {@link #forEachDay(IntConsumer)}
+ * creates none.
+ */
+public final class EpochDayRange {
+
+    public static final EpochDayRange EMPTY = new EpochDayRange(0, 0);
+
+    private final int start;
+    private final int end;
+
+    private EpochDayRange(int start, int end) {
+        this.start = start;
+        this.end = Math.max(start, end);
+    }
+
+    /**
+     * @param arrivalDate   first night
+     * @param departureDate day after the last night
+     * @return the nights of the stay
+     */
+    public static EpochDayRange ofStay(LocalDate arrivalDate, LocalDate departureDate) {
+        return new EpochDayRange(Math.toIntExact(arrivalDate.toEpochDay()), Math.toIntExact(departureDate.toEpochDay()));
+    }
+
+    /**
+     * @param from first day
+     * @param to   last day, included
+     * @return the days from one to the other
+     */
+    public static EpochDayRange ofDays(LocalDate from, LocalDate to) {
+        return new EpochDayRange(Math.toIntExact(from.toEpochDay()), Math.toIntExact(to.toEpochDay()) + 1);
+    }
+
+    public int getStart() {
+        return this.start;
+    }
+
+    public int getEnd() {
+        return this.end;
+    }
+
+    public int length() {
+        return this.end - this.start;
+    }
+
+    public boolean isEmpty() {
+        return this.start == this.end;
+    }
+
+    public boolean contains(long epochDay) {
+        return epochDay >= this.start && epochDay < this.end;
+    }
+
+    public boolean contains(LocalDate day) {
+        return this.contains(day.toEpochDay());
+    }
+
+    public boolean contains(EpochDayRange other) {
+        return other.isEmpty() || (other.start >= this.start && other.end <= this.end);
+    }
+
+    public boolean overlaps(EpochDayRange other) {
+        return this.start < other.end && other.start < this.end && !this.isEmpty() && !other.isEmpty();
+    }
+
+    /**
+     * @param other range
+     * @return the days of both ranges, empty when they do not overlap
+     */
+    public EpochDayRange intersection(EpochDayRange other) {
+        return this.overlaps(other) ? new EpochDayRange(Math.max(this.start, other.start), Math.min(this.end, other.end)) : EMPTY;
+    }
+
+    /**
+     * Calls the action with every epoch day of the range, in ascending order
+     *
+     * @param action action
+     */
+    public void forEachDay(IntConsumer action) {
+        for (int day = this.start; day < this.end; day++) {
+            action.accept(day);
+        }
+    }
+
+    /**
+     * @return the days of the range as an unmodifiable view
+     */
+    public List<LocalDate> asDates() {
+        return new DatesView(this, EMPTY);
+    }
+
+    /**
+     * Returns the days of this range not in the other one, at most a run before it and a run after it
+     *
+     * @param other range taken out
+     * @return unmodifiable view of the days, in ascending order
+     */
+    public List<LocalDate> datesNotIn(EpochDayRange other) {
+        if (!this.overlaps(other)) {
+            return this.asDates();
+        }
+        return new DatesView(new EpochDayRange(this.start, other.start), new EpochDayRange(other.end, this.end));
+    }
+
+    /**
+     * Returns the days of the range missing from the given ones, the list returned is the only allocation
+     *
+     * @param days days taken out, any order
+     * @return List<LocalDate> in ascending order
+     */
+    public List<LocalDate> datesExcept(Collection<LocalDate> days) {
+        BitSet excluded = new BitSet(this.length());
+        for (LocalDate day : days) {
+            if (this.contains(day)) {
+                excluded.set((int) (day.toEpochDay() - this.start));
+            }
+        }
+        List<LocalDate> dates = new ArrayList<>(this.length() - excluded.cardinality());
+        for (int offset = excluded.nextClearBit(0); offset < this.length(); offset = excluded.nextClearBit(offset + 1)) {
+            dates.add(LocalDate.ofEpochDay(this.start + offset));
+        }
+        return dates;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof EpochDayRange)) {
+            return false;
+        }
+        EpochDayRange other = (EpochDayRange) o;
+        return (this.isEmpty() && other.isEmpty()) || (this.start == other.start && this.end == other.end);
+    }
+
+    @Override
+    public int hashCode() {
+        return this.isEmpty() ? 0 : 31 * this.start + this.end;
+    }
+
+    @Override
+    public String toString() {
+        return "[" + LocalDate.ofEpochDay(this.start) + ", " + LocalDate.ofEpochDay(this.end) + ")";
+    }
+
+    /**
+     * Days of one run followed by another
+     */
+    private static final class DatesView extends AbstractList<LocalDate> implements RandomAccess {
+
+        private final EpochDayRange first;
+        private final EpochDayRange second;
+
+        DatesView(EpochDayRange first, EpochDayRange second) {
+            this.first = first;
+            this.second = second;
+        }
+
+        @Override
+        public LocalDate get(int index) {
+            if (index < 0 || index >= this.size()) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + this.size());
+            }
+            int firstLength = this.first.length();
+            return LocalDate.ofEpochDay(index < firstLength ? this.first.start + index : this.second.start + index - firstLength);
+        }
+
+        @Override
+        public int size() {
+            return this.first.length() + this.second.length();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return o instanceof LocalDate && (this.first.contains((LocalDate) o) || this.second.contains((LocalDate) o));
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.island.bookingapi.calendar;
+
+/**
+ * Immutable bitmap indexed by epoch day, stored as a binary tree over its 64-bit words.
+ * <p>
+ * Changing a word copies only the path from the root to its leaf, every other node is shared with the
+ * bitmap it was derived from, so keeping a bitmap per calendar version costs a few nodes per changed word.
+ * Reads and writes are O(log n) in the number of words.
+ */
+final class PersistentBitmap {
+
+    /**
+     * Estimated heap size of a node: header, two references and a long
+     */
+    static final int NODE_BYTES = 32;
+
+    static final PersistentBitmap EMPTY = new PersistentBitmap(null, 0);
+
+    private final Node root;
+    /**
+     * Levels below the root, the tree covers {@code 2^depth} words
+     */
+    private final int depth;
+
+    private PersistentBitmap(Node root, int depth) {
+        this.root = root;
+        this.depth = depth;
+    }
+
+    /**
+     * Builds the bitmap of the given words, bit {@code n} is set when the epoch day {@code n} is booked
+     *
+     * @param words bitmap as kept by the CalendarIndex
+     * @return PersistentBitmap
+     */
+    static PersistentBitmap of(long[] words) {
+        PersistentBitmap bitmap = EMPTY;
+        for (int i = 0; i < words.length; i++) {
+            if (words[i] != 0) {
+                bitmap = bitmap.withWord(i, words[i]);
+            }
+        }
+        return bitmap;
+    }
+
+    boolean isSet(long epochDay) {
+        return epochDay >= 0 && (this.getWord((int) (epochDay >>> 6)) & (1L << epochDay)) != 0;
+    }
+
+    long getWord(int index) {
+        if (index >= 1L << this.depth) {
+            return 0;
+        }
+        Node node = this.root;
+        for (int level = this.depth - 1; node != null && level >= 0; level--) {
+            node = ((index >>> level) & 1) == 0 ? node.left : node.right;
+        }
+        return node == null ? 0 : node.word;
+    }
+
+    /**
+     * Returns a bitmap with the word at the given index replaced, sharing every other node with this one
+     *
+     * @param index word index
+     * @param word  new word
+     * @return PersistentBitmap
+     */
+    PersistentBitmap withWord(int index, long word) {
+        Node grown = this.root;
+        int grownDepth = this.depth;
+        while (index >= 1L << grownDepth) {
+            grown = grown == null ? null : new Node(grown, null, 0);
+            grownDepth++;
+        }
+        return new PersistentBitmap(with(grown, grownDepth, index, word), grownDepth);
+    }
+
+    /**
+     * @return nodes copied by a change of one word
+     */
+    int pathLength() {
+        return this.depth + 1;
+    }
+
+    private static Node with(Node node, int level, int index, long word) {
+        if (level == 0) {
+            return new Node(null, null, word);
+        }
+        boolean left = ((index >>> (level - 1)) & 1) == 0;
+        Node child = node == null ? null : left ? node.left : node.right;
+        Node changed = with(child, level - 1, index, word);
+        if (node == null) {
+            return left ? new Node(changed, null, 0) : new Node(null, changed, 0);
+        }
+        return left ? new Node(changed, node.right, 0) : new Node(node.left, changed, 0);
+    }
+
+    private static final class Node {
+
+        private final Node left;
+        private final Node right;
+        private final long word;
+
+        Node(Node left, Node right, long word) {
+            this.left = left;
+            this.right = right;
+            this.word = word;
+        }
+    }
+}
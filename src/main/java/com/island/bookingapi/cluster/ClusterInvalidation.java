@@ -0,0 +1,216 @@
+package com.island.bookingapi.cluster;
+
+import com.island.bookingapi.calendar.CalendarIndex;
+import com.island.bookingapi.event.BookingBatchEvent;
+import com.island.bookingapi.event.BookingChangeType;
+import com.island.bookingapi.event.BookingChangedEvent;
+import com.island.bookingapi.event.CalendarClosedEvent;
+import com.island.bookingapi.event.RemoteBookingChangedEvent;
+import com.island.bookingapi.occupancy.OccupancyAggregates;
+import com.island.bookingapi.store.BookingStore;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.annotation.PostConstruct;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the in-memory state of the instances in sync: every booking change committed here is sent to the
+ * other instances as a {@link ClusterNotice}, and the notices of the other instances are published here as
+ * {@link RemoteBookingChangedEvent}s, so the calendar index, the caches and the aggregates follow them like local
+ * changes while the contention counts and the notices sent stay with the changes of this instance.
+ * <p>
+ * Notices are numbered per instance. A notice skipping a number, or a heartbeat ahead of the last notice
+ * received, means messages were lost: the bookable window of the calendar index is read again from the store
+ * and the occupancy aggregates reloaded. Blackouts are sent as a resync, they change too many bookings
+ * for a notice. While the calendar index is still loading at startup its part of the resync waits for the load
+ * to complete, so the two loads never overlap; the remote changes received meanwhile are replayed by the load.
+ */
+@Component
+public class ClusterInvalidation {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ClusterInvalidation.class);
+
+    private final ClusterTransport transport;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CalendarIndex calendarIndex;
+    private final BookingStore bookingStore;
+    private final OccupancyAggregates occupancyAggregates;
+    private final boolean enabled;
+    private final int resyncDays;
+    private final String node = UUID.randomUUID().toString().substring(0, 8);
+    private final Map<String, Long> lastSequences = new ConcurrentHashMap<>();
+    private final Counter sent;
+    private final Counter applied;
+    private final Counter resyncs;
+    private long sequence;
+    // resyncs run one at a time, without holding the lock that orders the notices sent
+    private final Object resyncLock = new Object();
+    private volatile boolean indexResyncPending;
+
+    public ClusterInvalidation(ClusterTransport transport, ApplicationEventPublisher eventPublisher, CalendarIndex calendarIndex,
+                               BookingStore bookingStore, OccupancyAggregates occupancyAggregates, MeterRegistry meterRegistry,
+                               @Value("${booking.cluster.enabled:false}") boolean enabled,
+                               @Value("${booking.cluster.resync-days:400}") int resyncDays) {
+        this.transport = transport;
+        this.eventPublisher = eventPublisher;
+        this.calendarIndex = calendarIndex;
+        this.bookingStore = bookingStore;
+        this.occupancyAggregates = occupancyAggregates;
+        this.enabled = enabled;
+        this.resyncDays = resyncDays;
+        this.sent = meterRegistry.counter("booking.cluster.notices", "result", "sent");
+        this.applied = meterRegistry.counter("booking.cluster.notices", "result", "applied");
+        this.resyncs = meterRegistry.counter("booking.cluster.resyncs");
+    }
+
+    @PostConstruct
+    public void subscribe() {
+        if (this.enabled) {
+            this.transport.subscribe(this::receive);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookingChanged(BookingChangedEvent event) {
+        if (this.enabled) {
+            this.send(kindOf(event.getType()), event.getReleasedDays(), event.getBookedDays());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCalendarClosed(CalendarClosedEvent event) {
+        if (this.enabled) {
+            this.send(ClusterNotice.RESYNC, Collections.emptyList(), Collections.emptyList());
+        }
+    }
+
+    /**
+     * A batch goes out as one notice of its net change, too many days for a notice make it a resync
+     *
+     * @param event BookingBatchEvent
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookingBatch(BookingBatchEvent event) {
+        if (this.enabled) {
+            this.send(kindOf(BookingChangeType.UPDATED), event.getReleasedDays(), event.getBookedDays());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${booking.cluster.heartbeat-ms:5000}")
+    public void heartbeat() {
+        if (this.indexResyncPending && this.calendarIndex.isLoaded()) {
+            this.resync();
+        }
+        if (this.enabled) {
+            synchronized (this) {
+                this.transport.publish(new ClusterNotice(this.node, this.sequence, ClusterNotice.HEARTBEAT,
+                        Collections.emptyList(), Collections.emptyList()).format());
+            }
+        }
+    }
+
+    /**
+     * Reads the bookable window of the calendar again and reloads the occupancy aggregates. The calendar index
+     * is left to the heartbeat after its first load when it is not loaded yet
+     */
+    public void resync() {
+        LocalDate from = LocalDate.now();
+        LocalDate to = from.plusDays(this.resyncDays);
+        synchronized (this.resyncLock) {
+            this.indexResyncPending = !this.calendarIndex.isLoaded();
+            if (!this.indexResyncPending) {
+                this.calendarIndex.beginLoad();
+                this.calendarIndex.completeReload(from, to, this.bookingStore.getBookedDates(from, to));
+            }
+            this.occupancyAggregates.load(from.withDayOfMonth(1));
+        }
+        this.resyncs.increment();
+        LOGGER.info("Calendar resynchronized from {} to {}{}", from, to, this.indexResyncPending ? ", index after its load" : "");
+    }
+
+    String getNode() {
+        return this.node;
+    }
+
+    /**
+     * Notices are numbered and handed to the transport under the lock, so they leave in order
+     */
+    private synchronized void send(char kind, List<LocalDate> releasedDays, List<LocalDate> bookedDays) {
+        ClusterNotice notice = new ClusterNotice(this.node, this.sequence + 1, kind, releasedDays, bookedDays);
+        String message = notice.format();
+        if (message.length() > ClusterTransport.MAX_MESSAGE_LENGTH) {
+            message = new ClusterNotice(this.node, this.sequence + 1, ClusterNotice.RESYNC,
+                    Collections.emptyList(), Collections.emptyList()).format();
+        }
+        this.sequence++;
+        this.transport.publish(message);
+        this.sent.increment();
+    }
+
+    void receive(String message) {
+        ClusterNotice notice = ClusterNotice.parse(message);
+        if (notice.getNode().equals(this.node)) {
+            return;
+        }
+        Long last = this.lastSequences.get(notice.getNode());
+        if (last != null && notice.getSequence() <= last) {
+            // heartbeat with nothing new, or a notice already seen
+            return;
+        }
+        this.lastSequences.put(notice.getNode(), notice.getSequence());
+        boolean heartbeat = notice.getKind() == ClusterNotice.HEARTBEAT;
+        // a heartbeat carries the last sequence sent, a notice the next one
+        long expected = last == null ? notice.getSequence() : heartbeat ? last : last + 1;
+        if (notice.getSequence() > expected) {
+            LOGGER.warn("Lost cluster notices {} to {} of {}", last + 1, heartbeat ? notice.getSequence() : notice.getSequence() - 1,
+                    notice.getNode());
+            this.resync();
+            return;
+        }
+        if (heartbeat) {
+            return;
+        }
+        if (notice.getKind() == ClusterNotice.RESYNC) {
+            this.resync();
+            return;
+        }
+        this.eventPublisher.publishEvent(new RemoteBookingChangedEvent(new BookingChangedEvent(null, typeOf(notice.getKind()),
+                notice.getReleasedDays(), notice.getBookedDays())));
+        this.applied.increment();
+    }
+
+    private static char kindOf(BookingChangeType type) {
+        switch (type) {
+            case CREATED:
+                return ClusterNotice.CREATED;
+            case CANCELLED:
+                return ClusterNotice.CANCELLED;
+            default:
+                return ClusterNotice.UPDATED;
+        }
+    }
+
+    private static BookingChangeType typeOf(char kind) {
+        switch (kind) {
+            case ClusterNotice.CREATED:
+                return BookingChangeType.CREATED;
+            case ClusterNotice.CANCELLED:
+                return BookingChangeType.CANCELLED;
+            default:
+                return BookingChangeType.UPDATED;
+        }
+    }
+}
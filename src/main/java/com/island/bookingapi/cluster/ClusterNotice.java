@@ -0,0 +1,78 @@
+package com.island.bookingapi.cluster;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Days released and booked by a change committed on an instance, numbered per instance.
+ * <p>
+ * Written as {@code <node> <sequence> <kind> <released> <booked>}, days as comma separated epoch days
+ * or {@code -} when none, e.g. {@code 3f2a9c1e 42 C - 20390,20391} for a
+ * booking created for two nights.
+ */
+@Getter
+@RequiredArgsConstructor
+class ClusterNotice {
+
+    static final char CREATED = 'C';
+    static final char UPDATED = 'U';
+    static final char CANCELLED = 'X';
+    /**
+     * Change not described by days, the receivers read the calendar again
+     */
+    static final char RESYNC = 'R';
+    /**
+     * Last sequence sent, lets the receivers notice lost messages when no change follows them
+     */
+    static final char HEARTBEAT = 'H';
+
+    private static final String NO_DAYS = "-";
+
+    private final String node;
+    private final long sequence;
+    private final char kind;
+    private final List<LocalDate> releasedDays;
+    private final List<LocalDate> bookedDays;
+
+    String format() {
+        return this.node + ' ' + this.sequence + ' ' + this.kind + ' ' + formatDays(this.releasedDays) + ' ' + formatDays(this.bookedDays);
+    }
+
+    static ClusterNotice parse(String message) {
+        String[] parts = message.split(" ");
+        if (parts.length != 5 || parts[2].length() != 1) {
+            throw new IllegalArgumentException("Invalid cluster notice " + message);
+        }
+        return new ClusterNotice(parts[0], Long.parseLong(parts[1]), parts[2].charAt(0), parseDays(parts[3]), parseDays(parts[4]));
+    }
+
+    private static String formatDays(List<LocalDate> days) {
+        if (days.isEmpty()) {
+            return NO_DAYS;
+        }
+        StringBuilder builder = new StringBuilder();
+        for (LocalDate day : days) {
+            if (builder.length() > 0) {
+                builder.append(',');
+            }
+            builder.append(day.toEpochDay());
+        }
+        return builder.toString();
+    }
+
+    private static List<LocalDate> parseDays(String days) {
+        if (NO_DAYS.equals(days)) {
+            return Collections.emptyList();
+        }
+        List<LocalDate> parsed = new ArrayList<>();
+        for (String day : days.split(",")) {
+            parsed.add(LocalDate.ofEpochDay(Long.parseLong(day)));
+        }
+        return parsed;
+    }
+}
@@ -0,0 +1,29 @@
+package com.island.bookingapi.cluster;
+
+import java.util.function.Consumer;
+
+/**
+ * Broadcast channel between the instances. Messages may be lost, the receivers find out from the sequence
+ * numbers; every message published is also delivered to the instance itself.
+ */
+public interface ClusterTransport {
+
+    /**
+     * Sends the message to every instance, without waiting for the delivery
+     *
+     * @param message message, at most {@link #MAX_MESSAGE_LENGTH} characters
+     */
+    void publish(String message);
+
+    /**
+     * Registers the receiver of the messages, called from the thread of the transport
+     *
+     * @param receiver receiver
+     */
+    void subscribe(Consumer<String> receiver);
+
+    /**
+     * Limit of the Postgres NOTIFY payload, with some room
+     */
+    int MAX_MESSAGE_LENGTH = 7900;
+}
@@ -0,0 +1,25 @@
+package com.island.bookingapi.cluster;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Delivers the messages within the JVM, to a single instance or to the instances of a test sharing it
+ */
+public class LocalClusterTransport implements ClusterTransport {
+
+    private final List<Consumer<String>> receivers = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void publish(String message) {
+        for (Consumer<String> receiver : this.receivers) {
+            receiver.accept(message);
+        }
+    }
+
+    @Override
+    public void subscribe(Consumer<String> receiver) {
+        this.receivers.add(receiver);
+    }
+}
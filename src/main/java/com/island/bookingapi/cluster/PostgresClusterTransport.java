@@ -0,0 +1,138 @@
+package com.island.bookingapi.cluster;
+
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PreDestroy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Postgres LISTEN/NOTIFY. Two connections of their own, outside the pool: one listening, polled for
+ * notifications, and one sending the queued messages in order. A broken connection is opened again, the
+ * messages missed meanwhile show up as a gap in the sequences.
+ */
+public class PostgresClusterTransport implements ClusterTransport {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PostgresClusterTransport.class);
+    private static final long RECONNECT_DELAY_MILLIS = 1000;
+
+    private final String url;
+    private final String username;
+    private final String password;
+    private final String channel;
+    private final int pollMillis;
+    private final List<Consumer<String>> receivers = new CopyOnWriteArrayList<>();
+    private final BlockingQueue<String> outgoing = new LinkedBlockingQueue<>();
+    private final Thread listener;
+    private final Thread sender;
+    private volatile boolean running = true;
+
+    public PostgresClusterTransport(String url, String username, String password, String channel, int pollMillis) {
+        if (!channel.matches("[a-z_][a-z0-9_]*")) {
+            throw new IllegalArgumentException("Invalid channel name " + channel);
+        }
+        this.url = url;
+        this.username = username;
+        this.password = password;
+        this.channel = channel;
+        this.pollMillis = pollMillis;
+        this.listener = new Thread(this::listen, "cluster-listener");
+        this.listener.setDaemon(true);
+        this.sender = new Thread(this::send, "cluster-sender");
+        this.sender.setDaemon(true);
+        this.listener.start();
+        this.sender.start();
+    }
+
+    @Override
+    public void publish(String message) {
+        this.outgoing.add(message);
+    }
+
+    @Override
+    public void subscribe(Consumer<String> receiver) {
+        this.receivers.add(receiver);
+    }
+
+    @PreDestroy
+    public void close() {
+        this.running = false;
+        this.listener.interrupt();
+        this.sender.interrupt();
+    }
+
+    private void listen() {
+        while (this.running) {
+            try (Connection connection = this.connect(); Statement statement = connection.createStatement()) {
+                statement.execute("LISTEN " + this.channel);
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                while (this.running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(this.pollMillis);
+                    if (notifications == null) {
+                        continue;
+                    }
+                    for (PGNotification notification : notifications) {
+                        this.deliver(notification.getParameter());
+                    }
+                }
+            } catch (SQLException e) {
+                LOGGER.warn("Cluster listener connection lost", e);
+                this.pause();
+            }
+        }
+    }
+
+    private void send() {
+        while (this.running) {
+            try (Connection connection = this.connect();
+                 PreparedStatement notify = connection.prepareStatement("SELECT pg_notify(?, ?)")) {
+                notify.setString(1, this.channel);
+                while (this.running) {
+                    String message = this.outgoing.take();
+                    notify.setString(2, message);
+                    notify.execute();
+                }
+            } catch (SQLException e) {
+                LOGGER.warn("Cluster sender connection lost", e);
+                this.pause();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void deliver(String message) {
+        for (Consumer<String> receiver : this.receivers) {
+            try {
+                receiver.accept(message);
+            } catch (RuntimeException e) {
+                LOGGER.warn("Could not apply cluster message {}", message, e);
+            }
+        }
+    }
+
+    private Connection connect() throws SQLException {
+        return DriverManager.getConnection(this.url, this.username, this.password);
+    }
+
+    private void pause() {
+        try {
+            TimeUnit.MILLISECONDS.sleep(RECONNECT_DELAY_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.island.bookingapi.config;
+
+import com.island.bookingapi.cluster.ClusterTransport;
+import com.island.bookingapi.cluster.LocalClusterTransport;
+import com.island.bookingapi.cluster.PostgresClusterTransport;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Transport of the cluster invalidation: Postgres LISTEN/NOTIFY on the primary database when several instances
+ * run, otherwise delivered within the JVM.
+ */
+@Configuration
+public class ClusterConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "booking.cluster.transport", havingValue = "postgres")
+    public ClusterTransport postgresClusterTransport(@Value("${spring.datasource.url}") String url,
+                                                     @Value("${spring.datasource.username}") String username,
+                                                     @Value("${spring.datasource.password}") String password,
+                                                     @Value("${booking.cluster.channel:booking_calendar}") String channel,
+                                                     @Value("${booking.cluster.poll-ms:500}") int pollMillis) {
+        return new PostgresClusterTransport(url, username, password, channel, pollMillis);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "booking.cluster.transport", havingValue = "local", matchIfMissing = true)
+    public ClusterTransport localClusterTransport() {
+        return new LocalClusterTransport();
+    }
+}
@@ -0,0 +1,47 @@
+package com.island.bookingapi.config;
+
+import com.island.bookingapi.calendar.CalendarIndex;
+import com.island.bookingapi.store.journal.JournalBookingStore;
+import com.island.bookingapi.store.journal.JournalTransactionManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+
+import java.nio.file.Paths;
+import java.time.LocalDate;
+
+/**
+ * Embedded journal storage engine, replaces the relational database on single node deployments.
+ * Enabled by the {@code journal} profile, which also turns off the DataSource and JPA auto-configuration.
+ */
+@Configuration
+@ConditionalOnProperty(name = "booking.storage.engine", havingValue = "journal")
+public class JournalStoreConfig {
+
+    @Bean
+    public JournalBookingStore journalBookingStore(@Value("${booking.storage.journal.directory}") String directory,
+                                                   @Value("${booking.storage.journal.segment-size-mb:64}") int segmentSizeMb,
+                                                   @Value("${booking.storage.journal.fsync:true}") boolean fsync) {
+        return new JournalBookingStore(Paths.get(directory), segmentSizeMb * 1024 * 1024, fsync);
+    }
+
+    @Bean
+    public JournalTransactionManager transactionManager(JournalBookingStore journalBookingStore) {
+        return new JournalTransactionManager(journalBookingStore);
+    }
+
+    /**
+     * The whole state is in memory once the store is open, the calendar index is loaded from it
+     */
+    @Bean
+    @Order(0)
+    public ApplicationRunner journalCalendarIndexLoader(JournalBookingStore journalBookingStore, CalendarIndex calendarIndex) {
+        return args -> {
+            calendarIndex.beginLoad();
+            calendarIndex.completeLoad(CalendarIndex.bitmapOf(journalBookingStore.getBookedDatesFrom(LocalDate.now())));
+        };
+    }
+}
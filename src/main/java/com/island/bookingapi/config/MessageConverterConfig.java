@@ -0,0 +1,36 @@
+package com.island.bookingapi.config;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.island.bookingapi.converter.BookingProtobufHttpMessageConverter;
+import org.springframework.beans.factory.ObjectFactory;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+/**
+ * Binary representations negotiated by the Accept and Content-Type headers: Smile
+ * ({@code application/x-jackson-smile}), CBOR ({@code application/cbor}) and protobuf ({@code application/x-protobuf}).
+ * They come after JSON, which stays the default. Smile and CBOR use the Jackson settings of the application.
+ */
+@Configuration
+public class MessageConverterConfig implements WebMvcConfigurer {
+
+    private final ObjectFactory<Jackson2ObjectMapperBuilder> objectMapperBuilder;
+
+    public MessageConverterConfig(ObjectFactory<Jackson2ObjectMapperBuilder> objectMapperBuilder) {
+        this.objectMapperBuilder = objectMapperBuilder;
+    }
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.add(new MappingJackson2SmileHttpMessageConverter(this.objectMapperBuilder.getObject().factory(new SmileFactory()).build()));
+        converters.add(new MappingJackson2CborHttpMessageConverter(this.objectMapperBuilder.getObject().factory(new CBORFactory()).build()));
+        converters.add(new BookingProtobufHttpMessageConverter());
+    }
+}
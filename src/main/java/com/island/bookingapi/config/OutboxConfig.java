@@ -0,0 +1,26 @@
+package com.island.bookingapi.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.island.bookingapi.outbox.FileOutboxSink;
+import com.island.bookingapi.outbox.OutboxSink;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Paths;
+
+/**
+ * Outbox of booking changes. The events go to a local file unless another {@link OutboxSink} bean is defined.
+ */
+@Configuration
+@ConditionalOnProperty(name = "booking.outbox.enabled", havingValue = "true")
+public class OutboxConfig {
+
+    @Bean
+    @ConditionalOnMissingBean(OutboxSink.class)
+    public OutboxSink fileOutboxSink(@Value("${booking.outbox.file}") String file, ObjectMapper objectMapper) {
+        return new FileOutboxSink(Paths.get(file), objectMapper);
+    }
+}
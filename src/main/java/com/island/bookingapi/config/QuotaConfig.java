@@ -0,0 +1,27 @@
+package com.island.bookingapi.config;
+
+import com.island.bookingapi.quota.RateLimitInterceptor;
+import com.island.bookingapi.quota.RequestRateLimiter;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Rate limit of the write requests per client
+ */
+@Configuration
+public class QuotaConfig implements WebMvcConfigurer {
+
+    private final RequestRateLimiter rateLimiter;
+
+    public QuotaConfig(RequestRateLimiter rateLimiter) {
+        this.rateLimiter = rateLimiter;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        // the availability batch is a read sent as a POST, it is bounded by its own request limits
+        registry.addInterceptor(new RateLimitInterceptor(this.rateLimiter)).addPathPatterns("/booking/**", "/availability/**")
+                .excludePathPatterns("/availability/batch");
+    }
+}
@@ -0,0 +1,62 @@
+package com.island.bookingapi.config;
+
+import com.island.bookingapi.datasource.ReadYourWritesFilter;
+import com.island.bookingapi.datasource.Replica;
+import com.island.bookingapi.datasource.ReplicaHealthChecker;
+import com.island.bookingapi.datasource.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sends the read-only transactions to the replicas listed in {@code booking.replica.urls}, the primary is the
+ * {@code spring.datasource} one. Replicas use the primary credentials unless their own are set.
+ */
+@Configuration
+@ConditionalOnProperty(name = "booking.replica.enabled", havingValue = "true")
+public class ReplicaRoutingConfig {
+
+    @Bean
+    public DataSource dataSource(DataSourceProperties properties, @Value("${booking.replica.urls}") List<String> urls,
+                                 @Value("${booking.replica.username:}") String username,
+                                 @Value("${booking.replica.password:}") String password,
+                                 @Value("${booking.replica.pool-size:10}") int poolSize) {
+        HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        primary.setPoolName("primary");
+        List<Replica> replicas = new ArrayList<>();
+        for (int i = 0; i < urls.size(); i++) {
+            HikariDataSource replica = properties.initializeDataSourceBuilder().type(HikariDataSource.class).url(urls.get(i))
+                    .username(StringUtils.hasText(username) ? username : properties.determineUsername())
+                    .password(StringUtils.hasText(username) ? password : properties.determinePassword()).build();
+            replica.setPoolName("replica-" + i);
+            replica.setMaximumPoolSize(poolSize);
+            replica.setReadOnly(true);
+            replicas.add(new Replica(replica.getPoolName(), replica));
+        }
+        return new ReplicaRoutingDataSource(primary, replicas);
+    }
+
+    @Bean
+    public ReplicaHealthChecker replicaHealthChecker(DataSource dataSource, MeterRegistry meterRegistry,
+                                                     @Value("${booking.replica.lag-query}") String lagQuery,
+                                                     @Value("${booking.replica.max-lag-ms:1000}") long maxLagMillis) throws SQLException {
+        // unwrapped, the DataSource bean is proxied for the SQL accounting
+        List<Replica> replicas = dataSource.unwrap(ReplicaRoutingDataSource.class).getReplicas();
+        return new ReplicaHealthChecker(replicas, lagQuery, maxLagMillis, meterRegistry);
+    }
+
+    @Bean
+    public ReadYourWritesFilter readYourWritesFilter(@Value("${booking.replica.read-your-writes-ms:5000}") long windowMillis) {
+        return new ReadYourWritesFilter(windowMillis);
+    }
+}
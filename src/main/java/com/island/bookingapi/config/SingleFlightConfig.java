@@ -0,0 +1,32 @@
+package com.island.bookingapi.config;
+
+import com.island.bookingapi.cache.SingleFlight;
+import com.island.bookingapi.model.Booking;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Coalescing of the identical concurrent reads that reach the store: availability ranges and bookings by id
+ */
+@Configuration
+public class SingleFlightConfig {
+
+    @Bean
+    public SingleFlight<List<LocalDate>, List<LocalDate>> availabilitySingleFlight(MeterRegistry meterRegistry,
+                                                                                   @Value("${booking.singleflight.timeout-ms:2000}") long timeoutMs) {
+        return new SingleFlight<>("availability", Duration.ofMillis(timeoutMs), meterRegistry);
+    }
+
+    @Bean
+    public SingleFlight<Long, Optional<Booking>> bookingSingleFlight(MeterRegistry meterRegistry,
+                                                                     @Value("${booking.singleflight.timeout-ms:2000}") long timeoutMs) {
+        return new SingleFlight<>("booking", Duration.ofMillis(timeoutMs), meterRegistry);
+    }
+}
@@ -0,0 +1,42 @@
+package com.island.bookingapi.config;
+
+import com.island.bookingapi.metrics.SqlMetrics;
+import com.island.bookingapi.sql.SqlStatisticsListener;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+/**
+ * Wraps the DataSource with a proxy that accounts the statements of every request and transaction
+ */
+@Configuration
+public class SqlStatisticsConfig {
+
+    /**
+     * Static so the post processor is registered before the DataSource is created. The metrics are handed
+     * to the listener when their bean is created, looking them up from a JDBC call could block on the
+     * bean factory while the JPA bootstrap runs in the background.
+     */
+    @Bean
+    public static BeanPostProcessor sqlStatisticsDataSourcePostProcessor(@Value("${booking.sql.slow-query-threshold-ms:200}") long slowQueryThresholdMs) {
+        SqlStatisticsListener listener = new SqlStatisticsListener(slowQueryThresholdMs);
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof SqlMetrics) {
+                    listener.setSqlMetrics((SqlMetrics) bean);
+                }
+                if (!(bean instanceof DataSource) || bean instanceof ProxyDataSource) {
+                    return bean;
+                }
+                return ProxyDataSourceBuilder.create((DataSource) bean).name(beanName)
+                        .listener(listener).methodListener(listener).proxyResultSet().build();
+            }
+        };
+    }
+}
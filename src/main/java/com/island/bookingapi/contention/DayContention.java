@@ -0,0 +1,30 @@
+package com.island.bookingapi.contention;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Booking attempts, successes and conflict rejections of a calendar day.
+ * Totals count since the day entered the tracked window, rates are per minute and decay over time.
+ */
+@Getter
+@RequiredArgsConstructor
+public class DayContention {
+
+    private final LocalDate day;
+
+    private final long attempts;
+
+    private final long successes;
+
+    private final long conflicts;
+
+    private final double attemptsPerMinute;
+
+    private final double successesPerMinute;
+
+    private final double conflictsPerMinute;
+
+}
@@ -0,0 +1,235 @@
+package com.island.bookingapi.contention;
+
+import com.island.bookingapi.event.BookingBatchEvent;
+import com.island.bookingapi.event.BookingChangedEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.Collectors;
+
+/**
+ * Booking attempts, successes and conflict rejections per calendar day.
+ * <p>
+ * Counters live in a ring of {@link #TRACKED_DAYS} days around today, indexed by epoch day, so recording
+ * is a few atomic increments and never allocates. Each counter is striped by thread so concurrent requests
+ * for the same hot night do not fight over one cache line, stripes are summed when read.
+ * Decayed rates are computed by a periodic tick from the difference of the totals.
+ */
+@Component
+public class DayContentionTracker {
+
+    static final int HORIZON_DAYS = 256;
+    static final int TRACKED_DAYS = HORIZON_DAYS * 2;
+    private static final int ATTEMPTS = 0;
+    private static final int SUCCESSES = 1;
+    private static final int CONFLICTS = 2;
+    private static final int COUNTERS = 3;
+    private static final int SLOTS = TRACKED_DAYS * COUNTERS;
+    // a cache line of padding between stripes
+    private static final int STRIPE_PADDING = 8;
+    private static final int MAX_STRIPES = 16;
+
+    private final int stripeMask;
+    private final int stripeLength;
+    private final AtomicLongArray counters;
+    private final double halfLifeNanos;
+    private final double[] rates = new double[SLOTS];
+    private final long[] lastTotals = new long[SLOTS];
+    private volatile double[] publishedRates = new double[SLOTS];
+    private volatile long today;
+    private long lastTickNanos;
+
+    public DayContentionTracker(@Value("${booking.contention.half-life-seconds:300}") long halfLifeSeconds) {
+        int stripes = Math.min(MAX_STRIPES, Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors() * 2 - 1)));
+        this.stripeMask = stripes - 1;
+        this.stripeLength = SLOTS + STRIPE_PADDING;
+        this.counters = new AtomicLongArray(stripes * this.stripeLength);
+        this.halfLifeNanos = TimeUnit.SECONDS.toNanos(halfLifeSeconds);
+        this.today = LocalDate.now().toEpochDay();
+        this.lastTickNanos = System.nanoTime();
+    }
+
+    /**
+     * Records an attempt to book the nights of a stay
+     *
+     * @param arrivalDate   first night
+     * @param departureDate day after the last night
+     */
+    public void recordAttempt(LocalDate arrivalDate, LocalDate departureDate) {
+        this.add(ATTEMPTS, arrivalDate, departureDate);
+    }
+
+    /**
+     * Records a rejection because the given days were already booked
+     *
+     * @param days days that caused the conflict
+     */
+    public void recordConflict(Collection<LocalDate> days) {
+        for (LocalDate day : days) {
+            this.add(CONFLICTS, day.toEpochDay());
+        }
+    }
+
+    /**
+     * Records a rejection of a stay when it is not known which of its nights caused it,
+     * the unique constraint of the calendar only reports the first violation
+     *
+     * @param arrivalDate   first night
+     * @param departureDate day after the last night
+     */
+    public void recordConflict(LocalDate arrivalDate, LocalDate departureDate) {
+        this.add(CONFLICTS, arrivalDate, departureDate);
+    }
+
+    /**
+     * Successes are counted once the booking is committed
+     *
+     * @param event BookingChangedEvent
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookingChanged(BookingChangedEvent event) {
+        for (LocalDate day : event.getBookedDays()) {
+            this.add(SUCCESSES, day.toEpochDay());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookingBatch(BookingBatchEvent event) {
+        event.getChanges().forEach(this::onBookingChanged);
+    }
+
+    /**
+     * Returns the contention of the tracked days of the range, both ends included
+     *
+     * @param from first day
+     * @param to   last day
+     * @return List<DayContention>
+     */
+    public List<DayContention> getHeatmap(LocalDate from, LocalDate to) {
+        long current = this.today;
+        long first = Math.max(from.toEpochDay(), current - HORIZON_DAYS);
+        long last = Math.min(to.toEpochDay(), current + HORIZON_DAYS - 1);
+        double[] currentRates = this.publishedRates;
+        List<DayContention> heatmap = new ArrayList<>((int) Math.max(0, last - first + 1));
+        for (long day = first; day <= last; day++) {
+            heatmap.add(this.contention(day, currentRates));
+        }
+        return heatmap;
+    }
+
+    /**
+     * Returns the upcoming days with the highest decayed attempt rate
+     *
+     * @param limit maximum number of days
+     * @return List<DayContention>
+     */
+    public List<DayContention> getHottest(int limit) {
+        LocalDate from = LocalDate.ofEpochDay(this.today);
+        return this.getHeatmap(from, from.plusDays(HORIZON_DAYS - 1)).stream()
+                .filter(contention -> contention.getAttempts() > 0)
+                .sorted(Comparator.comparingDouble(DayContention::getAttemptsPerMinute).reversed()
+                        .thenComparing(Comparator.comparingLong(DayContention::getConflicts).reversed()))
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Forgets everything recorded so far
+     */
+    public synchronized void reset() {
+        for (int i = 0; i < this.counters.length(); i++) {
+            this.counters.set(i, 0);
+        }
+        Arrays.fill(this.rates, 0);
+        Arrays.fill(this.lastTotals, 0);
+        this.publishedRates = new double[SLOTS];
+    }
+
+    @Scheduled(fixedDelayString = "${booking.contention.tick-ms:5000}")
+    public void tick() {
+        this.tick(System.nanoTime(), LocalDate.now().toEpochDay());
+    }
+
+    /**
+     * Moves the tracked window to the current day and updates the decayed rates
+     *
+     * @param nowNanos     {@link System#nanoTime()}
+     * @param currentToday epoch day of today
+     */
+    synchronized void tick(long nowNanos, long currentToday) {
+        long previousToday = this.today;
+        // the days entering the window take the slots of the days leaving it
+        for (long day = Math.max(previousToday + HORIZON_DAYS, currentToday - HORIZON_DAYS); day < currentToday + HORIZON_DAYS; day++) {
+            this.clear(day);
+        }
+        this.today = currentToday;
+        long elapsed = nowNanos - this.lastTickNanos;
+        this.lastTickNanos = nowNanos;
+        if (elapsed <= 0) {
+            return;
+        }
+        double alpha = 1 - Math.exp(-elapsed * Math.log(2) / this.halfLifeNanos);
+        double elapsedMinutes = elapsed / (double) TimeUnit.MINUTES.toNanos(1);
+        for (int slot = 0; slot < SLOTS; slot++) {
+            long total = this.sum(slot);
+            double instantRate = (total - this.lastTotals[slot]) / elapsedMinutes;
+            this.lastTotals[slot] = total;
+            this.rates[slot] += alpha * (instantRate - this.rates[slot]);
+        }
+        this.publishedRates = this.rates.clone();
+    }
+
+    private DayContention contention(long epochDay, double[] currentRates) {
+        int base = slot(epochDay, 0);
+        return new DayContention(LocalDate.ofEpochDay(epochDay), this.sum(base + ATTEMPTS), this.sum(base + SUCCESSES),
+                this.sum(base + CONFLICTS), currentRates[base + ATTEMPTS], currentRates[base + SUCCESSES], currentRates[base + CONFLICTS]);
+    }
+
+    private void add(int counter, LocalDate from, LocalDate toExclusive) {
+        for (long day = from.toEpochDay(); day < toExclusive.toEpochDay(); day++) {
+            this.add(counter, day);
+        }
+    }
+
+    private void add(int counter, long epochDay) {
+        long current = this.today;
+        if (epochDay < current - HORIZON_DAYS || epochDay >= current + HORIZON_DAYS) {
+            return;
+        }
+        int stripe = (int) Thread.currentThread().getId() & this.stripeMask;
+        this.counters.incrementAndGet(stripe * this.stripeLength + slot(epochDay, counter));
+    }
+
+    private long sum(int slot) {
+        long total = 0;
+        for (int stripe = 0; stripe <= this.stripeMask; stripe++) {
+            total += this.counters.get(stripe * this.stripeLength + slot);
+        }
+        return total;
+    }
+
+    private void clear(long epochDay) {
+        for (int counter = 0; counter < COUNTERS; counter++) {
+            int slot = slot(epochDay, counter);
+            for (int stripe = 0; stripe <= this.stripeMask; stripe++) {
+                this.counters.set(stripe * this.stripeLength + slot, 0);
+            }
+            this.rates[slot] = 0;
+            this.lastTotals[slot] = 0;
+        }
+    }
+
+    private static int slot(long epochDay, int counter) {
+        return (int) Math.floorMod(epochDay, (long) TRACKED_DAYS) * COUNTERS + counter;
+    }
+}
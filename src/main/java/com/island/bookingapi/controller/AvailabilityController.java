@@ -1,21 +1,35 @@
 package com.island.bookingapi.controller;
 
+import com.island.bookingapi.cache.AvailabilityResponseCache;
+import com.island.bookingapi.converter.BinaryMediaTypes;
+import com.island.bookingapi.dto.AvailabilityBatchDTO;
 import com.island.bookingapi.dto.AvailabilityDTO;
+import com.island.bookingapi.request.AvailabilityBatchRequest;
+import com.island.bookingapi.request.AvailabilityRangeRequest;
 import com.island.bookingapi.service.AvailabilityService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import javax.validation.Valid;
 import javax.validation.constraints.Future;
+import javax.validation.constraints.PastOrPresent;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
 
 @RestController
@@ -25,9 +39,10 @@ import java.util.Optional;
 public class AvailabilityController {
 
     private final AvailabilityService availabilityService;
+    private final AvailabilityResponseCache availabilityResponseCache;
 
-
-    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    @GetMapping(produces = {MediaType.APPLICATION_JSON_VALUE, BinaryMediaTypes.SMILE_VALUE, BinaryMediaTypes.CBOR_VALUE,
+            BinaryMediaTypes.PROTOBUF_VALUE})
     public ResponseEntity<AvailabilityDTO> getAvailableDates(
             @Future @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
             @Future @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
@@ -37,4 +52,94 @@ public class AvailabilityController {
         return ResponseEntity.status(HttpStatus.OK).body(AvailabilityDTO.builder().from(from).to(to).availableDates(availableDates).build());
     }
 
+    /**
+     * Availability as of a past instant, the days may be past too since they were future back then.
+     * The default window is the one of that instant
+     */
+    @GetMapping(params = "asOf", produces = {MediaType.APPLICATION_JSON_VALUE, BinaryMediaTypes.SMILE_VALUE,
+            BinaryMediaTypes.CBOR_VALUE, BinaryMediaTypes.PROTOBUF_VALUE})
+    public ResponseEntity<AvailabilityDTO> getAvailableDatesAsOf(
+            @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @PastOrPresent @RequestParam(value = "asOf") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime asOf) {
+        from = Optional.ofNullable(from).orElse(asOf.toLocalDate().plusDays(1));
+        to = Optional.ofNullable(to).orElse(from.plusDays(30));
+        List<LocalDate> availableDates = this.availabilityService.getAvailableDates(from, to, asOf);
+        return ResponseEntity.status(HttpStatus.OK).body(AvailabilityDTO.builder().from(from).to(to).availableDates(availableDates).build());
+    }
+
+    /**
+     * Default window in JSON, written from the pre-serialized body when it is up to date
+     */
+    @GetMapping(params = {"!from", "!to", "!asOf"}, produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> getDefaultAvailableDates(@RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        Optional<AvailabilityResponseCache.DefaultAvailability> cached = this.availabilityResponseCache.getDefaultAvailability();
+        if (cached.isEmpty()) {
+            return this.getAvailableDates(null, null);
+        }
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(HttpStatus.OK).contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (acceptsGzip(acceptEncoding)) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(cached.get().getGzip());
+        }
+        return response.body(cached.get().getJson());
+    }
+
+    /**
+     * Availability of many ranges in one request, answered from a single read of the days they span
+     */
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE, produces = {MediaType.APPLICATION_JSON_VALUE,
+            BinaryMediaTypes.SMILE_VALUE, BinaryMediaTypes.CBOR_VALUE, BinaryMediaTypes.PROTOBUF_VALUE})
+    public ResponseEntity<AvailabilityBatchDTO> getAvailableDates(@Valid @RequestBody AvailabilityBatchRequest request) {
+        List<List<LocalDate>> availableDates = this.availabilityService.getAvailableDates(request.getRanges());
+        List<AvailabilityDTO> ranges = new ArrayList<>(availableDates.size());
+        for (int i = 0; i < availableDates.size(); i++) {
+            AvailabilityRangeRequest range = request.getRanges().get(i);
+            ranges.add(AvailabilityDTO.builder().from(range.getFrom()).to(range.getTo()).availableDates(availableDates.get(i)).build());
+        }
+        return ResponseEntity.status(HttpStatus.OK).body(AvailabilityBatchDTO.builder().ranges(ranges).build());
+    }
+
+    /**
+     * Reads the Accept-Encoding header: gzip is acceptable when listed, or covered by {@code *}, with a quality
+     * above 0. A coding listed by name takes precedence over {@code *}
+     *
+     * @param acceptEncoding header value, may be null
+     * @return true if the gzip body can be sent
+     */
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Boolean gzip = null;
+        boolean any = false;
+        for (String element : acceptEncoding.split(",")) {
+            String[] parts = element.split(";");
+            String coding = parts[0].trim().toLowerCase(Locale.ROOT);
+            boolean accepted = quality(parts) > 0;
+            if (coding.equals("gzip") || coding.equals("x-gzip")) {
+                gzip = gzip == Boolean.TRUE || accepted;
+            } else if (coding.equals("*")) {
+                any = accepted;
+            }
+        }
+        return gzip != null ? gzip : any;
+    }
+
+    /**
+     * Quality of a coding, 1 when not given and 0 when it can't be read
+     */
+    private static double quality(String[] parts) {
+        for (int i = 1; i < parts.length; i++) {
+            String parameter = parts[i].trim();
+            if (parameter.length() > 2 && Character.toLowerCase(parameter.charAt(0)) == 'q' && parameter.charAt(1) == '=') {
+                try {
+                    return Double.parseDouble(parameter.substring(2).trim());
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
 }
@@ -0,0 +1,54 @@
+package com.island.bookingapi.controller;
+
+import com.island.bookingapi.blackout.BlackoutService;
+import com.island.bookingapi.dto.BlackoutDTO;
+import com.island.bookingapi.model.Blackout;
+import com.island.bookingapi.request.BlackoutRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.validation.Valid;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Closes ranges of days, cancelling the bookings overlapping them
+ */
+@RestController
+@RequestMapping("/blackouts")
+@RequiredArgsConstructor
+@Validated
+@ConditionalOnProperty(name = "booking.blackout.enabled", havingValue = "true")
+public class BlackoutController {
+
+    private final BlackoutService blackoutService;
+
+
+    @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<BlackoutDTO> create(@RequestBody @Valid BlackoutRequest request) {
+        Blackout blackout = this.blackoutService.close(request.getFrom(), request.getTo(), request.getReason());
+        return ResponseEntity.status(HttpStatus.CREATED).body(this.transformResponse(blackout));
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<List<BlackoutDTO>> getBlackouts() {
+        List<BlackoutDTO> blackouts = this.blackoutService.getCurrentBlackouts().stream().map(this::transformResponse)
+                .collect(Collectors.toList());
+        return ResponseEntity.status(HttpStatus.OK).body(blackouts);
+    }
+
+    private BlackoutDTO transformResponse(Blackout blackout) {
+        return BlackoutDTO.builder().blackoutId(blackout.getId()).from(blackout.getFromDate()).to(blackout.getToDate())
+                .reason(blackout.getReason()).cancelledBookings(blackout.getCancelledBookings()).createdAt(blackout.getCreatedAt()).build();
+    }
+
+}
@@ -0,0 +1,83 @@
+package com.island.bookingapi.controller;
+
+import com.island.bookingapi.batch.BatchMode;
+import com.island.bookingapi.batch.BookingBatchService;
+import com.island.bookingapi.batch.BookingOperationResult;
+import com.island.bookingapi.batch.BookingOperationType;
+import com.island.bookingapi.dto.BookingBatchDTO;
+import com.island.bookingapi.dto.BookingDTO;
+import com.island.bookingapi.dto.BookingOperationResultDTO;
+import com.island.bookingapi.exception.UnavailableDatesException;
+import com.island.bookingapi.model.Booking;
+import com.island.bookingapi.model.BookingStatus;
+import com.island.bookingapi.request.BookingBatchRequest;
+import com.island.bookingapi.request.BookingOperationRequest;
+import com.island.bookingapi.waitingroom.WaitingRoom;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.validation.Valid;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Applies several booking operations in one request
+ */
+@RestController
+@RequestMapping("/booking")
+@RequiredArgsConstructor
+@Validated
+@ConditionalOnProperty(name = "booking.batch.enabled", havingValue = "true")
+public class BookingBatchController {
+
+    private final BookingBatchService bookingBatchService;
+    private final WaitingRoom waitingRoom;
+
+    /**
+     * Answers 409 when an atomic batch is not applied. A batch creating bookings on days gated by the waiting room
+     * is refused, those bookings wait their turn one by one on {@code POST /booking}
+     */
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<BookingBatchDTO> batch(@RequestBody @Valid BookingBatchRequest request) {
+        List<Integer> gated = new ArrayList<>();
+        for (int i = 0; i < request.getOperations().size(); i++) {
+            BookingOperationRequest operation = request.getOperations().get(i);
+            if (operation.getType() == BookingOperationType.CREATE && operation.getArrivalDate() != null
+                    && operation.getDepartureDate() != null
+                    && this.waitingRoom.isGated(operation.getArrivalDate(), operation.getDepartureDate())) {
+                gated.add(i);
+            }
+        }
+        if (!gated.isEmpty()) {
+            throw new UnavailableDatesException(String.format("Operations %s book days in high demand, "
+                    + "book them one by one through the waiting room", gated));
+        }
+        List<BookingOperationResult> results = this.bookingBatchService.execute(request);
+        List<BookingOperationResultDTO> resultDTOs = new ArrayList<>(results.size());
+        boolean applied = false;
+        for (int i = 0; i < results.size(); i++) {
+            BookingOperationResult result = results.get(i);
+            applied |= result.getBooking() != null;
+            resultDTOs.add(BookingOperationResultDTO.builder().index(i).type(result.getType()).status(result.getStatus().value())
+                    .message(result.getMessage()).booking(result.getBooking() == null ? null : this.transformResponse(result.getBooking()))
+                    .build());
+        }
+        HttpStatus status = request.getMode() == BatchMode.ATOMIC && !applied ? HttpStatus.CONFLICT : HttpStatus.OK;
+        return ResponseEntity.status(status).body(BookingBatchDTO.builder().mode(request.getMode()).applied(applied)
+                .results(resultDTOs).build());
+    }
+
+    private BookingDTO transformResponse(Booking booking) {
+        return BookingDTO.builder().bookingId(booking.getId()).userName(booking.getUserName()).userEmail(booking.getUserEmail())
+                .arrivalDate(booking.getArrivalDate()).departureDate(booking.getDepartureDate()).createdAt(booking.getCreatedAt())
+                .updatedAt(booking.getUpdatedAt()).status(BookingStatus.getBookingStatusById(booking.getStatus())).build();
+    }
+}
@@ -1,11 +1,13 @@
 package com.island.bookingapi.controller;
 
+import com.island.bookingapi.converter.BinaryMediaTypes;
 import com.island.bookingapi.dto.BookingDTO;
 import com.island.bookingapi.model.Booking;
 import com.island.bookingapi.model.BookingStatus;
 import com.island.bookingapi.request.CreateBookingControllerRequest;
 import com.island.bookingapi.request.UpdateBookingControllerRequest;
 import com.island.bookingapi.service.BookingService;
+import com.island.bookingapi.waitingroom.WaitingRoom;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
@@ -13,6 +15,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
 
@@ -25,6 +28,7 @@ public class BookingController {
 
 
     private final BookingService bookingService;
+    private final WaitingRoom waitingRoom;
 
 
     @GetMapping(value = "/{id}")
@@ -34,10 +38,14 @@ public class BookingController {
     }
 
 
-    @PostMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    @PostMapping(produces = {MediaType.APPLICATION_JSON_VALUE, BinaryMediaTypes.SMILE_VALUE, BinaryMediaTypes.CBOR_VALUE,
+            BinaryMediaTypes.PROTOBUF_VALUE})
     @ResponseBody
-    public ResponseEntity<BookingDTO> create(@RequestBody @Valid CreateBookingControllerRequest request) {
-        Booking booking = this.bookingService.createBooking(request);
+    public ResponseEntity<BookingDTO> create(@RequestBody @Valid CreateBookingControllerRequest request,
+                                             @RequestHeader(value = WaitingRoom.TICKET_HEADER, required = false) String ticket,
+                                             HttpServletRequest servletRequest) {
+        Booking booking = this.waitingRoom.admit(request.getArrivalDate(), request.getDepartureDate(), ticket,
+                servletRequest.getRemoteAddr(), () -> this.bookingService.createBooking(request));
         return ResponseEntity.status(HttpStatus.CREATED).body(BookingDTO.builder().bookingId(booking.getId()).build());
     }
 
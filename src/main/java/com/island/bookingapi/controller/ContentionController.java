@@ -0,0 +1,50 @@
+package com.island.bookingapi.controller;
+
+import com.island.bookingapi.contention.DayContention;
+import com.island.bookingapi.contention.DayContentionTracker;
+import com.island.bookingapi.dto.ContentionDTO;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Heatmap of the booking attempts, successes and conflicts per night
+ */
+@RestController
+@RequestMapping("/contention")
+@RequiredArgsConstructor
+@Validated
+public class ContentionController {
+
+    private final DayContentionTracker contentionTracker;
+
+
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<ContentionDTO> getHeatmap(
+            @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        from = Optional.ofNullable(from).orElse(LocalDate.now());
+        to = Optional.ofNullable(to).orElse(from.plusDays(30));
+        List<DayContention> days = this.contentionTracker.getHeatmap(from, to);
+        return ResponseEntity.status(HttpStatus.OK).body(ContentionDTO.builder().from(from).to(to).days(days).build());
+    }
+
+    @GetMapping(value = "/hottest", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<List<DayContention>> getHottest(@Min(1) @Max(100) @RequestParam(value = "limit", defaultValue = "10") int limit) {
+        return ResponseEntity.status(HttpStatus.OK).body(this.contentionTracker.getHottest(limit));
+    }
+
+}
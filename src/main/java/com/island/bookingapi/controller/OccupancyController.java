@@ -0,0 +1,54 @@
+package com.island.bookingapi.controller;
+
+import com.island.bookingapi.dto.OccupancyDTO;
+import com.island.bookingapi.occupancy.OccupancyAggregates;
+import com.island.bookingapi.occupancy.OccupancyGranularity;
+import com.island.bookingapi.occupancy.OccupancyPeriod;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.validation.ConstraintViolationException;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Occupancy summary per week or month, by default the next twelve months
+ */
+@RestController
+@RequestMapping("/occupancy")
+@RequiredArgsConstructor
+@Validated
+public class OccupancyController {
+
+    private static final long MAX_RANGE_DAYS = 2 * 366;
+
+    private final OccupancyAggregates occupancyAggregates;
+
+
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<OccupancyDTO> getOccupancy(
+            @RequestParam(value = "granularity", defaultValue = "MONTH") OccupancyGranularity granularity,
+            @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        from = Optional.ofNullable(from).orElse(LocalDate.now().withDayOfMonth(1));
+        to = Optional.ofNullable(to).orElse(from.plusYears(1).minusDays(1));
+        if (to.isBefore(from) || ChronoUnit.DAYS.between(from, to) > MAX_RANGE_DAYS) {
+            throw new ConstraintViolationException(String.format("to must be after from and at most %d days later", MAX_RANGE_DAYS),
+                    Collections.emptySet());
+        }
+        List<OccupancyPeriod> periods = this.occupancyAggregates.getOccupancy(granularity, from, to);
+        return ResponseEntity.status(HttpStatus.OK).body(OccupancyDTO.builder().from(from).to(to).granularity(granularity).periods(periods).build());
+    }
+
+}
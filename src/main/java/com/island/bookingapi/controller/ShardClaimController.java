@@ -0,0 +1,74 @@
+package com.island.bookingapi.controller;
+
+import com.island.bookingapi.dto.ShardClaimDTO;
+import com.island.bookingapi.request.ShardClaimRequest;
+import com.island.bookingapi.shard.ShardClaims;
+import com.island.bookingapi.shard.ShardCoordinator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.validation.Valid;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * Claims of nights on the shards owned by this instance, called by the other instances. Internal, not to be
+ * exposed by the load balancer; calls without the shared {@code booking.shard.secret} are answered 404.
+ */
+@RestController
+@RequestMapping("/internal/shard-claims")
+@Validated
+@ConditionalOnProperty(name = "booking.shard.enabled", havingValue = "true")
+public class ShardClaimController {
+
+    private final ShardClaims shardClaims;
+    private final byte[] secret;
+
+    public ShardClaimController(ShardClaims shardClaims, @Value("${booking.shard.secret:}") String secret) {
+        this.shardClaims = shardClaims;
+        this.secret = secret.getBytes(StandardCharsets.UTF_8);
+    }
+
+
+    /**
+     * @return the nights already taken, none when the claim is held; 503 when this instance cannot decide
+     */
+    @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<ShardClaimDTO> prepare(@RequestBody @Valid ShardClaimRequest request,
+                                                 @RequestHeader(value = ShardCoordinator.SECRET_HEADER, required = false) String secret) {
+        if (!this.isInstance(secret)) {
+            return ResponseEntity.notFound().build();
+        }
+        return this.shardClaims.prepare(request.getClaimId(), request.getNights())
+                .map(taken -> ResponseEntity.status(HttpStatus.OK)
+                        .body(ShardClaimDTO.builder().claimId(request.getClaimId()).takenNights(taken).build()))
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build());
+    }
+
+    @DeleteMapping(value = "/{claimId}")
+    public ResponseEntity<Void> complete(@PathVariable String claimId, @RequestParam("committed") boolean committed,
+                                         @RequestHeader(value = ShardCoordinator.SECRET_HEADER, required = false) String secret) {
+        if (!this.isInstance(secret)) {
+            return ResponseEntity.notFound().build();
+        }
+        this.shardClaims.complete(claimId, committed);
+        return ResponseEntity.noContent().build();
+    }
+
+    private boolean isInstance(String secret) {
+        return secret != null && this.secret.length > 0 && MessageDigest.isEqual(this.secret, secret.getBytes(StandardCharsets.UTF_8));
+    }
+
+}
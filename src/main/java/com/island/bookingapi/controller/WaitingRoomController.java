@@ -0,0 +1,38 @@
+package com.island.bookingapi.controller;
+
+import com.island.bookingapi.exception.BookingNotFoundException;
+import com.island.bookingapi.waitingroom.TicketStatus;
+import com.island.bookingapi.waitingroom.WaitingRoom;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Status of a waiting room ticket, answered from memory
+ */
+@RestController
+@RequestMapping("/waiting-room")
+@RequiredArgsConstructor
+public class WaitingRoomController {
+
+    private final WaitingRoom waitingRoom;
+
+
+    @GetMapping(value = "/{ticket}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<TicketStatus> getStatus(@PathVariable String ticket) {
+        TicketStatus status = this.waitingRoom.getStatus(ticket)
+                .orElseThrow(() -> new BookingNotFoundException("Ticket not found or expired"));
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(HttpStatus.OK);
+        if (status.getRetryAfterSeconds() > 0) {
+            response.header(HttpHeaders.RETRY_AFTER, String.valueOf(status.getRetryAfterSeconds()));
+        }
+        return response.body(status);
+    }
+
+}
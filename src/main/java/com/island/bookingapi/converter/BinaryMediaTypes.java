@@ -0,0 +1,17 @@
+package com.island.bookingapi.converter;
+
+import org.springframework.http.MediaType;
+
+/**
+ * Binary media types the API negotiates besides JSON
+ */
+public final class BinaryMediaTypes {
+
+    public static final String SMILE_VALUE = "application/x-jackson-smile";
+    public static final String CBOR_VALUE = MediaType.APPLICATION_CBOR_VALUE;
+    public static final String PROTOBUF_VALUE = "application/x-protobuf";
+    public static final MediaType PROTOBUF = MediaType.valueOf(PROTOBUF_VALUE);
+
+    private BinaryMediaTypes() {
+    }
+}
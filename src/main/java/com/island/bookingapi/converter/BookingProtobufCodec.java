@@ -0,0 +1,298 @@
+package com.island.bookingapi.converter;
+
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.WireFormat;
+import com.island.bookingapi.dto.AvailabilityBatchDTO;
+import com.island.bookingapi.dto.AvailabilityDTO;
+import com.island.bookingapi.dto.BookingDTO;
+import com.island.bookingapi.exception.ErrorDetail;
+import com.island.bookingapi.model.BookingStatus;
+import com.island.bookingapi.request.CreateBookingControllerRequest;
+import org.springframework.http.HttpStatus;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Protobuf wire format of the API payloads, as described by {@code src/main/proto/booking.proto}.
+ * Written by hand on top of the protobuf runtime so the DTOs stay the only model of the payloads.
+ * Null values are not written and absent fields are read as null.
+ */
+public final class BookingProtobufCodec {
+
+    private static final LocalDateTime EPOCH = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final int BUFFER_SIZE = 16 * 1024;
+    private static final ThreadLocal<byte[]> BUFFER = ThreadLocal.withInitial(() -> new byte[BUFFER_SIZE]);
+
+    private BookingProtobufCodec() {
+    }
+
+    public static byte[] encode(BookingDTO booking) throws IOException {
+        return encode(output -> {
+            writeInt64(output, 1, booking.getBookingId());
+            writeString(output, 2, booking.getUserName());
+            writeString(output, 3, booking.getUserEmail());
+            writeDate(output, 4, booking.getArrivalDate());
+            writeDate(output, 5, booking.getDepartureDate());
+            if (booking.getStatus() != null) {
+                output.writeEnum(6, booking.getStatus().ordinal() + 1);
+            }
+            writeDateTime(output, 7, booking.getCreatedAt());
+            writeDateTime(output, 8, booking.getUpdatedAt());
+        });
+    }
+
+    public static BookingDTO decodeBooking(byte[] bytes) throws IOException {
+        BookingDTO.BookingDTOBuilder builder = BookingDTO.builder();
+        CodedInputStream input = CodedInputStream.newInstance(bytes);
+        for (int tag = input.readTag(); tag != 0; tag = input.readTag()) {
+            switch (WireFormat.getTagFieldNumber(tag)) {
+                case 1:
+                    builder.bookingId(input.readInt64());
+                    break;
+                case 2:
+                    builder.userName(input.readString());
+                    break;
+                case 3:
+                    builder.userEmail(input.readString());
+                    break;
+                case 4:
+                    builder.arrivalDate(LocalDate.ofEpochDay(input.readInt32()));
+                    break;
+                case 5:
+                    builder.departureDate(LocalDate.ofEpochDay(input.readInt32()));
+                    break;
+                case 6:
+                    int status = input.readEnum();
+                    builder.status(status > 0 && status <= BookingStatus.values().length ? BookingStatus.values()[status - 1] : null);
+                    break;
+                case 7:
+                    builder.createdAt(EPOCH.plus(input.readInt64(), ChronoUnit.MICROS));
+                    break;
+                case 8:
+                    builder.updatedAt(EPOCH.plus(input.readInt64(), ChronoUnit.MICROS));
+                    break;
+                default:
+                    input.skipField(tag);
+            }
+        }
+        return builder.build();
+    }
+
+    public static byte[] encode(AvailabilityDTO availability) throws IOException {
+        return encode(output -> writeAvailability(output, availability));
+    }
+
+    public static AvailabilityDTO decodeAvailability(byte[] bytes) throws IOException {
+        return readAvailability(CodedInputStream.newInstance(bytes));
+    }
+
+    public static byte[] encode(AvailabilityBatchDTO batch) throws IOException {
+        // the ranges are encoded first, encoding reuses the buffer of the thread
+        List<byte[]> ranges = new ArrayList<>(batch.getRanges().size());
+        for (AvailabilityDTO range : batch.getRanges()) {
+            ranges.add(encode(range));
+        }
+        return encode(output -> {
+            for (byte[] range : ranges) {
+                output.writeByteArray(1, range);
+            }
+        });
+    }
+
+    public static AvailabilityBatchDTO decodeAvailabilityBatch(byte[] bytes) throws IOException {
+        List<AvailabilityDTO> ranges = new ArrayList<>();
+        CodedInputStream input = CodedInputStream.newInstance(bytes);
+        for (int tag = input.readTag(); tag != 0; tag = input.readTag()) {
+            if (WireFormat.getTagFieldNumber(tag) == 1) {
+                int limit = input.pushLimit(input.readRawVarint32());
+                ranges.add(readAvailability(input));
+                input.popLimit(limit);
+            } else {
+                input.skipField(tag);
+            }
+        }
+        return AvailabilityBatchDTO.builder().ranges(ranges).build();
+    }
+
+    public static byte[] encode(CreateBookingControllerRequest request) throws IOException {
+        return encode(output -> {
+            writeString(output, 1, request.getUserName());
+            writeString(output, 2, request.getUserEmail());
+            writeDate(output, 3, request.getArrivalDate());
+            writeDate(output, 4, request.getDepartureDate());
+        });
+    }
+
+    public static CreateBookingControllerRequest decodeCreateBookingRequest(byte[] bytes) throws IOException {
+        String userName = null;
+        String userEmail = null;
+        LocalDate arrivalDate = null;
+        LocalDate departureDate = null;
+        CodedInputStream input = CodedInputStream.newInstance(bytes);
+        for (int tag = input.readTag(); tag != 0; tag = input.readTag()) {
+            switch (WireFormat.getTagFieldNumber(tag)) {
+                case 1:
+                    userName = input.readString();
+                    break;
+                case 2:
+                    userEmail = input.readString();
+                    break;
+                case 3:
+                    arrivalDate = LocalDate.ofEpochDay(input.readInt32());
+                    break;
+                case 4:
+                    departureDate = LocalDate.ofEpochDay(input.readInt32());
+                    break;
+                default:
+                    input.skipField(tag);
+            }
+        }
+        return new CreateBookingControllerRequest(userName, userEmail, arrivalDate, departureDate);
+    }
+
+    public static byte[] encode(ErrorDetail errorDetail) throws IOException {
+        return encode(output -> {
+            if (errorDetail.getTimestamp() != null) {
+                output.writeInt64(1, errorDetail.getTimestamp().getTime());
+            }
+            writeString(output, 2, errorDetail.getMessage());
+            if (errorDetail.getDetails() != null) {
+                for (String detail : errorDetail.getDetails()) {
+                    output.writeString(3, detail);
+                }
+            }
+            if (errorDetail.getHttpStatus() != null) {
+                output.writeInt32(4, errorDetail.getHttpStatus().value());
+            }
+        });
+    }
+
+    public static ErrorDetail decodeErrorDetail(byte[] bytes) throws IOException {
+        ErrorDetail.ErrorDetailBuilder builder = ErrorDetail.builder();
+        List<String> details = new ArrayList<>();
+        CodedInputStream input = CodedInputStream.newInstance(bytes);
+        for (int tag = input.readTag(); tag != 0; tag = input.readTag()) {
+            switch (WireFormat.getTagFieldNumber(tag)) {
+                case 1:
+                    builder.timestamp(new Date(input.readInt64()));
+                    break;
+                case 2:
+                    builder.message(input.readString());
+                    break;
+                case 3:
+                    details.add(input.readString());
+                    break;
+                case 4:
+                    builder.httpStatus(HttpStatus.resolve(input.readInt32()));
+                    break;
+                default:
+                    input.skipField(tag);
+            }
+        }
+        return builder.details(details.isEmpty() ? null : details).build();
+    }
+
+    private static void writeAvailability(CodedOutputStream output, AvailabilityDTO availability) throws IOException {
+        writeDate(output, 1, availability.getFrom());
+        writeDate(output, 2, availability.getTo());
+        List<LocalDate> dates = availability.getAvailableDates();
+        if (dates == null || dates.isEmpty()) {
+            return;
+        }
+        int size = 0;
+        for (LocalDate date : dates) {
+            size += CodedOutputStream.computeInt32SizeNoTag((int) date.toEpochDay());
+        }
+        output.writeTag(3, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+        output.writeUInt32NoTag(size);
+        for (LocalDate date : dates) {
+            output.writeInt32NoTag((int) date.toEpochDay());
+        }
+    }
+
+    private static AvailabilityDTO readAvailability(CodedInputStream input) throws IOException {
+        AvailabilityDTO.AvailabilityDTOBuilder builder = AvailabilityDTO.builder();
+        List<LocalDate> dates = new ArrayList<>();
+        for (int tag = input.readTag(); tag != 0; tag = input.readTag()) {
+            switch (WireFormat.getTagFieldNumber(tag)) {
+                case 1:
+                    builder.from(LocalDate.ofEpochDay(input.readInt32()));
+                    break;
+                case 2:
+                    builder.to(LocalDate.ofEpochDay(input.readInt32()));
+                    break;
+                case 3:
+                    if (WireFormat.getTagWireType(tag) == WireFormat.WIRETYPE_LENGTH_DELIMITED) {
+                        int limit = input.pushLimit(input.readRawVarint32());
+                        while (input.getBytesUntilLimit() > 0) {
+                            dates.add(LocalDate.ofEpochDay(input.readInt32()));
+                        }
+                        input.popLimit(limit);
+                    } else {
+                        dates.add(LocalDate.ofEpochDay(input.readInt32()));
+                    }
+                    break;
+                default:
+                    input.skipField(tag);
+            }
+        }
+        return builder.availableDates(dates).build();
+    }
+
+    private static void writeInt64(CodedOutputStream output, int field, Long value) throws IOException {
+        if (value != null) {
+            output.writeInt64(field, value);
+        }
+    }
+
+    private static void writeString(CodedOutputStream output, int field, String value) throws IOException {
+        if (value != null) {
+            output.writeString(field, value);
+        }
+    }
+
+    private static void writeDate(CodedOutputStream output, int field, LocalDate value) throws IOException {
+        if (value != null) {
+            output.writeInt32(field, (int) value.toEpochDay());
+        }
+    }
+
+    private static void writeDateTime(CodedOutputStream output, int field, LocalDateTime value) throws IOException {
+        if (value != null) {
+            output.writeInt64(field, ChronoUnit.MICROS.between(EPOCH, value));
+        }
+    }
+
+    /**
+     * Writes the message into the buffer of the thread and returns a copy of the bytes written,
+     * messages larger than the buffer are written to a stream instead
+     */
+    private static byte[] encode(MessageWriter writer) throws IOException {
+        byte[] buffer = BUFFER.get();
+        CodedOutputStream output = CodedOutputStream.newInstance(buffer);
+        try {
+            writer.write(output);
+            return Arrays.copyOf(buffer, output.getTotalBytesWritten());
+        } catch (CodedOutputStream.OutOfSpaceException e) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(BUFFER_SIZE * 2);
+            CodedOutputStream streamOutput = CodedOutputStream.newInstance(bytes);
+            writer.write(streamOutput);
+            streamOutput.flush();
+            return bytes.toByteArray();
+        }
+    }
+
+    @FunctionalInterface
+    private interface MessageWriter {
+        void write(CodedOutputStream output) throws IOException;
+    }
+}
@@ -0,0 +1,76 @@
+package com.island.bookingapi.converter;
+
+import com.island.bookingapi.dto.AvailabilityBatchDTO;
+import com.island.bookingapi.dto.AvailabilityDTO;
+import com.island.bookingapi.dto.BookingDTO;
+import com.island.bookingapi.exception.ErrorDetail;
+import com.island.bookingapi.request.CreateBookingControllerRequest;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.util.Set;
+
+/**
+ * Reads and writes the API payloads in the protobuf format of {@link BookingProtobufCodec}
+ */
+public class BookingProtobufHttpMessageConverter extends AbstractHttpMessageConverter<Object> {
+
+    private static final Set<Class<?>> SUPPORTED = Set.of(BookingDTO.class, AvailabilityDTO.class, AvailabilityBatchDTO.class,
+            CreateBookingControllerRequest.class, ErrorDetail.class);
+
+    public BookingProtobufHttpMessageConverter() {
+        super(BinaryMediaTypes.PROTOBUF);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return SUPPORTED.contains(clazz);
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) throws IOException {
+        byte[] bytes = StreamUtils.copyToByteArray(inputMessage.getBody());
+        try {
+            if (clazz == CreateBookingControllerRequest.class) {
+                return BookingProtobufCodec.decodeCreateBookingRequest(bytes);
+            }
+            if (clazz == BookingDTO.class) {
+                return BookingProtobufCodec.decodeBooking(bytes);
+            }
+            if (clazz == AvailabilityDTO.class) {
+                return BookingProtobufCodec.decodeAvailability(bytes);
+            }
+            if (clazz == AvailabilityBatchDTO.class) {
+                return BookingProtobufCodec.decodeAvailabilityBatch(bytes);
+            }
+            return BookingProtobufCodec.decodeErrorDetail(bytes);
+        } catch (IOException e) {
+            throw new HttpMessageNotReadableException("Invalid protobuf message: " + e.getMessage(), e, inputMessage);
+        }
+    }
+
+    @Override
+    protected void writeInternal(Object body, HttpOutputMessage outputMessage) throws IOException {
+        byte[] bytes;
+        if (body instanceof BookingDTO) {
+            bytes = BookingProtobufCodec.encode((BookingDTO) body);
+        } else if (body instanceof AvailabilityDTO) {
+            bytes = BookingProtobufCodec.encode((AvailabilityDTO) body);
+        } else if (body instanceof AvailabilityBatchDTO) {
+            bytes = BookingProtobufCodec.encode((AvailabilityBatchDTO) body);
+        } else if (body instanceof CreateBookingControllerRequest) {
+            bytes = BookingProtobufCodec.encode((CreateBookingControllerRequest) body);
+        } else if (body instanceof ErrorDetail) {
+            bytes = BookingProtobufCodec.encode((ErrorDetail) body);
+        } else {
+            throw new HttpMessageNotWritableException("Not a protobuf payload: " + body.getClass().getName());
+        }
+        outputMessage.getHeaders().setContentLength(bytes.length);
+        StreamUtils.copy(bytes, outputMessage.getBody());
+    }
+}
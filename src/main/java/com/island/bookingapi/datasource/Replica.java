@@ -0,0 +1,31 @@
+package com.island.bookingapi.datasource;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+
+import javax.sql.DataSource;
+
+/**
+ * Read replica of the database with the health last seen by the {@link ReplicaHealthChecker}
+ */
+@Getter
+@RequiredArgsConstructor
+public class Replica {
+
+    private final String name;
+
+    private final DataSource dataSource;
+
+    /**
+     * Unhealthy until the first check, reads go to the primary meanwhile
+     */
+    @Setter
+    private volatile boolean healthy;
+
+    /**
+     * Replication lag in milliseconds, -1 while unknown
+     */
+    @Setter
+    private volatile long lagMillis = -1;
+}
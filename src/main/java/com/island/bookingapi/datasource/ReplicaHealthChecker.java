@@ -0,0 +1,64 @@
+package com.island.bookingapi.datasource;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+/**
+ * Measures the replication lag of every replica. A replica is healthy while it answers and
+ * lags less than the maximum, reads go to the primary otherwise.
+ */
+public class ReplicaHealthChecker {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReplicaHealthChecker.class);
+
+    private final List<Replica> replicas;
+    private final String lagQuery;
+    private final long maxLagMillis;
+
+    public ReplicaHealthChecker(List<Replica> replicas, String lagQuery, long maxLagMillis, MeterRegistry meterRegistry) {
+        this.replicas = replicas;
+        this.lagQuery = lagQuery;
+        this.maxLagMillis = maxLagMillis;
+        for (Replica replica : replicas) {
+            Gauge.builder("booking.replica.lag", replica, Replica::getLagMillis).tag("replica", replica.getName())
+                    .description("Replication lag in milliseconds, -1 when unknown").register(meterRegistry);
+            Gauge.builder("booking.replica.healthy", replica, r -> r.isHealthy() ? 1 : 0).tag("replica", replica.getName())
+                    .description("Whether reads are sent to the replica").register(meterRegistry);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${booking.replica.health-check-interval-ms:1000}")
+    public void check() {
+        this.replicas.forEach(this::check);
+    }
+
+    void check(Replica replica) {
+        boolean healthy;
+        try (Connection connection = replica.getDataSource().getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(this.lagQuery)) {
+            long lagMillis = resultSet.next() ? Math.round(resultSet.getDouble(1) * 1000) : 0;
+            replica.setLagMillis(lagMillis);
+            healthy = lagMillis <= this.maxLagMillis;
+        } catch (SQLException e) {
+            replica.setLagMillis(-1);
+            healthy = false;
+            if (replica.isHealthy()) {
+                LOGGER.warn("Replica {} check failed: {}", replica.getName(), e.getMessage());
+            }
+        }
+        if (healthy != replica.isHealthy()) {
+            LOGGER.info("Replica {} is now {} (lag {} ms)", replica.getName(), healthy ? "healthy" : "unhealthy", replica.getLagMillis());
+        }
+        replica.setHealthy(healthy);
+    }
+}
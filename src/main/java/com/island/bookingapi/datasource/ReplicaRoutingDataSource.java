@@ -0,0 +1,124 @@
+package com.island.bookingapi.datasource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends the connections of read-only transactions to the healthy replicas, round robin, and everything else
+ * to the primary. The current thread can be pinned to the primary so a client reads its own writes.
+ * <p>
+ * The read-only flag of the transaction is only known once it has begun, so connections are lazy: the
+ * target is chosen on the first statement. A replica failing to give a connection is marked unhealthy
+ * and the primary used instead.
+ */
+public class ReplicaRoutingDataSource extends LazyConnectionDataSourceProxy implements Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+    private static final ThreadLocal<Boolean> PINNED_TO_PRIMARY = new ThreadLocal<>();
+
+    private final DataSource primary;
+    private final List<Replica> replicas;
+    private final AtomicInteger next = new AtomicInteger();
+
+    public ReplicaRoutingDataSource(DataSource primary, List<Replica> replicas) {
+        this.primary = primary;
+        this.replicas = replicas;
+        this.setTargetDataSource(new AbstractDataSource() {
+            @Override
+            public Connection getConnection() throws SQLException {
+                return ReplicaRoutingDataSource.this.routeConnection();
+            }
+
+            @Override
+            public Connection getConnection(String username, String password) throws SQLException {
+                return primary.getConnection(username, password);
+            }
+        });
+    }
+
+    /**
+     * Sends every read of the current thread to the primary until {@link #unpin()}
+     */
+    public static void pinToPrimary() {
+        PINNED_TO_PRIMARY.set(Boolean.TRUE);
+    }
+
+    public static void unpin() {
+        PINNED_TO_PRIMARY.remove();
+    }
+
+    public static boolean isPinnedToPrimary() {
+        return PINNED_TO_PRIMARY.get() != null;
+    }
+
+    public List<Replica> getReplicas() {
+        return this.replicas;
+    }
+
+    /**
+     * Returns a connection of the replica or the primary, as the current transaction goes
+     *
+     * @return Connection
+     * @throws SQLException if the primary fails to give a connection
+     */
+    Connection routeConnection() throws SQLException {
+        Replica replica = this.selectReplica();
+        if (replica != null) {
+            try {
+                return replica.getDataSource().getConnection();
+            } catch (SQLException e) {
+                LOGGER.warn("Replica {} failed to give a connection, reading from the primary", replica.getName(), e);
+                replica.setHealthy(false);
+            }
+        }
+        return this.primary.getConnection();
+    }
+
+    /**
+     * Returns the replica the current transaction reads from, null when it goes to the primary
+     *
+     * @return Replica
+     */
+    Replica selectReplica() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly() || isPinnedToPrimary()) {
+            return null;
+        }
+        int size = this.replicas.size();
+        int start = Math.floorMod(this.next.getAndIncrement(), size == 0 ? 1 : size);
+        for (int i = 0; i < size; i++) {
+            Replica replica = this.replicas.get((start + i) % size);
+            if (replica.isHealthy()) {
+                return replica;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (DataSource dataSource : this.allDataSources()) {
+            if (dataSource instanceof Closeable) {
+                ((Closeable) dataSource).close();
+            }
+        }
+    }
+
+    private List<DataSource> allDataSources() {
+        List<DataSource> dataSources = new ArrayList<>();
+        dataSources.add(this.primary);
+        this.replicas.forEach(replica -> dataSources.add(replica.getDataSource()));
+        return dataSources;
+    }
+}
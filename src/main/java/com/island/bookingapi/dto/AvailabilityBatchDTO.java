@@ -0,0 +1,16 @@
+package com.island.bookingapi.dto;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@Builder
+public class AvailabilityBatchDTO {
+
+    private List<AvailabilityDTO> ranges;
+
+}
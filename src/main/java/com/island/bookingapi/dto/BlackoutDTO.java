@@ -0,0 +1,23 @@
+package com.island.bookingapi.dto;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@Builder
+public class BlackoutDTO {
+
+    private Long blackoutId;
+    private LocalDate from;
+    private LocalDate to;
+    private String reason;
+    private int cancelledBookings;
+    private LocalDateTime createdAt;
+
+
+}
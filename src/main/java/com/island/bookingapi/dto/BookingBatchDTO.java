@@ -0,0 +1,21 @@
+package com.island.bookingapi.dto;
+
+import com.island.bookingapi.batch.BatchMode;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@Builder
+public class BookingBatchDTO {
+
+    private BatchMode mode;
+
+    private boolean applied;
+
+    private List<BookingOperationResultDTO> results;
+
+}
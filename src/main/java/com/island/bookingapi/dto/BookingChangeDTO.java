@@ -0,0 +1,25 @@
+package com.island.bookingapi.dto;
+
+import com.island.bookingapi.event.BookingChangeType;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Payload of the booking change events relayed to the downstream systems
+ */
+@Getter
+@Builder
+public class BookingChangeDTO {
+
+    private BookingChangeType type;
+
+    private BookingDTO booking;
+
+    private List<LocalDate> releasedDays;
+
+    private List<LocalDate> bookedDays;
+
+}
@@ -0,0 +1,23 @@
+package com.island.bookingapi.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.island.bookingapi.batch.BookingOperationType;
+import lombok.Builder;
+import lombok.Getter;
+
+@Getter
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BookingOperationResultDTO {
+
+    private int index;
+
+    private BookingOperationType type;
+
+    private int status;
+
+    private String message;
+
+    private BookingDTO booking;
+
+}
@@ -0,0 +1,21 @@
+package com.island.bookingapi.dto;
+
+import com.island.bookingapi.contention.DayContention;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Getter
+@Setter
+@Builder
+public class ContentionDTO {
+
+    private LocalDate from;
+    private LocalDate to;
+    private List<DayContention> days;
+
+
+}
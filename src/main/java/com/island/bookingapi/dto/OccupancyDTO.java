@@ -0,0 +1,23 @@
+package com.island.bookingapi.dto;
+
+import com.island.bookingapi.occupancy.OccupancyGranularity;
+import com.island.bookingapi.occupancy.OccupancyPeriod;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Getter
+@Setter
+@Builder
+public class OccupancyDTO {
+
+    private LocalDate from;
+    private LocalDate to;
+    private OccupancyGranularity granularity;
+    private List<OccupancyPeriod> periods;
+
+
+}
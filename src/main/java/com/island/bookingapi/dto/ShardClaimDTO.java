@@ -0,0 +1,23 @@
+package com.island.bookingapi.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ShardClaimDTO {
+
+    private String claimId;
+    private List<LocalDate> takenNights;
+
+
+}
@@ -0,0 +1,27 @@
+package com.island.bookingapi.event;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Published once per committed batch of booking operations. The calendar days are the net change of
+ * the batch, a night moved from one booking to another is in neither list, so listeners keeping the
+ * calendar apply them at once instead of replaying the operations.
+ */
+@Getter
+@RequiredArgsConstructor
+public class BookingBatchEvent {
+
+    private final List<LocalDate> releasedDays;
+
+    private final List<LocalDate> bookedDays;
+
+    /**
+     * One change per operation applied, in the order of the batch, with all the nights of the stays
+     */
+    private final List<BookingChangedEvent> changes;
+
+}
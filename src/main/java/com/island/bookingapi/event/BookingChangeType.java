@@ -0,0 +1,7 @@
+package com.island.bookingapi.event;
+
+public enum BookingChangeType {
+    CREATED,
+    UPDATED,
+    CANCELLED
+}
@@ -0,0 +1,25 @@
+package com.island.bookingapi.event;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Published by the BookingService every time a booking claims or releases calendar days.
+ * Listeners that keep derived state (indexes, caches) should react after the commit.
+ */
+@Getter
+@RequiredArgsConstructor
+public class BookingChangedEvent {
+
+    private final Long bookingId;
+
+    private final BookingChangeType type;
+
+    private final List<LocalDate> releasedDays;
+
+    private final List<LocalDate> bookedDays;
+
+}
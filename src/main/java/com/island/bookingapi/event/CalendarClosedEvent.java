@@ -0,0 +1,27 @@
+package com.island.bookingapi.event;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Published once a blackout is in place: its days are held in the calendar, the bookings overlapping it
+ * are cancelled and their nights outside of it released. Sent after all the changes are committed so
+ * listeners keeping derived state apply the whole closure at once.
+ */
+@Getter
+@RequiredArgsConstructor
+public class CalendarClosedEvent {
+
+    private final List<LocalDate> closedDays;
+
+    private final List<LocalDate> releasedDays;
+
+    /**
+     * One cancellation per booking, its released days being all the nights of the stay
+     */
+    private final List<BookingChangedEvent> cancellations;
+
+}
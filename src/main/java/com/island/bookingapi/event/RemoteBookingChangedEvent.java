@@ -0,0 +1,19 @@
+package com.island.bookingapi.event;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Published for a booking change committed by another instance of the cluster. Listeners keeping the
+ * calendar apply it like a local change; the ones measuring the traffic of this instance leave it out.
+ */
+@Getter
+@RequiredArgsConstructor
+public class RemoteBookingChangedEvent {
+
+    /**
+     * The change as sent by the other instance, without a booking id
+     */
+    private final BookingChangedEvent change;
+
+}
@@ -1,5 +1,7 @@
 package com.island.bookingapi.exception;
 
+import com.island.bookingapi.waitingroom.TicketStatus;
+import com.island.bookingapi.waitingroom.WaitingRoom;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -49,6 +51,19 @@ public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
         return this.handleExceptionInternal(ex, errorDetail, new HttpHeaders(), errorDetail.getHttpStatus(), request);
     }
 
+    /**
+     * Handles HistoryNotRetainedException, reports an availability asked as of an instant already dropped from the history
+     *
+     * @param ex      HistoryNotRetainedException
+     * @param request
+     * @return ResponseEntity with HTTP status 410
+     */
+    @ExceptionHandler(value = {HistoryNotRetainedException.class})
+    protected ResponseEntity<Object> handleHistoryNotRetained(HistoryNotRetainedException ex, WebRequest request) {
+        ErrorDetail errorDetail = ErrorDetail.builder().timestamp(new Date()).httpStatus(HttpStatus.GONE).message(ex.getMessage()).build();
+        return this.handleExceptionInternal(ex, errorDetail, new HttpHeaders(), errorDetail.getHttpStatus(), request);
+    }
+
     /**
      * Handles CancelledBookingException, reports cancelled booking trying to update
      *
@@ -62,6 +77,41 @@ public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
         return this.handleExceptionInternal(ex, errorDetail, new HttpHeaders(), errorDetail.getHttpStatus(), request);
     }
 
+    /**
+     * Handles QuotaExceededException, reports a client over its request rate or a guest over its booking quota
+     *
+     * @param ex      QuotaExceededException
+     * @param request
+     * @return ResponseEntity with HTTP status 429
+     */
+    @ExceptionHandler(value = {QuotaExceededException.class})
+    protected ResponseEntity<Object> handleQuotaExceeded(QuotaExceededException ex, WebRequest request) {
+        ErrorDetail errorDetail = ErrorDetail.builder().timestamp(new Date()).httpStatus(HttpStatus.TOO_MANY_REQUESTS).message(ex.getMessage()).build();
+        HttpHeaders headers = new HttpHeaders();
+        if (ex.getRetryAfterSeconds() > 0) {
+            headers.set(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()));
+        }
+        return this.handleExceptionInternal(ex, errorDetail, headers, errorDetail.getHttpStatus(), request);
+    }
+
+    /**
+     * Handles WaitingRoomException, the booking is not created and the client waits with the ticket
+     *
+     * @param ex      WaitingRoomException
+     * @param request
+     * @return ResponseEntity with HTTP status 202 and the ticket status
+     */
+    @ExceptionHandler(value = {WaitingRoomException.class})
+    protected ResponseEntity<Object> handleWaitingRoom(WaitingRoomException ex, WebRequest request) {
+        TicketStatus ticketStatus = ex.getTicketStatus();
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(WaitingRoom.TICKET_HEADER, ticketStatus.getTicket());
+        headers.set(HttpHeaders.LOCATION, "/waiting-room/" + ticketStatus.getTicket());
+        if (ticketStatus.getRetryAfterSeconds() > 0) {
+            headers.set(HttpHeaders.RETRY_AFTER, String.valueOf(ticketStatus.getRetryAfterSeconds()));
+        }
+        return this.handleExceptionInternal(ex, ticketStatus, headers, HttpStatus.ACCEPTED, request);
+    }
 
     /**
      * Handles ConstraintViolationException, reports the result of constraint violations
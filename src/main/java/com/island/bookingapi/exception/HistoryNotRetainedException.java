@@ -0,0 +1,22 @@
+package com.island.bookingapi.exception;
+
+
+public class HistoryNotRetainedException extends RuntimeException {
+    private static final String HISTORY_NOT_RETAINED = "Calendar history not retained";
+
+    public HistoryNotRetainedException(String message) {
+        super(message);
+    }
+
+    public HistoryNotRetainedException() {
+        super(HISTORY_NOT_RETAINED);
+    }
+
+    public HistoryNotRetainedException(Throwable cause) {
+        super(HISTORY_NOT_RETAINED, cause);
+    }
+
+    public HistoryNotRetainedException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,24 @@
+package com.island.bookingapi.exception;
+
+
+public class QuotaExceededException extends RuntimeException {
+    private static final String QUOTA_EXCEEDED = "Quota exceeded";
+
+    private final long retryAfterSeconds;
+
+    public QuotaExceededException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public QuotaExceededException() {
+        this(QUOTA_EXCEEDED, 0);
+    }
+
+    /**
+     * @return seconds until the request can be retried, 0 when retrying soon will not help
+     */
+    public long getRetryAfterSeconds() {
+        return this.retryAfterSeconds;
+    }
+}
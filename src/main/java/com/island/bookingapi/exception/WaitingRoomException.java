@@ -0,0 +1,21 @@
+package com.island.bookingapi.exception;
+
+import com.island.bookingapi.waitingroom.TicketStatus;
+
+/**
+ * Thrown when a booking for gated dates arrives without an admitted ticket, the client waits with the ticket
+ */
+public class WaitingRoomException extends RuntimeException {
+    private static final String QUEUED = "Dates in high demand, the booking is queued";
+
+    private final TicketStatus ticketStatus;
+
+    public WaitingRoomException(TicketStatus ticketStatus) {
+        super(QUEUED);
+        this.ticketStatus = ticketStatus;
+    }
+
+    public TicketStatus getTicketStatus() {
+        return this.ticketStatus;
+    }
+}
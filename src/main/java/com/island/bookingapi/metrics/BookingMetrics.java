@@ -0,0 +1,127 @@
+package com.island.bookingapi.metrics;
+
+import com.island.bookingapi.event.BookingChangeType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Timers and counters of the booking hot path.
+ * <p>
+ * Every meter is registered once at startup, recording a value only reads a clock
+ * and updates the histogram of a meter already built, nothing is allocated per call.
+ */
+@Component
+public class BookingMetrics {
+
+    private static final Duration MIN_EXPECTED = Duration.ofNanos(10_000);
+    private static final Duration MAX_EXPECTED = Duration.ofSeconds(5);
+
+    private final Timer[][] stageTimers;
+    private final CommitTimer[] commitTimers;
+    private final Timer availabilityFromIndex;
+    private final Timer availabilityFromDatabase;
+    private final Counter conflicts;
+    private final Counter notFound;
+    private final Counter cancelledBooking;
+
+    public BookingMetrics(MeterRegistry meterRegistry) {
+        BookingChangeType[] operations = BookingChangeType.values();
+        BookingStage[] stages = BookingStage.values();
+        this.stageTimers = new Timer[operations.length][stages.length];
+        this.commitTimers = new CommitTimer[operations.length];
+        for (BookingChangeType operation : operations) {
+            for (BookingStage stage : stages) {
+                this.stageTimers[operation.ordinal()][stage.ordinal()] = this.histogram("booking.stage", meterRegistry,
+                        "operation", operation.name().toLowerCase(), "stage", stage.getTag());
+            }
+            this.commitTimers[operation.ordinal()] = new CommitTimer(this.stageTimers[operation.ordinal()][BookingStage.COMMIT.ordinal()]);
+        }
+        this.availabilityFromIndex = this.histogram("booking.availability", meterRegistry, "source", "index");
+        this.availabilityFromDatabase = this.histogram("booking.availability", meterRegistry, "source", "database");
+        this.conflicts = meterRegistry.counter("booking.errors", "type", "conflict");
+        this.notFound = meterRegistry.counter("booking.errors", "type", "not_found");
+        this.cancelledBooking = meterRegistry.counter("booking.errors", "type", "cancelled_booking");
+    }
+
+    /**
+     * Records the time elapsed since {@code startNanos} for the given stage
+     *
+     * @param operation  booking operation
+     * @param stage      stage finished
+     * @param startNanos {@link System#nanoTime()} when the stage started
+     * @return {@link System#nanoTime()} when the stage finished, start of the next one
+     */
+    public long recordStage(BookingChangeType operation, BookingStage stage, long startNanos) {
+        long now = System.nanoTime();
+        this.stageTimers[operation.ordinal()][stage.ordinal()].record(now - startNanos, TimeUnit.NANOSECONDS);
+        return now;
+    }
+
+    /**
+     * Records the commit of the current transaction, if there is one
+     *
+     * @param operation booking operation
+     */
+    public void recordCommit(BookingChangeType operation) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(this.commitTimers[operation.ordinal()]);
+        }
+    }
+
+    public void recordAvailability(boolean fromIndex, long startNanos) {
+        Timer timer = fromIndex ? this.availabilityFromIndex : this.availabilityFromDatabase;
+        timer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void conflict() {
+        this.conflicts.increment();
+    }
+
+    public void notFound() {
+        this.notFound.increment();
+    }
+
+    public void cancelledBooking() {
+        this.cancelledBooking.increment();
+    }
+
+    private Timer histogram(String name, MeterRegistry meterRegistry, String... tags) {
+        return Timer.builder(name).tags(tags).publishPercentileHistogram()
+                .minimumExpectedValue(MIN_EXPECTED).maximumExpectedValue(MAX_EXPECTED).register(meterRegistry);
+    }
+
+    /**
+     * Shared by all the transactions of an operation, the commit start is kept per thread
+     * because the commit callbacks run on the thread that commits.
+     */
+    private static class CommitTimer implements TransactionSynchronization {
+
+        private static final ThreadLocal<long[]> COMMIT_START = ThreadLocal.withInitial(() -> new long[1]);
+        private final Timer timer;
+
+        CommitTimer(Timer timer) {
+            this.timer = timer;
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            COMMIT_START.get()[0] = System.nanoTime();
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            long start = COMMIT_START.get()[0];
+            if (status == STATUS_COMMITTED && start != 0) {
+                this.timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+            COMMIT_START.get()[0] = 0;
+        }
+    }
+}
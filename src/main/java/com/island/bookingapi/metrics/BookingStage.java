@@ -0,0 +1,19 @@
+package com.island.bookingapi.metrics;
+
+import lombok.Getter;
+
+@Getter
+public enum BookingStage {
+    VALIDATION("validation"),
+    CHECK_DATES("check_dates"),
+    CALENDAR_RELEASE("calendar_release"),
+    CALENDAR_INSERT("calendar_insert"),
+    BOOKING_INSERT("booking_insert"),
+    COMMIT("commit");
+
+    private final String tag;
+
+    BookingStage(String tag) {
+        this.tag = tag;
+    }
+}
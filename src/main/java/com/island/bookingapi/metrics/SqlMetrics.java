@@ -0,0 +1,61 @@
+package com.island.bookingapi.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Statements, rows and JDBC time per HTTP request and per transaction.
+ * A new round trip added to the booking hot path shows up as a shift of the statements distribution.
+ */
+@Component
+public class SqlMetrics {
+
+    private final Scope request;
+    private final Scope transaction;
+    private final Counter slowStatements;
+
+    public SqlMetrics(MeterRegistry meterRegistry) {
+        this.request = new Scope(meterRegistry, "request");
+        this.transaction = new Scope(meterRegistry, "transaction");
+        this.slowStatements = meterRegistry.counter("booking.sql.slow");
+    }
+
+    public void recordRequest(long statements, long rows, long jdbcNanos) {
+        this.request.record(statements, rows, jdbcNanos);
+    }
+
+    public void recordTransaction(long statements, long rows, long jdbcNanos) {
+        this.transaction.record(statements, rows, jdbcNanos);
+    }
+
+    public void slowStatement() {
+        this.slowStatements.increment();
+    }
+
+    private static class Scope {
+
+        private final DistributionSummary statements;
+        private final DistributionSummary rows;
+        private final Timer jdbcTime;
+
+        Scope(MeterRegistry meterRegistry, String scope) {
+            this.statements = DistributionSummary.builder("booking.sql.statements").tag("scope", scope)
+                    .publishPercentileHistogram().minimumExpectedValue(1.0).maximumExpectedValue(1_000.0).register(meterRegistry);
+            this.rows = DistributionSummary.builder("booking.sql.rows").tag("scope", scope)
+                    .publishPercentileHistogram().minimumExpectedValue(1.0).maximumExpectedValue(100_000.0).register(meterRegistry);
+            this.jdbcTime = Timer.builder("booking.sql.time").tag("scope", scope).publishPercentileHistogram()
+                    .register(meterRegistry);
+        }
+
+        void record(long statements, long rows, long jdbcNanos) {
+            this.statements.record(statements);
+            this.rows.record(rows);
+            this.jdbcTime.record(jdbcNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.island.bookingapi.model;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Booking whose stay ended before the archive cutoff, moved out of the booking table keeping its id
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+public class ArchivedBooking {
+    @Id
+    private Long id;
+
+    private String userName;
+
+    private String userEmail;
+
+    private LocalDate arrivalDate;
+
+    private LocalDate departureDate;
+
+    private LocalDateTime createdAt;
+
+    private LocalDateTime updatedAt;
+
+    private Integer status;
+
+    private LocalDateTime archivedAt;
+
+    public Booking toBooking() {
+        Booking booking = new Booking(this.userName, this.userEmail, this.arrivalDate, this.departureDate);
+        booking.setId(this.id);
+        booking.setCreatedAt(this.createdAt);
+        booking.setUpdatedAt(this.updatedAt);
+        booking.setStatus(this.status);
+        return booking;
+    }
+}
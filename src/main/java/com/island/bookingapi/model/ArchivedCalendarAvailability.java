@@ -0,0 +1,28 @@
+package com.island.bookingapi.model;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Booked calendar day before the archive cutoff, moved out of the calendar table keeping its id
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@Entity
+public class ArchivedCalendarAvailability {
+
+    @Id
+    private Long id;
+
+    private LocalDate day;
+
+    private LocalDateTime archivedAt;
+
+}
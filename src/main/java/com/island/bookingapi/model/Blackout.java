@@ -0,0 +1,44 @@
+package com.island.bookingapi.model;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Closure of the island for a range of days, both ends included. Its days are held in the calendar
+ * so they are not bookable, the bookings overlapping it were cancelled when it was created.
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+public class Blackout {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private LocalDate fromDate;
+
+    private LocalDate toDate;
+
+    private String reason;
+
+    private int cancelledBookings;
+
+    private LocalDateTime createdAt;
+
+    public Blackout(LocalDate fromDate, LocalDate toDate, String reason) {
+        this.fromDate = fromDate;
+        this.toDate = toDate;
+        this.reason = reason;
+        this.createdAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,42 @@
+package com.island.bookingapi.model;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Range of days, both ends included, whose calendar rows were inserted or deleted at the given time. Written
+ * in the transaction of the change, so a calendar snapshot knows which days to read again.
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@Table(indexes = @Index(columnList = "changedAt"))
+public class CalendarChange {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private LocalDate fromDay;
+
+    private LocalDate toDay;
+
+    private LocalDateTime changedAt;
+
+    public CalendarChange(LocalDate fromDay, LocalDate toDay) {
+        this.fromDay = fromDay;
+        this.toDay = toDay;
+        this.changedAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,42 @@
+package com.island.bookingapi.model;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import java.time.LocalDateTime;
+
+/**
+ * Booking change written in the transaction of the change, waiting to be relayed to the downstream systems
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+public class OutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private Long bookingId;
+
+    private String type;
+
+    @Column(length = 4000)
+    private String payload;
+
+    private LocalDateTime createdAt;
+
+    public OutboxEvent(Long bookingId, String type, String payload) {
+        this.bookingId = bookingId;
+        this.type = type;
+        this.payload = payload;
+        this.createdAt = LocalDateTime.now();
+    }
+}
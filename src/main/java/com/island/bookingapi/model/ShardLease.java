@@ -0,0 +1,35 @@
+package com.island.bookingapi.model;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import java.time.LocalDateTime;
+
+/**
+ * Lease of a shard of the calendar by an instance, the owner decides the booking conflicts of its days
+ * until the lease expires. The epoch grows every time the shard changes owner.
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+public class ShardLease {
+
+    @Id
+    private Integer shardId;
+
+    private String owner;
+
+    private String ownerUrl;
+
+    private long epoch;
+
+    private LocalDateTime expiresAt;
+
+    public ShardLease(Integer shardId) {
+        this.shardId = shardId;
+    }
+}
@@ -0,0 +1,184 @@
+package com.island.bookingapi.occupancy;
+
+import com.island.bookingapi.calendar.EpochDayRange;
+import com.island.bookingapi.event.BookingBatchEvent;
+import com.island.bookingapi.event.BookingChangeType;
+import com.island.bookingapi.event.BookingChangedEvent;
+import com.island.bookingapi.event.CalendarClosedEvent;
+import com.island.bookingapi.event.RemoteBookingChangedEvent;
+import com.island.bookingapi.model.Booking;
+import com.island.bookingapi.model.BookingStatus;
+import com.island.bookingapi.store.BookingStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Booked nights, cancellations and lead times per week and per month, updated by every committed booking
+ * change so a summary costs one lookup per period instead of a scan of the bookings.
+ * <p>
+ * The aggregates are loaded at startup from the bookings departing this month or later. Booked nights follow
+ * the calendar days claimed and released, cancellations and lead times are counted by arrival period when
+ * the booking is created or cancelled.
+ */
+@Component
+@Order(1)
+public class OccupancyAggregates implements ApplicationRunner {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(OccupancyAggregates.class);
+    private static final int[] LEAD_TIME_LIMITS = {7, 30, 90};
+    private static final String[] LEAD_TIME_BUCKETS = {"0-6", "7-29", "30-89", "90+"};
+
+    private final BookingStore bookingStore;
+    private final Map<OccupancyGranularity, Map<LocalDate, Aggregate>> aggregates = new EnumMap<>(OccupancyGranularity.class);
+
+    public OccupancyAggregates(BookingStore bookingStore) {
+        this.bookingStore = bookingStore;
+        for (OccupancyGranularity granularity : OccupancyGranularity.values()) {
+            this.aggregates.put(granularity, new HashMap<>());
+        }
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        this.load(LocalDate.now().withDayOfMonth(1));
+    }
+
+    /**
+     * Rebuilds the aggregates from the bookings departing on or after the given day. The bookings are read
+     * under the lock, so the changes committed meanwhile wait for the new aggregates instead of being cleared.
+     *
+     * @param from first day
+     */
+    public synchronized void load(LocalDate from) {
+        List<Booking> bookings = this.bookingStore.findBookingsDepartingFrom(from);
+        this.aggregates.values().forEach(Map::clear);
+        for (Booking booking : bookings) {
+            LocalDate arrival = booking.getArrivalDate();
+            if (BookingStatus.CANCELLED.getId().equals(booking.getStatus())) {
+                this.addCancellation(arrival);
+            } else {
+                EpochDayRange.ofStay(arrival, booking.getDepartureDate()).asDates().forEach(night -> this.addNight(night, 1));
+            }
+            if (booking.getCreatedAt() != null) {
+                this.addLeadTime(arrival, ChronoUnit.DAYS.between(booking.getCreatedAt().toLocalDate(), arrival));
+            }
+        }
+        LOGGER.info("Occupancy aggregates loaded from {} bookings", bookings.size());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onBookingChanged(BookingChangedEvent event) {
+        event.getReleasedDays().forEach(night -> this.addNight(night, -1));
+        event.getBookedDays().forEach(night -> this.addNight(night, 1));
+        if (event.getType() == BookingChangeType.CREATED && !event.getBookedDays().isEmpty()) {
+            LocalDate arrival = event.getBookedDays().get(0);
+            this.addLeadTime(arrival, ChronoUnit.DAYS.between(LocalDate.now(), arrival));
+        } else if (event.getType() == BookingChangeType.CANCELLED && !event.getReleasedDays().isEmpty()) {
+            this.addCancellation(event.getReleasedDays().get(0));
+        }
+    }
+
+    /**
+     * The bookings of the other instances count like the local ones
+     *
+     * @param event RemoteBookingChangedEvent
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onRemoteBookingChanged(RemoteBookingChangedEvent event) {
+        this.onBookingChanged(event.getChange());
+    }
+
+    /**
+     * Blackout days are not occupancy, only the cancelled stays are taken out
+     *
+     * @param event CalendarClosedEvent
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onCalendarClosed(CalendarClosedEvent event) {
+        event.getCancellations().forEach(this::onBookingChanged);
+    }
+
+    /**
+     * Each operation of the batch counts as its own change, for the lead times and cancellations
+     *
+     * @param event BookingBatchEvent
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onBookingBatch(BookingBatchEvent event) {
+        event.getChanges().forEach(this::onBookingChanged);
+    }
+
+    /**
+     * Returns the periods overlapping the given range, both ends included
+     *
+     * @param granularity week or month
+     * @param from        first day
+     * @param to          last day
+     * @return List<OccupancyPeriod>
+     */
+    public synchronized List<OccupancyPeriod> getOccupancy(OccupancyGranularity granularity, LocalDate from, LocalDate to) {
+        Map<LocalDate, Aggregate> periods = this.aggregates.get(granularity);
+        List<OccupancyPeriod> occupancy = new ArrayList<>();
+        for (LocalDate start = granularity.periodStart(from); !start.isAfter(to); start = granularity.nextPeriodStart(start)) {
+            LocalDate next = granularity.nextPeriodStart(start);
+            int nights = (int) ChronoUnit.DAYS.between(start, next);
+            Aggregate aggregate = periods.getOrDefault(start, Aggregate.EMPTY);
+            Map<String, Long> leadTimes = new LinkedHashMap<>();
+            for (int i = 0; i < LEAD_TIME_BUCKETS.length; i++) {
+                leadTimes.put(LEAD_TIME_BUCKETS[i], aggregate.leadTimes[i]);
+            }
+            occupancy.add(new OccupancyPeriod(start, next.minusDays(1), nights, aggregate.bookedNights,
+                    (double) aggregate.bookedNights / nights, aggregate.cancellations, leadTimes));
+        }
+        return occupancy;
+    }
+
+    private void addNight(LocalDate night, int delta) {
+        for (OccupancyGranularity granularity : OccupancyGranularity.values()) {
+            this.aggregateOf(granularity, night).bookedNights += delta;
+        }
+    }
+
+    private void addCancellation(LocalDate arrival) {
+        for (OccupancyGranularity granularity : OccupancyGranularity.values()) {
+            this.aggregateOf(granularity, arrival).cancellations++;
+        }
+    }
+
+    private void addLeadTime(LocalDate arrival, long leadDays) {
+        int bucket = 0;
+        while (bucket < LEAD_TIME_LIMITS.length && leadDays >= LEAD_TIME_LIMITS[bucket]) {
+            bucket++;
+        }
+        for (OccupancyGranularity granularity : OccupancyGranularity.values()) {
+            this.aggregateOf(granularity, arrival).leadTimes[bucket]++;
+        }
+    }
+
+    private Aggregate aggregateOf(OccupancyGranularity granularity, LocalDate day) {
+        return this.aggregates.get(granularity).computeIfAbsent(granularity.periodStart(day), start -> new Aggregate());
+    }
+
+    private static final class Aggregate {
+
+        private static final Aggregate EMPTY = new Aggregate();
+
+        private long bookedNights;
+        private long cancellations;
+        private final long[] leadTimes = new long[LEAD_TIME_BUCKETS.length];
+    }
+}
@@ -0,0 +1,29 @@
+package com.island.bookingapi.occupancy;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+
+/**
+ * Length of the periods of the occupancy summary, weeks start on Monday
+ */
+public enum OccupancyGranularity {
+    WEEK,
+    MONTH;
+
+    /**
+     * @param day any day
+     * @return first day of the period holding the day
+     */
+    public LocalDate periodStart(LocalDate day) {
+        return this == WEEK ? day.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)) : day.withDayOfMonth(1);
+    }
+
+    /**
+     * @param periodStart first day of a period
+     * @return first day of the next period
+     */
+    public LocalDate nextPeriodStart(LocalDate periodStart) {
+        return this == WEEK ? periodStart.plusWeeks(1) : periodStart.plusMonths(1);
+    }
+}
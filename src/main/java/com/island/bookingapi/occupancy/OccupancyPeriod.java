@@ -0,0 +1,31 @@
+package com.island.bookingapi.occupancy;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+/**
+ * Occupancy of a week or a month. Cancellations and lead times count the bookings arriving in the period,
+ * lead time being the days between the booking creation and the arrival.
+ */
+@Getter
+@RequiredArgsConstructor
+public class OccupancyPeriod {
+
+    private final LocalDate start;
+
+    private final LocalDate end;
+
+    private final int nights;
+
+    private final long bookedNights;
+
+    private final double occupancy;
+
+    private final long cancellations;
+
+    private final Map<String, Long> leadTimeDays;
+
+}
@@ -0,0 +1,53 @@
+package com.island.bookingapi.outbox;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.island.bookingapi.model.OutboxEvent;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Appends the events as JSON lines to a local file, stand-in for a message broker.
+ * Every batch is forced to disk before it is acknowledged.
+ */
+public class FileOutboxSink implements OutboxSink {
+
+    private final Path path;
+    private final ObjectMapper objectMapper;
+
+    public FileOutboxSink(Path path, ObjectMapper objectMapper) {
+        this.path = path;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public synchronized void publish(List<OutboxEvent> events) throws IOException {
+        StringBuilder lines = new StringBuilder();
+        for (OutboxEvent event : events) {
+            ObjectNode line = this.objectMapper.createObjectNode();
+            line.put("id", event.getId());
+            line.put("bookingId", event.getBookingId());
+            line.put("type", event.getType());
+            line.put("createdAt", event.getCreatedAt().toString());
+            line.set("payload", this.objectMapper.readTree(event.getPayload()));
+            lines.append(this.objectMapper.writeValueAsString(line)).append('\n');
+        }
+        if (this.path.getParent() != null) {
+            Files.createDirectories(this.path.getParent());
+        }
+        try (FileChannel channel = FileChannel.open(this.path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            ByteBuffer buffer = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.island.bookingapi.outbox;
+
+import com.island.bookingapi.model.OutboxEvent;
+import com.island.bookingapi.repository.OutboxEventRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Drains the outbox to the {@link OutboxSink} in batches ordered by id.
+ * <p>
+ * A batch is locked, published and deleted in one transaction: when the sink fails the transaction
+ * rolls back and the batch is published again on the next run. Delivery is at least once, consumers
+ * deduplicate by event id.
+ */
+@Component
+@ConditionalOnProperty(name = "booking.outbox.enabled", havingValue = "true")
+public class OutboxRelay {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(OutboxRelay.class);
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final OutboxSink outboxSink;
+    private final TransactionTemplate transactionTemplate;
+    private final Counter published;
+    private final int batchSize;
+
+    public OutboxRelay(OutboxEventRepository outboxEventRepository, OutboxSink outboxSink, PlatformTransactionManager transactionManager,
+                       MeterRegistry meterRegistry, @Value("${booking.outbox.batch-size:500}") int batchSize) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.outboxSink = outboxSink;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.published = Counter.builder("booking.outbox.published").description("Booking change events relayed to the sink")
+                .register(meterRegistry);
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Relays batches until the outbox is drained
+     */
+    @Scheduled(fixedDelayString = "${booking.outbox.relay-interval-ms:1000}")
+    public void relay() {
+        try {
+            int relayed;
+            do {
+                relayed = this.relayBatch();
+            } while (relayed == this.batchSize);
+        } catch (RuntimeException e) {
+            LOGGER.warn("Could not relay the outbox, retrying on the next run: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Publishes and deletes the oldest batch of events
+     *
+     * @return number of events relayed
+     */
+    public int relayBatch() {
+        Integer relayed = this.transactionTemplate.execute(status -> {
+            List<OutboxEvent> events = this.outboxEventRepository.findOldest(PageRequest.of(0, this.batchSize));
+            if (events.isEmpty()) {
+                return 0;
+            }
+            try {
+                this.outboxSink.publish(events);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            this.outboxEventRepository.deleteByIds(events.stream().map(OutboxEvent::getId).collect(Collectors.toList()));
+            return events.size();
+        });
+        this.published.increment(relayed);
+        return relayed;
+    }
+}
@@ -0,0 +1,21 @@
+package com.island.bookingapi.outbox;
+
+import com.island.bookingapi.model.OutboxEvent;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Destination of the booking change events. A batch is removed from the outbox only once
+ * {@link #publish(List)} returns, so a sink may see the same event again after a failure.
+ */
+public interface OutboxSink {
+
+    /**
+     * Publishes the events durably, in the given order
+     *
+     * @param events events ordered by id
+     * @throws IOException if the batch could not be published, it is retried later
+     */
+    void publish(List<OutboxEvent> events) throws IOException;
+}
@@ -0,0 +1,67 @@
+package com.island.bookingapi.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.island.bookingapi.dto.BookingChangeDTO;
+import com.island.bookingapi.dto.BookingDTO;
+import com.island.bookingapi.event.BookingChangedEvent;
+import com.island.bookingapi.model.Booking;
+import com.island.bookingapi.model.BookingStatus;
+import com.island.bookingapi.model.OutboxEvent;
+import com.island.bookingapi.repository.OutboxEventRepository;
+import com.island.bookingapi.store.BookingStore;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Writes every booking change to the outbox in the transaction of the change, so the event
+ * exists if and only if the change is committed.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "booking.outbox.enabled", havingValue = "true")
+public class OutboxWriter {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final BookingStore bookingStore;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * The pending changes are flushed first: the update of the booking row locks it, so the events
+     * of the same booking get their ids in commit order and are relayed in that order.
+     *
+     * @param event BookingChangedEvent
+     */
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void onBookingChanged(BookingChangedEvent event) {
+        this.outboxEventRepository.flush();
+        this.append(this.bookingStore.findBookingById(event.getBookingId()).orElseThrow(IllegalStateException::new), event);
+    }
+
+    /**
+     * Writes the change of the given booking, for the bulk changes that do not publish an event per booking.
+     * Must run in the transaction of the change
+     *
+     * @param booking booking as it is after the change
+     * @param event   BookingChangedEvent
+     */
+    public void append(Booking booking, BookingChangedEvent event) {
+        BookingChangeDTO change = BookingChangeDTO.builder().type(event.getType()).booking(this.toDTO(booking))
+                .releasedDays(event.getReleasedDays()).bookedDays(event.getBookedDays()).build();
+        try {
+            this.outboxEventRepository.save(new OutboxEvent(booking.getId(), event.getType().name(),
+                    this.objectMapper.writeValueAsString(change)));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize booking change " + event.getBookingId(), e);
+        }
+    }
+
+    private BookingDTO toDTO(Booking booking) {
+        return BookingDTO.builder().bookingId(booking.getId()).userName(booking.getUserName()).userEmail(booking.getUserEmail())
+                .arrivalDate(booking.getArrivalDate()).departureDate(booking.getDepartureDate()).createdAt(booking.getCreatedAt())
+                .updatedAt(booking.getUpdatedAt()).status(BookingStatus.getBookingStatusById(booking.getStatus())).build();
+    }
+}
@@ -0,0 +1,206 @@
+package com.island.bookingapi.quota;
+
+import com.island.bookingapi.exception.QuotaExceededException;
+import com.island.bookingapi.store.BookingStore;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Active bookings (not cancelled, not yet departed) per guest email, kept in memory so the quota check
+ * of a booking write does not count rows.
+ * <p>
+ * Counts are loaded from the store at startup and every night, when the stays that ended stop counting.
+ * The booking write paths keep them in sync: a reservation is taken before the booking is written and
+ * given back if its transaction rolls back, cancellations and email changes release theirs on commit.
+ * <p>
+ * A rebuild swaps the counts in without stopping the writes: reservations still in flight and the changes
+ * committed while the store was read are folded into the loaded counts. A change committed right around
+ * the read may be counted twice until the next rebuild, it is never lost.
+ * <p>
+ * The counts are per instance: between two rebuilds an instance does not see the bookings written by the
+ * others, so a guest spread over several instances can hold up to the limit on each of them.
+ */
+@Component
+@Order(1)
+public class GuestQuotaTracker implements ApplicationRunner {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(GuestQuotaTracker.class);
+
+    private final StripedMap<Integer> activeBookings = new StripedMap<>();
+    /**
+     * Reservations whose transaction has not completed yet, by guest, changed under the lock of the guest
+     */
+    private final Map<String, Integer> inFlight = new ConcurrentHashMap<>();
+    /**
+     * Reservations committed since a rebuild started, null when no rebuild runs
+     */
+    private volatile Map<String, Integer> committedReservations;
+    /**
+     * Releases committed since a rebuild read the store, null when no rebuild runs
+     */
+    private volatile Map<String, Integer> committedReleases;
+    private final BookingStore bookingStore;
+    private final boolean enabled;
+    private final int maxActiveBookings;
+    private final Counter rejected;
+
+    public GuestQuotaTracker(BookingStore bookingStore, MeterRegistry meterRegistry,
+                             @Value("${booking.quota.guest.enabled:false}") boolean enabled,
+                             @Value("${booking.quota.guest.max-active-bookings:3}") int maxActiveBookings) {
+        this.bookingStore = bookingStore;
+        this.enabled = enabled;
+        this.maxActiveBookings = maxActiveBookings;
+        this.rejected = meterRegistry.counter("booking.quota.rejected", "type", "guest");
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        this.rebuild();
+    }
+
+    /**
+     * Loads the counts from the store
+     */
+    @Scheduled(cron = "${booking.quota.guest.rebuild-cron:0 5 0 * * *}")
+    public synchronized void rebuild() {
+        if (!this.enabled) {
+            return;
+        }
+        Map<String, Integer> reservations = new ConcurrentHashMap<>();
+        Map<String, Integer> releases = new ConcurrentHashMap<>();
+        // reservations are tracked from before the read and releases from after it, so the races count one too many
+        this.committedReservations = reservations;
+        try {
+            Map<String, Integer> counts = this.bookingStore.countActiveBookingsByEmail(LocalDate.now());
+            this.committedReleases = releases;
+            Iterable<String> adjusted = () -> Stream.of(this.inFlight.keySet(), reservations.keySet(), releases.keySet())
+                    .flatMap(Set::stream).distinct().iterator();
+            this.activeBookings.replaceAll(counts, adjusted, (guest, active) -> positive((active == null ? 0 : active)
+                    + this.inFlight.getOrDefault(guest, 0) + reservations.getOrDefault(guest, 0) - releases.getOrDefault(guest, 0)));
+            LOGGER.info("Guest quotas loaded for {} guests", counts.size());
+        } finally {
+            this.committedReservations = null;
+            this.committedReleases = null;
+        }
+    }
+
+    /**
+     * Takes one active booking of the guest quota, given back if the current transaction rolls back
+     *
+     * @param email guest email
+     * @throws QuotaExceededException if the guest already has the maximum of active bookings
+     */
+    public void reserve(String email) {
+        if (!this.enabled) {
+            return;
+        }
+        String guest = normalize(email);
+        boolean reserved = this.activeBookings.update(guest, stripe -> {
+            int active = stripe.getOrDefault(guest, 0);
+            if (active >= this.maxActiveBookings) {
+                return false;
+            }
+            stripe.put(guest, active + 1);
+            if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                this.inFlight.merge(guest, 1, Integer::sum);
+            } else {
+                record(this.committedReservations, guest);
+            }
+            return true;
+        });
+        if (!reserved) {
+            this.rejected.increment();
+            throw new QuotaExceededException(String.format("Guest already has %d active bookings", this.maxActiveBookings), 0);
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    GuestQuotaTracker.this.complete(guest, status == STATUS_COMMITTED);
+                }
+            });
+        }
+    }
+
+    /**
+     * Gives back one active booking of the guest quota once the current transaction commits
+     *
+     * @param email guest email
+     */
+    public void releaseOnCommit(String email) {
+        if (!this.enabled) {
+            return;
+        }
+        String guest = normalize(email);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            this.release(guest);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    GuestQuotaTracker.this.release(guest);
+                }
+            }
+        });
+    }
+
+    public int getActiveBookings(String email) {
+        String guest = normalize(email);
+        return this.activeBookings.update(guest, stripe -> stripe.getOrDefault(guest, 0));
+    }
+
+    /**
+     * Settles a reservation taken in a transaction: kept when committed, given back otherwise
+     */
+    private void complete(String guest, boolean committed) {
+        this.activeBookings.update(guest, stripe -> {
+            this.inFlight.computeIfPresent(guest, (key, reservations) -> positive(reservations - 1));
+            if (committed) {
+                record(this.committedReservations, guest);
+            } else {
+                stripe.computeIfPresent(guest, (key, active) -> positive(active - 1));
+            }
+            return null;
+        });
+    }
+
+    private void release(String guest) {
+        this.activeBookings.update(guest, stripe -> {
+            record(this.committedReleases, guest);
+            return stripe.computeIfPresent(guest, (key, active) -> positive(active - 1));
+        });
+    }
+
+    private static void record(Map<String, Integer> changes, String guest) {
+        if (changes != null) {
+            changes.merge(guest, 1, Integer::sum);
+        }
+    }
+
+    private static Integer positive(int count) {
+        return count > 0 ? count : null;
+    }
+
+    static String normalize(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,39 @@
+package com.island.bookingapi.quota;
+
+import com.island.bookingapi.exception.QuotaExceededException;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Applies the {@link RequestRateLimiter} to the write requests, reads are cheap and left alone.
+ * Clients are told apart by their remote address, behind a proxy the container resolves it from the forwarded
+ * headers of trusted proxies only ({@code server.forward-headers-strategy}), so clients can't pick their own key.
+ * Rejections go through the exception handler as any other error.
+ */
+public class RateLimitInterceptor implements HandlerInterceptor {
+
+    private final RequestRateLimiter rateLimiter;
+
+    public RateLimitInterceptor(RequestRateLimiter rateLimiter) {
+        this.rateLimiter = rateLimiter;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (this.isRead(request)) {
+            return true;
+        }
+        long waitNanos = this.rateLimiter.tryAcquire(request.getRemoteAddr());
+        if (waitNanos > 0) {
+            throw new QuotaExceededException("Too many requests", Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999)));
+        }
+        return true;
+    }
+
+    private boolean isRead(HttpServletRequest request) {
+        return "GET".equals(request.getMethod()) || "HEAD".equals(request.getMethod()) || "OPTIONS".equals(request.getMethod());
+    }
+}
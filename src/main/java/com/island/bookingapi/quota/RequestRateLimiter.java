@@ -0,0 +1,99 @@
+package com.island.bookingapi.quota;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token bucket per client: {@code booking.quota.rate.burst} requests at once, refilled at
+ * {@code booking.quota.rate.permits-per-second}. Buckets live in a {@link StripedMap}, full buckets
+ * of clients gone quiet are dropped periodically.
+ */
+@Component
+public class RequestRateLimiter {
+
+    private final StripedMap<TokenBucket> buckets = new StripedMap<>();
+    private final boolean enabled;
+    private final double permitsPerNano;
+    private final int burst;
+    private final long idleNanos;
+    private final Counter rejected;
+
+    public RequestRateLimiter(MeterRegistry meterRegistry,
+                              @Value("${booking.quota.rate.enabled:false}") boolean enabled,
+                              @Value("${booking.quota.rate.permits-per-second:2}") double permitsPerSecond,
+                              @Value("${booking.quota.rate.burst:10}") int burst) {
+        this.enabled = enabled;
+        this.permitsPerNano = permitsPerSecond / TimeUnit.SECONDS.toNanos(1);
+        this.burst = burst;
+        // a bucket idle this long is full again
+        this.idleNanos = (long) (burst / this.permitsPerNano);
+        this.rejected = meterRegistry.counter("booking.quota.rejected", "type", "rate");
+    }
+
+    /**
+     * Takes a token from the bucket of the client
+     *
+     * @param client client key
+     * @return 0 when the request is allowed, otherwise nanoseconds until a token is available
+     */
+    public long tryAcquire(String client) {
+        if (!this.enabled) {
+            return 0;
+        }
+        return this.tryAcquire(client, System.nanoTime());
+    }
+
+    long tryAcquire(String client, long nowNanos) {
+        long waitNanos = this.buckets.update(client, stripe -> {
+            TokenBucket bucket = stripe.get(client);
+            if (bucket == null) {
+                bucket = new TokenBucket(this.burst, nowNanos);
+                stripe.put(client, bucket);
+            }
+            return bucket.tryAcquire(nowNanos, this.permitsPerNano, this.burst);
+        });
+        if (waitNanos > 0) {
+            this.rejected.increment();
+        }
+        return waitNanos;
+    }
+
+    @Scheduled(fixedDelayString = "${booking.quota.rate.sweep-interval-ms:60000}")
+    public void evictIdle() {
+        long now = System.nanoTime();
+        this.buckets.removeIf((client, bucket) -> now - bucket.lastRefillNanos >= this.idleNanos);
+    }
+
+    int size() {
+        return this.buckets.size();
+    }
+
+    /**
+     * Guarded by the lock of its stripe
+     */
+    private static final class TokenBucket {
+
+        private double tokens;
+        private long lastRefillNanos;
+
+        TokenBucket(int tokens, long nowNanos) {
+            this.tokens = tokens;
+            this.lastRefillNanos = nowNanos;
+        }
+
+        long tryAcquire(long nowNanos, double permitsPerNano, int capacity) {
+            this.tokens = Math.min(capacity, this.tokens + (nowNanos - this.lastRefillNanos) * permitsPerNano);
+            this.lastRefillNanos = nowNanos;
+            if (this.tokens >= 1) {
+                this.tokens--;
+                return 0;
+            }
+            return Math.max(1, (long) Math.ceil((1 - this.tokens) / permitsPerNano));
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.island.bookingapi.quota;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+
+/**
+ * Map split in stripes guarded by their own lock, updates of different keys rarely contend.
+ * Each update runs under the lock of the stripe of its key, so read-modify-write is atomic per key.
+ *
+ * @param <V> value type
+ */
+public class StripedMap<V> {
+
+    private static final int STRIPES = 64;
+
+    private final Map<String, V>[] stripes;
+
+    @SuppressWarnings("unchecked")
+    public StripedMap() {
+        this.stripes = new Map[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            this.stripes[i] = new HashMap<>();
+        }
+    }
+
+    /**
+     * Runs the action with the lock of the stripe of the key held
+     *
+     * @param key    key to update
+     * @param action gets the stripe holding the key, must only touch that key
+     * @param <R>    result type
+     * @return result of the action
+     */
+    public <R> R update(String key, Function<Map<String, V>, R> action) {
+        Map<String, V> stripe = this.stripeOf(key);
+        synchronized (stripe) {
+            return action.apply(stripe);
+        }
+    }
+
+    /**
+     * Replaces the content one stripe at a time, each stripe swapped under its lock so no key is ever seen missing.
+     * The adjusted keys of a stripe are recomputed under the same lock right after, so updates made while the new
+     * content was computed can be folded in when the caller records them under the key lock.
+     *
+     * @param values   new content
+     * @param adjusted keys to recompute, iterated once per stripe
+     * @param adjust   gets the key and its new value, or null, returns the value to keep or null
+     */
+    public void replaceAll(Map<String, V> values, Iterable<String> adjusted, BiFunction<String, V, V> adjust) {
+        List<Map<String, V>> contents = new ArrayList<>(STRIPES);
+        for (int i = 0; i < STRIPES; i++) {
+            contents.add(new HashMap<>());
+        }
+        values.forEach((key, value) -> contents.get(indexOf(key)).put(key, value));
+        for (int i = 0; i < STRIPES; i++) {
+            Map<String, V> stripe = this.stripes[i];
+            synchronized (stripe) {
+                stripe.clear();
+                stripe.putAll(contents.get(i));
+                for (String key : adjusted) {
+                    if (indexOf(key) == i) {
+                        stripe.compute(key, adjust);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes the entries matching the filter, one stripe at a time
+     *
+     * @param filter entries to remove
+     */
+    public void removeIf(BiPredicate<String, V> filter) {
+        for (Map<String, V> stripe : this.stripes) {
+            synchronized (stripe) {
+                stripe.entrySet().removeIf(entry -> filter.test(entry.getKey(), entry.getValue()));
+            }
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Map<String, V> stripe : this.stripes) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+        return size;
+    }
+
+    private Map<String, V> stripeOf(String key) {
+        return this.stripes[indexOf(key)];
+    }
+
+    private static int indexOf(String key) {
+        int hash = key.hashCode();
+        return (hash ^ (hash >>> 16)) & (STRIPES - 1);
+    }
+}
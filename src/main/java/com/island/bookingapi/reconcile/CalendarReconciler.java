@@ -0,0 +1,400 @@
+package com.island.bookingapi.reconcile;
+
+import com.island.bookingapi.calendar.CalendarChangeLog;
+import com.island.bookingapi.calendar.EpochDayRange;
+import com.island.bookingapi.event.BookingChangeType;
+import com.island.bookingapi.event.BookingChangedEvent;
+import com.island.bookingapi.model.Blackout;
+import com.island.bookingapi.model.BookingStatus;
+import com.island.bookingapi.model.CalendarAvailability;
+import com.island.bookingapi.repository.BlackoutRepository;
+import com.island.bookingapi.repository.BookingRepository;
+import com.island.bookingapi.repository.CalendarAvailableRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Checks that the calendar rows match the days held by the active bookings and the blackouts.
+ * <p>
+ * Every {@code booking.reconcile.interval-ms} the stays of the bookings changed since the last check, found by
+ * their {@code updatedAt}, are checked; every night a sweep checks the whole bookable horizon, which also finds
+ * the drift left by old stays of updated bookings and by manual fixes. Both read in chunks of
+ * {@code booking.reconcile.chunk-days}, each its own short transaction, and pause between chunks to stay under
+ * {@code booking.reconcile.max-rows-per-second}. They run on their own thread, not on the shared scheduler.
+ * <p>
+ * Drift is reported in {@code booking.reconcile.drift}. With {@code booking.reconcile.repair} a missing or
+ * orphaned day seen for {@code booking.reconcile.confirm-seconds} is fixed, after reading it again in the
+ * repair transaction, so the days in flight of a booking or a blackout being written are left alone. Double
+ * bookings are only reported. Works on the JPA tables, like the archive.
+ */
+@Service
+@ConditionalOnProperty(name = "booking.reconcile.enabled", havingValue = "true")
+public class CalendarReconciler {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CalendarReconciler.class);
+
+    private final BookingRepository bookingRepository;
+    private final CalendarAvailableRepository calendarAvailableRepository;
+    private final CalendarChangeLog calendarChangeLog;
+    private final BlackoutRepository blackoutRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final Map<DriftType, Map<Long, Long>> drift = new EnumMap<>(DriftType.class);
+    private final Map<DriftType, Counter> repaired = new EnumMap<>(DriftType.class);
+    private final Counter rowsRead;
+    private final boolean repair;
+    private final int chunkDays;
+    private final int batchSize;
+    private final int horizonDays;
+    private final double maxRowsPerSecond;
+    private final long settleSeconds;
+    private final long confirmMillis;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "calendar-reconciler");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean changesQueued = new AtomicBoolean();
+    private final AtomicBoolean sweepQueued = new AtomicBoolean();
+    private LocalDateTime watermark;
+    private long watermarkId = Long.MAX_VALUE;
+
+    public CalendarReconciler(BookingRepository bookingRepository, CalendarAvailableRepository calendarAvailableRepository,
+                              CalendarChangeLog calendarChangeLog, BlackoutRepository blackoutRepository, ApplicationEventPublisher eventPublisher,
+                              PlatformTransactionManager transactionManager, MeterRegistry meterRegistry,
+                              @Value("${booking.reconcile.repair:false}") boolean repair,
+                              @Value("${booking.reconcile.chunk-days:31}") int chunkDays,
+                              @Value("${booking.reconcile.batch-size:500}") int batchSize,
+                              @Value("${booking.reconcile.horizon-days:400}") int horizonDays,
+                              @Value("${booking.reconcile.max-rows-per-second:5000}") double maxRowsPerSecond,
+                              @Value("${booking.reconcile.settle-seconds:10}") long settleSeconds,
+                              @Value("${booking.reconcile.confirm-seconds:60}") long confirmSeconds) {
+        this.bookingRepository = bookingRepository;
+        this.calendarAvailableRepository = calendarAvailableRepository;
+        this.calendarChangeLog = calendarChangeLog;
+        this.blackoutRepository = blackoutRepository;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        for (DriftType type : DriftType.values()) {
+            Map<Long, Long> days = new ConcurrentHashMap<>();
+            this.drift.put(type, days);
+            String tag = type.name().toLowerCase(Locale.ROOT);
+            Gauge.builder("booking.reconcile.drift", days, Map::size).tag("type", tag)
+                    .description("Calendar days disagreeing with the bookings, as of their last check").register(meterRegistry);
+            this.repaired.put(type, Counter.builder("booking.reconcile.repaired").tag("type", tag)
+                    .description("Calendar days fixed by the reconciler").register(meterRegistry));
+        }
+        this.rowsRead = Counter.builder("booking.reconcile.rows").description("Rows read by the reconciler").register(meterRegistry);
+        this.repair = repair;
+        this.chunkDays = chunkDays;
+        this.batchSize = batchSize;
+        this.horizonDays = horizonDays;
+        this.maxRowsPerSecond = maxRowsPerSecond;
+        this.settleSeconds = settleSeconds;
+        this.confirmMillis = TimeUnit.SECONDS.toMillis(confirmSeconds);
+        // the bookings changed before the start are left to the sweep
+        this.watermark = LocalDateTime.now().minusSeconds(settleSeconds);
+    }
+
+    @Scheduled(fixedDelayString = "${booking.reconcile.interval-ms:30000}", initialDelayString = "${booking.reconcile.interval-ms:30000}")
+    public void scheduleChanges() {
+        this.submit(this.changesQueued, this::reconcileChanges);
+    }
+
+    @Scheduled(cron = "${booking.reconcile.sweep-cron:0 45 3 * * *}")
+    public void scheduleSweep() {
+        this.submit(this.sweepQueued, () -> this.sweep(LocalDate.now(), LocalDate.now().plusDays(this.horizonDays)));
+    }
+
+    @PreDestroy
+    public void close() {
+        this.executor.shutdownNow();
+    }
+
+    /**
+     * Checks the stays of the bookings updated since the last call, up to {@code booking.reconcile.settle-seconds}
+     * ago so the transactions still running at the end of the window are not missed
+     *
+     * @return number of bookings checked
+     */
+    public synchronized int reconcileChanges() {
+        LocalDateTime until = LocalDateTime.now().minusSeconds(this.settleSeconds);
+        EpochDayRange horizon = EpochDayRange.ofStay(LocalDate.now(), LocalDate.now().plusDays(this.horizonDays));
+        int checked = 0;
+        while (true) {
+            List<Object[]> changes = this.bookingRepository.findUpdatedBetween(this.watermark, this.watermarkId, until,
+                    PageRequest.of(0, this.batchSize));
+            this.rowsRead.increment(changes.size());
+            List<EpochDayRange> stays = new ArrayList<>(changes.size());
+            for (Object[] change : changes) {
+                stays.add(EpochDayRange.ofStay((LocalDate) change[2], (LocalDate) change[3]).intersection(horizon));
+            }
+            for (EpochDayRange range : merge(stays)) {
+                if (!this.checkInChunks(range)) {
+                    return checked;
+                }
+            }
+            checked += changes.size();
+            if (changes.size() < this.batchSize) {
+                this.watermark = until;
+                this.watermarkId = Long.MAX_VALUE;
+                return checked;
+            }
+            Object[] last = changes.get(changes.size() - 1);
+            this.watermark = (LocalDateTime) last[1];
+            this.watermarkId = (Long) last[0];
+        }
+    }
+
+    /**
+     * Checks every day of the range, both ends included, and forgets the drift of the days already passed
+     *
+     * @param from first day
+     * @param to   last day
+     */
+    public synchronized void sweep(LocalDate from, LocalDate to) {
+        long start = System.nanoTime();
+        long today = LocalDate.now().toEpochDay();
+        this.drift.values().forEach(days -> days.keySet().removeIf(day -> day < today));
+        this.checkInChunks(EpochDayRange.ofDays(from, to));
+        LOGGER.info("Calendar swept from {} to {} in {} ms, drift: {}", from, to,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), this.getDrift());
+    }
+
+    /**
+     * @return number of days currently drifting per type
+     */
+    public Map<DriftType, Integer> getDrift() {
+        Map<DriftType, Integer> counts = new EnumMap<>(DriftType.class);
+        this.drift.forEach((type, days) -> counts.put(type, days.size()));
+        return counts;
+    }
+
+    private boolean checkInChunks(EpochDayRange range) {
+        for (int start = range.getStart(); start < range.getEnd(); start += this.chunkDays) {
+            long chunkStart = System.nanoTime();
+            EpochDayRange chunk = EpochDayRange.ofStay(LocalDate.ofEpochDay(start),
+                    LocalDate.ofEpochDay(Math.min(range.getEnd(), start + this.chunkDays)));
+            int rows = this.check(chunk);
+            if (!this.throttle(rows, chunkStart)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Records the drift of the days of the chunk and repairs the confirmed one
+     *
+     * @return rows read
+     */
+    private int check(EpochDayRange chunk) {
+        Holdings holdings = this.transactionTemplate.execute(status -> this.read(chunk));
+        long now = System.currentTimeMillis();
+        List<LocalDate> missing = new ArrayList<>();
+        List<LocalDate> orphaned = new ArrayList<>();
+        for (int day = chunk.getStart(); day < chunk.getEnd(); day++) {
+            DriftType type = holdings.driftOf(day);
+            for (DriftType tracked : DriftType.values()) {
+                boolean drifting = tracked == DriftType.DOUBLE_BOOKED ? holdings.isDoubleBooked(day) : tracked == type;
+                if (!drifting) {
+                    this.drift.get(tracked).remove((long) day);
+                    continue;
+                }
+                long firstSeen = this.drift.get(tracked).computeIfAbsent((long) day, key -> now);
+                if (this.repair && tracked != DriftType.DOUBLE_BOOKED && now - firstSeen >= this.confirmMillis) {
+                    (tracked == DriftType.MISSING ? missing : orphaned).add(LocalDate.ofEpochDay(day));
+                }
+            }
+        }
+        int rows = holdings.rows;
+        if (!missing.isEmpty() || !orphaned.isEmpty()) {
+            rows += this.repair(chunk, missing, orphaned);
+        }
+        return rows;
+    }
+
+    /**
+     * Fixes the days still drifting when read again in the repair transaction, and brings the calendar index
+     * up to date once it is committed
+     */
+    private int repair(EpochDayRange chunk, List<LocalDate> missing, List<LocalDate> orphaned) {
+        List<LocalDate> inserted = new ArrayList<>();
+        List<LocalDate> deleted = new ArrayList<>();
+        Integer rows;
+        try {
+            rows = this.transactionTemplate.execute(status -> {
+                Holdings holdings = this.read(chunk);
+                missing.stream().filter(day -> holdings.driftOf((int) day.toEpochDay()) == DriftType.MISSING).forEach(inserted::add);
+                orphaned.stream().filter(day -> holdings.driftOf((int) day.toEpochDay()) == DriftType.ORPHANED).forEach(deleted::add);
+                if (!inserted.isEmpty()) {
+                    List<CalendarAvailability> days = new ArrayList<>(inserted.size());
+                    inserted.forEach(day -> days.add(new CalendarAvailability(day)));
+                    this.calendarAvailableRepository.saveAll(days);
+                    this.calendarChangeLog.record(inserted);
+                }
+                if (!deleted.isEmpty()) {
+                    this.calendarAvailableRepository.deleteByDates(deleted);
+                    this.calendarChangeLog.record(deleted);
+                }
+                return holdings.rows;
+            });
+        } catch (DataIntegrityViolationException e) {
+            // a booking took one of the missing days meanwhile, the next check reports it
+            LOGGER.warn("Could not repair the calendar from {}", chunk, e);
+            return 0;
+        }
+        inserted.forEach(day -> this.drift.get(DriftType.MISSING).remove(day.toEpochDay()));
+        deleted.forEach(day -> this.drift.get(DriftType.ORPHANED).remove(day.toEpochDay()));
+        this.repaired.get(DriftType.MISSING).increment(inserted.size());
+        this.repaired.get(DriftType.ORPHANED).increment(deleted.size());
+        if (!inserted.isEmpty() || !deleted.isEmpty()) {
+            LOGGER.warn("Repaired the calendar, days inserted: {}, days deleted: {}", inserted, deleted);
+            this.eventPublisher.publishEvent(new BookingChangedEvent(null, BookingChangeType.UPDATED, deleted, inserted));
+        }
+        return rows == null ? 0 : rows;
+    }
+
+    private Holdings read(EpochDayRange chunk) {
+        LocalDate from = LocalDate.ofEpochDay(chunk.getStart());
+        LocalDate to = LocalDate.ofEpochDay(chunk.getEnd() - 1);
+        Holdings holdings = new Holdings(chunk);
+        List<Object[]> stays = this.bookingRepository.findStaysOverlapping(BookingStatus.ACTIVE.getId(), from, to);
+        for (Object[] stay : stays) {
+            holdings.hold(EpochDayRange.ofStay((LocalDate) stay[0], (LocalDate) stay[1]));
+        }
+        List<Blackout> blackouts = this.blackoutRepository.findOverlapping(from, to);
+        for (Blackout blackout : blackouts) {
+            holdings.hold(EpochDayRange.ofDays(blackout.getFromDate(), blackout.getToDate()));
+        }
+        List<LocalDate> calendarDays = this.calendarAvailableRepository.getBookedDates(from, to);
+        calendarDays.forEach(holdings::row);
+        holdings.rows = stays.size() + blackouts.size() + calendarDays.size();
+        this.rowsRead.increment(holdings.rows);
+        return holdings;
+    }
+
+    /**
+     * Sleeps long enough for the rows read since {@code startNanos} to stay under the budget
+     *
+     * @return false when interrupted
+     */
+    private boolean throttle(int rows, long startNanos) {
+        long budgetNanos = (long) (rows / this.maxRowsPerSecond * TimeUnit.SECONDS.toNanos(1));
+        long waitMillis = TimeUnit.NANOSECONDS.toMillis(budgetNanos - (System.nanoTime() - startNanos));
+        if (waitMillis <= 0) {
+            return true;
+        }
+        try {
+            Thread.sleep(waitMillis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void submit(AtomicBoolean queued, Runnable task) {
+        if (queued.compareAndSet(false, true)) {
+            this.executor.execute(() -> {
+                queued.set(false);
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    LOGGER.warn("Calendar reconciliation failed", e);
+                }
+            });
+        }
+    }
+
+    /**
+     * Merges the overlapping and adjacent ranges, the empty ones are dropped
+     */
+    static List<EpochDayRange> merge(List<EpochDayRange> ranges) {
+        List<EpochDayRange> sorted = new ArrayList<>(ranges);
+        sorted.removeIf(EpochDayRange::isEmpty);
+        sorted.sort(Comparator.comparingInt(EpochDayRange::getStart));
+        List<EpochDayRange> merged = new ArrayList<>();
+        int start = 0;
+        int end = Integer.MIN_VALUE;
+        for (EpochDayRange range : sorted) {
+            if (range.getStart() > end) {
+                if (end != Integer.MIN_VALUE) {
+                    merged.add(EpochDayRange.ofStay(LocalDate.ofEpochDay(start), LocalDate.ofEpochDay(end)));
+                }
+                start = range.getStart();
+            }
+            end = Math.max(end, range.getEnd());
+        }
+        if (end != Integer.MIN_VALUE) {
+            merged.add(EpochDayRange.ofStay(LocalDate.ofEpochDay(start), LocalDate.ofEpochDay(end)));
+        }
+        return merged;
+    }
+
+    /**
+     * Holders and calendar rows of the days of a chunk
+     */
+    private static final class Holdings {
+
+        private final EpochDayRange chunk;
+        private final int[] holders;
+        private final boolean[] rowPresent;
+        private int rows;
+
+        Holdings(EpochDayRange chunk) {
+            this.chunk = chunk;
+            this.holders = new int[chunk.length()];
+            this.rowPresent = new boolean[chunk.length()];
+        }
+
+        void hold(EpochDayRange days) {
+            days.intersection(this.chunk).forEachDay(day -> this.holders[day - this.chunk.getStart()]++);
+        }
+
+        void row(LocalDate day) {
+            if (this.chunk.contains(day)) {
+                this.rowPresent[(int) (day.toEpochDay() - this.chunk.getStart())] = true;
+            }
+        }
+
+        DriftType driftOf(int day) {
+            int offset = day - this.chunk.getStart();
+            if (this.holders[offset] > 0 && !this.rowPresent[offset]) {
+                return DriftType.MISSING;
+            }
+            return this.holders[offset] == 0 && this.rowPresent[offset] ? DriftType.ORPHANED : null;
+        }
+
+        boolean isDoubleBooked(int day) {
+            return this.holders[day - this.chunk.getStart()] > 1;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.island.bookingapi.reconcile;
+
+/**
+ * Ways a calendar day can disagree with the bookings and blackouts holding it
+ */
+public enum DriftType {
+    /**
+     * Held by a booking or a blackout without a calendar row, so it can be booked again
+     */
+    MISSING,
+    /**
+     * Calendar row held by nothing, the day can not be booked
+     */
+    ORPHANED,
+    /**
+     * Held by more than one active booking or blackout
+     */
+    DOUBLE_BOOKED
+}
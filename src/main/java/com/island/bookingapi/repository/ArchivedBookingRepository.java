@@ -0,0 +1,19 @@
+package com.island.bookingapi.repository;
+
+import com.island.bookingapi.model.ArchivedBooking;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface ArchivedBookingRepository
+        extends JpaRepository<ArchivedBooking, Long> {
+
+    @Modifying
+    @Query(value = "INSERT INTO archived_booking (id, user_name, user_email, arrival_date, departure_date, created_at, updated_at, status, archived_at) "
+            + "SELECT id, user_name, user_email, arrival_date, departure_date, created_at, updated_at, status, now() "
+            + "FROM booking WHERE id IN (:ids)", nativeQuery = true)
+    int archiveBookings(@Param("ids") List<Long> ids);
+}
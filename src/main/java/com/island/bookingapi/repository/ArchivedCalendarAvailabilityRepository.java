@@ -0,0 +1,18 @@
+package com.island.bookingapi.repository;
+
+import com.island.bookingapi.model.ArchivedCalendarAvailability;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface ArchivedCalendarAvailabilityRepository
+        extends JpaRepository<ArchivedCalendarAvailability, Long> {
+
+    @Modifying
+    @Query(value = "INSERT INTO archived_calendar_availability (id, day, archived_at) "
+            + "SELECT id, day, now() FROM calendar_availability WHERE id IN (:ids)", nativeQuery = true)
+    int archiveDays(@Param("ids") List<Long> ids);
+}
@@ -0,0 +1,18 @@
+package com.island.bookingapi.repository;
+
+import com.island.bookingapi.model.Blackout;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface BlackoutRepository extends JpaRepository<Blackout, Long> {
+
+    @Query("SELECT b from Blackout b where b.toDate >= :day order by b.fromDate")
+    List<Blackout> findEndingFrom(@Param("day") LocalDate day);
+
+    @Query("SELECT b from Blackout b where b.fromDate <= :to and b.toDate >= :from")
+    List<Blackout> findOverlapping(@Param("from") LocalDate from, @Param("to") LocalDate to);
+}
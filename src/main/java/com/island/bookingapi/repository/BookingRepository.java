@@ -1,11 +1,18 @@
 package com.island.bookingapi.repository;
 
 import com.island.bookingapi.model.Booking;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.LockModeType;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 
@@ -20,4 +27,33 @@ public interface BookingRepository
     @Query("SELECT COUNT(b.id) from Booking b where b.userName = :userName")
     int findByUserName(@Param("userName") String serName);
 
+    @Query("SELECT lower(b.userEmail), COUNT(b.id) from Booking b where b.status = :status and b.departureDate >= :day group by lower(b.userEmail)")
+    List<Object[]> countByEmail(@Param("status") Integer status, @Param("day") LocalDate day);
+
+    @Query("SELECT b from Booking b where b.departureDate >= :day")
+    List<Booking> findDepartingFrom(@Param("day") LocalDate day);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b from Booking b where b.status = :status and b.arrivalDate <= :to and b.departureDate > :from order by b.id")
+    List<Booking> findOverlapping(@Param("status") Integer status, @Param("from") LocalDate from, @Param("to") LocalDate to, Pageable pageable);
+
+    @Query("SELECT b.arrivalDate, b.departureDate from Booking b where b.status = :status and b.arrivalDate <= :to and b.departureDate > :from")
+    List<Object[]> findStaysOverlapping(@Param("status") Integer status, @Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Query("SELECT b.id, b.updatedAt, b.arrivalDate, b.departureDate from Booking b where (b.updatedAt > :after or (b.updatedAt = :after and b.id > :afterId))"
+            + " and b.updatedAt <= :until order by b.updatedAt, b.id")
+    List<Object[]> findUpdatedBetween(@Param("after") LocalDateTime after, @Param("afterId") long afterId,
+                                      @Param("until") LocalDateTime until, Pageable pageable);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Booking b set b.status = :status, b.updatedAt = :updatedAt where b.id in :ids")
+    int updateStatus(@Param("ids") List<Long> ids, @Param("status") Integer status, @Param("updatedAt") LocalDateTime updatedAt);
+
+    @Query("SELECT b.id from Booking b where b.departureDate < :cutoff order by b.id")
+    List<Long> getIdsDepartedBefore(@Param("cutoff") LocalDate cutoff, Pageable pageable);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE from Booking b where b.id in :ids")
+    int deleteByIds(@Param("ids") List<Long> ids);
+
 }
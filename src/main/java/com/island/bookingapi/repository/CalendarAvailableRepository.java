@@ -1,6 +1,7 @@
 package com.island.bookingapi.repository;
 
 import com.island.bookingapi.model.CalendarAvailability;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
@@ -20,6 +21,16 @@ public interface CalendarAvailableRepository
     List<LocalDate> getBookedDates(@Param("initialDate") LocalDate initialDate, @Param("endDate") LocalDate endDate);
 
 
+    @Query("SELECT c.day from CalendarAvailability c where c.day >= :initialDate")
+    List<LocalDate> getBookedDatesFrom(@Param("initialDate") LocalDate initialDate);
+
+    @Query("SELECT c.id from CalendarAvailability c where c.day < :cutoff order by c.id")
+    List<Long> getIdsBefore(@Param("cutoff") LocalDate cutoff, Pageable pageable);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE from CalendarAvailability c where c.id in :ids")
+    int deleteByIds(@Param("ids") List<Long> ids);
+
     @Modifying
     @Query("DELETE from CalendarAvailability c where c.day in :bookingDates")
     void deleteByDates(@Param("bookingDates") List<LocalDate> bookingDates);
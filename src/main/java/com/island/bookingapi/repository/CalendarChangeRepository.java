@@ -0,0 +1,20 @@
+package com.island.bookingapi.repository;
+
+import com.island.bookingapi.model.CalendarChange;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface CalendarChangeRepository extends JpaRepository<CalendarChange, Long> {
+
+    @Query("SELECT c from CalendarChange c where c.changedAt >= :since order by c.fromDay")
+    List<CalendarChange> findChangedSince(@Param("since") LocalDateTime since);
+
+    @Modifying
+    @Query("DELETE from CalendarChange c where c.changedAt < :cutoff")
+    int deleteChangedBefore(@Param("cutoff") LocalDateTime cutoff);
+}
@@ -0,0 +1,27 @@
+package com.island.bookingapi.repository;
+
+import com.island.bookingapi.model.OutboxEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import javax.persistence.LockModeType;
+import java.util.List;
+
+public interface OutboxEventRepository
+        extends JpaRepository<OutboxEvent, Long> {
+
+    /**
+     * Locks the oldest events, a relay running on another instance waits until they are relayed
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT e from OutboxEvent e order by e.id")
+    List<OutboxEvent> findOldest(Pageable pageable);
+
+    @Modifying
+    @Query("DELETE from OutboxEvent e where e.id in :ids")
+    int deleteByIds(@Param("ids") List<Long> ids);
+}
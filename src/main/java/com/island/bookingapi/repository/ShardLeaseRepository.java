@@ -0,0 +1,30 @@
+package com.island.bookingapi.repository;
+
+import com.island.bookingapi.model.ShardLease;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface ShardLeaseRepository extends JpaRepository<ShardLease, Integer> {
+
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE ShardLease l set l.expiresAt = :until where l.owner = :node")
+    int renew(@Param("node") String node, @Param("until") LocalDateTime until);
+
+    /**
+     * Takes the shard if it has no owner or its lease expired, only one of the instances racing for it succeeds
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE ShardLease l set l.owner = :node, l.ownerUrl = :url, l.expiresAt = :until, l.epoch = l.epoch + 1 "
+            + "where l.shardId = :shardId and (l.owner is null or l.expiresAt < :now)")
+    int acquire(@Param("shardId") Integer shardId, @Param("node") String node, @Param("url") String url,
+                @Param("until") LocalDateTime until, @Param("now") LocalDateTime now);
+
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE ShardLease l set l.owner = null, l.ownerUrl = null where l.owner = :node and l.shardId in :shardIds")
+    int release(@Param("node") String node, @Param("shardIds") List<Integer> shardIds);
+}
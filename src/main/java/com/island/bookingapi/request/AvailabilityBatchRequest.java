@@ -0,0 +1,46 @@
+package com.island.bookingapi.request;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import javax.validation.Valid;
+import javax.validation.constraints.AssertTrue;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.Size;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+@Getter
+@Setter
+@NoArgsConstructor
+public class AvailabilityBatchRequest {
+
+    public static final int MAX_RANGES = 100;
+
+    @Valid
+    @NotEmpty
+    @Size(max = MAX_RANGES)
+    private List<AvailabilityRangeRequest> ranges;
+
+    /**
+     * The days between the first and the last range are read at once, they are bounded as a single range is
+     */
+    @JsonIgnore
+    @AssertTrue(message = "ranges must span at most " + AvailabilityRangeRequest.MAX_SPAN_DAYS + " days together")
+    public boolean isBounded() {
+        if (this.ranges == null) {
+            return true;
+        }
+        Optional<LocalDate> from = this.ranges.stream().filter(Objects::nonNull).map(AvailabilityRangeRequest::getFrom)
+                .filter(Objects::nonNull).min(LocalDate::compareTo);
+        Optional<LocalDate> to = this.ranges.stream().filter(Objects::nonNull).map(AvailabilityRangeRequest::getTo)
+                .filter(Objects::nonNull).max(LocalDate::compareTo);
+        return from.isEmpty() || to.isEmpty()
+                || AvailabilityRangeRequest.spanDays(from.get(), to.get()) <= AvailabilityRangeRequest.MAX_SPAN_DAYS;
+    }
+
+}
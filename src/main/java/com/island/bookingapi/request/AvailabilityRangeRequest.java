@@ -0,0 +1,53 @@
+package com.island.bookingapi.request;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+
+import javax.validation.constraints.AssertTrue;
+import javax.validation.constraints.Future;
+import javax.validation.constraints.NotNull;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+
+@Getter
+@Setter
+@RequiredArgsConstructor
+public class AvailabilityRangeRequest {
+
+    /**
+     * Most days a range of availability may span, both ends included
+     */
+    public static final int MAX_SPAN_DAYS = 366;
+
+    @NotNull
+    @Future
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd")
+    private final LocalDate from;
+
+    @NotNull
+    @Future
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd")
+    private final LocalDate to;
+
+    @JsonIgnore
+    @AssertTrue(message = "from must not be after to")
+    public boolean isOrdered() {
+        return this.from == null || this.to == null || !this.from.isAfter(this.to);
+    }
+
+    @JsonIgnore
+    @AssertTrue(message = "range must span at most " + MAX_SPAN_DAYS + " days")
+    public boolean isBounded() {
+        return this.from == null || this.to == null || spanDays(this.from, this.to) <= MAX_SPAN_DAYS;
+    }
+
+    /**
+     * @return days from one day to the other, both included
+     */
+    public static long spanDays(LocalDate from, LocalDate to) {
+        return ChronoUnit.DAYS.between(from, to) + 1;
+    }
+}
@@ -0,0 +1,38 @@
+package com.island.bookingapi.request;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import javax.validation.constraints.AssertTrue;
+import javax.validation.constraints.FutureOrPresent;
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+import java.time.LocalDate;
+
+@Getter
+@RequiredArgsConstructor
+public class BlackoutRequest {
+
+    @NotNull
+    @FutureOrPresent
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd")
+    private final LocalDate from;
+
+    @NotNull
+    @FutureOrPresent
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd")
+    private final LocalDate to;
+
+    @NotBlank
+    @Size(max = 255)
+    private final String reason;
+
+    @JsonIgnore
+    @AssertTrue(message = "from must not be after to")
+    public boolean isOrdered() {
+        return this.from == null || this.to == null || !this.from.isAfter(this.to);
+    }
+}
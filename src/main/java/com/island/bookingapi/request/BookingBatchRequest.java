@@ -0,0 +1,29 @@
+package com.island.bookingapi.request;
+
+import com.island.bookingapi.batch.BatchMode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+public class BookingBatchRequest {
+
+    public static final int MAX_OPERATIONS = 50;
+
+    @NotNull
+    private BatchMode mode = BatchMode.ATOMIC;
+
+    @Valid
+    @NotEmpty
+    @Size(max = MAX_OPERATIONS)
+    private List<BookingOperationRequest> operations;
+
+}
@@ -0,0 +1,39 @@
+package com.island.bookingapi.request;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.island.bookingapi.batch.BookingOperationType;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import javax.validation.constraints.NotNull;
+import java.time.LocalDate;
+
+/**
+ * One operation of a batch. The fields are those of the single operation requests and are validated
+ * the same way per operation, so a bad operation fails alone in a best effort batch
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+public class BookingOperationRequest {
+
+    @NotNull
+    private BookingOperationType type;
+
+    /**
+     * Booking updated or cancelled
+     */
+    private Long bookingId;
+
+    private String userName;
+
+    private String userEmail;
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd")
+    private LocalDate arrivalDate;
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd")
+    private LocalDate departureDate;
+
+}
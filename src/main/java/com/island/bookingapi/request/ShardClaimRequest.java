@@ -0,0 +1,25 @@
+package com.island.bookingapi.request;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotEmpty;
+import java.time.LocalDate;
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ShardClaimRequest {
+
+    @NotBlank
+    private String claimId;
+
+    @NotEmpty
+    private List<LocalDate> nights;
+
+}
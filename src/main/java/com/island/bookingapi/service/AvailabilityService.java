@@ -1,36 +1,104 @@
 package com.island.bookingapi.service;
 
-import com.island.bookingapi.repository.CalendarAvailableRepository;
+import com.island.bookingapi.cache.SingleFlight;
+import com.island.bookingapi.calendar.CalendarHistory;
+import com.island.bookingapi.calendar.CalendarIndex;
+import com.island.bookingapi.calendar.EpochDayRange;
+import com.island.bookingapi.exception.HistoryNotRetainedException;
+import com.island.bookingapi.metrics.BookingMetrics;
+import com.island.bookingapi.request.AvailabilityRangeRequest;
+import com.island.bookingapi.store.BookingStore;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
 import javax.validation.constraints.Future;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-import java.util.function.Predicate;
-import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class AvailabilityService {
 
-    private final CalendarAvailableRepository calendarAvailableRepository;
+    private final BookingStore bookingStore;
+    private final CalendarIndex calendarIndex;
+    private final BookingMetrics bookingMetrics;
+    private final SingleFlight<List<LocalDate>, List<LocalDate>> availabilitySingleFlight;
+    private final CalendarHistory calendarHistory;
     private static final Logger LOGGER = LoggerFactory.getLogger(AvailabilityService.class);
 
     /**
      * Returns a list of days available in the given range days.
-     * If from or to are available will be contains in the response as appropriate
+     * If from or to are available will be contains in the response as appropriate.
+     * Once the CalendarIndex is loaded the answer comes from memory without touching the store,
+     * until then concurrent requests for the same range share one store read.
+     * Read-only without starting a transaction, so the store is read from a replica when there are any
      *
      * @param from Arrival day
      * @param to   Departure day
      * @return List<LocalDate>
      */
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
     public List<LocalDate> getAvailableDates(@Future final LocalDate from, @Future final LocalDate to) {
         LOGGER.info("Getting availability for range of days from: {} to: {}", from, to);
-        List<LocalDate> bookedDays = this.calendarAvailableRepository.getOrderedBookedDates(from, to);
-        List<LocalDate> periodDays = from.datesUntil(to.plusDays(1)).collect(Collectors.toList());
-        return periodDays.stream().filter(Predicate.not(bookedDays::contains)).collect(Collectors.toList());
+        long start = System.nanoTime();
+        if (this.calendarIndex.isLoaded()) {
+            List<LocalDate> availableDates = this.calendarIndex.getAvailableDates(from, to);
+            this.bookingMetrics.recordAvailability(true, start);
+            return availableDates;
+        }
+        List<LocalDate> availableDates = this.availabilitySingleFlight.execute(List.of(from, to), () -> {
+            List<LocalDate> bookedDays = this.bookingStore.getOrderedBookedDates(from, to);
+            return Collections.unmodifiableList(EpochDayRange.ofDays(from, to).datesExcept(bookedDays));
+        });
+        this.bookingMetrics.recordAvailability(false, start);
+        return availableDates;
+    }
+
+    /**
+     * Returns the days that were available in the given range at the given instant, as this instance saw them.
+     * Answered from the CalendarHistory, the database only keeps the current state
+     *
+     * @param from first day
+     * @param to   last day
+     * @param asOf instant of the calendar
+     * @return List<LocalDate>
+     * @throws HistoryNotRetainedException if the instant is older than the retained history
+     */
+    public List<LocalDate> getAvailableDates(final LocalDate from, final LocalDate to, final LocalDateTime asOf) {
+        LOGGER.info("Getting availability for range of days from: {} to: {} as of: {}", from, to, asOf);
+        return this.calendarHistory.getAvailableDates(from, to, asOf)
+                .orElseThrow(() -> new HistoryNotRetainedException(String.format("Availability as of %s is not retained", asOf)));
+    }
+
+    /**
+     * Returns the available days of every range, in the order of the ranges.
+     * The booked days of the span covering all the ranges are read once, from the CalendarIndex when
+     * loaded or with a single store query, so all the ranges see the same state
+     *
+     * @param ranges ranges of days, both ends included
+     * @return List with the available days of each range
+     */
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
+    public List<List<LocalDate>> getAvailableDates(List<AvailabilityRangeRequest> ranges) {
+        long start = System.nanoTime();
+        LocalDate spanFrom = ranges.stream().map(AvailabilityRangeRequest::getFrom).min(LocalDate::compareTo).orElseThrow();
+        LocalDate spanTo = ranges.stream().map(AvailabilityRangeRequest::getTo).max(LocalDate::compareTo).orElseThrow();
+        LOGGER.info("Getting availability for {} ranges of days from: {} to: {}", ranges.size(), spanFrom, spanTo);
+        boolean indexed = this.calendarIndex.isLoaded();
+        List<LocalDate> bookedDays = indexed ? this.calendarIndex.getBookedDates(spanFrom, spanTo)
+                : this.bookingStore.getBookedDates(spanFrom, spanTo);
+        List<List<LocalDate>> availableDates = new ArrayList<>(ranges.size());
+        for (AvailabilityRangeRequest range : ranges) {
+            availableDates.add(EpochDayRange.ofDays(range.getFrom(), range.getTo()).datesExcept(bookedDays));
+        }
+        this.bookingMetrics.recordAvailability(indexed, start);
+        return availableDates;
     }
 }
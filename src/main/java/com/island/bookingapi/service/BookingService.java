@@ -1,32 +1,49 @@
 package com.island.bookingapi.service;
 
+import com.island.bookingapi.cache.SingleFlight;
+import com.island.bookingapi.calendar.EpochDayRange;
+import com.island.bookingapi.contention.DayContentionTracker;
+import com.island.bookingapi.event.BookingChangeType;
+import com.island.bookingapi.event.BookingChangedEvent;
 import com.island.bookingapi.exception.BookingNotFoundException;
 import com.island.bookingapi.exception.CancelledBookingException;
 import com.island.bookingapi.exception.UnavailableDatesException;
+import com.island.bookingapi.metrics.BookingMetrics;
+import com.island.bookingapi.metrics.BookingStage;
 import com.island.bookingapi.model.Booking;
 import com.island.bookingapi.model.BookingStatus;
-import com.island.bookingapi.model.CalendarAvailability;
-import com.island.bookingapi.repository.BookingRepository;
-import com.island.bookingapi.repository.CalendarAvailableRepository;
+import com.island.bookingapi.quota.GuestQuotaTracker;
 import com.island.bookingapi.request.CreateBookingControllerRequest;
 import com.island.bookingapi.request.UpdateBookingControllerRequest;
+import com.island.bookingapi.shard.ShardCoordinator;
+import com.island.bookingapi.store.BookingStore;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.util.Collections;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Optional;
 
 
 @Service
 @RequiredArgsConstructor
 public class BookingService {
 
-    private final BookingRepository bookingRepository;
-    private final CalendarAvailableRepository calendarAvailableRepository;
+    private final BookingStore bookingStore;
+    private final ApplicationEventPublisher eventPublisher;
+    private final BookingMetrics bookingMetrics;
+    private final DayContentionTracker contentionTracker;
+    private final SingleFlight<Long, Optional<Booking>> bookingSingleFlight;
+    private final GuestQuotaTracker guestQuotaTracker;
+    private final ObjectProvider<ShardCoordinator> shardCoordinator;
     private static final Logger LOGGER = LoggerFactory.getLogger(BookingService.class);
 
 
@@ -43,12 +60,18 @@ public class BookingService {
      */
     @Transactional
     public Booking createBooking(CreateBookingControllerRequest request) {
+        long start = System.nanoTime();
+        this.guestQuotaTracker.reserve(request.getUserEmail());
+        start = this.bookingMetrics.recordStage(BookingChangeType.CREATED, BookingStage.VALIDATION, start);
         this.checkBookedDates(request.getArrivalDate(), request.getDepartureDate());
+        this.bookingMetrics.recordStage(BookingChangeType.CREATED, BookingStage.CHECK_DATES, start);
         // save booking
         Booking booking = new Booking(request.getUserName(), request.getUserEmail(), request.getArrivalDate(),
                 request.getDepartureDate());
         LOGGER.info("Creating new booking for dates :{} - {} ", request.getArrivalDate(), request.getDepartureDate());
-        this.saveBooking(booking);
+        List<LocalDate> bookedDays = this.saveBooking(booking, BookingChangeType.CREATED);
+        this.eventPublisher.publishEvent(new BookingChangedEvent(booking.getId(), BookingChangeType.CREATED, Collections.emptyList(), bookedDays));
+        this.bookingMetrics.recordCommit(BookingChangeType.CREATED);
         return booking;
     }
 
@@ -66,36 +89,54 @@ public class BookingService {
      */
     @Transactional
     public Booking updateBooking(UpdateBookingControllerRequest request, Long bookingId) {
+        long start = System.nanoTime();
         Booking persistedBooking = this.getPersistedBooking(bookingId);
+        start = this.bookingMetrics.recordStage(BookingChangeType.UPDATED, BookingStage.VALIDATION, start);
         this.checkBookedDates(request.getArrivalDate(), request.getDepartureDate(), persistedBooking);
+        start = this.bookingMetrics.recordStage(BookingChangeType.UPDATED, BookingStage.CHECK_DATES, start);
         if (persistedBooking.getStatus().equals(BookingStatus.CANCELLED.getId())) {
+            this.bookingMetrics.cancelledBooking();
             throw new CancelledBookingException();
         }
-        this.cancelBookingDays(persistedBooking);
+        List<LocalDate> releasedDays = this.cancelBookingDays(persistedBooking);
+        this.bookingMetrics.recordStage(BookingChangeType.UPDATED, BookingStage.CALENDAR_RELEASE, start);
         String newUserName = request.getUserName();
         if (newUserName != null) {
             persistedBooking.setUserName(newUserName);
         }
         String newEmail = request.getUserEmail();
         if (newEmail != null) {
+            if (!newEmail.equalsIgnoreCase(persistedBooking.getUserEmail())) {
+                this.guestQuotaTracker.reserve(newEmail);
+                this.guestQuotaTracker.releaseOnCommit(persistedBooking.getUserEmail());
+            }
             persistedBooking.setUserEmail(newEmail);
         }
         persistedBooking.setArrivalDate(request.getArrivalDate());
         persistedBooking.setDepartureDate(request.getDepartureDate());
         // updateBooking booking
         LOGGER.info("Updating booking {} ", bookingId);
-        this.saveBooking(persistedBooking);
+        List<LocalDate> bookedDays = this.saveBooking(persistedBooking, BookingChangeType.UPDATED);
+        this.eventPublisher.publishEvent(new BookingChangedEvent(bookingId, BookingChangeType.UPDATED, releasedDays, bookedDays));
+        this.bookingMetrics.recordCommit(BookingChangeType.UPDATED);
         return persistedBooking;
     }
 
     /**
-     * Get existing Booking by id
+     * Get existing Booking by id.
+     * Concurrent lookups of the same id share one store read and the returned Booking
      *
      * @param bookingId
      * @return
      */
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
     public Booking getBookingById(Long bookingId) {
-        return this.getPersistedBooking(bookingId);
+        return this.bookingSingleFlight.execute(bookingId, () -> this.bookingStore.findBookingById(bookingId)
+                .or(() -> this.bookingStore.findArchivedBookingById(bookingId)))
+                .orElseThrow(() -> {
+                    this.bookingMetrics.notFound();
+                    return new BookingNotFoundException();
+                });
     }
 
     /**
@@ -106,48 +147,95 @@ public class BookingService {
      */
     @Transactional
     public Booking cancelBooking(Long bookingId) {
+        long start = System.nanoTime();
         Booking persistedBooking = this.getPersistedBooking(bookingId);
         if (persistedBooking.getStatus().equals(BookingStatus.CANCELLED.getId())) {
+            this.bookingMetrics.cancelledBooking();
             throw new CancelledBookingException();
         }
+        start = this.bookingMetrics.recordStage(BookingChangeType.CANCELLED, BookingStage.VALIDATION, start);
         persistedBooking.setStatus(BookingStatus.CANCELLED.getId());
+        this.guestQuotaTracker.releaseOnCommit(persistedBooking.getUserEmail());
         LOGGER.info("Cancelling booking {} ", bookingId);
-        this.cancelBookingDays(persistedBooking);
-        return this.bookingRepository.save(persistedBooking);
+        List<LocalDate> releasedDays = this.cancelBookingDays(persistedBooking);
+        start = this.bookingMetrics.recordStage(BookingChangeType.CANCELLED, BookingStage.CALENDAR_RELEASE, start);
+        this.eventPublisher.publishEvent(new BookingChangedEvent(bookingId, BookingChangeType.CANCELLED, releasedDays, Collections.emptyList()));
+        Booking cancelledBooking = this.bookingStore.saveBooking(persistedBooking);
+        this.bookingMetrics.recordStage(BookingChangeType.CANCELLED, BookingStage.BOOKING_INSERT, start);
+        this.bookingMetrics.recordCommit(BookingChangeType.CANCELLED);
+        return cancelledBooking;
     }
 
     private Booking getPersistedBooking(Long bookingId) {
-        return this.bookingRepository.findById(bookingId).orElseThrow(BookingNotFoundException::new);
+        return this.bookingStore.findBookingById(bookingId).orElseThrow(() -> {
+            this.bookingMetrics.notFound();
+            return new BookingNotFoundException();
+        });
     }
 
     private void checkBookedDates(LocalDate arrivalDate, LocalDate departureDate) {
-        List<LocalDate> bookedDays = this.calendarAvailableRepository.getBookedDates(arrivalDate, departureDate);
+        this.contentionTracker.recordAttempt(arrivalDate, departureDate);
+        List<LocalDate> bookedDays = this.claimNights(EpochDayRange.ofStay(arrivalDate, departureDate).asDates())
+                .orElseGet(() -> this.bookingStore.getBookedDates(arrivalDate, departureDate));
         if (!bookedDays.isEmpty()) {
+            this.bookingMetrics.conflict();
+            this.contentionTracker.recordConflict(bookedDays);
             throw new UnavailableDatesException(String.format("Days not available: %s ", bookedDays));
         }
     }
 
     private void checkBookedDates(LocalDate arrivalDate, LocalDate departureDate, Booking persistedBooking) {
-        List<LocalDate> oldBookedDays = persistedBooking.getArrivalDate().datesUntil(persistedBooking.getDepartureDate()).collect(Collectors.toList());
-        List<LocalDate> bookedDays = this.calendarAvailableRepository.getBookedDates(arrivalDate, departureDate);
-        if (!bookedDays.isEmpty() && bookedDays.stream().noneMatch(oldBookedDays::contains)) {
+        this.contentionTracker.recordAttempt(arrivalDate, departureDate);
+        EpochDayRange oldStay = EpochDayRange.ofStay(persistedBooking.getArrivalDate(), persistedBooking.getDepartureDate());
+        Optional<List<LocalDate>> takenNights = this.claimNights(EpochDayRange.ofStay(arrivalDate, departureDate).datesNotIn(oldStay));
+        if (takenNights.isPresent()) {
+            if (!takenNights.get().isEmpty()) {
+                this.bookingMetrics.conflict();
+                this.contentionTracker.recordConflict(takenNights.get());
+                throw new UnavailableDatesException(String.format("Days not available: %s ", takenNights.get()));
+            }
+            return;
+        }
+        List<LocalDate> bookedDays = this.bookingStore.getBookedDates(arrivalDate, departureDate);
+        if (!bookedDays.isEmpty() && bookedDays.stream().noneMatch(oldStay::contains)) {
+            this.bookingMetrics.conflict();
+            this.contentionTracker.recordConflict(bookedDays);
             throw new UnavailableDatesException(String.format("Days not available: %s ", bookedDays));
         }
     }
 
-    private void saveBooking(Booking booking) {
-        List<LocalDate> bookingDates = booking.getArrivalDate().datesUntil(booking.getDepartureDate()).collect(Collectors.toList());
-        List<CalendarAvailability> calendarAvailabilities = bookingDates.stream().map(CalendarAvailability::new).collect(Collectors.toList());
-        this.calendarAvailableRepository.saveAll(calendarAvailabilities);
-        this.bookingRepository.save(booking);
+    /**
+     * Claims the nights from the owners of their shards, when the calendar is sharded
+     *
+     * @return the nights already taken, empty when the database has to be checked
+     */
+    private Optional<List<LocalDate>> claimNights(List<LocalDate> nights) {
+        ShardCoordinator coordinator = this.shardCoordinator.getIfAvailable();
+        return coordinator == null ? Optional.empty() : coordinator.claim(nights);
+    }
 
+    private List<LocalDate> saveBooking(Booking booking, BookingChangeType operation) {
+        long start = System.nanoTime();
+        List<LocalDate> bookingDates = EpochDayRange.ofStay(booking.getArrivalDate(), booking.getDepartureDate()).asDates();
+        try {
+            this.bookingStore.bookDays(bookingDates);
+        } catch (DataIntegrityViolationException e) {
+            // another transaction booked some of the days after the check
+            this.bookingMetrics.conflict();
+            this.contentionTracker.recordConflict(booking.getArrivalDate(), booking.getDepartureDate());
+            throw e;
+        }
+        start = this.bookingMetrics.recordStage(operation, BookingStage.CALENDAR_INSERT, start);
+        this.bookingStore.saveBooking(booking);
+        this.bookingMetrics.recordStage(operation, BookingStage.BOOKING_INSERT, start);
+        return bookingDates;
     }
 
-    private void cancelBookingDays(Booking booking) {
-        List<LocalDate> bookingDates = booking.getArrivalDate().datesUntil(booking.getDepartureDate()).collect(Collectors.toList());
+    private List<LocalDate> cancelBookingDays(Booking booking) {
+        List<LocalDate> bookingDates = EpochDayRange.ofStay(booking.getArrivalDate(), booking.getDepartureDate()).asDates();
         LOGGER.info("Setting calendar availability for Days: {} ", bookingDates);
-        this.calendarAvailableRepository.deleteByDates(bookingDates);
-
+        this.bookingStore.releaseDays(bookingDates);
+        return bookingDates;
     }
 
 
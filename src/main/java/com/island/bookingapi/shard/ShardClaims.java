@@ -0,0 +1,110 @@
+package com.island.bookingapi.shard;
+
+import com.island.bookingapi.calendar.CalendarIndex;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Nights claimed by the bookings being written, on the shards owned by this instance. A claim is decided
+ * in memory against the calendar index and the other claims, the unique constraint of the calendar stays
+ * the last word.
+ * <p>
+ * A claim is prepared before the booking transaction writes and completed after it: given back on rollback,
+ * kept for {@code booking.shard.committed-hold-ms} on commit, until the change reached the calendar index of
+ * every instance. Claims of a coordinator that never completes them expire after {@code booking.shard.claim-ttl-ms}.
+ */
+@Component
+@ConditionalOnProperty(name = "booking.shard.enabled", havingValue = "true")
+public class ShardClaims {
+
+    private final ShardLeaseManager leaseManager;
+    private final CalendarIndex calendarIndex;
+    private final long claimTtlMillis;
+    private final long committedHoldMillis;
+    private final Map<LocalDate, Claim> claimed = new HashMap<>();
+
+    public ShardClaims(ShardLeaseManager leaseManager, CalendarIndex calendarIndex,
+                       @Value("${booking.shard.claim-ttl-ms:10000}") long claimTtlMillis,
+                       @Value("${booking.shard.committed-hold-ms:2000}") long committedHoldMillis) {
+        this.leaseManager = leaseManager;
+        this.calendarIndex = calendarIndex;
+        this.claimTtlMillis = claimTtlMillis;
+        this.committedHoldMillis = committedHoldMillis;
+    }
+
+    /**
+     * Claims the nights if none is booked or claimed by another claim
+     *
+     * @param claimId id of the claim
+     * @param nights  nights, all of shards owned by this instance
+     * @return the nights taken, none when the claim is held; empty when this instance cannot decide,
+     * it does not own all the shards or its index is not loaded
+     */
+    public synchronized Optional<List<LocalDate>> prepare(String claimId, List<LocalDate> nights) {
+        if (!this.calendarIndex.isLoaded() || !nights.stream().allMatch(night -> this.leaseManager.owns(this.leaseManager.shardOf(night)))) {
+            return Optional.empty();
+        }
+        long now = System.currentTimeMillis();
+        List<LocalDate> taken = new ArrayList<>();
+        for (LocalDate night : nights) {
+            Claim claim = this.claimed.get(night);
+            boolean claimedByOther = claim != null && !claim.id.equals(claimId) && claim.expiresAt > now;
+            if (claimedByOther || this.calendarIndex.isBooked(night)) {
+                taken.add(night);
+            }
+        }
+        if (taken.isEmpty()) {
+            Claim claim = new Claim(claimId, now + this.claimTtlMillis);
+            nights.forEach(night -> this.claimed.put(night, claim));
+        }
+        return Optional.of(taken);
+    }
+
+    /**
+     * Completes the claim once the booking transaction is over
+     *
+     * @param claimId   id of the claim
+     * @param committed whether the booking was committed
+     */
+    public synchronized void complete(String claimId, boolean committed) {
+        if (!committed) {
+            this.claimed.values().removeIf(claim -> claim.id.equals(claimId));
+            return;
+        }
+        long holdUntil = System.currentTimeMillis() + this.committedHoldMillis;
+        this.claimed.values().stream().filter(claim -> claim.id.equals(claimId)).forEach(claim -> claim.expiresAt = holdUntil);
+    }
+
+    @Scheduled(fixedDelayString = "${booking.shard.committed-hold-ms:2000}")
+    public synchronized void evictExpired() {
+        long now = System.currentTimeMillis();
+        this.claimed.values().removeIf(claim -> claim.expiresAt <= now);
+    }
+
+    synchronized int size() {
+        return this.claimed.size();
+    }
+
+    /**
+     * Guarded by the lock of the ShardClaims
+     */
+    private static final class Claim {
+
+        private final String id;
+        private long expiresAt;
+
+        Claim(String id, long expiresAt) {
+            this.id = id;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
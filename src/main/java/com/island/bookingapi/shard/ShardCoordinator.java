@@ -0,0 +1,166 @@
+package com.island.bookingapi.shard;
+
+import com.island.bookingapi.dto.ShardClaimDTO;
+import com.island.bookingapi.request.ShardClaimRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Claims the nights of a booking from the owners of their shards before the booking is written.
+ * <p>
+ * A stay within the shards of this instance is decided locally. A stay on shards owned by other instances,
+ * or crossing a shard boundary, is claimed in two phases: prepared on every owner, and completed on every
+ * owner once the booking transaction is over, committed or rolled back. If an owner refuses, the prepared
+ * claims are given back. If an owner cannot be reached, or no instance owns a shard, nothing is decided
+ * and the caller checks the days in the database as without shards.
+ */
+@Component
+@ConditionalOnProperty(name = "booking.shard.enabled", havingValue = "true")
+public class ShardCoordinator {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ShardCoordinator.class);
+    static final String CLAIMS_PATH = "/internal/shard-claims";
+    public static final String SECRET_HEADER = "X-Shard-Secret";
+
+    private final ShardLeaseManager leaseManager;
+    private final ShardClaims shardClaims;
+    private final RestTemplate restTemplate;
+    private final ExecutorService completions = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "shard-claim-completion");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public ShardCoordinator(ShardLeaseManager leaseManager, ShardClaims shardClaims, RestTemplateBuilder restTemplateBuilder,
+                            @Value("${booking.shard.claim-timeout-ms:200}") long claimTimeoutMillis,
+                            @Value("${booking.shard.secret:}") String secret) {
+        if (secret.isBlank()) {
+            throw new IllegalStateException("booking.shard.secret must be set, the same on every instance, to enable the shards");
+        }
+        this.leaseManager = leaseManager;
+        this.shardClaims = shardClaims;
+        this.restTemplate = restTemplateBuilder.setConnectTimeout(Duration.ofMillis(claimTimeoutMillis))
+                .setReadTimeout(Duration.ofMillis(claimTimeoutMillis)).defaultHeader(SECRET_HEADER, secret).build();
+    }
+
+    /**
+     * Claims the nights for the current transaction, the claims are completed when it completes
+     *
+     * @param nights nights of the stay
+     * @return the nights already taken, none when the claim is held; empty when it could not be decided
+     */
+    public Optional<List<LocalDate>> claim(List<LocalDate> nights) {
+        if (nights.isEmpty()) {
+            return Optional.empty();
+        }
+        Map<String, List<LocalDate>> nightsByOwner = new LinkedHashMap<>();
+        for (LocalDate night : nights) {
+            int shard = this.leaseManager.shardOf(night);
+            Optional<String> owner = this.leaseManager.owns(shard) ? Optional.of("") : this.leaseManager.getOwnerUrl(shard);
+            if (owner.isEmpty()) {
+                return Optional.empty();
+            }
+            nightsByOwner.computeIfAbsent(owner.get(), url -> new ArrayList<>()).add(night);
+        }
+        String claimId = UUID.randomUUID().toString();
+        List<String> prepared = new ArrayList<>();
+        List<LocalDate> taken = new ArrayList<>();
+        for (Map.Entry<String, List<LocalDate>> entry : nightsByOwner.entrySet()) {
+            Optional<List<LocalDate>> result = this.prepare(entry.getKey(), claimId, entry.getValue());
+            if (result.isEmpty()) {
+                this.complete(prepared, claimId, false);
+                return Optional.empty();
+            }
+            taken.addAll(result.get());
+            if (!result.get().isEmpty()) {
+                break;
+            }
+            prepared.add(entry.getKey());
+        }
+        if (!taken.isEmpty()) {
+            this.complete(prepared, claimId, false);
+            return Optional.of(taken);
+        }
+        this.completeWithTransaction(prepared, claimId);
+        return Optional.of(Collections.emptyList());
+    }
+
+    @PreDestroy
+    public void close() {
+        this.completions.shutdown();
+    }
+
+    /**
+     * @param owner base URL of the owner, empty for this instance
+     */
+    private Optional<List<LocalDate>> prepare(String owner, String claimId, List<LocalDate> nights) {
+        if (owner.isEmpty()) {
+            return this.shardClaims.prepare(claimId, nights);
+        }
+        try {
+            ShardClaimDTO claim = this.restTemplate.postForObject(owner + CLAIMS_PATH, new ShardClaimRequest(claimId, nights), ShardClaimDTO.class);
+            return Optional.of(claim.getTakenNights());
+        } catch (HttpStatusCodeException e) {
+            // no longer the owner, or its index is not loaded
+            LOGGER.debug("Shard owner {} could not decide claim {}: {}", owner, claimId, e.getStatusCode());
+            return Optional.empty();
+        } catch (RestClientException e) {
+            LOGGER.warn("Shard owner {} not reachable", owner, e);
+            return Optional.empty();
+        }
+    }
+
+    private void completeWithTransaction(List<String> owners, String claimId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            this.complete(owners, claimId, true);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                ShardCoordinator.this.complete(owners, claimId, status == STATUS_COMMITTED);
+            }
+        });
+    }
+
+    /**
+     * Local claims are completed right away, remote ones in the background, they expire if the message is lost
+     */
+    private void complete(List<String> owners, String claimId, boolean committed) {
+        for (String owner : owners) {
+            if (owner.isEmpty()) {
+                this.shardClaims.complete(claimId, committed);
+            } else {
+                this.completions.execute(() -> {
+                    try {
+                        this.restTemplate.delete(owner + CLAIMS_PATH + "/{claimId}?committed={committed}", claimId, committed);
+                    } catch (RestClientException e) {
+                        LOGGER.warn("Could not complete claim {} on {}", claimId, owner, e);
+                    }
+                });
+            }
+        }
+    }
+}
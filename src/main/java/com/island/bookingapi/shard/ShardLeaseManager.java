@@ -0,0 +1,169 @@
+package com.island.bookingapi.shard;
+
+import com.island.bookingapi.model.ShardLease;
+import com.island.bookingapi.repository.ShardLeaseRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Splits the calendar in {@code booking.shard.count} shards of consecutive blocks of
+ * {@code booking.shard.days-per-shard} days, handed out in turn, and keeps the leases of the shards owned by
+ * this instance in the {@code shard_lease} table.
+ * <p>
+ * Every {@code booking.shard.renew-ms} the instance renews its leases, takes the expired ones up to its fair
+ * share (the shards divided by the instances holding a lease) and gives back the ones above it. A lease is
+ * only trusted until a third of its duration before it expires, to leave room for clock drift.
+ */
+@Component
+@ConditionalOnProperty(name = "booking.shard.enabled", havingValue = "true")
+public class ShardLeaseManager {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ShardLeaseManager.class);
+
+    private final ShardLeaseRepository shardLeaseRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int shardCount;
+    private final int daysPerShard;
+    private final long leaseMillis;
+    private final String advertisedUrl;
+    private final String node = UUID.randomUUID().toString().substring(0, 8);
+    private volatile Map<Integer, ShardLease> leases = Collections.emptyMap();
+
+    public ShardLeaseManager(ShardLeaseRepository shardLeaseRepository, PlatformTransactionManager transactionManager,
+                             @Value("${booking.shard.count:16}") int shardCount,
+                             @Value("${booking.shard.days-per-shard:7}") int daysPerShard,
+                             @Value("${booking.shard.lease-seconds:15}") long leaseSeconds,
+                             @Value("${booking.shard.advertised-url}") String advertisedUrl) {
+        this.shardLeaseRepository = shardLeaseRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.shardCount = shardCount;
+        this.daysPerShard = daysPerShard;
+        this.leaseMillis = TimeUnit.SECONDS.toMillis(leaseSeconds);
+        this.advertisedUrl = advertisedUrl;
+    }
+
+    public int shardOf(LocalDate day) {
+        return (int) Math.floorMod(Math.floorDiv(day.toEpochDay(), this.daysPerShard), (long) this.shardCount);
+    }
+
+    public boolean owns(int shard) {
+        ShardLease lease = this.leases.get(shard);
+        return lease != null && this.node.equals(lease.getOwner()) && this.isTrusted(lease);
+    }
+
+    /**
+     * Returns the base URL of the instance owning the shard
+     *
+     * @param shard shard
+     * @return the URL, empty when no instance holds a valid lease
+     */
+    public Optional<String> getOwnerUrl(int shard) {
+        ShardLease lease = this.leases.get(shard);
+        if (lease == null || lease.getOwner() == null || !this.isTrusted(lease)) {
+            return Optional.empty();
+        }
+        return Optional.of(lease.getOwnerUrl());
+    }
+
+    public String getNode() {
+        return this.node;
+    }
+
+    @Scheduled(fixedDelayString = "${booking.shard.renew-ms:5000}")
+    public void renew() {
+        this.createMissingShards();
+        this.leases = this.transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            LocalDateTime until = now.plusNanos(TimeUnit.MILLISECONDS.toNanos(this.leaseMillis));
+            this.shardLeaseRepository.renew(this.node, until);
+            List<ShardLease> current = this.shardLeaseRepository.findAll();
+            Set<String> owners = new HashSet<>();
+            owners.add(this.node);
+            List<Integer> owned = new ArrayList<>();
+            List<Integer> free = new ArrayList<>();
+            for (ShardLease lease : current) {
+                if (lease.getOwner() == null || lease.getExpiresAt().isBefore(now)) {
+                    free.add(lease.getShardId());
+                } else if (this.node.equals(lease.getOwner())) {
+                    owned.add(lease.getShardId());
+                } else {
+                    owners.add(lease.getOwner());
+                }
+            }
+            int fairShare = (this.shardCount + owners.size() - 1) / owners.size();
+            for (int i = 0; i < free.size() && owned.size() < fairShare; i++) {
+                if (this.shardLeaseRepository.acquire(free.get(i), this.node, this.advertisedUrl, until, now) == 1) {
+                    owned.add(free.get(i));
+                    LOGGER.info("Acquired calendar shard {}", free.get(i));
+                }
+            }
+            if (owned.size() > fairShare) {
+                List<Integer> surplus = owned.subList(fairShare, owned.size());
+                this.shardLeaseRepository.release(this.node, surplus);
+                LOGGER.info("Released calendar shards {}", surplus);
+            }
+            return this.shardLeaseRepository.findAll().stream().collect(Collectors.toMap(ShardLease::getShardId, lease -> lease));
+        });
+    }
+
+    @PreDestroy
+    public void releaseAll() {
+        List<Integer> owned = this.leases.values().stream().filter(lease -> this.node.equals(lease.getOwner()))
+                .map(ShardLease::getShardId).collect(Collectors.toList());
+        this.leases = Collections.emptyMap();
+        if (!owned.isEmpty()) {
+            this.transactionTemplate.executeWithoutResult(status -> this.shardLeaseRepository.release(this.node, owned));
+        }
+    }
+
+    private boolean isTrusted(ShardLease lease) {
+        return lease.getExpiresAt() != null
+                && LocalDateTime.now().plusNanos(TimeUnit.MILLISECONDS.toNanos(this.leaseMillis / 3)).isBefore(lease.getExpiresAt());
+    }
+
+    private void createMissingShards() {
+        if (this.leases.size() == this.shardCount) {
+            return;
+        }
+        try {
+            this.transactionTemplate.executeWithoutResult(status -> {
+                Set<Integer> existing = new HashSet<>(this.shardLeaseRepository.findAllById(
+                        IntStream.range(0, this.shardCount).boxed().collect(Collectors.toList())).stream()
+                        .map(ShardLease::getShardId).collect(Collectors.toSet()));
+                Map<Integer, ShardLease> missing = new HashMap<>();
+                for (int shard = 0; shard < this.shardCount; shard++) {
+                    if (!existing.contains(shard)) {
+                        missing.put(shard, new ShardLease(shard));
+                    }
+                }
+                this.shardLeaseRepository.saveAll(missing.values());
+            });
+        } catch (DataIntegrityViolationException e) {
+            // another instance created them at the same time
+            LOGGER.debug("Shard leases created concurrently", e);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.island.bookingapi.sql;
+
+/**
+ * JDBC work done by the current thread: statements sent to the database, rows read or
+ * updated and time spent waiting for the driver.
+ * <p>
+ * Requests and transactions are served by a single thread, the counters are reset at
+ * the start of every request and read as deltas for transactions.
+ */
+public final class SqlStatistics {
+
+    private static final ThreadLocal<SqlStatistics> CURRENT = ThreadLocal.withInitial(SqlStatistics::new);
+
+    private long statements;
+    private long rows;
+    private long jdbcNanos;
+
+    private SqlStatistics() {
+    }
+
+    /**
+     * @return counters of the current thread
+     */
+    public static SqlStatistics current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Resets the counters of the current thread
+     */
+    public static void reset() {
+        SqlStatistics statistics = CURRENT.get();
+        statistics.statements = 0;
+        statistics.rows = 0;
+        statistics.jdbcNanos = 0;
+    }
+
+    public long getStatements() {
+        return this.statements;
+    }
+
+    public long getRows() {
+        return this.rows;
+    }
+
+    public long getJdbcNanos() {
+        return this.jdbcNanos;
+    }
+
+    void statementExecuted(long elapsedNanos, long updatedRows) {
+        this.statements++;
+        this.rows += updatedRows;
+        this.jdbcNanos += elapsedNanos;
+    }
+
+    void rowRead() {
+        this.rows++;
+    }
+}
@@ -0,0 +1,64 @@
+package com.island.bookingapi.sql;
+
+import com.island.bookingapi.metrics.SqlMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Accounts the SQL work of every HTTP request. The totals are always recorded as metrics and,
+ * when {@code booking.sql.response-headers} is enabled (not in production), returned as response headers.
+ */
+@Component
+public class SqlStatisticsFilter extends OncePerRequestFilter {
+
+    public static final String STATEMENTS_HEADER = "X-Sql-Statements";
+    public static final String ROWS_HEADER = "X-Sql-Rows";
+    public static final String TIME_HEADER = "X-Sql-Time-Ms";
+
+    private final SqlMetrics sqlMetrics;
+    private final boolean responseHeaders;
+
+    public SqlStatisticsFilter(SqlMetrics sqlMetrics, @Value("${booking.sql.response-headers:false}") boolean responseHeaders) {
+        this.sqlMetrics = sqlMetrics;
+        this.responseHeaders = responseHeaders;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        SqlStatistics.reset();
+        if (!this.responseHeaders) {
+            try {
+                filterChain.doFilter(request, response);
+            } finally {
+                this.record(SqlStatistics.current());
+            }
+            return;
+        }
+        // the body is buffered so the headers can still be written once the request is served
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        try {
+            filterChain.doFilter(request, wrapper);
+        } finally {
+            SqlStatistics statistics = SqlStatistics.current();
+            this.record(statistics);
+            wrapper.setHeader(STATEMENTS_HEADER, String.valueOf(statistics.getStatements()));
+            wrapper.setHeader(ROWS_HEADER, String.valueOf(statistics.getRows()));
+            wrapper.setHeader(TIME_HEADER, String.valueOf(TimeUnit.NANOSECONDS.toMillis(statistics.getJdbcNanos())));
+            wrapper.copyBodyToResponse();
+        }
+    }
+
+    private void record(SqlStatistics statistics) {
+        this.sqlMetrics.recordRequest(statistics.getStatements(), statistics.getRows(), statistics.getJdbcNanos());
+    }
+}
@@ -0,0 +1,139 @@
+package com.island.bookingapi.sql;
+
+import com.island.bookingapi.metrics.SqlMetrics;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.MethodExecutionContext;
+import net.ttddyy.dsproxy.listener.MethodExecutionListener;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.listener.logging.DefaultQueryLogEntryCreator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.ResultSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Feeds {@link SqlStatistics} from the proxied DataSource.
+ * <p>
+ * Every execution counts as one statement, a batch is a single round trip. Updated rows come from the
+ * update counts and read rows from the calls to {@link ResultSet#next()} that return a row.
+ * The first statement of a transaction registers a synchronization that records the transaction totals
+ * once it completes. Statements slower than the threshold are logged with their bound parameters.
+ */
+public class SqlStatisticsListener implements QueryExecutionListener, MethodExecutionListener {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SqlStatisticsListener.class);
+    private static final ThreadLocal<long[]> STATEMENT_START = ThreadLocal.withInitial(() -> new long[1]);
+
+    private final long slowThresholdNanos;
+    private final DefaultQueryLogEntryCreator logEntryCreator = new DefaultQueryLogEntryCreator();
+    private volatile SqlMetrics sqlMetrics;
+
+    public SqlStatisticsListener(long slowThresholdMillis) {
+        this.slowThresholdNanos = TimeUnit.MILLISECONDS.toNanos(slowThresholdMillis);
+    }
+
+    /**
+     * Statements run before the metrics are created, while the context starts, are only counted per thread
+     *
+     * @param sqlMetrics SqlMetrics
+     */
+    public void setSqlMetrics(SqlMetrics sqlMetrics) {
+        this.sqlMetrics = sqlMetrics;
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        STATEMENT_START.get()[0] = System.nanoTime();
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        long elapsed = System.nanoTime() - STATEMENT_START.get()[0];
+        SqlStatistics statistics = SqlStatistics.current();
+        this.registerTransaction(statistics);
+        statistics.statementExecuted(elapsed, updatedRows(execInfo.getResult()));
+        if (elapsed > this.slowThresholdNanos) {
+            SqlMetrics metrics = this.sqlMetrics;
+            if (metrics != null) {
+                metrics.slowStatement();
+            }
+            LOGGER.warn("Slow statement ({} ms): {}", TimeUnit.NANOSECONDS.toMillis(elapsed),
+                    this.logEntryCreator.getLogEntry(execInfo, queryInfoList, false, false));
+        }
+    }
+
+    @Override
+    public void beforeMethod(MethodExecutionContext executionContext) {
+        // nothing to do before, rows are counted once next() returns
+    }
+
+    @Override
+    public void afterMethod(MethodExecutionContext executionContext) {
+        if (executionContext.getTarget() instanceof ResultSet && Boolean.TRUE.equals(executionContext.getResult())
+                && "next".equals(executionContext.getMethod().getName())) {
+            SqlStatistics.current().rowRead();
+        }
+    }
+
+    private void registerTransaction(SqlStatistics statistics) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()
+                && !TransactionSynchronizationManager.hasResource(TransactionStatistics.class)) {
+            TransactionStatistics transaction = new TransactionStatistics(statistics);
+            TransactionSynchronizationManager.bindResource(TransactionStatistics.class, transaction);
+            TransactionSynchronizationManager.registerSynchronization(transaction);
+        }
+    }
+
+    private static long updatedRows(Object result) {
+        if (result instanceof Integer) {
+            return Math.max(0, (Integer) result);
+        }
+        if (result instanceof Long) {
+            return Math.max(0, (Long) result);
+        }
+        long rows = 0;
+        if (result instanceof int[]) {
+            for (int count : (int[]) result) {
+                rows += Math.max(0, count);
+            }
+        } else if (result instanceof long[]) {
+            for (long count : (long[]) result) {
+                rows += Math.max(0, count);
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Remembers the counters when the transaction ran its first statement and records the difference when it completes
+     */
+    private class TransactionStatistics implements TransactionSynchronization {
+
+        private final SqlStatistics statistics;
+        private final long statements;
+        private final long rows;
+        private final long jdbcNanos;
+
+        TransactionStatistics(SqlStatistics statistics) {
+            this.statistics = statistics;
+            this.statements = statistics.getStatements();
+            this.rows = statistics.getRows();
+            this.jdbcNanos = statistics.getJdbcNanos();
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(TransactionStatistics.class);
+            SqlMetrics metrics = SqlStatisticsListener.this.sqlMetrics;
+            if (metrics != null && this.statistics.getStatements() >= this.statements) {
+                metrics.recordTransaction(this.statistics.getStatements() - this.statements,
+                        this.statistics.getRows() - this.rows, this.statistics.getJdbcNanos() - this.jdbcNanos);
+            }
+        }
+    }
+}
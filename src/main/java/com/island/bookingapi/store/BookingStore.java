@@ -0,0 +1,99 @@
+package com.island.bookingapi.store;
+
+import com.island.bookingapi.model.Booking;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Persistence used by the booking and availability services.
+ * <p>
+ * Implementations take part in the Spring managed transactions of the services, a rolled back
+ * transaction leaves no trace of its writes. Booking a day already booked must fail with a
+ * {@link org.springframework.dao.DataIntegrityViolationException}, as the unique constraint of the calendar does.
+ */
+public interface BookingStore {
+
+    Optional<Booking> findBookingById(Long bookingId);
+
+    /**
+     * Looks up the given bookings at once, the ids not found are left out
+     *
+     * @param bookingIds booking ids
+     * @return List<Booking> in no particular order
+     */
+    default List<Booking> findBookingsByIds(Collection<Long> bookingIds) {
+        return bookingIds.stream().map(this::findBookingById).flatMap(Optional::stream).collect(Collectors.toList());
+    }
+
+    /**
+     * Looks up a booking moved out of the hot tables by the archive maintenance, stores without archive find none
+     *
+     * @param bookingId booking id
+     * @return Optional<Booking>
+     */
+    default Optional<Booking> findArchivedBookingById(Long bookingId) {
+        return Optional.empty();
+    }
+
+    /**
+     * Inserts or updates a booking, new bookings get their id assigned
+     *
+     * @param booking Booking
+     * @return Booking saved
+     */
+    Booking saveBooking(Booking booking);
+
+    /**
+     * Returns the bookings, active and cancelled, departing on or after the given day
+     *
+     * @param departingFrom first departure day
+     * @return List<Booking>
+     */
+    List<Booking> findBookingsDepartingFrom(LocalDate departingFrom);
+
+    /**
+     * Counts the active bookings departing on or after the given day per guest email, in lower case
+     *
+     * @param departingFrom first departure day counted
+     * @return Map of email to bookings
+     */
+    Map<String, Integer> countActiveBookingsByEmail(LocalDate departingFrom);
+
+    /**
+     * Returns the booked days of the range, both ends included, in no particular order
+     *
+     * @param from first day
+     * @param to   last day
+     * @return List<LocalDate>
+     */
+    List<LocalDate> getBookedDates(LocalDate from, LocalDate to);
+
+    /**
+     * Returns the booked days of the range, both ends included, in ascending order
+     *
+     * @param from first day
+     * @param to   last day
+     * @return List<LocalDate>
+     */
+    List<LocalDate> getOrderedBookedDates(LocalDate from, LocalDate to);
+
+    /**
+     * Marks the days as booked
+     *
+     * @param days days to book
+     * @throws org.springframework.dao.DataIntegrityViolationException if any of the days is already booked
+     */
+    void bookDays(List<LocalDate> days);
+
+    /**
+     * Makes the days available again
+     *
+     * @param days days to release
+     */
+    void releaseDays(List<LocalDate> days);
+}
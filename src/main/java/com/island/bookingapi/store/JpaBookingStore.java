@@ -0,0 +1,91 @@
+package com.island.bookingapi.store;
+
+import com.island.bookingapi.calendar.CalendarChangeLog;
+import com.island.bookingapi.model.ArchivedBooking;
+import com.island.bookingapi.model.Booking;
+import com.island.bookingapi.model.BookingStatus;
+import com.island.bookingapi.model.CalendarAvailability;
+import com.island.bookingapi.repository.ArchivedBookingRepository;
+import com.island.bookingapi.repository.BookingRepository;
+import com.island.bookingapi.repository.CalendarAvailableRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * BookingStore backed by the relational database through the JPA repositories
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "booking.storage.engine", havingValue = "jpa", matchIfMissing = true)
+public class JpaBookingStore implements BookingStore {
+
+    private final BookingRepository bookingRepository;
+    private final CalendarAvailableRepository calendarAvailableRepository;
+    private final CalendarChangeLog calendarChangeLog;
+    private final ArchivedBookingRepository archivedBookingRepository;
+
+    @Override
+    public Optional<Booking> findBookingById(Long bookingId) {
+        return this.bookingRepository.findById(bookingId);
+    }
+
+    @Override
+    public List<Booking> findBookingsByIds(Collection<Long> bookingIds) {
+        return this.bookingRepository.findAllById(bookingIds);
+    }
+
+    @Override
+    public Optional<Booking> findArchivedBookingById(Long bookingId) {
+        return this.archivedBookingRepository.findById(bookingId).map(ArchivedBooking::toBooking);
+    }
+
+    @Override
+    public Booking saveBooking(Booking booking) {
+        return this.bookingRepository.save(booking);
+    }
+
+    @Override
+    public List<Booking> findBookingsDepartingFrom(LocalDate departingFrom) {
+        return this.bookingRepository.findDepartingFrom(departingFrom);
+    }
+
+    @Override
+    public Map<String, Integer> countActiveBookingsByEmail(LocalDate departingFrom) {
+        Map<String, Integer> counts = new HashMap<>();
+        for (Object[] row : this.bookingRepository.countByEmail(BookingStatus.ACTIVE.getId(), departingFrom)) {
+            counts.put((String) row[0], ((Number) row[1]).intValue());
+        }
+        return counts;
+    }
+
+    @Override
+    public List<LocalDate> getBookedDates(LocalDate from, LocalDate to) {
+        return this.calendarAvailableRepository.getBookedDates(from, to);
+    }
+
+    @Override
+    public List<LocalDate> getOrderedBookedDates(LocalDate from, LocalDate to) {
+        return this.calendarAvailableRepository.getOrderedBookedDates(from, to);
+    }
+
+    @Override
+    public void bookDays(List<LocalDate> days) {
+        this.calendarAvailableRepository.saveAll(days.stream().map(CalendarAvailability::new).collect(Collectors.toList()));
+        this.calendarChangeLog.record(days);
+    }
+
+    @Override
+    public void releaseDays(List<LocalDate> days) {
+        this.calendarAvailableRepository.deleteByDates(days);
+        this.calendarChangeLog.record(days);
+    }
+}
@@ -0,0 +1,309 @@
+package com.island.bookingapi.store.journal;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only journal split in memory-mapped segment files of a fixed size.
+ * <p>
+ * Every record is written as {@code [length][crc32][payload]}, the end of the data is the first record
+ * with a zero length or a wrong checksum, so a write torn by a crash is dropped on replay.
+ * Appending only copies the record into the mapping, a single flusher thread forces the segment to disk and
+ * every commit waiting for its position is released at once: commits that arrive during an fsync
+ * are made durable together by the next one.
+ */
+public class BookingJournal implements Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BookingJournal.class);
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final int HEADER_BYTES = 8;
+
+    private final Path directory;
+    private final int segmentSize;
+    private final boolean fsync;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition appended = this.lock.newCondition();
+    private final Condition synced = this.lock.newCondition();
+    private long segmentNumber;
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private int writeOffset;
+    private long appendedPosition;
+    private long durablePosition;
+    private boolean tornTail;
+    private Thread flusher;
+    private volatile boolean closed;
+
+    public BookingJournal(Path directory, int segmentSize, boolean fsync) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.fsync = fsync;
+    }
+
+    /**
+     * Replays the records of the segments starting at {@code firstSegment} and opens the last one for appending.
+     * Older segments are already covered by a snapshot and are deleted.
+     *
+     * @param firstSegment first segment not covered by the snapshot
+     * @param consumer     receives the payload of every record in order
+     * @throws IOException if the segments cannot be read
+     */
+    public void open(long firstSegment, Consumer<ByteBuffer> consumer) throws IOException {
+        Files.createDirectories(this.directory);
+        this.deleteSegmentsBefore(firstSegment);
+        List<Long> segments = this.listSegments();
+        if (segments.isEmpty()) {
+            this.map(firstSegment);
+        }
+        for (int i = 0; i < segments.size(); i++) {
+            this.map(segments.get(i));
+            this.writeOffset = this.replaySegment(consumer);
+            if (this.tornTail && i < segments.size() - 1) {
+                throw new IllegalStateException("Journal segment " + segments.get(i) + " is corrupted before its end");
+            }
+        }
+        if (this.fsync) {
+            this.flusher = new Thread(this::flushLoop, "journal-flusher");
+            this.flusher.setDaemon(true);
+            this.flusher.start();
+        }
+        LOGGER.info("Journal opened at segment {} offset {}", this.segmentNumber, this.writeOffset);
+    }
+
+    /**
+     * Appends a record, it is durable once {@link #awaitDurable(long)} returns for the position returned
+     *
+     * @param payload record content
+     * @return position of the end of the record
+     * @throws IOException if a new segment cannot be created
+     */
+    public long append(byte[] payload) throws IOException {
+        int length = HEADER_BYTES + payload.length;
+        if (length > this.segmentSize) {
+            throw new IllegalArgumentException("Journal record of " + payload.length + " bytes does not fit in a segment");
+        }
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        this.lock.lock();
+        try {
+            if (this.writeOffset + length > this.segmentSize) {
+                this.roll();
+            }
+            ByteBuffer target = this.buffer.duplicate();
+            target.position(this.writeOffset + HEADER_BYTES);
+            target.put(payload);
+            this.buffer.putInt(this.writeOffset + 4, (int) crc.getValue());
+            this.buffer.putInt(this.writeOffset, payload.length);
+            this.writeOffset += length;
+            this.appendedPosition += length;
+            this.appended.signal();
+            return this.appendedPosition;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Waits until the journal is forced to disk up to the given position
+     *
+     * @param position position returned by {@link #append(byte[])}
+     */
+    public void awaitDurable(long position) {
+        if (!this.fsync) {
+            return;
+        }
+        this.lock.lock();
+        try {
+            while (this.durablePosition < position && !this.closed) {
+                this.synced.awaitUninterruptibly();
+            }
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Closes the current segment and starts a new one, everything appended before is durable when it returns
+     *
+     * @return number of the new segment
+     * @throws IOException if the new segment cannot be created
+     */
+    public long roll() throws IOException {
+        this.lock.lock();
+        try {
+            this.buffer.force();
+            this.durablePosition = this.appendedPosition;
+            this.synced.signalAll();
+            this.map(this.segmentNumber + 1);
+            this.writeOffset = 0;
+            return this.segmentNumber;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Deletes the segments fully covered by a snapshot
+     *
+     * @param segment first segment to keep
+     * @throws IOException if a segment cannot be deleted
+     */
+    public void deleteSegmentsBefore(long segment) throws IOException {
+        for (Long number : this.listSegments()) {
+            if (number < segment) {
+                Files.deleteIfExists(this.segmentPath(number));
+            }
+        }
+    }
+
+    /**
+     * @return bytes appended since the journal was opened
+     */
+    public long getAppendedPosition() {
+        this.lock.lock();
+        try {
+            return this.appendedPosition;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.lock.lock();
+        try {
+            this.closed = true;
+            this.appended.signalAll();
+            this.synced.signalAll();
+        } finally {
+            this.lock.unlock();
+        }
+        if (this.flusher != null) {
+            try {
+                this.flusher.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        this.lock.lock();
+        try {
+            this.buffer.force();
+            this.channel.close();
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    private void flushLoop() {
+        while (true) {
+            MappedByteBuffer target;
+            long position;
+            this.lock.lock();
+            try {
+                while (this.durablePosition == this.appendedPosition && !this.closed) {
+                    this.appended.awaitUninterruptibly();
+                }
+                if (this.closed) {
+                    return;
+                }
+                target = this.buffer;
+                position = this.appendedPosition;
+            } finally {
+                this.lock.unlock();
+            }
+            // appends continue while the segment is forced, they make the next group
+            target.force();
+            this.lock.lock();
+            try {
+                this.durablePosition = Math.max(this.durablePosition, position);
+                this.synced.signalAll();
+            } finally {
+                this.lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * @return offset after the last valid record
+     */
+    private int replaySegment(Consumer<ByteBuffer> consumer) {
+        this.tornTail = false;
+        int offset = 0;
+        while (offset + HEADER_BYTES <= this.segmentSize) {
+            int length = this.buffer.getInt(offset);
+            if (length == 0) {
+                return offset;
+            }
+            if (length < 0 || offset + HEADER_BYTES + length > this.segmentSize) {
+                LOGGER.warn("Dropping torn journal record at segment {} offset {}", this.segmentNumber, offset);
+                this.clearFrom(offset);
+                return offset;
+            }
+            ByteBuffer payload = this.buffer.duplicate();
+            payload.position(offset + HEADER_BYTES).limit(offset + HEADER_BYTES + length);
+            ByteBuffer record = payload.slice();
+            CRC32 crc = new CRC32();
+            crc.update(record.duplicate());
+            if ((int) crc.getValue() != this.buffer.getInt(offset + 4)) {
+                LOGGER.warn("Dropping torn journal record at segment {} offset {}", this.segmentNumber, offset);
+                this.clearFrom(offset);
+                return offset;
+            }
+            consumer.accept(record.asReadOnlyBuffer());
+            offset += HEADER_BYTES + length;
+        }
+        return offset;
+    }
+
+    /**
+     * Zeroes the rest of the segment, pages of later records may have reached the disk before the torn one
+     */
+    private void clearFrom(int offset) {
+        this.tornTail = true;
+        for (int i = offset; i < this.segmentSize; i++) {
+            this.buffer.put(i, (byte) 0);
+        }
+        this.buffer.force();
+    }
+
+    private void map(long number) throws IOException {
+        if (this.channel != null) {
+            this.channel.close();
+        }
+        this.channel = FileChannel.open(this.segmentPath(number), StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        this.buffer = this.channel.map(FileChannel.MapMode.READ_WRITE, 0, this.segmentSize);
+        this.segmentNumber = number;
+    }
+
+    private List<Long> listSegments() throws IOException {
+        try (Stream<Path> files = Files.list(this.directory)) {
+            return files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX))
+                    .map(name -> Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private Path segmentPath(long number) {
+        return this.directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, number, SEGMENT_SUFFIX));
+    }
+}
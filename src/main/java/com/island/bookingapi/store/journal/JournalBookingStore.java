@@ -0,0 +1,338 @@
+package com.island.bookingapi.store.journal;
+
+import com.island.bookingapi.model.Booking;
+import com.island.bookingapi.model.BookingStatus;
+import com.island.bookingapi.store.BookingStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * BookingStore keeping the whole state in memory and every committed change in a {@link BookingJournal}.
+ * <p>
+ * Writers are serialized: the first write of a transaction takes the store lock and holds it until
+ * the transaction completes, so the check of a day and its booking cannot interleave with another writer.
+ * The lock is released once the record is appended and the changes applied, the commit then waits
+ * for the fsync outside of it so concurrent commits share the same fsync. Readers never lock and see
+ * the changes of a transaction once it is applied.
+ * <p>
+ * At startup the last snapshot is loaded and the journal segments after it replayed. Compaction writes
+ * a new snapshot and drops the segments it covers.
+ */
+public class JournalBookingStore implements BookingStore {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(JournalBookingStore.class);
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SNAPSHOT_SUFFIX = ".bin";
+
+    private final Path directory;
+    private final BookingJournal journal;
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final Map<Long, Booking> bookings = new ConcurrentHashMap<>();
+    private final NavigableSet<LocalDate> bookedDays = new ConcurrentSkipListSet<>();
+    private long lastBookingId;
+    private long compactedPosition;
+
+    public JournalBookingStore(Path directory, int segmentSize, boolean fsync) {
+        this.directory = directory;
+        this.journal = new BookingJournal(directory, segmentSize, fsync);
+    }
+
+    @PostConstruct
+    public void open() throws IOException {
+        long start = System.nanoTime();
+        Files.createDirectories(this.directory);
+        Optional<Path> snapshotPath = this.latestSnapshot();
+        long firstSegment = 0;
+        if (snapshotPath.isPresent()) {
+            JournalSnapshot snapshot = JournalSnapshot.read(snapshotPath.get());
+            snapshot.getBookings().forEach(booking -> this.bookings.put(booking.getId(), booking));
+            this.bookedDays.addAll(snapshot.getBookedDays());
+            this.lastBookingId = snapshot.getLastBookingId();
+            firstSegment = snapshot.getSegment();
+        }
+        int[] records = new int[1];
+        this.journal.open(firstSegment, record -> {
+            this.apply(JournalTransaction.decode(record));
+            records[0]++;
+        });
+        LOGGER.info("Journal store loaded {} bookings and {} booked days ({} journal records) in {} ms", this.bookings.size(),
+                this.bookedDays.size(), records[0], (System.nanoTime() - start) / 1_000_000);
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        this.compact();
+        this.journal.close();
+    }
+
+    /**
+     * Starts a transaction, used by the {@link JournalTransactionManager}
+     *
+     * @param readOnly whether the transaction only reads
+     * @return JournalTransaction
+     */
+    JournalTransaction newTransaction(boolean readOnly) {
+        return new JournalTransaction(readOnly);
+    }
+
+    @Override
+    public Optional<Booking> findBookingById(Long bookingId) {
+        JournalTransaction transaction = this.currentTransaction();
+        Booking booking = transaction != null ? transaction.getSavedBookings().get(bookingId) : null;
+        if (booking == null) {
+            booking = this.bookings.get(bookingId);
+        }
+        return Optional.ofNullable(booking).map(JournalCodec::copy);
+    }
+
+    @Override
+    public Booking saveBooking(Booking booking) {
+        JournalTransaction transaction = this.beginWrite();
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            if (booking.getId() == null) {
+                booking.setId(++this.lastBookingId);
+                booking.setCreatedAt(now);
+            }
+            booking.setUpdatedAt(now);
+            transaction.saveBooking(JournalCodec.copy(booking));
+        } catch (RuntimeException e) {
+            this.endWrite(transaction, false);
+            throw e;
+        }
+        this.endWrite(transaction, true);
+        return booking;
+    }
+
+    @Override
+    public List<Booking> findBookingsDepartingFrom(LocalDate departingFrom) {
+        return this.bookings.values().stream().filter(booking -> !booking.getDepartureDate().isBefore(departingFrom))
+                .map(JournalCodec::copy).collect(Collectors.toList());
+    }
+
+    @Override
+    public Map<String, Integer> countActiveBookingsByEmail(LocalDate departingFrom) {
+        Map<String, Integer> counts = new HashMap<>();
+        for (Booking booking : this.bookings.values()) {
+            if (BookingStatus.ACTIVE.getId().equals(booking.getStatus()) && !booking.getDepartureDate().isBefore(departingFrom)) {
+                counts.merge(booking.getUserEmail().toLowerCase(Locale.ROOT), 1, Integer::sum);
+            }
+        }
+        return counts;
+    }
+
+    @Override
+    public List<LocalDate> getBookedDates(LocalDate from, LocalDate to) {
+        return this.getOrderedBookedDates(from, to);
+    }
+
+    @Override
+    public List<LocalDate> getOrderedBookedDates(LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            return new ArrayList<>();
+        }
+        JournalTransaction transaction = this.currentTransaction();
+        if (transaction == null || transaction.getDays().isEmpty()) {
+            return new ArrayList<>(this.bookedDays.subSet(from, true, to, true));
+        }
+        return from.datesUntil(to.plusDays(1)).filter(day -> this.isBooked(transaction, day)).collect(Collectors.toList());
+    }
+
+    @Override
+    public void bookDays(List<LocalDate> days) {
+        JournalTransaction transaction = this.beginWrite();
+        try {
+            List<LocalDate> alreadyBooked = days.stream().filter(day -> this.isBooked(transaction, day)).collect(Collectors.toList());
+            if (!alreadyBooked.isEmpty() || days.stream().distinct().count() != days.size()) {
+                throw new DataIntegrityViolationException(String.format("Calendar days already booked, unique constraint violated: %s", alreadyBooked));
+            }
+            days.forEach(day -> transaction.setDay(day, true));
+        } catch (RuntimeException e) {
+            this.endWrite(transaction, false);
+            throw e;
+        }
+        this.endWrite(transaction, true);
+    }
+
+    @Override
+    public void releaseDays(List<LocalDate> days) {
+        JournalTransaction transaction = this.beginWrite();
+        days.forEach(day -> transaction.setDay(day, false));
+        this.endWrite(transaction, true);
+    }
+
+    /**
+     * Returns the booked days from the given day on, used to load the calendar index
+     *
+     * @param from first day
+     * @return List<LocalDate>
+     */
+    public List<LocalDate> getBookedDatesFrom(LocalDate from) {
+        return new ArrayList<>(this.bookedDays.tailSet(from, true));
+    }
+
+    /**
+     * Appends the changes of the transaction to the journal, applies them and waits until they are durable
+     *
+     * @param transaction JournalTransaction
+     */
+    void commit(JournalTransaction transaction) {
+        if (transaction.isEmpty()) {
+            this.unlock(transaction);
+            return;
+        }
+        long position;
+        try {
+            position = this.journal.append(transaction.encode());
+            this.apply(transaction);
+        } catch (IOException e) {
+            throw new DataAccessResourceFailureException("Could not append to the booking journal", e);
+        } finally {
+            this.unlock(transaction);
+        }
+        this.journal.awaitDurable(position);
+    }
+
+    void rollback(JournalTransaction transaction) {
+        this.unlock(transaction);
+    }
+
+    /**
+     * Writes a snapshot of the current state and deletes the journal segments it covers
+     */
+    @Scheduled(fixedDelayString = "${booking.storage.journal.compact-interval-ms:300000}",
+            initialDelayString = "${booking.storage.journal.compact-interval-ms:300000}")
+    public void compact() {
+        JournalSnapshot snapshot;
+        this.writeLock.lock();
+        try {
+            long position = this.journal.getAppendedPosition();
+            if (position == this.compactedPosition) {
+                return;
+            }
+            long segment = this.journal.roll();
+            this.compactedPosition = this.journal.getAppendedPosition();
+            // stored bookings are never modified, a shallow copy is consistent
+            snapshot = new JournalSnapshot(segment, this.lastBookingId, new ArrayList<>(this.bookings.values()), new ArrayList<>(this.bookedDays));
+        } catch (IOException e) {
+            LOGGER.warn("Could not roll the booking journal", e);
+            return;
+        } finally {
+            this.writeLock.unlock();
+        }
+        try {
+            snapshot.write(this.snapshotPath(snapshot.getSegment()));
+            this.journal.deleteSegmentsBefore(snapshot.getSegment());
+            for (Path older : this.listSnapshots()) {
+                if (this.snapshotSegment(older) < snapshot.getSegment()) {
+                    Files.deleteIfExists(older);
+                }
+            }
+            LOGGER.info("Journal compacted into snapshot {} with {} bookings", snapshot.getSegment(), snapshot.getBookings().size());
+        } catch (IOException e) {
+            LOGGER.warn("Could not write the booking journal snapshot", e);
+        }
+    }
+
+    private void apply(JournalTransaction transaction) {
+        for (Booking booking : transaction.getSavedBookings().values()) {
+            this.bookings.put(booking.getId(), booking);
+            this.lastBookingId = Math.max(this.lastBookingId, booking.getId());
+        }
+        for (Map.Entry<LocalDate, Boolean> day : transaction.getDays().entrySet()) {
+            if (day.getValue()) {
+                this.bookedDays.add(day.getKey());
+            } else {
+                this.bookedDays.remove(day.getKey());
+            }
+        }
+    }
+
+    private boolean isBooked(JournalTransaction transaction, LocalDate day) {
+        Boolean pending = transaction != null ? transaction.getDays().get(day) : null;
+        return pending != null ? pending : this.bookedDays.contains(day);
+    }
+
+    /**
+     * Returns the transaction of the thread holding the store lock, or a single write transaction when there is none
+     */
+    private JournalTransaction beginWrite() {
+        JournalTransaction transaction = this.currentTransaction();
+        if (transaction == null) {
+            transaction = new JournalTransaction(false);
+        } else if (transaction.isReadOnly()) {
+            throw new IllegalStateException("Write in a read-only transaction");
+        }
+        if (!transaction.isLocked()) {
+            this.writeLock.lock();
+            transaction.setLocked(true);
+        }
+        return transaction;
+    }
+
+    private void endWrite(JournalTransaction transaction, boolean success) {
+        if (transaction == this.currentTransaction()) {
+            return;
+        }
+        if (success) {
+            this.commit(transaction);
+        } else {
+            this.rollback(transaction);
+        }
+    }
+
+    private JournalTransaction currentTransaction() {
+        return (JournalTransaction) TransactionSynchronizationManager.getResource(this);
+    }
+
+    private void unlock(JournalTransaction transaction) {
+        if (transaction.isLocked()) {
+            transaction.setLocked(false);
+            this.writeLock.unlock();
+        }
+    }
+
+    private Optional<Path> latestSnapshot() throws IOException {
+        return this.listSnapshots().stream().max((left, right) -> Long.compare(this.snapshotSegment(left), this.snapshotSegment(right)));
+    }
+
+    private List<Path> listSnapshots() throws IOException {
+        try (Stream<Path> files = Files.list(this.directory)) {
+            return files.filter(path -> path.getFileName().toString().startsWith(SNAPSHOT_PREFIX)
+                    && path.getFileName().toString().endsWith(SNAPSHOT_SUFFIX)).collect(Collectors.toList());
+        }
+    }
+
+    private long snapshotSegment(Path path) {
+        String name = path.getFileName().toString();
+        return Long.parseLong(name.substring(SNAPSHOT_PREFIX.length(), name.length() - SNAPSHOT_SUFFIX.length()));
+    }
+
+    private Path snapshotPath(long segment) {
+        return this.directory.resolve(String.format("%s%020d%s", SNAPSHOT_PREFIX, segment, SNAPSHOT_SUFFIX));
+    }
+}
@@ -0,0 +1,71 @@
+package com.island.bookingapi.store.journal;
+
+import com.island.bookingapi.model.Booking;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Binary format of the bookings shared by the journal records and the snapshots
+ */
+final class JournalCodec {
+
+    private JournalCodec() {
+    }
+
+    static void writeBooking(DataOutput output, Booking booking) throws IOException {
+        output.writeLong(booking.getId());
+        output.writeUTF(booking.getUserName());
+        output.writeUTF(booking.getUserEmail());
+        output.writeLong(booking.getArrivalDate().toEpochDay());
+        output.writeLong(booking.getDepartureDate().toEpochDay());
+        writeDateTime(output, booking.getCreatedAt());
+        writeDateTime(output, booking.getUpdatedAt());
+        output.writeInt(booking.getStatus());
+    }
+
+    static Booking readBooking(DataInput input) throws IOException {
+        Booking booking = new Booking();
+        booking.setId(input.readLong());
+        booking.setUserName(input.readUTF());
+        booking.setUserEmail(input.readUTF());
+        booking.setArrivalDate(LocalDate.ofEpochDay(input.readLong()));
+        booking.setDepartureDate(LocalDate.ofEpochDay(input.readLong()));
+        booking.setCreatedAt(readDateTime(input));
+        booking.setUpdatedAt(readDateTime(input));
+        booking.setStatus(input.readInt());
+        return booking;
+    }
+
+    static Booking copy(Booking booking) {
+        Booking copy = new Booking();
+        copy.setId(booking.getId());
+        copy.setUserName(booking.getUserName());
+        copy.setUserEmail(booking.getUserEmail());
+        copy.setArrivalDate(booking.getArrivalDate());
+        copy.setDepartureDate(booking.getDepartureDate());
+        copy.setCreatedAt(booking.getCreatedAt());
+        copy.setUpdatedAt(booking.getUpdatedAt());
+        copy.setStatus(booking.getStatus());
+        return copy;
+    }
+
+    private static void writeDateTime(DataOutput output, LocalDateTime dateTime) throws IOException {
+        output.writeBoolean(dateTime != null);
+        if (dateTime != null) {
+            output.writeLong(dateTime.toEpochSecond(ZoneOffset.UTC));
+            output.writeInt(dateTime.getNano());
+        }
+    }
+
+    private static LocalDateTime readDateTime(DataInput input) throws IOException {
+        if (!input.readBoolean()) {
+            return null;
+        }
+        return LocalDateTime.ofEpochSecond(input.readLong(), input.readInt(), ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,98 @@
+package com.island.bookingapi.store.journal;
+
+import com.island.bookingapi.model.Booking;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Compacted state of the journal store: every booking and booked day at the start of a journal segment.
+ * The file ends with the checksum of its content and is replaced atomically.
+ */
+@Getter
+@RequiredArgsConstructor
+class JournalSnapshot {
+
+    private static final int MAGIC = 0x424b4a53;
+    private static final int FORMAT = 1;
+
+    /**
+     * First journal segment not included in the snapshot
+     */
+    private final long segment;
+
+    private final long lastBookingId;
+
+    private final Collection<Booking> bookings;
+
+    private final Collection<LocalDate> bookedDays;
+
+    void write(Path path) throws IOException {
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        CRC32 crc = new CRC32();
+        try (DataOutputStream output = new DataOutputStream(new CheckedOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(temp)), crc))) {
+            output.writeInt(MAGIC);
+            output.writeInt(FORMAT);
+            output.writeLong(this.segment);
+            output.writeLong(this.lastBookingId);
+            output.writeInt(this.bookings.size());
+            for (Booking booking : this.bookings) {
+                JournalCodec.writeBooking(output, booking);
+            }
+            output.writeInt(this.bookedDays.size());
+            for (LocalDate day : this.bookedDays) {
+                output.writeLong(day.toEpochDay());
+            }
+            output.writeLong(crc.getValue());
+        }
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    static JournalSnapshot read(Path path) throws IOException {
+        CRC32 crc = new CRC32();
+        try (DataInputStream checked = new DataInputStream(new CheckedInputStream(
+                new BufferedInputStream(Files.newInputStream(path)), crc))) {
+            if (checked.readInt() != MAGIC || checked.readInt() != FORMAT) {
+                throw new IOException("Not a journal snapshot: " + path);
+            }
+            long segment = checked.readLong();
+            long lastBookingId = checked.readLong();
+            int bookingCount = checked.readInt();
+            List<Booking> bookings = new ArrayList<>(bookingCount);
+            for (int i = 0; i < bookingCount; i++) {
+                bookings.add(JournalCodec.readBooking(checked));
+            }
+            int dayCount = checked.readInt();
+            List<LocalDate> bookedDays = new ArrayList<>(dayCount);
+            for (int i = 0; i < dayCount; i++) {
+                bookedDays.add(LocalDate.ofEpochDay(checked.readLong()));
+            }
+            long expected = crc.getValue();
+            if (checked.readLong() != expected) {
+                throw new IOException("Corrupted journal snapshot: " + path);
+            }
+            return new JournalSnapshot(segment, lastBookingId, bookings, bookedDays);
+        }
+    }
+}
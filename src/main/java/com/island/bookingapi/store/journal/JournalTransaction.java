@@ -0,0 +1,147 @@
+package com.island.bookingapi.store.journal;
+
+import com.island.bookingapi.model.Booking;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Changes of a transaction not committed yet, written to the journal as a single record.
+ * <p>
+ * Days keep only their last state, releasing and booking again the same day in one
+ * transaction (moving a stay) is a no-op for that day.
+ */
+class JournalTransaction {
+
+    private static final byte SAVE_BOOKING = 1;
+    private static final byte DAY_BOOKED = 2;
+    private static final byte DAY_RELEASED = 3;
+
+    private final Map<Long, Booking> savedBookings = new LinkedHashMap<>();
+    private final Map<LocalDate, Boolean> days = new HashMap<>();
+    private final boolean readOnly;
+    private boolean locked;
+    private boolean rollbackOnly;
+
+    JournalTransaction(boolean readOnly) {
+        this.readOnly = readOnly;
+    }
+
+    boolean isReadOnly() {
+        return this.readOnly;
+    }
+
+    boolean isLocked() {
+        return this.locked;
+    }
+
+    void setLocked(boolean locked) {
+        this.locked = locked;
+    }
+
+    boolean isRollbackOnly() {
+        return this.rollbackOnly;
+    }
+
+    void setRollbackOnly() {
+        this.rollbackOnly = true;
+    }
+
+    boolean isEmpty() {
+        return this.savedBookings.isEmpty() && this.days.isEmpty();
+    }
+
+    Map<Long, Booking> getSavedBookings() {
+        return this.savedBookings;
+    }
+
+    /**
+     * @return day to true when it is booked by the transaction, false when released
+     */
+    Map<LocalDate, Boolean> getDays() {
+        return this.days;
+    }
+
+    void saveBooking(Booking booking) {
+        this.savedBookings.put(booking.getId(), booking);
+    }
+
+    void setDay(LocalDate day, boolean booked) {
+        this.days.put(day, booked);
+    }
+
+    byte[] encode() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + this.savedBookings.size() * 128 + this.days.size() * 9);
+        try (DataOutputStream output = new DataOutputStream(bytes)) {
+            output.writeInt(this.savedBookings.size() + this.days.size());
+            for (Booking booking : this.savedBookings.values()) {
+                output.writeByte(SAVE_BOOKING);
+                JournalCodec.writeBooking(output, booking);
+            }
+            for (Map.Entry<LocalDate, Boolean> day : this.days.entrySet()) {
+                output.writeByte(day.getValue() ? DAY_BOOKED : DAY_RELEASED);
+                output.writeLong(day.getKey().toEpochDay());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    static JournalTransaction decode(ByteBuffer record) {
+        JournalTransaction transaction = new JournalTransaction(false);
+        try (DataInputStream input = new DataInputStream(new ByteBufferInputStream(record))) {
+            int operations = input.readInt();
+            for (int i = 0; i < operations; i++) {
+                byte operation = input.readByte();
+                switch (operation) {
+                    case SAVE_BOOKING:
+                        transaction.saveBooking(JournalCodec.readBooking(input));
+                        break;
+                    case DAY_BOOKED:
+                    case DAY_RELEASED:
+                        transaction.setDay(LocalDate.ofEpochDay(input.readLong()), operation == DAY_BOOKED);
+                        break;
+                    default:
+                        throw new IllegalStateException("Unknown journal operation " + operation);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return transaction;
+    }
+
+    private static class ByteBufferInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return this.buffer.hasRemaining() ? this.buffer.get() & 0xff : -1;
+        }
+
+        @Override
+        public int read(byte[] target, int offset, int length) {
+            if (!this.buffer.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(length, this.buffer.remaining());
+            this.buffer.get(target, offset, count);
+            return count;
+        }
+    }
+}
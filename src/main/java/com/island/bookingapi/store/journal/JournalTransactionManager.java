@@ -0,0 +1,88 @@
+package com.island.bookingapi.store.journal;
+
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.SmartTransactionObject;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Runs the {@code @Transactional} methods of the services on the {@link JournalBookingStore}.
+ * The transaction is bound to the thread, the store buffers its changes and writes them as one
+ * journal record on commit. Synchronizations, and so the transactional event listeners, work as with JPA.
+ */
+public class JournalTransactionManager extends AbstractPlatformTransactionManager {
+
+    private final JournalBookingStore store;
+
+    public JournalTransactionManager(JournalBookingStore store) {
+        this.store = store;
+    }
+
+    @Override
+    protected Object doGetTransaction() {
+        return new JournalTransactionObject((JournalTransaction) TransactionSynchronizationManager.getResource(this.store));
+    }
+
+    @Override
+    protected boolean isExistingTransaction(Object transaction) {
+        return ((JournalTransactionObject) transaction).transaction != null;
+    }
+
+    @Override
+    protected void doBegin(Object transaction, TransactionDefinition definition) {
+        JournalTransaction journalTransaction = this.store.newTransaction(definition.isReadOnly());
+        ((JournalTransactionObject) transaction).transaction = journalTransaction;
+        TransactionSynchronizationManager.bindResource(this.store, journalTransaction);
+    }
+
+    @Override
+    protected Object doSuspend(Object transaction) {
+        ((JournalTransactionObject) transaction).transaction = null;
+        return TransactionSynchronizationManager.unbindResource(this.store);
+    }
+
+    @Override
+    protected void doResume(Object transaction, Object suspendedResources) {
+        TransactionSynchronizationManager.bindResource(this.store, suspendedResources);
+    }
+
+    @Override
+    protected void doCommit(DefaultTransactionStatus status) {
+        this.store.commit(((JournalTransactionObject) status.getTransaction()).transaction);
+    }
+
+    @Override
+    protected void doRollback(DefaultTransactionStatus status) {
+        this.store.rollback(((JournalTransactionObject) status.getTransaction()).transaction);
+    }
+
+    @Override
+    protected void doSetRollbackOnly(DefaultTransactionStatus status) {
+        ((JournalTransactionObject) status.getTransaction()).transaction.setRollbackOnly();
+    }
+
+    @Override
+    protected void doCleanupAfterCompletion(Object transaction) {
+        TransactionSynchronizationManager.unbindResourceIfPossible(this.store);
+    }
+
+    private static class JournalTransactionObject implements SmartTransactionObject {
+
+        private JournalTransaction transaction;
+
+        JournalTransactionObject(JournalTransaction transaction) {
+            this.transaction = transaction;
+        }
+
+        @Override
+        public boolean isRollbackOnly() {
+            return this.transaction.isRollbackOnly();
+        }
+
+        @Override
+        public void flush() {
+            // changes are written on commit
+        }
+    }
+}
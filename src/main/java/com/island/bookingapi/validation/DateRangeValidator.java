@@ -11,7 +11,7 @@ public class DateRangeValidator implements ConstraintValidator<ValidateDateRange
     private String arrivalDate;
     private String departureDate;
     private static final Integer MAX_STAY = 3;
-    private static final Integer BOOKING_ANTICIPATION_DAYS = 30;
+    public static final Integer BOOKING_ANTICIPATION_DAYS = 30;
 
     @Override
     public void initialize(final ValidateDateRange constraintAnnotation) {
@@ -0,0 +1,27 @@
+package com.island.bookingapi.waitingroom;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Place of a ticket in the waiting room
+ */
+@Getter
+@RequiredArgsConstructor
+public class TicketStatus {
+
+    private final String ticket;
+
+    /**
+     * Tickets admitted before this one, 0 once admitted
+     */
+    private final long position;
+
+    private final boolean admitted;
+
+    /**
+     * Seconds until the ticket is expected to be admitted
+     */
+    private final long retryAfterSeconds;
+
+}
@@ -0,0 +1,334 @@
+package com.island.bookingapi.waitingroom;
+
+import com.island.bookingapi.contention.DayContention;
+import com.island.bookingapi.contention.DayContentionTracker;
+import com.island.bookingapi.exception.WaitingRoomException;
+import com.island.bookingapi.validation.DateRangeValidator;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Queue in front of the booking creation for the dates in high demand: the day entering the booking window
+ * during the first {@code booking.waiting-room.release-minutes} after midnight, and the days booked faster than
+ * {@code booking.waiting-room.hot-attempts-per-minute}. A hot day stays gated while tickets are waiting.
+ * <p>
+ * A booking for gated dates without an admitted ticket gets a ticket: an id and its issue time, signed with
+ * HMAC and {@code booking.waiting-room.secret}, shared by all the instances. Tickets wait in issue time order and
+ * are admitted at {@code booking.waiting-room.admit-per-second}, an admitted ticket creates one booking and expires
+ * {@code booking.waiting-room.ticket-ttl-seconds} after it was issued. Everything lives in memory, the status of
+ * a ticket never reaches the database. The queue is per instance: a ticket this instance does not know, issued by
+ * another one or before a restart, joins its queue at its issue time.
+ */
+@Component
+public class WaitingRoom {
+
+    public static final String TICKET_HEADER = "X-Queue-Ticket";
+
+    private static final String HMAC = "HmacSHA256";
+    private static final int PAYLOAD_BYTES = 2 * Long.BYTES;
+    private static final int SIGNATURE_BYTES = 16;
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final DayContentionTracker contentionTracker;
+    private final boolean enabled;
+    private final double admitPerNano;
+    private final long releaseMinutes;
+    private final double hotAttemptsPerMinute;
+    private final long ticketTtlMillis;
+    private final SecretKeySpec key;
+    private final ThreadLocal<Mac> macs;
+    // ticket ids: a random prefix per run and a sequence, so tickets issued in the same millisecond keep their order
+    private final long idPrefix = (long) ThreadLocalRandom.current().nextInt() << 32;
+    private final AtomicInteger sequence = new AtomicInteger();
+    // tickets waiting, in issue time order, guarded by this
+    private final TreeSet<Ticket> waiting = new TreeSet<>();
+    // ticket id -> expiry, of the admitted tickets
+    private final ConcurrentHashMap<Long, Long> admitted = new ConcurrentHashMap<>();
+    // ticket id -> expiry, of the admitted tickets already used
+    private final ConcurrentHashMap<Long, Long> used = new ConcurrentHashMap<>();
+    // client address -> last ticket issued to it, guarded by this
+    private final Map<String, Ticket> clients = new HashMap<>();
+    private final Counter issuedTickets;
+    private final Counter admittedBookings;
+    private volatile Set<LocalDate> hotDays = Collections.emptySet();
+    private double admissionCredit;
+    private long lastAdmissionNanos = System.nanoTime();
+
+    public WaitingRoom(DayContentionTracker contentionTracker, MeterRegistry meterRegistry,
+                       @Value("${booking.waiting-room.enabled:false}") boolean enabled,
+                       @Value("${booking.waiting-room.admit-per-second:20}") double admitPerSecond,
+                       @Value("${booking.waiting-room.release-minutes:15}") long releaseMinutes,
+                       @Value("${booking.waiting-room.hot-attempts-per-minute:120}") double hotAttemptsPerMinute,
+                       @Value("${booking.waiting-room.ticket-ttl-seconds:900}") long ticketTtlSeconds,
+                       @Value("${booking.waiting-room.secret:}") String secret) {
+        if (enabled && secret.isBlank()) {
+            throw new IllegalStateException("booking.waiting-room.secret must be set, the same on every instance, to enable the waiting room");
+        }
+        this.contentionTracker = contentionTracker;
+        this.enabled = enabled;
+        this.admitPerNano = admitPerSecond / TimeUnit.SECONDS.toNanos(1);
+        this.releaseMinutes = releaseMinutes;
+        this.hotAttemptsPerMinute = hotAttemptsPerMinute;
+        this.ticketTtlMillis = TimeUnit.SECONDS.toMillis(ticketTtlSeconds);
+        // never used to sign while disabled
+        this.key = new SecretKeySpec(secret.isEmpty() ? new byte[1] : secret.getBytes(StandardCharsets.UTF_8), HMAC);
+        this.macs = ThreadLocal.withInitial(this::newMac);
+        this.issuedTickets = meterRegistry.counter("booking.waiting-room.tickets", "result", "issued");
+        this.admittedBookings = meterRegistry.counter("booking.waiting-room.tickets", "result", "admitted");
+        Gauge.builder("booking.waiting-room.queue", this, WaitingRoom::getQueueLength)
+                .description("Tickets waiting to be admitted").register(meterRegistry);
+    }
+
+    /**
+     * Runs the booking of the stay when its dates are not gated or the ticket is admitted. The ticket is used up
+     * once the booking returns, it is kept if the booking throws
+     *
+     * @param arrivalDate   first night
+     * @param departureDate day after the last night
+     * @param ticket        ticket of the client, may be null
+     * @param client        address of the client, holds one ticket at a time
+     * @param booking       creates the booking, in its own transaction
+     * @param <T>           result of the booking
+     * @return result of the booking
+     * @throws WaitingRoomException with the ticket to wait with, the one the client holds or a new one if the given
+     *                              one is not valid
+     */
+    public <T> T admit(LocalDate arrivalDate, LocalDate departureDate, String ticket, String client, Supplier<T> booking) {
+        if (!this.isGated(arrivalDate, departureDate)) {
+            return booking.get();
+        }
+        long now = System.currentTimeMillis();
+        Optional<Ticket> parsed = this.parse(ticket, now);
+        if (parsed.isEmpty()) {
+            throw new WaitingRoomException(this.issue(client, now));
+        }
+        long id = parsed.get().id;
+        if (!this.admitted.containsKey(id)) {
+            throw new WaitingRoomException(this.status(ticket, parsed.get()));
+        }
+        if (this.used.putIfAbsent(id, parsed.get().issuedAt + this.ticketTtlMillis) != null) {
+            // one booking per admission, back to the end of the queue
+            throw new WaitingRoomException(this.issue(client, now));
+        }
+        T result;
+        try {
+            result = booking.get();
+        } catch (RuntimeException e) {
+            this.used.remove(id);
+            throw e;
+        }
+        this.admittedBookings.increment();
+        return result;
+    }
+
+    /**
+     * Returns the place of the ticket in the queue
+     *
+     * @param ticket ticket
+     * @return the status, empty if the ticket is not valid or expired
+     */
+    public Optional<TicketStatus> getStatus(String ticket) {
+        return this.parse(ticket, System.currentTimeMillis()).map(parsed -> this.status(ticket, parsed));
+    }
+
+    public synchronized long getQueueLength() {
+        return this.waiting.size();
+    }
+
+    /**
+     * Admits the tickets at the configured rate
+     */
+    @Scheduled(fixedDelayString = "${booking.waiting-room.admit-interval-ms:100}")
+    public void admitWaiting() {
+        this.advance(System.nanoTime());
+    }
+
+    /**
+     * Recomputes the hot days from the decayed attempt rates, a day cools down once its rate halves
+     * and no ticket is waiting
+     */
+    @Scheduled(fixedDelayString = "${booking.waiting-room.hot-refresh-ms:1000}")
+    public void refreshHotDays() {
+        if (!this.enabled) {
+            return;
+        }
+        LocalDate today = LocalDate.now();
+        Set<LocalDate> current = this.hotDays;
+        boolean waiting = this.getQueueLength() > 0;
+        Set<LocalDate> next = new HashSet<>();
+        for (DayContention contention : this.contentionTracker.getHeatmap(today, today.plusDays(DateRangeValidator.BOOKING_ANTICIPATION_DAYS + 3))) {
+            double rate = contention.getAttemptsPerMinute();
+            if (rate >= this.hotAttemptsPerMinute
+                    || (current.contains(contention.getDay()) && (waiting || rate >= this.hotAttemptsPerMinute / 2))) {
+                next.add(contention.getDay());
+            }
+        }
+        this.hotDays = next;
+        long nowMillis = System.currentTimeMillis();
+        this.admitted.values().removeIf(expiry -> expiry < nowMillis);
+        this.used.values().removeIf(expiry -> expiry < nowMillis);
+        synchronized (this) {
+            this.waiting.removeIf(ticket -> ticket.issuedAt + this.ticketTtlMillis < nowMillis);
+            this.clients.values().removeIf(ticket -> ticket.issuedAt + this.ticketTtlMillis < nowMillis);
+        }
+    }
+
+    /**
+     * Tells whether a booking of the stay would have to go through the queue right now
+     *
+     * @param arrivalDate   first night
+     * @param departureDate day after the last night
+     * @return true if the waiting room is enabled and one of the nights is gated
+     */
+    public boolean isGated(LocalDate arrivalDate, LocalDate departureDate) {
+        return this.enabled && this.isGated(arrivalDate, departureDate, LocalDateTime.now());
+    }
+
+    boolean isGated(LocalDate arrivalDate, LocalDate departureDate, LocalDateTime now) {
+        LocalDate today = now.toLocalDate();
+        LocalDate released = today.plusDays(DateRangeValidator.BOOKING_ANTICIPATION_DAYS);
+        boolean releasing = now.isBefore(today.atStartOfDay().plusMinutes(this.releaseMinutes));
+        Set<LocalDate> hot = this.hotDays;
+        for (LocalDate night = arrivalDate; night.isBefore(departureDate); night = night.plusDays(1)) {
+            if ((releasing && night.equals(released)) || hot.contains(night)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    synchronized void advance(long nowNanos) {
+        this.admissionCredit += (nowNanos - this.lastAdmissionNanos) * this.admitPerNano;
+        this.lastAdmissionNanos = nowNanos;
+        long waiting = this.waiting.size();
+        long admitting = Math.min(waiting, (long) this.admissionCredit);
+        for (long i = 0; i < admitting; i++) {
+            Ticket ticket = this.waiting.pollFirst();
+            this.admitted.put(ticket.id, ticket.issuedAt + this.ticketTtlMillis);
+        }
+        // credit does not pile up while nobody waits
+        this.admissionCredit = waiting == 0 ? Math.min(this.admissionCredit, 1) : this.admissionCredit - admitting;
+    }
+
+    /**
+     * Returns the ticket the client holds while it is valid and not used, so a client can't fill the queue,
+     * or a new one
+     */
+    synchronized TicketStatus issue(String client, long nowMillis) {
+        Ticket held = this.clients.get(client);
+        if (held != null && nowMillis - held.issuedAt <= this.ticketTtlMillis && !this.used.containsKey(held.id)) {
+            return this.status(this.encode(held), held);
+        }
+        this.issuedTickets.increment();
+        Ticket issued = new Ticket(this.idPrefix | (this.sequence.incrementAndGet() & 0xffffffffL), nowMillis);
+        this.clients.put(client, issued);
+        return this.status(this.encode(issued), issued);
+    }
+
+    private String encode(Ticket ticket) {
+        byte[] payload = ByteBuffer.allocate(PAYLOAD_BYTES).putLong(ticket.id).putLong(ticket.issuedAt).array();
+        return ENCODER.encodeToString(payload) + "." + ENCODER.encodeToString(this.sign(payload));
+    }
+
+    /**
+     * Places the ticket, a valid ticket not admitted yet joins the queue if it is not in it
+     */
+    private synchronized TicketStatus status(String ticket, Ticket parsed) {
+        if (this.admitted.containsKey(parsed.id)) {
+            return new TicketStatus(ticket, 0, true, 0);
+        }
+        this.waiting.add(parsed);
+        long position = this.waiting.headSet(parsed, true).size();
+        long retryAfterSeconds = Math.max(1, (long) Math.ceil(position / (this.admitPerNano * TimeUnit.SECONDS.toNanos(1))));
+        return new TicketStatus(ticket, position, false, retryAfterSeconds);
+    }
+
+    /**
+     * @return the ticket, empty if it is malformed, not signed by the shared key or expired
+     */
+    private Optional<Ticket> parse(String ticket, long nowMillis) {
+        if (ticket == null) {
+            return Optional.empty();
+        }
+        int dot = ticket.indexOf('.');
+        try {
+            byte[] payload = DECODER.decode(ticket.substring(0, Math.max(0, dot)));
+            byte[] signature = DECODER.decode(ticket.substring(dot + 1));
+            if (payload.length != PAYLOAD_BYTES || !MessageDigest.isEqual(signature, this.sign(payload))) {
+                return Optional.empty();
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(payload);
+            Ticket parsed = new Ticket(buffer.getLong(), buffer.getLong());
+            if (nowMillis - parsed.issuedAt > this.ticketTtlMillis) {
+                return Optional.empty();
+            }
+            return Optional.of(parsed);
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+
+    private byte[] sign(byte[] payload) {
+        byte[] signature = this.macs.get().doFinal(payload);
+        byte[] truncated = new byte[SIGNATURE_BYTES];
+        System.arraycopy(signature, 0, truncated, 0, SIGNATURE_BYTES);
+        return truncated;
+    }
+
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance(HMAC);
+            mac.init(this.key);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC not available", e);
+        }
+    }
+
+    /**
+     * Ticket id and issue time, ordered by issue time
+     */
+    private static final class Ticket implements Comparable<Ticket> {
+
+        private final long id;
+        private final long issuedAt;
+
+        private Ticket(long id, long issuedAt) {
+            this.id = id;
+            this.issuedAt = issuedAt;
+        }
+
+        @Override
+        public int compareTo(Ticket other) {
+            int byTime = Long.compare(this.issuedAt, other.issuedAt);
+            return byTime != 0 ? byTime : Long.compare(this.id, other.id);
+        }
+    }
+}
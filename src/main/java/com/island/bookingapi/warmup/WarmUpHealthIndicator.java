@@ -0,0 +1,39 @@
+package com.island.bookingapi.warmup;
+
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reports the progress of the warm-up, the instance is out of service until it finishes.
+ * Part of the readiness group so probes do not send traffic to a cold instance.
+ */
+@Component("warmUp")
+@ConditionalOnProperty(name = "booking.warmup.enabled", havingValue = "true")
+public class WarmUpHealthIndicator implements HealthIndicator {
+
+    private volatile boolean finished;
+    private volatile int rounds;
+    private volatile long elapsedMillis;
+    private volatile long lastRoundMicros;
+    private volatile boolean stable;
+
+    @Override
+    public Health health() {
+        Health.Builder builder = this.finished ? Health.up() : Health.outOfService();
+        return builder.withDetail("rounds", this.rounds).withDetail("elapsedMs", this.elapsedMillis)
+                .withDetail("lastRoundMicrosPerIteration", this.lastRoundMicros).withDetail("stable", this.stable).build();
+    }
+
+    void roundCompleted(int rounds, long elapsedMillis, long lastRoundMicros, boolean stable) {
+        this.rounds = rounds;
+        this.elapsedMillis = elapsedMillis;
+        this.lastRoundMicros = lastRoundMicros;
+        this.stable = stable;
+    }
+
+    void finish() {
+        this.finished = true;
+    }
+}
@@ -0,0 +1,150 @@
+package com.island.bookingapi.warmup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.island.bookingapi.contention.DayContentionTracker;
+import com.island.bookingapi.dto.BookingDTO;
+import com.island.bookingapi.exception.UnavailableDatesException;
+import com.island.bookingapi.model.Booking;
+import com.island.bookingapi.model.BookingStatus;
+import com.island.bookingapi.request.CreateBookingControllerRequest;
+import com.island.bookingapi.service.AvailabilityService;
+import com.island.bookingapi.service.BookingService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.validation.Validator;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Exercises the hot paths of the API before the instance reports itself ready.
+ * <p>
+ * Rounds of JSON (de)serialization, date range validation and availability queries plus a
+ * booking that is rolled back are run until the time per iteration stabilizes or the budget runs out.
+ * Application runners complete before the readiness state changes to accepting traffic.
+ */
+@Component
+@Order(1)
+@ConditionalOnProperty(name = "booking.warmup.enabled", havingValue = "true")
+public class WarmUpRunner implements ApplicationRunner {
+
+    private static final String WARM_UP_USER_NAME = "Warm Up";
+    private static final String WARM_UP_USER_EMAIL = "warm.up@island.local";
+    private static final Logger LOGGER = LoggerFactory.getLogger(WarmUpRunner.class);
+
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final AvailabilityService availabilityService;
+    private final BookingService bookingService;
+    private final TransactionTemplate transactionTemplate;
+    private final WarmUpHealthIndicator warmUpHealthIndicator;
+    private final DayContentionTracker contentionTracker;
+    private final long budgetMillis;
+    private final int iterationsPerRound;
+    private final double tolerance;
+    private final int stableRounds;
+
+    public WarmUpRunner(ObjectMapper objectMapper, Validator validator, AvailabilityService availabilityService,
+                        BookingService bookingService, PlatformTransactionManager transactionManager,
+                        WarmUpHealthIndicator warmUpHealthIndicator, DayContentionTracker contentionTracker,
+                        @Value("${booking.warmup.budget-ms:30000}") long budgetMillis,
+                        @Value("${booking.warmup.iterations-per-round:200}") int iterationsPerRound,
+                        @Value("${booking.warmup.tolerance:0.05}") double tolerance,
+                        @Value("${booking.warmup.stable-rounds:3}") int stableRounds) {
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.availabilityService = availabilityService;
+        this.bookingService = bookingService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.warmUpHealthIndicator = warmUpHealthIndicator;
+        this.contentionTracker = contentionTracker;
+        this.budgetMillis = budgetMillis;
+        this.iterationsPerRound = iterationsPerRound;
+        this.tolerance = tolerance;
+        this.stableRounds = stableRounds;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(this.budgetMillis);
+        long previousRoundNanos = 0;
+        int consecutiveStableRounds = 0;
+        int round = 0;
+        LOGGER.info("Warming up hot paths, budget {} ms", this.budgetMillis);
+        while (consecutiveStableRounds < this.stableRounds && System.nanoTime() < deadline) {
+            long roundStart = System.nanoTime();
+            for (int i = 0; i < this.iterationsPerRound; i++) {
+                this.exerciseReadPath();
+            }
+            long roundNanos = (System.nanoTime() - roundStart) / this.iterationsPerRound;
+            this.dryRunBooking();
+            round++;
+            boolean stable = previousRoundNanos > 0 && Math.abs(roundNanos - previousRoundNanos) <= previousRoundNanos * this.tolerance;
+            consecutiveStableRounds = stable ? consecutiveStableRounds + 1 : 0;
+            previousRoundNanos = roundNanos;
+            long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            this.warmUpHealthIndicator.roundCompleted(round, elapsedMillis, TimeUnit.NANOSECONDS.toMicros(roundNanos), stable);
+            LOGGER.info("Warm-up round {}: {} us per iteration, {} ms elapsed", round, TimeUnit.NANOSECONDS.toMicros(roundNanos), elapsedMillis);
+        }
+        // the dry run bookings are not real demand
+        this.contentionTracker.reset();
+        this.warmUpHealthIndicator.finish();
+        LOGGER.info("Warm-up finished after {} rounds in {} ms, latency {}", round,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start),
+                consecutiveStableRounds >= this.stableRounds ? "stabilized" : "not stabilized within budget");
+    }
+
+    private void exerciseReadPath() {
+        LocalDate from = LocalDate.now().plusDays(1);
+        CreateBookingControllerRequest request = new CreateBookingControllerRequest(WARM_UP_USER_NAME, WARM_UP_USER_EMAIL, from, from.plusDays(2));
+        try {
+            String requestJson = this.objectMapper.writeValueAsString(request);
+            CreateBookingControllerRequest parsed = this.objectMapper.readValue(requestJson, CreateBookingControllerRequest.class);
+            this.validator.validate(parsed);
+            List<LocalDate> availableDates = this.availabilityService.getAvailableDates(from, from.plusDays(30));
+            BookingDTO bookingDTO = BookingDTO.builder().bookingId(0L).userName(parsed.getUserName()).userEmail(parsed.getUserEmail())
+                    .arrivalDate(parsed.getArrivalDate()).departureDate(parsed.getDepartureDate())
+                    .status(BookingStatus.getBookingStatusById(availableDates.size() % 2)).build();
+            this.objectMapper.writeValueAsBytes(bookingDTO);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Books the first two free days of the next month and rolls the transaction back
+     */
+    private void dryRunBooking() {
+        LocalDate from = LocalDate.now().plusDays(1);
+        List<LocalDate> availableDates = this.availabilityService.getAvailableDates(from, from.plusDays(30));
+        for (int i = 0; i + 1 < availableDates.size(); i++) {
+            LocalDate arrival = availableDates.get(i);
+            if (availableDates.get(i + 1).equals(arrival.plusDays(1))) {
+                CreateBookingControllerRequest request = new CreateBookingControllerRequest(WARM_UP_USER_NAME, WARM_UP_USER_EMAIL, arrival, arrival.plusDays(2));
+                try {
+                    this.transactionTemplate.execute(status -> {
+                        status.setRollbackOnly();
+                        Booking booking = this.bookingService.createBooking(request);
+                        return booking.getId();
+                    });
+                } catch (UnavailableDatesException | DataIntegrityViolationException e) {
+                    LOGGER.debug("Warm-up booking conflicted with a real booking, skipping", e);
+                }
+                return;
+            }
+        }
+    }
+}
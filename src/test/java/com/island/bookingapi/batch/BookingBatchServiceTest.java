@@ -0,0 +1,146 @@
+package com.island.bookingapi.batch;
+
+import com.island.bookingapi.calendar.EpochDayRange;
+import com.island.bookingapi.contention.DayContentionTracker;
+import com.island.bookingapi.event.BookingBatchEvent;
+import com.island.bookingapi.metrics.BookingMetrics;
+import com.island.bookingapi.model.Booking;
+import com.island.bookingapi.quota.GuestQuotaTracker;
+import com.island.bookingapi.request.BookingBatchRequest;
+import com.island.bookingapi.request.BookingOperationRequest;
+import com.island.bookingapi.store.BookingStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import javax.validation.Validation;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class BookingBatchServiceTest {
+
+    private static final LocalDate DAY = LocalDate.now().plusDays(10);
+
+    private final BookingStore bookingStore = Mockito.mock(BookingStore.class);
+    private final ApplicationEventPublisher eventPublisher = Mockito.mock(ApplicationEventPublisher.class);
+
+    @Test
+    public void whenBookingsShiftByADay_thenOnlyTheEndsOfTheCalendarChange() {
+        this.givenBookings();
+        BookingBatchService service = this.service();
+
+        List<BookingOperationResult> results = service.execute(this.batch(BatchMode.ATOMIC,
+                this.update(1L, DAY.plusDays(1), DAY.plusDays(3)), this.update(2L, DAY.plusDays(3), DAY.plusDays(5))));
+
+        Assert.assertEquals(Arrays.asList(HttpStatus.OK, HttpStatus.OK),
+                results.stream().map(BookingOperationResult::getStatus).collect(Collectors.toList()));
+        Mockito.verify(this.bookingStore).releaseDays(Collections.singletonList(DAY));
+        Mockito.verify(this.bookingStore).bookDays(Collections.singletonList(DAY.plusDays(4)));
+        ArgumentCaptor<BookingBatchEvent> event = ArgumentCaptor.forClass(BookingBatchEvent.class);
+        Mockito.verify(this.eventPublisher).publishEvent(event.capture());
+        Assert.assertEquals(2, event.getValue().getChanges().size());
+        Assert.assertEquals(Collections.singletonList(DAY.plusDays(4)), event.getValue().getBookedDays());
+    }
+
+    @Test
+    public void whenAtomicOperationFails_thenNothingIsWritten() {
+        this.givenBookings();
+        BookingBatchService service = this.service();
+
+        List<BookingOperationResult> results = service.execute(this.batch(BatchMode.ATOMIC,
+                this.update(1L, DAY.plusDays(1), DAY.plusDays(3)), this.create(DAY.plusDays(6), DAY.plusDays(7))));
+
+        Assert.assertEquals(Arrays.asList(HttpStatus.BAD_REQUEST, HttpStatus.FAILED_DEPENDENCY),
+                results.stream().map(BookingOperationResult::getStatus).collect(Collectors.toList()));
+        Mockito.verify(this.bookingStore, Mockito.never()).bookDays(ArgumentMatchers.any());
+        Mockito.verify(this.bookingStore, Mockito.never()).saveBooking(ArgumentMatchers.any());
+        Mockito.verify(this.eventPublisher, Mockito.never()).publishEvent(ArgumentMatchers.any());
+    }
+
+    @Test
+    public void whenBestEffort_thenFailedOperationsAreLeftOut() {
+        this.givenBookings();
+        BookingBatchService service = this.service();
+
+        List<BookingOperationResult> results = service.execute(this.batch(BatchMode.BEST_EFFORT,
+                this.update(9L, DAY.plusDays(6), DAY.plusDays(7)), this.cancel(2L), this.cancel(2L),
+                this.create(DAY.plusDays(3), DAY.plusDays(4))));
+
+        Assert.assertEquals(Arrays.asList(HttpStatus.NOT_FOUND, HttpStatus.OK, HttpStatus.BAD_REQUEST, HttpStatus.CREATED),
+                results.stream().map(BookingOperationResult::getStatus).collect(Collectors.toList()));
+        Mockito.verify(this.bookingStore).releaseDays(Collections.singletonList(DAY.plusDays(2)));
+        Mockito.verify(this.bookingStore, Mockito.never()).bookDays(ArgumentMatchers.any());
+        Mockito.verify(this.bookingStore, Mockito.times(2)).saveBooking(ArgumentMatchers.any());
+    }
+
+    /**
+     * Booking 1 from DAY to DAY + 2 and booking 2 from DAY + 2 to DAY + 4
+     */
+    private void givenBookings() {
+        Booking first = new Booking("Pepito", "pepito@gmail.com", DAY, DAY.plusDays(2));
+        first.setId(1L);
+        Booking second = new Booking("Juana", "juana@gmail.com", DAY.plusDays(2), DAY.plusDays(4));
+        second.setId(2L);
+        Mockito.when(this.bookingStore.findBookingsByIds(ArgumentMatchers.any())).thenAnswer(invocation ->
+                Arrays.asList(first, second).stream().filter(booking -> invocation.<Collection<Long>>getArgument(0)
+                        .contains(booking.getId())).collect(Collectors.toList()));
+        Mockito.when(this.bookingStore.getBookedDates(ArgumentMatchers.any(), ArgumentMatchers.any())).thenAnswer(invocation ->
+                EpochDayRange.ofDays(invocation.getArgument(0), invocation.getArgument(1)).intersection(EpochDayRange.ofStay(DAY, DAY.plusDays(4)))
+                        .asDates());
+    }
+
+    private BookingBatchRequest batch(BatchMode mode, BookingOperationRequest... operations) {
+        BookingBatchRequest request = new BookingBatchRequest();
+        request.setMode(mode);
+        request.setOperations(Arrays.asList(operations));
+        return request;
+    }
+
+    private BookingOperationRequest create(LocalDate arrivalDate, LocalDate departureDate) {
+        BookingOperationRequest operation = new BookingOperationRequest();
+        operation.setType(BookingOperationType.CREATE);
+        operation.setUserName("Pepita");
+        operation.setUserEmail("pepita@gmail.com");
+        operation.setArrivalDate(arrivalDate);
+        operation.setDepartureDate(departureDate);
+        return operation;
+    }
+
+    private BookingOperationRequest update(Long bookingId, LocalDate arrivalDate, LocalDate departureDate) {
+        BookingOperationRequest operation = new BookingOperationRequest();
+        operation.setType(BookingOperationType.UPDATE);
+        operation.setBookingId(bookingId);
+        operation.setArrivalDate(arrivalDate);
+        operation.setDepartureDate(departureDate);
+        return operation;
+    }
+
+    private BookingOperationRequest cancel(Long bookingId) {
+        BookingOperationRequest operation = new BookingOperationRequest();
+        operation.setType(BookingOperationType.CANCEL);
+        operation.setBookingId(bookingId);
+        return operation;
+    }
+
+    @SuppressWarnings("unchecked")
+    private BookingBatchService service() {
+        PlatformTransactionManager transactionManager = Mockito.mock(PlatformTransactionManager.class);
+        Mockito.when(transactionManager.getTransaction(ArgumentMatchers.any())).thenAnswer(invocation -> new SimpleTransactionStatus());
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        return new BookingBatchService(this.bookingStore, new GuestQuotaTracker(this.bookingStore, meterRegistry, false, 3),
+                new DayContentionTracker(300), new BookingMetrics(meterRegistry), Mockito.mock(ObjectProvider.class), this.eventPublisher,
+                Validation.buildDefaultValidatorFactory().getValidator(), transactionManager);
+    }
+}
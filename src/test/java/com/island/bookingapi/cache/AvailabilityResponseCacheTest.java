@@ -0,0 +1,77 @@
+package com.island.bookingapi.cache;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.island.bookingapi.calendar.CalendarHistory;
+import com.island.bookingapi.calendar.CalendarIndex;
+import com.island.bookingapi.event.BookingChangeType;
+import com.island.bookingapi.event.BookingChangedEvent;
+import com.island.bookingapi.metrics.BookingMetrics;
+import com.island.bookingapi.service.AvailabilityService;
+import com.island.bookingapi.store.BookingStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.zip.GZIPInputStream;
+
+public class AvailabilityResponseCacheTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    @Test
+    public void whenRegenerated_thenServeDefaultWindowUntilCalendarChanges() throws IOException {
+        LocalDate booked = LocalDate.now().plusDays(3);
+        CalendarIndex calendarIndex = new CalendarIndex();
+        AvailabilityResponseCache cache = this.cache(calendarIndex, true);
+        Assert.assertFalse(cache.getDefaultAvailability().isPresent());
+        calendarIndex.beginLoad();
+        calendarIndex.completeLoad(CalendarIndex.bitmapOf(Collections.singletonList(booked)));
+
+        cache.regenerate();
+        AvailabilityResponseCache.DefaultAvailability response = cache.getDefaultAvailability().orElseThrow();
+        JsonNode availability = this.objectMapper.readTree(response.getJson());
+        Assert.assertEquals(LocalDate.now().plusDays(1).toString(), availability.get("from").asText());
+        Assert.assertEquals(30, availability.get("availableDates").size());
+        Assert.assertFalse(availability.get("availableDates").toString().contains(booked.toString()));
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(response.getGzip()))) {
+            Assert.assertArrayEquals(response.getJson(), gzip.readAllBytes());
+        }
+
+        calendarIndex.onBookingChanged(new BookingChangedEvent(1L, BookingChangeType.CANCELLED,
+                Collections.singletonList(booked), Collections.emptyList()));
+        Assert.assertFalse(cache.getDefaultAvailability().isPresent());
+        cache.regenerate();
+        availability = this.objectMapper.readTree(cache.getDefaultAvailability().orElseThrow().getJson());
+        Assert.assertEquals(31, availability.get("availableDates").size());
+        cache.close();
+    }
+
+    @Test
+    public void whenDisabled_thenNothingServed() {
+        CalendarIndex calendarIndex = new CalendarIndex();
+        calendarIndex.beginLoad();
+        calendarIndex.completeLoad(new long[0]);
+        AvailabilityResponseCache cache = this.cache(calendarIndex, false);
+        cache.regenerate();
+        Assert.assertFalse(cache.getDefaultAvailability().isPresent());
+        cache.close();
+    }
+
+    private AvailabilityResponseCache cache(CalendarIndex calendarIndex, boolean enabled) {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        AvailabilityService availabilityService = new AvailabilityService(Mockito.mock(BookingStore.class), calendarIndex,
+                new BookingMetrics(meterRegistry), new SingleFlight<>("availability", Duration.ofSeconds(2), meterRegistry),
+                Mockito.mock(CalendarHistory.class));
+        return new AvailabilityResponseCache(calendarIndex, availabilityService, this.objectMapper, meterRegistry, enabled, 10);
+    }
+}
@@ -0,0 +1,104 @@
+package com.island.bookingapi.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class SingleFlightTest {
+
+    private static final int CALLERS = 8;
+
+    @Test
+    public void whenConcurrentIdenticalLookups_thenRunOnceAndShareResult() throws Exception {
+        SingleFlight<String, Integer> singleFlight = new SingleFlight<>("test", Duration.ofSeconds(10), new SimpleMeterRegistry());
+        AtomicInteger runs = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        List<Future<Integer>> results = this.callConcurrently(() -> singleFlight.execute("key", () -> {
+            runs.incrementAndGet();
+            this.await(release);
+            return 42;
+        }), release);
+        for (Future<Integer> result : results) {
+            Assert.assertEquals(42, (int) result.get());
+        }
+        Assert.assertEquals(1, runs.get());
+        Assert.assertEquals((CALLERS - 1) / (double) CALLERS, singleFlight.coalescingRatio(), 0.0001);
+
+        // nothing is kept once the lookup completed
+        Assert.assertEquals(7, (int) singleFlight.execute("key", () -> 7));
+    }
+
+    @Test
+    public void whenLookupFails_thenEveryCallerGetsTheException() throws Exception {
+        SingleFlight<String, Integer> singleFlight = new SingleFlight<>("test", Duration.ofSeconds(10), new SimpleMeterRegistry());
+        CountDownLatch release = new CountDownLatch(1);
+        List<Future<Integer>> results = this.callConcurrently(() -> singleFlight.execute("key", () -> {
+            this.await(release);
+            throw new IllegalArgumentException("lookup failed");
+        }), release);
+        for (Future<Integer> result : results) {
+            ExecutionException e = Assert.assertThrows(ExecutionException.class, result::get);
+            Assert.assertTrue(e.getCause() instanceof IllegalArgumentException);
+        }
+    }
+
+    @Test
+    public void whenLeaderTooSlow_thenWaitersRunLookupThemselves() throws Exception {
+        SingleFlight<String, Integer> singleFlight = new SingleFlight<>("test", Duration.ofMillis(50), new SimpleMeterRegistry());
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Integer> leader = executor.submit(() -> singleFlight.execute("key", () -> {
+                this.await(release);
+                return 1;
+            }));
+            while (!singleFlight.isRunning("key")) {
+                Thread.sleep(1);
+            }
+            Assert.assertEquals(2, (int) singleFlight.execute("key", () -> 2));
+            release.countDown();
+            Assert.assertEquals(1, (int) leader.get());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private List<Future<Integer>> callConcurrently(Callable<Integer> call, CountDownLatch release) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+        CountDownLatch started = new CountDownLatch(CALLERS);
+        List<Future<Integer>> results = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            results.add(executor.submit(() -> {
+                started.countDown();
+                return call.call();
+            }));
+        }
+        started.await();
+        // gives the callers time to join the flight before the lookup completes
+        Thread.sleep(200);
+        release.countDown();
+        executor.shutdown();
+        Assert.assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        return results;
+    }
+
+    private void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.island.bookingapi.calendar;
+
+import com.island.bookingapi.model.CalendarChange;
+import com.island.bookingapi.repository.CalendarChangeRepository;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Optional;
+
+public class CalendarChangeLogTest {
+
+    private static final LocalDate DAY = LocalDate.now().plusDays(10);
+
+    private final CalendarChangeRepository calendarChangeRepository = Mockito.mock(CalendarChangeRepository.class);
+
+    @Test
+    public void whenChangesOverlap_thenRangesAreMerged() {
+        CalendarChangeLog changeLog = new CalendarChangeLog(this.calendarChangeRepository, 72);
+        Mockito.when(this.calendarChangeRepository.findChangedSince(ArgumentMatchers.any())).thenReturn(Arrays.asList(
+                new CalendarChange(DAY, DAY.plusDays(2)), new CalendarChange(DAY.plusDays(1), DAY.plusDays(1)),
+                new CalendarChange(DAY.plusDays(3), DAY.plusDays(4)), new CalendarChange(DAY.plusDays(9), DAY.plusDays(9))));
+
+        Assert.assertEquals(Optional.of(Arrays.asList(EpochDayRange.ofDays(DAY, DAY.plusDays(4)),
+                EpochDayRange.ofDays(DAY.plusDays(9), DAY.plusDays(9)))), changeLog.changedSince(LocalDateTime.now().minusHours(1)));
+        Assert.assertEquals(Optional.empty(), changeLog.changedSince(LocalDateTime.now().minusHours(73)));
+    }
+}
@@ -0,0 +1,81 @@
+package com.island.bookingapi.calendar;
+
+import com.island.bookingapi.event.BookingChangeType;
+import com.island.bookingapi.event.BookingChangedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+public class CalendarHistoryTest {
+
+    private static final LocalDate DAY = LocalDate.now().plusDays(5);
+
+    @Test
+    public void whenChanged_thenEveryVersionAnswered() {
+        CalendarHistory history = this.history(1);
+        long[] first = CalendarIndex.bitmapOf(Collections.singletonList(DAY));
+        long[] second = CalendarIndex.bitmapOf(Arrays.asList(DAY, DAY.plusYears(3)));
+        long[] third = CalendarIndex.bitmapOf(Collections.singletonList(DAY.plusYears(3)));
+        history.record(first, 1000);
+        history.record(second, 2000);
+        history.record(third, 3000);
+
+        Assert.assertEquals(Optional.empty(), history.versionAt(999));
+        Assert.assertTrue(history.versionAt(1999).get().isSet(DAY.toEpochDay()));
+        Assert.assertFalse(history.versionAt(1999).get().isSet(DAY.plusYears(3).toEpochDay()));
+        Assert.assertTrue(history.versionAt(2000).get().isSet(DAY.plusYears(3).toEpochDay()));
+        Assert.assertFalse(history.versionAt(5000).get().isSet(DAY.toEpochDay()));
+        CalendarIndex calendarIndex = new CalendarIndex();
+        calendarIndex.completeLoad(second);
+        PersistentBitmap version = history.versionAt(2500).get();
+        DAY.minusDays(70).datesUntil(DAY.plusYears(3).plusDays(70))
+                .forEach(day -> Assert.assertEquals(calendarIndex.isBooked(day), version.isSet(day.toEpochDay())));
+    }
+
+    @Test
+    public void whenIndexChanges_thenAvailabilityAsOfBeforeTheChange() throws InterruptedException {
+        CalendarIndex calendarIndex = new CalendarIndex();
+        CalendarHistory history = new CalendarHistory(calendarIndex, new SimpleMeterRegistry(), true, 72, 1);
+        calendarIndex.beginLoad();
+        calendarIndex.completeLoad(new long[0]);
+        LocalDateTime beforeBooking = LocalDateTime.now();
+        TimeUnit.MILLISECONDS.sleep(5);
+        calendarIndex.onBookingChanged(new BookingChangedEvent(1L, BookingChangeType.CREATED, Collections.emptyList(), Collections.singletonList(DAY)));
+
+        List<LocalDate> available = history.getAvailableDates(DAY, DAY.plusDays(1), beforeBooking).get();
+        Assert.assertEquals(Arrays.asList(DAY, DAY.plusDays(1)), available);
+        Assert.assertEquals(Collections.singletonList(DAY.plusDays(1)),
+                history.getAvailableDates(DAY, DAY.plusDays(1), LocalDateTime.now()).get());
+        Assert.assertFalse(history.getAvailableDates(DAY, DAY, beforeBooking.minusHours(1)).isPresent());
+    }
+
+    @Test
+    public void whenOverBudgetOrRetention_thenOldestDropped() {
+        CalendarHistory history = this.history(1);
+        long[] words = new long[0];
+        for (int i = 0; i < 5000; i++) {
+            words = CalendarIndex.bitmapOf(Collections.singletonList(DAY.plusDays(i * 64L)));
+            history.record(words, i);
+        }
+        Assert.assertTrue(history.getBytes() <= 1024 * 1024);
+        Assert.assertTrue(history.getSize() < 5000);
+        Assert.assertFalse(history.versionAt(0).isPresent());
+
+        // the version replaced at 73h still answers the start of the 72h retention
+        history.record(words, TimeUnit.HOURS.toMillis(73));
+        Assert.assertEquals(2, history.getSize());
+        Assert.assertTrue(history.versionAt(TimeUnit.HOURS.toMillis(1)).isPresent());
+    }
+
+    private CalendarHistory history(long maxMemoryMb) {
+        return new CalendarHistory(new CalendarIndex(), new SimpleMeterRegistry(), true, 72, maxMemoryMb);
+    }
+}
@@ -0,0 +1,59 @@
+package com.island.bookingapi.calendar;
+
+import com.island.bookingapi.event.BookingChangeType;
+import com.island.bookingapi.event.BookingChangedEvent;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class CalendarIndexTest {
+
+    @Test
+    public void whenLoaded_thenReturnOnlyAvailableDates() {
+        LocalDate from = LocalDate.now().plusDays(1);
+        LocalDate to = LocalDate.now().plusDays(10);
+        CalendarIndex calendarIndex = new CalendarIndex();
+        calendarIndex.beginLoad();
+        calendarIndex.completeLoad(this.bitmapOf(from.plusDays(2), from.plusDays(3)));
+        List<LocalDate> expected = from.datesUntil(to.plusDays(1)).collect(Collectors.toList());
+        expected.remove(from.plusDays(2));
+        expected.remove(from.plusDays(3));
+        Assert.assertEquals(expected, calendarIndex.getAvailableDates(from, to));
+        Assert.assertEquals(Arrays.asList(from.plusDays(2), from.plusDays(3)), calendarIndex.getBookedDates(from, to));
+    }
+
+    @Test
+    public void whenChangesDuringLoad_thenReplayOnTopOfLoadedBitmap() {
+        LocalDate day = LocalDate.now().plusDays(5);
+        CalendarIndex calendarIndex = new CalendarIndex();
+        calendarIndex.beginLoad();
+        calendarIndex.onBookingChanged(new BookingChangedEvent(1L, BookingChangeType.CREATED, Collections.emptyList(), Collections.singletonList(day)));
+        Assert.assertFalse(calendarIndex.isLoaded());
+        calendarIndex.completeLoad(new long[0]);
+        Assert.assertTrue(calendarIndex.isLoaded());
+        Assert.assertTrue(calendarIndex.isBooked(day));
+    }
+
+    @Test
+    public void whenBookingCancelled_thenReleaseDays() {
+        LocalDate day = LocalDate.now().plusDays(5);
+        CalendarIndex calendarIndex = new CalendarIndex();
+        calendarIndex.beginLoad();
+        calendarIndex.completeLoad(this.bitmapOf(day));
+        calendarIndex.onBookingChanged(new BookingChangedEvent(1L, BookingChangeType.CANCELLED, Collections.singletonList(day), Collections.emptyList()));
+        Assert.assertFalse(calendarIndex.isBooked(day));
+    }
+
+    private long[] bitmapOf(LocalDate... days) {
+        long[] words = new long[0];
+        for (LocalDate day : days) {
+            words = CalendarIndex.setBit(words, day.toEpochDay());
+        }
+        return words;
+    }
+}
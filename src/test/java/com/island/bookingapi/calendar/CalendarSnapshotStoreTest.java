@@ -0,0 +1,38 @@
+package com.island.bookingapi.calendar;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Optional;
+
+public class CalendarSnapshotStoreTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void whenSnapshotWritten_thenReadSameSnapshot() throws IOException {
+        Path path = this.temporaryFolder.getRoot().toPath().resolve("calendar.snapshot");
+        CalendarSnapshotStore store = new CalendarSnapshotStore(path);
+        long[] words = CalendarIndex.setBit(new long[0], LocalDate.now().plusDays(3).toEpochDay());
+        store.write(new CalendarSnapshot(words, 1000L));
+        CalendarSnapshot snapshot = store.read().get();
+        Assert.assertArrayEquals(words, snapshot.getWords());
+        Assert.assertEquals(1000L, snapshot.getCreatedAt());
+    }
+
+    @Test
+    public void whenSnapshotMissingOrCorrupted_thenReturnEmpty() throws IOException {
+        Path path = this.temporaryFolder.getRoot().toPath().resolve("calendar.snapshot");
+        CalendarSnapshotStore store = new CalendarSnapshotStore(path);
+        Assert.assertEquals(Optional.empty(), store.read());
+        Files.write(path, new byte[]{1, 2, 3});
+        Assert.assertEquals(Optional.empty(), store.read());
+    }
+}
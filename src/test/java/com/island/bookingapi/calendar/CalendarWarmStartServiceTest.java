@@ -0,0 +1,93 @@
+package com.island.bookingapi.calendar;
+
+import com.island.bookingapi.repository.CalendarAvailableRepository;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Optional;
+
+public class CalendarWarmStartServiceTest {
+
+    private static final LocalDate DAY = LocalDate.now().plusDays(10);
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final CalendarAvailableRepository calendarAvailableRepository = Mockito.mock(CalendarAvailableRepository.class);
+    private final CalendarChangeLog calendarChangeLog = Mockito.mock(CalendarChangeLog.class);
+    private final CalendarIndex calendarIndex = new CalendarIndex();
+
+    @Test
+    public void whenFewChanges_thenOnlyTheirDaysAreReadAgain() throws IOException {
+        CalendarWarmStartService service = this.service(DAY, DAY.plusDays(1), DAY.plusDays(20));
+        // a booking of DAY + 20 cancelled and one of DAY + 5 created while the instance was down
+        Mockito.when(this.calendarChangeLog.changedSince(ArgumentMatchers.any())).thenReturn(Optional.of(Arrays.asList(
+                EpochDayRange.ofDays(DAY.plusDays(5), DAY.plusDays(6)), EpochDayRange.ofDays(DAY.plusDays(20), DAY.plusDays(20)))));
+        Mockito.when(this.calendarAvailableRepository.getBookedDates(DAY.plusDays(5), DAY.plusDays(6)))
+                .thenReturn(Arrays.asList(DAY.plusDays(5), DAY.plusDays(6)));
+
+        service.warmStart();
+
+        Assert.assertTrue(this.calendarIndex.isBooked(DAY));
+        Assert.assertTrue(this.calendarIndex.isBooked(DAY.plusDays(1)));
+        Assert.assertTrue(this.calendarIndex.isBooked(DAY.plusDays(5)));
+        Assert.assertTrue(this.calendarIndex.isBooked(DAY.plusDays(6)));
+        Assert.assertFalse(this.calendarIndex.isBooked(DAY.plusDays(20)));
+        Mockito.verify(this.calendarAvailableRepository, Mockito.times(2)).getBookedDates(ArgumentMatchers.any(), ArgumentMatchers.any());
+        Mockito.verify(this.calendarAvailableRepository, Mockito.never()).getBookedDatesFrom(ArgumentMatchers.any());
+    }
+
+    @Test
+    public void whenOnlyTheCalendarChanged_thenItsDaysAreReadAgain() throws IOException {
+        CalendarWarmStartService service = this.service(DAY, DAY.plusDays(3));
+        // a reconciler repair of another instance, no booking was touched
+        Mockito.when(this.calendarChangeLog.changedSince(ArgumentMatchers.any())).thenReturn(Optional.of(Collections.singletonList(
+                EpochDayRange.ofDays(DAY.plusDays(2), DAY.plusDays(3)))));
+        Mockito.when(this.calendarAvailableRepository.getBookedDates(DAY.plusDays(2), DAY.plusDays(3)))
+                .thenReturn(Collections.singletonList(DAY.plusDays(2)));
+
+        service.warmStart();
+
+        Assert.assertTrue(this.calendarIndex.isBooked(DAY));
+        Assert.assertTrue(this.calendarIndex.isBooked(DAY.plusDays(2)));
+        Assert.assertFalse(this.calendarIndex.isBooked(DAY.plusDays(3)));
+        Mockito.verify(this.calendarAvailableRepository, Mockito.never()).getBookedDatesFrom(ArgumentMatchers.any());
+    }
+
+    @Test
+    public void whenSnapshotOlderThanTheChangeLog_thenBookableWindowIsRead() throws IOException {
+        CalendarWarmStartService service = this.service(DAY);
+        Mockito.when(this.calendarChangeLog.changedSince(ArgumentMatchers.any())).thenReturn(Optional.empty());
+        Mockito.when(this.calendarAvailableRepository.getBookedDatesFrom(ArgumentMatchers.any()))
+                .thenReturn(Collections.singletonList(DAY.plusDays(4)));
+
+        service.warmStart();
+
+        Assert.assertFalse(this.calendarIndex.isBooked(DAY));
+        Assert.assertTrue(this.calendarIndex.isBooked(DAY.plusDays(4)));
+    }
+
+    private CalendarWarmStartService service(LocalDate... snapshotDays) throws IOException {
+        Path path = this.temporaryFolder.getRoot().toPath().resolve("calendar.snapshot");
+        long[] words = new long[0];
+        for (LocalDate day : snapshotDays) {
+            words = CalendarIndex.setBit(words, day.toEpochDay());
+        }
+        new CalendarSnapshotStore(path).write(new CalendarSnapshot(words, System.currentTimeMillis()));
+        PlatformTransactionManager transactionManager = Mockito.mock(PlatformTransactionManager.class);
+        Mockito.when(transactionManager.getTransaction(ArgumentMatchers.any())).thenAnswer(invocation -> new SimpleTransactionStatus());
+        return new CalendarWarmStartService(this.calendarAvailableRepository, this.calendarChangeLog, this.calendarIndex,
+                transactionManager, path.toString(), 60);
+    }
+}
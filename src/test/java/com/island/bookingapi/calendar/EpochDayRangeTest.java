@@ -0,0 +1,56 @@
+package com.island.bookingapi.calendar;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+public class EpochDayRangeTest {
+
+    private static final LocalDate DAY = LocalDate.now().plusDays(10);
+
+    @Test
+    public void whenStayOrDays_thenSameDatesAsDatesUntil() {
+        EpochDayRange stay = EpochDayRange.ofStay(DAY, DAY.plusDays(3));
+        Assert.assertEquals(DAY.datesUntil(DAY.plusDays(3)).collect(Collectors.toList()), stay.asDates());
+        Assert.assertEquals(stay, EpochDayRange.ofDays(DAY, DAY.plusDays(2)));
+        Assert.assertEquals(3, stay.length());
+        Assert.assertTrue(stay.contains(DAY.plusDays(2)));
+        Assert.assertFalse(stay.contains(DAY.plusDays(3)));
+        Assert.assertTrue(stay.asDates().contains(DAY));
+        Assert.assertTrue(EpochDayRange.ofStay(DAY, DAY).isEmpty());
+
+        AtomicInteger sum = new AtomicInteger();
+        stay.forEachDay(sum::addAndGet);
+        Assert.assertEquals(3 * DAY.toEpochDay() + 3, sum.get());
+    }
+
+    @Test
+    public void whenRangesOverlap_thenIntersectionAndDifference() {
+        EpochDayRange stay = EpochDayRange.ofStay(DAY, DAY.plusDays(5));
+        EpochDayRange middle = EpochDayRange.ofStay(DAY.plusDays(1), DAY.plusDays(3));
+        EpochDayRange after = EpochDayRange.ofStay(DAY.plusDays(5), DAY.plusDays(7));
+
+        Assert.assertTrue(stay.overlaps(middle));
+        Assert.assertTrue(stay.contains(middle));
+        Assert.assertFalse(stay.overlaps(after));
+        Assert.assertEquals(middle, stay.intersection(middle));
+        Assert.assertEquals(EpochDayRange.EMPTY, stay.intersection(after));
+
+        Assert.assertEquals(Arrays.asList(DAY, DAY.plusDays(3), DAY.plusDays(4)), stay.datesNotIn(middle));
+        Assert.assertEquals(Collections.emptyList(), middle.datesNotIn(stay));
+        Assert.assertEquals(after.asDates(), after.datesNotIn(stay));
+    }
+
+    @Test
+    public void whenDaysTakenOut_thenRemainingInOrder() {
+        EpochDayRange days = EpochDayRange.ofDays(DAY, DAY.plusDays(4));
+        List<LocalDate> remaining = days.datesExcept(Arrays.asList(DAY.plusDays(3), DAY.minusDays(1), DAY, DAY.plusDays(9)));
+        Assert.assertEquals(Arrays.asList(DAY.plusDays(1), DAY.plusDays(2), DAY.plusDays(4)), remaining);
+    }
+}
@@ -0,0 +1,112 @@
+package com.island.bookingapi.cluster;
+
+import com.island.bookingapi.calendar.CalendarIndex;
+import com.island.bookingapi.event.BookingChangeType;
+import com.island.bookingapi.event.BookingChangedEvent;
+import com.island.bookingapi.event.RemoteBookingChangedEvent;
+import com.island.bookingapi.occupancy.OccupancyAggregates;
+import com.island.bookingapi.store.BookingStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+
+public class ClusterInvalidationTest {
+
+    private static final LocalDate DAY = LocalDate.now().plusDays(5);
+
+    private final BookingStore bookingStore = Mockito.mock(BookingStore.class);
+
+    @Test
+    public void whenBookingChanged_thenAppliedOnOtherInstances() {
+        LocalClusterTransport transport = new LocalClusterTransport();
+        CalendarIndex firstIndex = this.loadedIndex();
+        CalendarIndex secondIndex = this.loadedIndex();
+        ClusterInvalidation first = this.instance(transport, firstIndex);
+        this.instance(transport, secondIndex);
+
+        first.onBookingChanged(new BookingChangedEvent(1L, BookingChangeType.CREATED, Collections.emptyList(),
+                Arrays.asList(DAY, DAY.plusDays(1))));
+        Assert.assertTrue(secondIndex.isBooked(DAY));
+        Assert.assertTrue(secondIndex.isBooked(DAY.plusDays(1)));
+        Assert.assertFalse(firstIndex.isBooked(DAY));
+
+        first.onBookingChanged(new BookingChangedEvent(1L, BookingChangeType.CANCELLED, Collections.singletonList(DAY),
+                Collections.emptyList()));
+        Assert.assertFalse(secondIndex.isBooked(DAY));
+        Mockito.verify(this.bookingStore, Mockito.never()).getBookedDates(ArgumentMatchers.any(), ArgumentMatchers.any());
+    }
+
+    @Test
+    public void whenNoticesLost_thenResync() {
+        CalendarIndex index = this.loadedIndex();
+        ClusterInvalidation instance = this.instance(new LocalClusterTransport(), index);
+        Mockito.when(this.bookingStore.getBookedDates(ArgumentMatchers.any(), ArgumentMatchers.any()))
+                .thenReturn(Collections.singletonList(DAY.plusDays(2)));
+        long day = DAY.toEpochDay();
+
+        instance.receive("other 1 C - " + day);
+        Assert.assertTrue(index.isBooked(DAY));
+        instance.receive("other 3 C - " + (day + 1));
+        Assert.assertFalse(index.isBooked(DAY));
+        Assert.assertFalse(index.isBooked(DAY.plusDays(1)));
+        Assert.assertTrue(index.isBooked(DAY.plusDays(2)));
+
+        instance.receive("other 3 H - -");
+        instance.receive("other 2 C - " + day);
+        Mockito.verify(this.bookingStore, Mockito.times(1)).getBookedDates(ArgumentMatchers.any(), ArgumentMatchers.any());
+        instance.receive("other 4 H - -");
+        Mockito.verify(this.bookingStore, Mockito.times(2)).getBookedDates(ArgumentMatchers.any(), ArgumentMatchers.any());
+    }
+
+    @Test
+    public void whenResyncDuringStartupLoad_thenIndexResyncWaitsForTheLoad() {
+        CalendarIndex index = new CalendarIndex();
+        OccupancyAggregates occupancyAggregates = Mockito.mock(OccupancyAggregates.class);
+        ClusterInvalidation instance = new ClusterInvalidation(new LocalClusterTransport(),
+                event -> index.onRemoteBookingChanged((RemoteBookingChangedEvent) event), index, this.bookingStore,
+                occupancyAggregates, new SimpleMeterRegistry(), true, 400);
+        Mockito.when(this.bookingStore.getBookedDates(ArgumentMatchers.any(), ArgumentMatchers.any()))
+                .thenReturn(Arrays.asList(DAY, DAY.plusDays(2)));
+        long day = DAY.toEpochDay();
+        // the warm start reads the calendar before the notices below
+        index.beginLoad();
+
+        instance.receive("other 1 C - " + day);
+        instance.receive("other 2 R - -");
+        Mockito.verify(occupancyAggregates).load(ArgumentMatchers.any());
+        Mockito.verify(this.bookingStore, Mockito.never()).getBookedDates(ArgumentMatchers.any(), ArgumentMatchers.any());
+        instance.receive("other 3 C - " + (day + 1));
+        instance.heartbeat();
+        Assert.assertFalse(index.isLoaded());
+
+        index.completeLoad(new long[0]);
+        Assert.assertTrue(index.isBooked(DAY));
+        Assert.assertTrue(index.isBooked(DAY.plusDays(1)));
+        instance.heartbeat();
+        Mockito.verify(this.bookingStore).getBookedDates(ArgumentMatchers.any(), ArgumentMatchers.any());
+        Assert.assertTrue(index.isBooked(DAY.plusDays(2)));
+        instance.heartbeat();
+        Mockito.verify(this.bookingStore).getBookedDates(ArgumentMatchers.any(), ArgumentMatchers.any());
+    }
+
+    private ClusterInvalidation instance(ClusterTransport transport, CalendarIndex index) {
+        ClusterInvalidation instance = new ClusterInvalidation(transport,
+                event -> index.onRemoteBookingChanged((RemoteBookingChangedEvent) event), index, this.bookingStore,
+                Mockito.mock(OccupancyAggregates.class), new SimpleMeterRegistry(), true, 400);
+        instance.subscribe();
+        return instance;
+    }
+
+    private CalendarIndex loadedIndex() {
+        CalendarIndex index = new CalendarIndex();
+        index.beginLoad();
+        index.completeLoad(new long[0]);
+        return index;
+    }
+}
@@ -0,0 +1,55 @@
+package com.island.bookingapi.contention;
+
+import com.island.bookingapi.event.BookingChangeType;
+import com.island.bookingapi.event.BookingChangedEvent;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+public class DayContentionTrackerTest {
+
+    @Test
+    public void whenAttemptsAndConflicts_thenCountedPerNight() {
+        LocalDate arrival = LocalDate.now().plusDays(5);
+        DayContentionTracker tracker = new DayContentionTracker(300);
+        tracker.recordAttempt(arrival, arrival.plusDays(2));
+        tracker.recordAttempt(arrival.plusDays(1), arrival.plusDays(2));
+        tracker.recordConflict(Collections.singletonList(arrival.plusDays(1)));
+        tracker.onBookingChanged(new BookingChangedEvent(1L, BookingChangeType.CREATED, Collections.emptyList(),
+                Collections.singletonList(arrival)));
+        List<DayContention> heatmap = tracker.getHeatmap(arrival, arrival.plusDays(2));
+        Assert.assertEquals(3, heatmap.size());
+        Assert.assertEquals(1, heatmap.get(0).getAttempts());
+        Assert.assertEquals(1, heatmap.get(0).getSuccesses());
+        Assert.assertEquals(2, heatmap.get(1).getAttempts());
+        Assert.assertEquals(1, heatmap.get(1).getConflicts());
+        Assert.assertEquals(0, heatmap.get(2).getAttempts());
+        Assert.assertEquals(arrival.plusDays(1), tracker.getHottest(1).get(0).getDay());
+    }
+
+    @Test
+    public void whenTicks_thenRatesDecayAndWindowMoves() {
+        long today = LocalDate.now().toEpochDay();
+        LocalDate day = LocalDate.ofEpochDay(today + 1);
+        DayContentionTracker tracker = new DayContentionTracker(60);
+        long now = System.nanoTime();
+        for (int i = 0; i < 60; i++) {
+            tracker.recordAttempt(day, day.plusDays(1));
+        }
+        now += TimeUnit.MINUTES.toNanos(1);
+        tracker.tick(now, today);
+        double rate = tracker.getHeatmap(day, day).get(0).getAttemptsPerMinute();
+        Assert.assertEquals(30, rate, 0.01);
+        now += TimeUnit.MINUTES.toNanos(1);
+        tracker.tick(now, today);
+        Assert.assertEquals(15, tracker.getHeatmap(day, day).get(0).getAttemptsPerMinute(), 0.01);
+        // the slot of the day is reused once it leaves the window
+        tracker.tick(now, today + DayContentionTracker.TRACKED_DAYS);
+        Assert.assertEquals(0, tracker.getHeatmap(LocalDate.ofEpochDay(today + DayContentionTracker.TRACKED_DAYS + 1),
+                LocalDate.ofEpochDay(today + DayContentionTracker.TRACKED_DAYS + 1)).get(0).getAttempts());
+    }
+}
@@ -0,0 +1,66 @@
+package com.island.bookingapi.controller;
+
+import com.island.bookingapi.cache.AvailabilityResponseCache;
+import com.island.bookingapi.request.AvailabilityBatchRequest;
+import com.island.bookingapi.request.AvailabilityRangeRequest;
+import com.island.bookingapi.service.AvailabilityService;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.springframework.http.HttpStatus;
+
+import javax.validation.Validation;
+import javax.validation.Validator;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+
+public class AvailabilityControllerTest {
+
+    private static final LocalDate DAY = LocalDate.now().plusDays(1);
+
+    private final Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+
+    @Test
+    public void whenGzipRefusedByQuality_thenPlainBody() {
+        Assert.assertTrue(AvailabilityController.acceptsGzip("gzip, deflate, br"));
+        Assert.assertTrue(AvailabilityController.acceptsGzip("deflate;q=1.0, GZIP;q=0.5"));
+        Assert.assertTrue(AvailabilityController.acceptsGzip("br, *;q=0.1"));
+        Assert.assertFalse(AvailabilityController.acceptsGzip(null));
+        Assert.assertFalse(AvailabilityController.acceptsGzip("identity"));
+        Assert.assertFalse(AvailabilityController.acceptsGzip("gzip;q=0"));
+        Assert.assertFalse(AvailabilityController.acceptsGzip("gzip ; q=0.000, deflate"));
+        Assert.assertFalse(AvailabilityController.acceptsGzip("*, gzip;q=0"));
+        Assert.assertFalse(AvailabilityController.acceptsGzip("br, *;q=0"));
+    }
+
+    @Test
+    public void whenBatchSpansMoreThanMaxDays_thenInvalid() {
+        int max = AvailabilityRangeRequest.MAX_SPAN_DAYS;
+        Assert.assertTrue(this.validator.validate(this.batch(new AvailabilityRangeRequest(DAY, DAY.plusDays(max - 1)))).isEmpty());
+        // the range and the union of the batch
+        Assert.assertEquals(2, this.validator.validate(this.batch(new AvailabilityRangeRequest(DAY, DAY.plusDays(max)))).size());
+        // short ranges far apart are read as their union
+        Assert.assertTrue(this.validator.validate(this.batch(new AvailabilityRangeRequest(DAY, DAY),
+                new AvailabilityRangeRequest(DAY.plusDays(max - 1), DAY.plusDays(max - 1)))).isEmpty());
+        Assert.assertEquals(1, this.validator.validate(this.batch(new AvailabilityRangeRequest(DAY, DAY),
+                new AvailabilityRangeRequest(DAY.plusDays(max), DAY.plusDays(max)))).size());
+    }
+
+    @Test
+    public void whenSingleRangeLongerThanBatchBound_thenAnswered() {
+        AvailabilityService availabilityService = Mockito.mock(AvailabilityService.class);
+        LocalDate to = DAY.plusDays(3 * AvailabilityRangeRequest.MAX_SPAN_DAYS);
+        Mockito.when(availabilityService.getAvailableDates(DAY, to)).thenReturn(Collections.singletonList(DAY));
+        AvailabilityController controller = new AvailabilityController(availabilityService, Mockito.mock(AvailabilityResponseCache.class));
+
+        Assert.assertEquals(HttpStatus.OK, controller.getAvailableDates(DAY, to).getStatusCode());
+        Mockito.verify(availabilityService).getAvailableDates(DAY, to);
+    }
+
+    private AvailabilityBatchRequest batch(AvailabilityRangeRequest... ranges) {
+        AvailabilityBatchRequest request = new AvailabilityBatchRequest();
+        request.setRanges(Arrays.asList(ranges));
+        return request;
+    }
+}
@@ -3,12 +3,21 @@ package com.island.bookingapi.controller;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.island.bookingapi.archive.ArchiveMaintenanceService;
+import com.island.bookingapi.blackout.BlackoutService;
+import com.island.bookingapi.model.Blackout;
 import com.island.bookingapi.model.Booking;
+import com.island.bookingapi.model.BookingStatus;
+import com.island.bookingapi.model.CalendarAvailability;
+import com.island.bookingapi.repository.ArchivedBookingRepository;
+import com.island.bookingapi.repository.ArchivedCalendarAvailabilityRepository;
 import com.island.bookingapi.repository.BookingRepository;
 import com.island.bookingapi.repository.CalendarAvailableRepository;
 import com.island.bookingapi.request.CreateBookingControllerRequest;
 import com.island.bookingapi.request.UpdateBookingControllerRequest;
 import database.BookingPostgresqlContainer;
+import database.SqlStatementAssertions;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.ClassRule;
@@ -25,12 +34,13 @@ import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.context.WebApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.testcontainers.containers.PostgreSQLContainer;
 
 import java.time.LocalDate;
 import java.util.stream.Collectors;
 
-@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = "booking.blackout.enabled=true")
 @RunWith(SpringRunner.class)
 public class BookingApiApplicationIntegrationTest {
     @ClassRule
@@ -46,6 +56,18 @@ public class BookingApiApplicationIntegrationTest {
     @Autowired
     private CalendarAvailableRepository calendarAvailableRepository;
 
+    @Autowired
+    private ArchivedBookingRepository archivedBookingRepository;
+
+    @Autowired
+    private ArchivedCalendarAvailabilityRepository archivedCalendarAvailabilityRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private BlackoutService blackoutService;
+
     private static final ObjectMapper objectMapper = new ObjectMapper();
 
     @Before()
@@ -70,6 +92,44 @@ public class BookingApiApplicationIntegrationTest {
         Assert.assertEquals(previousBookings + 1, this.bookingRepository.findAll().size());
     }
 
+    @Test
+    @Transactional
+    public void whenCreateBooking_statementCountPinned() throws Exception {
+        LocalDate arrivalDate = LocalDate.now().plusDays(25);
+        LocalDate departureDate = LocalDate.now().plusDays(27);
+        CreateBookingControllerRequest body = new CreateBookingControllerRequest("Pepito Juarez", "pepito@gmail.com", arrivalDate, departureDate);
+        SqlStatementAssertions.reset();
+        this.testPOSTMethod("/booking", body, 201);
+        // booked days check + one insert per night + booking insert
+        SqlStatementAssertions.assertStatementCount(4);
+    }
+
+    @Test
+    @Transactional
+    public void whenGetAvailability_singleStatement() throws Exception {
+        String url = String.format("/availability?from=%s&to=%s", LocalDate.now().plusDays(1), LocalDate.now().plusDays(10));
+        SqlStatementAssertions.reset();
+        this.testGETMethod(url, 200);
+        SqlStatementAssertions.assertMaxStatementCount(1);
+    }
+
+    @Test
+    @Transactional
+    public void whenBookingArchived_getBookingOk() throws Exception {
+        LocalDate arrivalDate = LocalDate.now().minusDays(40);
+        LocalDate departureDate = LocalDate.now().minusDays(39);
+        Booking booking = this.bookingRepository.saveAndFlush(new Booking("Pepito Juarez", "pepito@gmail.com", arrivalDate, departureDate));
+        this.calendarAvailableRepository.saveAndFlush(new CalendarAvailability(arrivalDate));
+        ArchiveMaintenanceService archiveMaintenanceService = new ArchiveMaintenanceService(this.bookingRepository,
+                this.calendarAvailableRepository, this.archivedBookingRepository, this.archivedCalendarAvailabilityRepository,
+                this.transactionManager, new SimpleMeterRegistry(), 30, 1, 0);
+        archiveMaintenanceService.archive(LocalDate.now().minusDays(30));
+        Assert.assertFalse(this.bookingRepository.findById(booking.getId()).isPresent());
+        Assert.assertTrue(this.calendarAvailableRepository.getBookedDates(arrivalDate, arrivalDate).isEmpty());
+        Assert.assertTrue(this.archivedCalendarAvailabilityRepository.count() > 0);
+        this.testGETMethod(String.format("/booking/%s", booking.getId()), 200);
+    }
+
     @Test
     @Transactional
     public void whenInvalidEmail_bookFail() throws Exception {
@@ -164,6 +224,21 @@ public class BookingApiApplicationIntegrationTest {
         Assert.assertEquals(bookingStayCount, this.calendarAvailableRepository.getBookedDates(arrivalDate, departureDate).size());
     }
 
+    @Test
+    @Transactional
+    public void whenBlackout_cancelOverlappingBookingsAndHoldDays() throws Exception {
+        LocalDate from = LocalDate.now().plusDays(60);
+        LocalDate to = from.plusDays(2);
+        Booking booking = this.bookingRepository.saveAndFlush(new Booking("Pepito Juarez", "pepito@gmail.com", from.minusDays(1), from.plusDays(1)));
+        this.calendarAvailableRepository.saveAll(booking.getArrivalDate().datesUntil(booking.getDepartureDate())
+                .map(CalendarAvailability::new).collect(Collectors.toList()));
+        Blackout blackout = this.blackoutService.close(from, to, "Storm");
+        Assert.assertEquals(1, blackout.getCancelledBookings());
+        Assert.assertEquals(BookingStatus.CANCELLED.getId(), this.bookingRepository.findById(booking.getId()).get().getStatus());
+        Assert.assertTrue(this.calendarAvailableRepository.getBookedDates(from.minusDays(1), from.minusDays(1)).isEmpty());
+        Assert.assertEquals(3, this.calendarAvailableRepository.getBookedDates(from, to).size());
+    }
+
     private void testPOSTMethod(String uri, CreateBookingControllerRequest body, int expectedStatus) throws Exception {
         String requestJson = objectMapper.writeValueAsString(body);
         MvcResult mvcResult = this.mvc.perform(MockMvcRequestBuilders.post(uri).content(requestJson).contentType(MediaType.APPLICATION_JSON).accept(MediaType.APPLICATION_JSON_VALUE)).andReturn();
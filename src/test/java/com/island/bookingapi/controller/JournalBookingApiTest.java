@@ -0,0 +1,184 @@
+package com.island.bookingapi.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.island.bookingapi.model.Booking;
+import com.island.bookingapi.request.CreateBookingControllerRequest;
+import com.island.bookingapi.request.UpdateBookingControllerRequest;
+import com.island.bookingapi.store.BookingStore;
+import com.island.bookingapi.store.journal.JournalBookingStore;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+/**
+ * The scenarios of BookingApiApplicationIntegrationTest run on the embedded journal engine
+ */
+@SpringBootTest
+@RunWith(SpringRunner.class)
+@ActiveProfiles("journal")
+@DirtiesContext
+public class JournalBookingApiTest {
+
+    @ClassRule
+    public static TemporaryFolder journalFolder = new TemporaryFolder();
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static Booking seededBooking;
+
+    private MockMvc mvc;
+
+    @Autowired
+    private WebApplicationContext webApplicationContext;
+
+    @Autowired
+    private BookingStore bookingStore;
+
+    @DynamicPropertySource
+    static void journalProperties(DynamicPropertyRegistry registry) {
+        registry.add("booking.storage.journal.directory", () -> journalFolder.getRoot().getAbsolutePath());
+        registry.add("booking.storage.journal.segment-size-mb", () -> "1");
+    }
+
+    @Before
+    public void setUp() {
+        this.mvc = MockMvcBuilders.webAppContextSetup(this.webApplicationContext).build();
+        objectMapper.registerModule(new JavaTimeModule());
+        objectMapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        if (seededBooking == null) {
+            this.bookingStore.bookDays(Arrays.asList(LocalDate.now().plusDays(2), LocalDate.now().plusDays(3)));
+            seededBooking = this.bookingStore.saveBooking(new Booking("Pepito Juarez", "pepito.juarez@pepito.com",
+                    LocalDate.now().plusDays(2), LocalDate.now().plusDays(4)));
+        }
+    }
+
+    @Test
+    public void whenStoreIsJournal_thenJournalBookingStoreUsed() {
+        Assert.assertTrue(this.bookingStore instanceof JournalBookingStore);
+    }
+
+    @Test
+    @Transactional
+    public void whenAvailableDates_bookOk() throws Exception {
+        CreateBookingControllerRequest body = new CreateBookingControllerRequest("Pepito Juarez", "pepito@gmail.com",
+                LocalDate.now().plusDays(10), LocalDate.now().plusDays(12));
+        this.testPOSTMethod("/booking", body, 201);
+        Assert.assertEquals(2, this.bookingStore.getBookedDates(LocalDate.now().plusDays(10), LocalDate.now().plusDays(11)).size());
+    }
+
+    @Test
+    @Transactional
+    public void whenInvalidEmail_bookFail() throws Exception {
+        CreateBookingControllerRequest body = new CreateBookingControllerRequest("Pepito Juarez", "pepitoilcom",
+                LocalDate.now().plusDays(10), LocalDate.now().plusDays(12));
+        this.testPOSTMethod("/booking", body, 400);
+    }
+
+    @Test
+    @Transactional
+    public void whenUnavailableDates_bookFail() throws Exception {
+        CreateBookingControllerRequest body = new CreateBookingControllerRequest("Pepito Juarez", "pepito@gmail.com",
+                LocalDate.now().plusDays(2), LocalDate.now().plusDays(3));
+        this.testPOSTMethod("/booking", body, 400);
+    }
+
+    @Test
+    public void whenGetAvailability_getAvailabilityOk() throws Exception {
+        String url = String.format("/availability?from=%s&to=%s", LocalDate.now().plusDays(1), LocalDate.now().plusDays(10));
+        this.testGETMethod(url, 200);
+    }
+
+    @Test
+    @Transactional
+    public void whenCancelBooking_FreeCalendarDays() throws Exception {
+        Assert.assertTrue(this.bookingStore.getBookedDates(seededBooking.getArrivalDate(), seededBooking.getDepartureDate()).size() > 0);
+        this.testDELETEMethod(String.format("/booking/%s", seededBooking.getId()), 200);
+        Assert.assertEquals(0, this.bookingStore.getBookedDates(seededBooking.getArrivalDate(), seededBooking.getDepartureDate()).size());
+    }
+
+    @Test
+    @Transactional
+    public void whenUpdateOverlappingDates_updateBookingOk() throws Exception {
+        LocalDate arrivalDate = seededBooking.getArrivalDate().plusDays(1);
+        LocalDate departureDate = seededBooking.getDepartureDate().plusDays(1);
+        UpdateBookingControllerRequest request = new UpdateBookingControllerRequest(null, null, arrivalDate, departureDate);
+        this.testPATCHMethod(String.format("/booking/%s", seededBooking.getId()), request, 200);
+        int bookingStayCount = arrivalDate.datesUntil(departureDate).collect(Collectors.toList()).size();
+        Assert.assertEquals(bookingStayCount, this.bookingStore.getBookedDates(arrivalDate, departureDate).size());
+    }
+
+    @Test
+    public void whenConcurrentBookingsForSameDays_onlyOneSucceeds() throws Exception {
+        LocalDate arrivalDate = LocalDate.now().plusDays(20);
+        CreateBookingControllerRequest body = new CreateBookingControllerRequest("Pepito Juarez", "pepito@gmail.com",
+                arrivalDate, arrivalDate.plusDays(2));
+        String requestJson = objectMapper.writeValueAsString(body);
+        Callable<Integer> create = () -> this.mvc.perform(MockMvcRequestBuilders.post("/booking").content(requestJson)
+                .contentType(MediaType.APPLICATION_JSON).accept(MediaType.APPLICATION_JSON_VALUE)).andReturn().getResponse().getStatus();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            int created = 0;
+            for (Future<Integer> status : executor.invokeAll(Arrays.asList(create, create, create, create, create, create, create, create))) {
+                if (status.get() == 201) {
+                    created++;
+                }
+            }
+            Assert.assertEquals(1, created);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private void testPOSTMethod(String uri, CreateBookingControllerRequest body, int expectedStatus) throws Exception {
+        String requestJson = objectMapper.writeValueAsString(body);
+        MvcResult mvcResult = this.mvc.perform(MockMvcRequestBuilders.post(uri).content(requestJson).contentType(MediaType.APPLICATION_JSON).accept(MediaType.APPLICATION_JSON_VALUE)).andReturn();
+        MockHttpServletResponse httpResponse = mvcResult.getResponse();
+        Assert.assertEquals(expectedStatus, httpResponse.getStatus());
+    }
+
+    private void testPATCHMethod(String uri, UpdateBookingControllerRequest body, int expectedStatus) throws Exception {
+        String requestJson = objectMapper.writeValueAsString(body);
+        MvcResult mvcResult = this.mvc.perform(MockMvcRequestBuilders.patch(uri).content(requestJson).contentType(MediaType.APPLICATION_JSON).accept(MediaType.APPLICATION_JSON_VALUE)).andReturn();
+        MockHttpServletResponse httpResponse = mvcResult.getResponse();
+        Assert.assertEquals(expectedStatus, httpResponse.getStatus());
+    }
+
+    private void testGETMethod(String uri, int expectedStatus) throws Exception {
+        MvcResult mvcResult = this.mvc.perform(MockMvcRequestBuilders.get(uri).accept(MediaType.APPLICATION_JSON_VALUE)).andReturn();
+        MockHttpServletResponse httpResponse = mvcResult.getResponse();
+        Assert.assertEquals(expectedStatus, httpResponse.getStatus());
+    }
+
+    private void testDELETEMethod(String uri, int expectedStatus) throws Exception {
+        MvcResult mvcResult = this.mvc.perform(MockMvcRequestBuilders.delete(uri).accept(MediaType.APPLICATION_JSON_VALUE)).andReturn();
+        MockHttpServletResponse httpResponse = mvcResult.getResponse();
+        Assert.assertEquals(expectedStatus, httpResponse.getStatus());
+    }
+}
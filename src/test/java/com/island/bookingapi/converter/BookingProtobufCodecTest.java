@@ -0,0 +1,70 @@
+package com.island.bookingapi.converter;
+
+import com.google.protobuf.UnknownFieldSet;
+import com.island.bookingapi.dto.AvailabilityBatchDTO;
+import com.island.bookingapi.dto.AvailabilityDTO;
+import com.island.bookingapi.dto.BookingDTO;
+import com.island.bookingapi.exception.ErrorDetail;
+import com.island.bookingapi.model.BookingStatus;
+import com.island.bookingapi.request.CreateBookingControllerRequest;
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.http.HttpStatus;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.stream.Collectors;
+
+public class BookingProtobufCodecTest {
+
+    @Test
+    public void whenBookingEncoded_thenDecodedEqual() throws IOException {
+        LocalDateTime createdAt = LocalDateTime.of(2020, 6, 1, 10, 15, 30, 123456000);
+        BookingDTO booking = BookingDTO.builder().bookingId(42L).userName("Pepito Juarez").userEmail("pepito@gmail.com")
+                .arrivalDate(LocalDate.of(2020, 7, 1)).departureDate(LocalDate.of(2020, 7, 3)).status(BookingStatus.CANCELLED)
+                .createdAt(createdAt).build();
+        BookingDTO decoded = BookingProtobufCodec.decodeBooking(BookingProtobufCodec.encode(booking));
+        Assert.assertEquals(Long.valueOf(42), decoded.getBookingId());
+        Assert.assertEquals("Pepito Juarez", decoded.getUserName());
+        Assert.assertEquals(LocalDate.of(2020, 7, 3), decoded.getDepartureDate());
+        Assert.assertEquals(BookingStatus.CANCELLED, decoded.getStatus());
+        Assert.assertEquals(createdAt, decoded.getCreatedAt());
+        Assert.assertNull(decoded.getUpdatedAt());
+    }
+
+    @Test
+    public void whenAvailabilityEncoded_thenPackedAndDecodedEqual() throws IOException {
+        LocalDate from = LocalDate.of(2020, 7, 1);
+        AvailabilityDTO availability = AvailabilityDTO.builder().from(from).to(from.plusDays(30))
+                .availableDates(from.datesUntil(from.plusDays(31)).collect(Collectors.toList())).build();
+        byte[] bytes = BookingProtobufCodec.encode(availability);
+        // well formed protobuf, the 31 dates in a single packed field
+        UnknownFieldSet fields = UnknownFieldSet.parseFrom(bytes);
+        Assert.assertEquals(1, fields.getField(3).getLengthDelimitedList().size());
+        AvailabilityBatchDTO batch = BookingProtobufCodec.decodeAvailabilityBatch(BookingProtobufCodec.encode(
+                AvailabilityBatchDTO.builder().ranges(Arrays.asList(availability, availability)).build()));
+        Assert.assertEquals(2, batch.getRanges().size());
+        Assert.assertEquals(availability.getAvailableDates(), batch.getRanges().get(1).getAvailableDates());
+        Assert.assertEquals(from.plusDays(30), batch.getRanges().get(1).getTo());
+    }
+
+    @Test
+    public void whenRequestAndErrorEncoded_thenDecodedEqual() throws IOException {
+        CreateBookingControllerRequest request = new CreateBookingControllerRequest("Pepito", null, LocalDate.of(2020, 7, 1), LocalDate.of(2020, 7, 2));
+        CreateBookingControllerRequest decodedRequest = BookingProtobufCodec.decodeCreateBookingRequest(BookingProtobufCodec.encode(request));
+        Assert.assertEquals("Pepito", decodedRequest.getUserName());
+        Assert.assertNull(decodedRequest.getUserEmail());
+        Assert.assertEquals(LocalDate.of(2020, 7, 2), decodedRequest.getDepartureDate());
+
+        ErrorDetail errorDetail = ErrorDetail.builder().timestamp(new Date(1000)).message("Booking not found")
+                .details(Collections.singletonList("id: 3")).httpStatus(HttpStatus.NOT_FOUND).build();
+        ErrorDetail decodedError = BookingProtobufCodec.decodeErrorDetail(BookingProtobufCodec.encode(errorDetail));
+        Assert.assertEquals(new Date(1000), decodedError.getTimestamp());
+        Assert.assertEquals(Collections.singletonList("id: 3"), decodedError.getDetails());
+        Assert.assertEquals(HttpStatus.NOT_FOUND, decodedError.getHttpStatus());
+    }
+}
@@ -0,0 +1,62 @@
+package com.island.bookingapi.datasource;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Arrays;
+
+public class ReplicaRoutingDataSourceTest {
+
+    private final DataSource primary = Mockito.mock(DataSource.class);
+    private final Connection primaryConnection = Mockito.mock(Connection.class);
+    private final Replica first = new Replica("replica-0", Mockito.mock(DataSource.class));
+    private final Replica second = new Replica("replica-1", Mockito.mock(DataSource.class));
+    private final ReplicaRoutingDataSource dataSource = new ReplicaRoutingDataSource(this.primary, Arrays.asList(this.first, this.second));
+
+    @Before
+    public void setUp() throws SQLException {
+        Mockito.when(this.primary.getConnection()).thenReturn(this.primaryConnection);
+        this.first.setHealthy(true);
+        this.second.setHealthy(true);
+    }
+
+    @After
+    public void tearDown() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        ReplicaRoutingDataSource.unpin();
+    }
+
+    @Test
+    public void whenReadOnlyTransaction_thenReplicasUsedInTurn() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        Replica selected = this.dataSource.selectReplica();
+        Assert.assertNotNull(selected);
+        Assert.assertNotSame(selected, this.dataSource.selectReplica());
+    }
+
+    @Test
+    public void whenWriteTransactionOrPinned_thenPrimaryUsed() throws SQLException {
+        Assert.assertSame(this.primaryConnection, this.dataSource.routeConnection());
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        ReplicaRoutingDataSource.pinToPrimary();
+        Assert.assertSame(this.primaryConnection, this.dataSource.routeConnection());
+    }
+
+    @Test
+    public void whenReplicasUnhealthy_thenPrimaryUsed() throws SQLException {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        this.first.setHealthy(false);
+        Assert.assertSame(this.second, this.dataSource.selectReplica());
+        Mockito.when(this.second.getDataSource().getConnection()).thenThrow(new SQLException("connection refused"));
+        Assert.assertSame(this.primaryConnection, this.dataSource.routeConnection());
+        Assert.assertFalse(this.second.isHealthy());
+        Assert.assertNull(this.dataSource.selectReplica());
+    }
+}
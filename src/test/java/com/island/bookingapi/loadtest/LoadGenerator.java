@@ -0,0 +1,207 @@
+package com.island.bookingapi.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-loop load generator for the booking API.
+ * <p>
+ * Requests arrive following a Poisson process at the configured rate regardless of how fast the
+ * API answers, at most {@code concurrency} are in flight and the rest wait in the queue. Latency
+ * is measured from the time a request was due, so a slow API shows up in the percentiles instead
+ * of lowering the offered load.
+ * <p>
+ * Can also be pointed to a running instance: {@code java ... LoadGenerator http://localhost:8080}
+ */
+public class LoadGenerator {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LoadGenerator.class);
+    private static final int MAX_STAY = 3;
+    private static final int BOOKING_ANTICIPATION_DAYS = 30;
+
+    private final String baseUrl;
+    private final LoadProfile profile;
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper;
+    private final ConcurrentLinkedQueue<BookedStay> bookedStays = new ConcurrentLinkedQueue<>();
+
+    public LoadGenerator(String baseUrl, LoadProfile profile) {
+        this.baseUrl = baseUrl;
+        this.profile = profile;
+        this.httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+        this.objectMapper = new ObjectMapper();
+        this.objectMapper.registerModule(new JavaTimeModule());
+        this.objectMapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    }
+
+    public static void main(String[] args) throws InterruptedException, IOException {
+        LoadGenerator loadGenerator = new LoadGenerator(args.length > 0 ? args[0] : "http://localhost:8080", LoadProfile.fromSystemProperties());
+        loadGenerator.writeReport(loadGenerator.run(), Paths.get("target", "loadtest-report.json"));
+    }
+
+    /**
+     * Runs the load for the duration of the profile and waits for the requests in flight
+     *
+     * @return LoadReport
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public LoadReport run() throws InterruptedException {
+        LOGGER.info("Starting load against {}: {}", this.baseUrl, this.profile);
+        LoadReport report = new LoadReport();
+        Random random = new Random(this.profile.getSeed());
+        ExecutorService workers = Executors.newFixedThreadPool(this.profile.getConcurrency());
+        long start = System.nanoTime();
+        long end = start + this.profile.getDuration().toNanos();
+        long intendedStart = start;
+        while (intendedStart < end) {
+            long wait = intendedStart - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            LoadOperation operation = this.profile.pick(random.nextDouble());
+            long seed = random.nextLong();
+            long dueAt = intendedStart;
+            workers.execute(() -> this.execute(operation, new Random(seed), dueAt, report));
+            intendedStart += (long) (-Math.log(1 - random.nextDouble()) / this.profile.getArrivalRatePerSecond() * 1e9);
+        }
+        workers.shutdown();
+        workers.awaitTermination(1, TimeUnit.MINUTES);
+        report.finish(System.nanoTime() - start);
+        LOGGER.info("Load finished{}{}", System.lineSeparator(), report);
+        return report;
+    }
+
+    public void writeReport(LoadReport report, Path path) throws IOException {
+        Files.createDirectories(path.toAbsolutePath().getParent());
+        Map<String, Object> content = report.toMap();
+        content.put("profile", this.profile.toString());
+        this.objectMapper.writerWithDefaultPrettyPrinter().writeValue(path.toFile(), content);
+    }
+
+    private void execute(LoadOperation operation, Random random, long dueAt, LoadReport report) {
+        LoadOutcome outcome;
+        try {
+            outcome = this.send(operation, random);
+        } catch (IOException e) {
+            outcome = LoadOutcome.ERROR;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        report.record(operation, outcome, System.nanoTime() - dueAt);
+    }
+
+    private LoadOutcome send(LoadOperation operation, Random random) throws IOException, InterruptedException {
+        LocalDate tomorrow = LocalDate.now().plusDays(1);
+        switch (operation) {
+            case CREATE: {
+                LocalDate arrival = tomorrow.plusDays(random.nextInt(BOOKING_ANTICIPATION_DAYS - 1));
+                return this.create(arrival, arrival.plusDays(1 + random.nextInt(MAX_STAY)), random);
+            }
+            case BURST_CREATE: {
+                LocalDate arrival = LocalDate.now().plusDays(BOOKING_ANTICIPATION_DAYS - random.nextInt(2));
+                return this.create(arrival, arrival.plusDays(1 + random.nextInt(2)), random);
+            }
+            case UPDATE: {
+                BookedStay stay = this.bookedStays.poll();
+                if (stay == null) {
+                    return this.availability(tomorrow, random);
+                }
+                int shift = stay.arrivalDate.isBefore(LocalDate.now().plusDays(BOOKING_ANTICIPATION_DAYS)) ? 1 : -1;
+                BookedStay moved = new BookedStay(stay.id, stay.arrivalDate.plusDays(shift), stay.departureDate.plusDays(shift));
+                String body = this.objectMapper.writeValueAsString(Map.of("arrivalDate", moved.arrivalDate, "departureDate", moved.departureDate));
+                HttpResponse<String> response = this.httpClient.send(this.request("/booking/" + stay.id)
+                        .method("PATCH", HttpRequest.BodyPublishers.ofString(body)).build(), HttpResponse.BodyHandlers.ofString());
+                this.bookedStays.add(response.statusCode() == 200 ? moved : stay);
+                return this.outcome(response);
+            }
+            case CANCEL: {
+                BookedStay stay = this.bookedStays.poll();
+                if (stay == null) {
+                    return this.availability(tomorrow, random);
+                }
+                HttpResponse<String> response = this.httpClient.send(this.request("/booking/" + stay.id).DELETE().build(),
+                        HttpResponse.BodyHandlers.ofString());
+                return this.outcome(response);
+            }
+            default:
+                return this.availability(tomorrow, random);
+        }
+    }
+
+    private LoadOutcome availability(LocalDate tomorrow, Random random) throws IOException, InterruptedException {
+        String path = "/availability";
+        if (random.nextBoolean()) {
+            LocalDate from = tomorrow.plusDays(random.nextInt(BOOKING_ANTICIPATION_DAYS));
+            path = String.format("/availability?from=%s&to=%s", from, from.plusDays(random.nextInt(BOOKING_ANTICIPATION_DAYS)));
+        }
+        return this.outcome(this.httpClient.send(this.request(path).GET().build(), HttpResponse.BodyHandlers.ofString()));
+    }
+
+    private LoadOutcome create(LocalDate arrival, LocalDate departure, Random random) throws IOException, InterruptedException {
+        String body = this.objectMapper.writeValueAsString(Map.of("userName", "Load Test " + random.nextInt(1000),
+                "userEmail", "load" + random.nextInt(1000) + "@island.test", "arrivalDate", arrival, "departureDate", departure));
+        HttpResponse<String> response = this.httpClient.send(this.request("/booking").POST(HttpRequest.BodyPublishers.ofString(body)).build(),
+                HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() == 201) {
+            JsonNode created = this.objectMapper.readTree(response.body());
+            this.bookedStays.add(new BookedStay(created.get("bookingId").asLong(), arrival, departure));
+        }
+        return this.outcome(response);
+    }
+
+    private HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(URI.create(this.baseUrl + path)).timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/json").header("Accept", "application/json");
+    }
+
+    /**
+     * Booked days are reported as 400 when the check finds them and as 500 when the unique
+     * constraint of the calendar catches a concurrent booking, both count as conflicts
+     */
+    private LoadOutcome outcome(HttpResponse<String> response) {
+        int status = response.statusCode();
+        if (status >= 200 && status < 300) {
+            return LoadOutcome.SUCCESS;
+        }
+        String body = response.body();
+        if (body != null && (body.contains("not available") || body.contains("constraint"))) {
+            return LoadOutcome.CONFLICT;
+        }
+        return LoadOutcome.ERROR;
+    }
+
+    private static class BookedStay {
+        private final long id;
+        private final LocalDate arrivalDate;
+        private final LocalDate departureDate;
+
+        BookedStay(long id, LocalDate arrivalDate, LocalDate departureDate) {
+            this.id = id;
+            this.arrivalDate = arrivalDate;
+            this.departureDate = departureDate;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.island.bookingapi.loadtest;
+
+public enum LoadOperation {
+    /**
+     * GET /availability for a random range of the bookable window
+     */
+    AVAILABILITY,
+    /**
+     * POST /booking for random days of the bookable window
+     */
+    CREATE,
+    /**
+     * POST /booking for the days just released at the end of the bookable window
+     */
+    BURST_CREATE,
+    /**
+     * PATCH /booking moving a booking created by the run one day later
+     */
+    UPDATE,
+    /**
+     * DELETE /booking of a booking created by the run
+     */
+    CANCEL
+}
@@ -0,0 +1,10 @@
+package com.island.bookingapi.loadtest;
+
+public enum LoadOutcome {
+    SUCCESS,
+    /**
+     * The days asked were already booked
+     */
+    CONFLICT,
+    ERROR
+}
@@ -0,0 +1,67 @@
+package com.island.bookingapi.loadtest;
+
+import lombok.Getter;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Shape of the load: open-loop arrival rate, maximum requests in flight, duration and operation mix.
+ * Every value can be overridden with a system property, e.g. -Dloadtest.rate=200 -Dloadtest.mix.BURST_CREATE=20
+ */
+@Getter
+public class LoadProfile {
+
+    private final double arrivalRatePerSecond;
+    private final int concurrency;
+    private final Duration duration;
+    private final Map<LoadOperation, Integer> mix;
+    private final long seed;
+
+    public LoadProfile(double arrivalRatePerSecond, int concurrency, Duration duration, Map<LoadOperation, Integer> mix, long seed) {
+        this.arrivalRatePerSecond = arrivalRatePerSecond;
+        this.concurrency = concurrency;
+        this.duration = duration;
+        this.mix = mix;
+        this.seed = seed;
+    }
+
+    public static LoadProfile fromSystemProperties() {
+        Map<LoadOperation, Integer> mix = new EnumMap<>(LoadOperation.class);
+        mix.put(LoadOperation.AVAILABILITY, Integer.getInteger("loadtest.mix.AVAILABILITY", 80));
+        mix.put(LoadOperation.CREATE, Integer.getInteger("loadtest.mix.CREATE", 6));
+        mix.put(LoadOperation.BURST_CREATE, Integer.getInteger("loadtest.mix.BURST_CREATE", 8));
+        mix.put(LoadOperation.UPDATE, Integer.getInteger("loadtest.mix.UPDATE", 3));
+        mix.put(LoadOperation.CANCEL, Integer.getInteger("loadtest.mix.CANCEL", 3));
+        return new LoadProfile(Double.parseDouble(System.getProperty("loadtest.rate", "100")),
+                Integer.getInteger("loadtest.concurrency", 32),
+                Duration.ofSeconds(Long.getLong("loadtest.duration-seconds", 30L)), mix,
+                Long.getLong("loadtest.seed", 42L));
+    }
+
+    /**
+     * Picks an operation following the weights of the mix
+     *
+     * @param random uniform value in [0, 1)
+     * @return LoadOperation
+     */
+    public LoadOperation pick(double random) {
+        int total = this.mix.values().stream().mapToInt(Integer::intValue).sum();
+        double target = random * total;
+        int accumulated = 0;
+        for (Map.Entry<LoadOperation, Integer> entry : this.mix.entrySet()) {
+            accumulated += entry.getValue();
+            if (target < accumulated) {
+                return entry.getKey();
+            }
+        }
+        return LoadOperation.AVAILABILITY;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("rate=%.1f/s concurrency=%d duration=%ss mix=%s", this.arrivalRatePerSecond, this.concurrency,
+                this.duration.getSeconds(), this.mix);
+    }
+}
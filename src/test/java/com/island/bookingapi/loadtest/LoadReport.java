@@ -0,0 +1,107 @@
+package com.island.bookingapi.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histograms (from the intended start of each request, so queueing is included) and
+ * outcome counters per operation.
+ */
+public class LoadReport {
+
+    private final Map<LoadOperation, Histogram> latencies = new EnumMap<>(LoadOperation.class);
+    private final Map<LoadOperation, LongAdder> successes = new EnumMap<>(LoadOperation.class);
+    private final Map<LoadOperation, LongAdder> conflicts = new EnumMap<>(LoadOperation.class);
+    private final Map<LoadOperation, LongAdder> errors = new EnumMap<>(LoadOperation.class);
+    private volatile long elapsedNanos;
+
+    public LoadReport() {
+        for (LoadOperation operation : LoadOperation.values()) {
+            this.latencies.put(operation, new ConcurrentHistogram(TimeUnit.MINUTES.toMicros(1), 3));
+            this.successes.put(operation, new LongAdder());
+            this.conflicts.put(operation, new LongAdder());
+            this.errors.put(operation, new LongAdder());
+        }
+    }
+
+    void record(LoadOperation operation, LoadOutcome outcome, long latencyNanos) {
+        this.latencies.get(operation).recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(latencyNanos), TimeUnit.MINUTES.toMicros(1)));
+        switch (outcome) {
+            case SUCCESS:
+                this.successes.get(operation).increment();
+                break;
+            case CONFLICT:
+                this.conflicts.get(operation).increment();
+                break;
+            default:
+                this.errors.get(operation).increment();
+        }
+    }
+
+    void finish(long elapsedNanos) {
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public long getTotalRequests() {
+        return this.latencies.values().stream().mapToLong(Histogram::getTotalCount).sum();
+    }
+
+    public long getErrors() {
+        return this.errors.values().stream().mapToLong(LongAdder::sum).sum();
+    }
+
+    public double getThroughput() {
+        return this.getTotalRequests() / (this.elapsedNanos / 1e9);
+    }
+
+    /**
+     * @return summary per operation, latencies in milliseconds
+     */
+    public Map<String, Object> toMap() {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("elapsedSeconds", this.elapsedNanos / 1e9);
+        report.put("requests", this.getTotalRequests());
+        report.put("throughputPerSecond", this.getThroughput());
+        Map<String, Object> operations = new LinkedHashMap<>();
+        for (LoadOperation operation : LoadOperation.values()) {
+            Histogram histogram = this.latencies.get(operation);
+            long count = histogram.getTotalCount();
+            Map<String, Object> summary = new LinkedHashMap<>();
+            summary.put("requests", count);
+            summary.put("successes", this.successes.get(operation).sum());
+            summary.put("conflicts", this.conflicts.get(operation).sum());
+            summary.put("errors", this.errors.get(operation).sum());
+            summary.put("conflictRate", count == 0 ? 0.0 : (double) this.conflicts.get(operation).sum() / count);
+            summary.put("p50Ms", histogram.getValueAtPercentile(50) / 1000.0);
+            summary.put("p90Ms", histogram.getValueAtPercentile(90) / 1000.0);
+            summary.put("p99Ms", histogram.getValueAtPercentile(99) / 1000.0);
+            summary.put("p999Ms", histogram.getValueAtPercentile(99.9) / 1000.0);
+            summary.put("maxMs", histogram.getMaxValue() / 1000.0);
+            operations.put(operation.name(), summary);
+        }
+        report.put("operations", operations);
+        return report;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder(String.format("%d requests in %.1fs, %.1f req/s%n", this.getTotalRequests(),
+                this.elapsedNanos / 1e9, this.getThroughput()));
+        builder.append(String.format("%-13s %8s %8s %9s %7s %9s %9s %9s %9s%n", "operation", "requests", "ok", "conflicts",
+                "errors", "p50 ms", "p90 ms", "p99 ms", "max ms"));
+        for (LoadOperation operation : LoadOperation.values()) {
+            Histogram histogram = this.latencies.get(operation);
+            builder.append(String.format("%-13s %8d %8d %9d %7d %9.2f %9.2f %9.2f %9.2f%n", operation, histogram.getTotalCount(),
+                    this.successes.get(operation).sum(), this.conflicts.get(operation).sum(), this.errors.get(operation).sum(),
+                    histogram.getValueAtPercentile(50) / 1000.0, histogram.getValueAtPercentile(90) / 1000.0,
+                    histogram.getValueAtPercentile(99) / 1000.0, histogram.getMaxValue() / 1000.0));
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,38 @@
+package com.island.bookingapi.loadtest;
+
+import database.BookingPostgresqlContainer;
+import org.junit.Assert;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.nio.file.Paths;
+
+/**
+ * Runs the whole application against a Postgres container and replays the load described by
+ * {@link LoadProfile}. Not part of the default test run: ./mvnw -Ploadtest test
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "booking.calendar.snapshot.enabled=true",
+        "booking.calendar.snapshot.path=target/loadtest/calendar.snapshot"})
+public class LoadTestHarness {
+
+    @ClassRule
+    public static PostgreSQLContainer postgreSQLContainer = BookingPostgresqlContainer.getInstance();
+
+    @LocalServerPort
+    private int port;
+
+    @Test
+    public void replayLoadProfile() throws Exception {
+        LoadGenerator loadGenerator = new LoadGenerator("http://localhost:" + this.port, LoadProfile.fromSystemProperties());
+        LoadReport report = loadGenerator.run();
+        loadGenerator.writeReport(report, Paths.get("target", "loadtest-report.json"));
+        Assert.assertTrue(report.getTotalRequests() > 0);
+    }
+}
@@ -0,0 +1,30 @@
+package com.island.bookingapi.metrics;
+
+import com.island.bookingapi.event.BookingChangeType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class BookingMetricsTest {
+
+    @Test
+    public void whenStageRecorded_thenTimerOfOperationAndStageCounts() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        BookingMetrics bookingMetrics = new BookingMetrics(meterRegistry);
+        bookingMetrics.recordStage(BookingChangeType.CREATED, BookingStage.CHECK_DATES, System.nanoTime());
+        Assert.assertEquals(1, meterRegistry.get("booking.stage").tag("operation", "created").tag("stage", "check_dates").timer().count());
+        Assert.assertEquals(0, meterRegistry.get("booking.stage").tag("operation", "updated").tag("stage", "check_dates").timer().count());
+    }
+
+    @Test
+    public void whenErrors_thenCountByType() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        BookingMetrics bookingMetrics = new BookingMetrics(meterRegistry);
+        bookingMetrics.conflict();
+        bookingMetrics.conflict();
+        bookingMetrics.notFound();
+        Assert.assertEquals(2.0, meterRegistry.get("booking.errors").tag("type", "conflict").counter().count(), 0);
+        Assert.assertEquals(1.0, meterRegistry.get("booking.errors").tag("type", "not_found").counter().count(), 0);
+        Assert.assertEquals(0.0, meterRegistry.get("booking.errors").tag("type", "cancelled_booking").counter().count(), 0);
+    }
+}
@@ -0,0 +1,77 @@
+package com.island.bookingapi.occupancy;
+
+import com.island.bookingapi.event.BookingChangeType;
+import com.island.bookingapi.event.BookingChangedEvent;
+import com.island.bookingapi.model.Booking;
+import com.island.bookingapi.model.BookingStatus;
+import com.island.bookingapi.store.BookingStore;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class OccupancyAggregatesTest {
+
+    private static final LocalDate MONTH = LocalDate.now().plusMonths(2).withDayOfMonth(1);
+
+    @Test
+    public void whenLoaded_thenNightsCancellationsAndLeadTimesPerPeriod() {
+        Booking active = this.booking(MONTH.plusDays(1), MONTH.plusDays(4), BookingStatus.ACTIVE);
+        Booking cancelled = this.booking(MONTH.plusDays(10), MONTH.plusDays(12), BookingStatus.CANCELLED);
+        OccupancyAggregates aggregates = this.load(Arrays.asList(active, cancelled));
+
+        OccupancyPeriod month = aggregates.getOccupancy(OccupancyGranularity.MONTH, MONTH, MONTH).get(0);
+        Assert.assertEquals(MONTH, month.getStart());
+        Assert.assertEquals(MONTH.lengthOfMonth(), month.getNights());
+        Assert.assertEquals(3, month.getBookedNights());
+        Assert.assertEquals(1, month.getCancellations());
+        Assert.assertEquals(2, (long) month.getLeadTimeDays().get("30-89"));
+
+        List<OccupancyPeriod> weeks = aggregates.getOccupancy(OccupancyGranularity.WEEK, MONTH, MONTH.plusMonths(1).minusDays(1));
+        Assert.assertEquals(3, weeks.stream().mapToLong(OccupancyPeriod::getBookedNights).sum());
+        Assert.assertEquals(7, weeks.get(0).getNights());
+    }
+
+    @Test
+    public void whenBookingsChange_thenAggregatesFollow() {
+        OccupancyAggregates aggregates = this.load(Collections.emptyList());
+        List<LocalDate> stay = this.nights(MONTH.plusDays(1), MONTH.plusDays(4));
+        List<LocalDate> newStay = this.nights(MONTH.minusDays(1), MONTH.plusDays(1));
+        aggregates.onBookingChanged(new BookingChangedEvent(1L, BookingChangeType.CREATED, Collections.emptyList(), stay));
+        aggregates.onBookingChanged(new BookingChangedEvent(1L, BookingChangeType.UPDATED, stay, newStay));
+
+        List<OccupancyPeriod> months = aggregates.getOccupancy(OccupancyGranularity.MONTH, MONTH.minusMonths(1), MONTH);
+        Assert.assertEquals(1, months.get(0).getBookedNights());
+        Assert.assertEquals(1, months.get(1).getBookedNights());
+        Assert.assertEquals(1, (long) months.get(1).getLeadTimeDays().get("30-89"));
+
+        aggregates.onBookingChanged(new BookingChangedEvent(1L, BookingChangeType.CANCELLED, newStay, Collections.emptyList()));
+        months = aggregates.getOccupancy(OccupancyGranularity.MONTH, MONTH.minusMonths(1), MONTH);
+        Assert.assertEquals(0, months.get(0).getBookedNights() + months.get(1).getBookedNights());
+        Assert.assertEquals(1, months.get(0).getCancellations());
+    }
+
+    private OccupancyAggregates load(List<Booking> bookings) {
+        BookingStore bookingStore = Mockito.mock(BookingStore.class);
+        Mockito.when(bookingStore.findBookingsDepartingFrom(LocalDate.now().withDayOfMonth(1))).thenReturn(bookings);
+        OccupancyAggregates aggregates = new OccupancyAggregates(bookingStore);
+        aggregates.load(LocalDate.now().withDayOfMonth(1));
+        return aggregates;
+    }
+
+    private Booking booking(LocalDate arrivalDate, LocalDate departureDate, BookingStatus status) {
+        Booking booking = new Booking("Pepito", "pepito@gmail.com", arrivalDate, departureDate);
+        booking.setStatus(status.getId());
+        booking.setCreatedAt(LocalDate.now().atStartOfDay());
+        return booking;
+    }
+
+    private List<LocalDate> nights(LocalDate arrivalDate, LocalDate departureDate) {
+        return arrivalDate.datesUntil(departureDate).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,65 @@
+package com.island.bookingapi.outbox;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.island.bookingapi.model.OutboxEvent;
+import com.island.bookingapi.repository.OutboxEventRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class OutboxRelayTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final OutboxEventRepository outboxEventRepository = Mockito.mock(OutboxEventRepository.class);
+
+    @Test
+    public void whenBatchPublished_thenWrittenInOrderAndDeleted() throws IOException {
+        Path file = this.folder.getRoot().toPath().resolve("outbox/events.jsonl");
+        Mockito.when(this.outboxEventRepository.findOldest(ArgumentMatchers.any()))
+                .thenReturn(Arrays.asList(this.event(1L, 7L), this.event(2L, 8L)));
+        OutboxRelay relay = this.relay(new FileOutboxSink(file, new ObjectMapper()));
+
+        Assert.assertEquals(2, relay.relayBatch());
+        List<String> lines = Files.readAllLines(file);
+        Assert.assertEquals(2, lines.size());
+        Assert.assertTrue(lines.get(0).startsWith("{\"id\":1,\"bookingId\":7,\"type\":\"CREATED\""));
+        Mockito.verify(this.outboxEventRepository).deleteByIds(Arrays.asList(1L, 2L));
+    }
+
+    @Test
+    public void whenSinkFails_thenBatchKeptForNextRun() {
+        Mockito.when(this.outboxEventRepository.findOldest(ArgumentMatchers.any()))
+                .thenReturn(Collections.singletonList(this.event(1L, 7L)));
+        OutboxRelay relay = this.relay(events -> {
+            throw new IOException("sink down");
+        });
+
+        relay.relay();
+        Mockito.verify(this.outboxEventRepository, Mockito.never()).deleteByIds(ArgumentMatchers.any());
+    }
+
+    private OutboxRelay relay(OutboxSink sink) {
+        return new OutboxRelay(this.outboxEventRepository, sink, Mockito.mock(PlatformTransactionManager.class),
+                new SimpleMeterRegistry(), 100);
+    }
+
+    private OutboxEvent event(Long id, Long bookingId) {
+        OutboxEvent event = new OutboxEvent(bookingId, "CREATED", "{\"type\":\"CREATED\"}");
+        event.setId(id);
+        return event;
+    }
+}
@@ -0,0 +1,74 @@
+package com.island.bookingapi.quota;
+
+import com.island.bookingapi.exception.QuotaExceededException;
+import com.island.bookingapi.store.BookingStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collections;
+
+public class GuestQuotaTrackerTest {
+
+    @Test
+    public void whenGuestAtQuota_thenReservationRejectedUntilBookingCancelled() {
+        GuestQuotaTracker tracker = this.tracker(2);
+        tracker.rebuild();
+        Assert.assertEquals(1, tracker.getActiveBookings("Pepito@Gmail.com"));
+        tracker.reserve("pepito@gmail.com");
+        Assert.assertThrows(QuotaExceededException.class, () -> tracker.reserve(" PEPITO@gmail.com"));
+        Assert.assertEquals(2, tracker.getActiveBookings("pepito@gmail.com"));
+
+        tracker.releaseOnCommit("pepito@gmail.com");
+        tracker.reserve("pepito@gmail.com");
+    }
+
+    @Test
+    public void whenTransactionRolledBack_thenReservationGivenBack() {
+        GuestQuotaTracker tracker = this.tracker(2);
+        tracker.rebuild();
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            tracker.reserve("pepito@gmail.com");
+            // released on commit only
+            tracker.releaseOnCommit("pepito@gmail.com");
+            Assert.assertEquals(2, tracker.getActiveBookings("pepito@gmail.com"));
+            for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+                synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+            }
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        Assert.assertEquals(1, tracker.getActiveBookings("pepito@gmail.com"));
+    }
+
+    @Test
+    public void whenRebuiltWithReservationInFlight_thenReservationKept() {
+        GuestQuotaTracker tracker = this.tracker(2);
+        tracker.rebuild();
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            tracker.reserve("pepito@gmail.com");
+            tracker.rebuild();
+            Assert.assertEquals(2, tracker.getActiveBookings("pepito@gmail.com"));
+            Assert.assertThrows(QuotaExceededException.class, () -> tracker.reserve("pepito@gmail.com"));
+            for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+                synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+            }
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        Assert.assertEquals(2, tracker.getActiveBookings("pepito@gmail.com"));
+    }
+
+    private GuestQuotaTracker tracker(int maxActiveBookings) {
+        BookingStore bookingStore = Mockito.mock(BookingStore.class);
+        Mockito.when(bookingStore.countActiveBookingsByEmail(ArgumentMatchers.any()))
+                .thenReturn(Collections.singletonMap("pepito@gmail.com", 1));
+        return new GuestQuotaTracker(bookingStore, new SimpleMeterRegistry(), true, maxActiveBookings);
+    }
+}
@@ -0,0 +1,27 @@
+package com.island.bookingapi.quota;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+public class RequestRateLimiterTest {
+
+    @Test
+    public void whenBurstSpent_thenRejectedUntilRefilled() {
+        RequestRateLimiter rateLimiter = new RequestRateLimiter(new SimpleMeterRegistry(), true, 2, 3);
+        long now = 0;
+        for (int i = 0; i < 3; i++) {
+            Assert.assertEquals(0, rateLimiter.tryAcquire("10.0.0.1", now));
+        }
+        long waitNanos = rateLimiter.tryAcquire("10.0.0.1", now);
+        Assert.assertEquals(TimeUnit.MILLISECONDS.toNanos(500), waitNanos);
+        // other clients have their own bucket
+        Assert.assertEquals(0, rateLimiter.tryAcquire("10.0.0.2", now));
+
+        Assert.assertEquals(0, rateLimiter.tryAcquire("10.0.0.1", now + waitNanos));
+        Assert.assertTrue(rateLimiter.tryAcquire("10.0.0.1", now + waitNanos) > 0);
+        Assert.assertEquals(2, rateLimiter.size());
+    }
+}
@@ -0,0 +1,94 @@
+package com.island.bookingapi.reconcile;
+
+import com.island.bookingapi.calendar.CalendarChangeLog;
+import com.island.bookingapi.calendar.EpochDayRange;
+import com.island.bookingapi.event.BookingChangedEvent;
+import com.island.bookingapi.model.BookingStatus;
+import com.island.bookingapi.model.CalendarAvailability;
+import com.island.bookingapi.repository.BlackoutRepository;
+import com.island.bookingapi.repository.BookingRepository;
+import com.island.bookingapi.repository.CalendarAvailableRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class CalendarReconcilerTest {
+
+    private static final LocalDate DAY = LocalDate.now().plusDays(10);
+
+    private final BookingRepository bookingRepository = Mockito.mock(BookingRepository.class);
+    private final CalendarAvailableRepository calendarAvailableRepository = Mockito.mock(CalendarAvailableRepository.class);
+    private final BlackoutRepository blackoutRepository = Mockito.mock(BlackoutRepository.class);
+    private final ApplicationEventPublisher eventPublisher = Mockito.mock(ApplicationEventPublisher.class);
+
+    @Test
+    public void whenCalendarDrifts_thenReported() {
+        this.givenCalendar();
+        CalendarReconciler reconciler = this.reconciler(false);
+
+        reconciler.sweep(DAY, DAY.plusDays(9));
+
+        Assert.assertEquals(1, (int) reconciler.getDrift().get(DriftType.MISSING));
+        Assert.assertEquals(1, (int) reconciler.getDrift().get(DriftType.ORPHANED));
+        Assert.assertEquals(1, (int) reconciler.getDrift().get(DriftType.DOUBLE_BOOKED));
+        Mockito.verify(this.calendarAvailableRepository, Mockito.never()).saveAll(ArgumentMatchers.any());
+        Mockito.verify(this.calendarAvailableRepository, Mockito.never()).deleteByDates(ArgumentMatchers.any());
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void whenRepairing_thenMissingInsertedAndOrphanedDeleted() {
+        this.givenCalendar();
+        CalendarReconciler reconciler = this.reconciler(true);
+
+        reconciler.sweep(DAY, DAY.plusDays(9));
+
+        ArgumentCaptor<List<CalendarAvailability>> inserted = ArgumentCaptor.forClass(List.class);
+        Mockito.verify(this.calendarAvailableRepository).saveAll(inserted.capture());
+        Assert.assertEquals(Collections.singletonList(DAY.plusDays(2)),
+                inserted.getValue().stream().map(CalendarAvailability::getDay).collect(Collectors.toList()));
+        Mockito.verify(this.calendarAvailableRepository).deleteByDates(Collections.singletonList(DAY.plusDays(5)));
+        ArgumentCaptor<BookingChangedEvent> event = ArgumentCaptor.forClass(BookingChangedEvent.class);
+        Mockito.verify(this.eventPublisher).publishEvent(event.capture());
+        Assert.assertEquals(Collections.singletonList(DAY.plusDays(5)), event.getValue().getReleasedDays());
+        Assert.assertEquals(Collections.singletonList(DAY.plusDays(2)), event.getValue().getBookedDays());
+        Assert.assertEquals(0, (int) reconciler.getDrift().get(DriftType.MISSING));
+        Assert.assertEquals(0, (int) reconciler.getDrift().get(DriftType.ORPHANED));
+    }
+
+    @Test
+    public void whenRangesOverlapOrTouch_thenMerged() {
+        EpochDayRange first = EpochDayRange.ofStay(DAY, DAY.plusDays(3));
+        EpochDayRange touching = EpochDayRange.ofStay(DAY.plusDays(3), DAY.plusDays(4));
+        EpochDayRange apart = EpochDayRange.ofStay(DAY.plusDays(6), DAY.plusDays(8));
+        Assert.assertEquals(Arrays.asList(EpochDayRange.ofStay(DAY, DAY.plusDays(4)), apart),
+                CalendarReconciler.merge(Arrays.asList(apart, touching, EpochDayRange.EMPTY, first)));
+    }
+
+    /**
+     * Stays from DAY to DAY + 3 and from DAY + 1 to DAY + 2, calendar rows missing DAY + 2 and with an orphan at DAY + 5
+     */
+    private void givenCalendar() {
+        Mockito.when(this.bookingRepository.findStaysOverlapping(ArgumentMatchers.eq(BookingStatus.ACTIVE.getId()), ArgumentMatchers.any(),
+                ArgumentMatchers.any())).thenReturn(Arrays.asList(new Object[]{DAY, DAY.plusDays(3)}, new Object[]{DAY.plusDays(1), DAY.plusDays(2)}));
+        Mockito.when(this.calendarAvailableRepository.getBookedDates(ArgumentMatchers.any(), ArgumentMatchers.any()))
+                .thenReturn(Arrays.asList(DAY, DAY.plusDays(1), DAY.plusDays(5)));
+    }
+
+    private CalendarReconciler reconciler(boolean repair) {
+        return new CalendarReconciler(this.bookingRepository, this.calendarAvailableRepository,
+                Mockito.mock(CalendarChangeLog.class), this.blackoutRepository, this.eventPublisher,
+                Mockito.mock(PlatformTransactionManager.class), new SimpleMeterRegistry(), repair, 31, 500, 400, 1_000_000, 10, 0);
+    }
+}
@@ -1,11 +1,15 @@
 package com.island.bookingapi.service;
 
 
+import com.island.bookingapi.repository.ArchivedBookingRepository;
 import com.island.bookingapi.repository.BookingRepository;
 import com.island.bookingapi.repository.CalendarAvailableRepository;
+import com.island.bookingapi.repository.CalendarChangeRepository;
+import com.island.bookingapi.request.AvailabilityRangeRequest;
 import org.junit.Assert;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentMatchers;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
@@ -31,6 +35,12 @@ public class AvailabilityServiceTest {
     @MockBean
     private CalendarAvailableRepository calendarAvailableRepository;
 
+    @MockBean
+    private ArchivedBookingRepository archivedBookingRepository;
+
+    @MockBean
+    private CalendarChangeRepository calendarChangeRepository;
+
     @Autowired
     private AvailabilityService availabilityService;
 
@@ -58,5 +68,18 @@ public class AvailabilityServiceTest {
         Assert.assertEquals(availableDatesResponse, availableDates);
     }
 
+    @Test
+    public void whenManyRanges_thenBookedDaysReadOnceForTheSpan() {
+        LocalDate day = LocalDate.now().plusDays(1);
+        Mockito.when(this.calendarAvailableRepository.getBookedDates(day, day.plusDays(20)))
+                .thenReturn(Arrays.asList(day.plusDays(2), day.plusDays(15)));
+        List<List<LocalDate>> availableDates = this.availabilityService.getAvailableDates(Arrays.asList(
+                new AvailabilityRangeRequest(day.plusDays(10), day.plusDays(20)),
+                new AvailabilityRangeRequest(day, day.plusDays(3))));
+        Assert.assertEquals(10, availableDates.get(0).size());
+        Assert.assertFalse(availableDates.get(0).contains(day.plusDays(15)));
+        Assert.assertEquals(Arrays.asList(day, day.plusDays(1), day.plusDays(3)), availableDates.get(1));
+        Mockito.verify(this.calendarAvailableRepository, Mockito.times(1)).getBookedDates(ArgumentMatchers.any(), ArgumentMatchers.any());
+    }
 
 }
@@ -3,12 +3,16 @@ package com.island.bookingapi.service;
 import com.island.bookingapi.exception.BookingNotFoundException;
 import com.island.bookingapi.exception.CancelledBookingException;
 import com.island.bookingapi.exception.UnavailableDatesException;
+import com.island.bookingapi.model.ArchivedBooking;
 import com.island.bookingapi.model.Booking;
 import com.island.bookingapi.model.BookingStatus;
+import com.island.bookingapi.repository.ArchivedBookingRepository;
 import com.island.bookingapi.repository.BookingRepository;
 import com.island.bookingapi.repository.CalendarAvailableRepository;
+import com.island.bookingapi.repository.CalendarChangeRepository;
 import com.island.bookingapi.request.CreateBookingControllerRequest;
 import com.island.bookingapi.request.UpdateBookingControllerRequest;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.junit.Assert;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -36,9 +40,18 @@ public class BookingServiceTest {
     @MockBean
     private CalendarAvailableRepository calendarAvailableRepository;
 
+    @MockBean
+    private ArchivedBookingRepository archivedBookingRepository;
+
+    @MockBean
+    private CalendarChangeRepository calendarChangeRepository;
+
     @Autowired
     private BookingService bookingService;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
 
     @Test
     public void whenUnavailableDates_thenBookingServiceShouldFail() {
@@ -71,6 +84,7 @@ public class BookingServiceTest {
         Assert.assertEquals(b.getArrivalDate(), arrivalDate);
         Assert.assertEquals(b.getDepartureDate(), departureDate);
         Assert.assertEquals(b.getStatus(), BookingStatus.ACTIVE.getId());
+        Assert.assertTrue(this.meterRegistry.get("booking.stage").tag("operation", "created").tag("stage", "validation").timer().count() > 0);
     }
 
 
@@ -100,6 +114,22 @@ public class BookingServiceTest {
     }
 
 
+    @Test
+    public void whenBookingArchived_thenBookingServiceGetsItFromArchive() {
+        long bookingId = 4;
+        ArchivedBooking archivedBooking = new ArchivedBooking();
+        archivedBooking.setId(bookingId);
+        archivedBooking.setUserName("Pepito");
+        archivedBooking.setArrivalDate(LocalDate.now().minusDays(60));
+        archivedBooking.setDepartureDate(LocalDate.now().minusDays(58));
+        archivedBooking.setStatus(BookingStatus.ACTIVE.getId());
+        Mockito.when(this.archivedBookingRepository.findById(bookingId)).thenReturn(Optional.of(archivedBooking));
+        Booking booking = this.bookingService.getBookingById(bookingId);
+        Assert.assertEquals(Long.valueOf(bookingId), booking.getId());
+        Assert.assertEquals("Pepito", booking.getUserName());
+        Assert.assertThrows(BookingNotFoundException.class, () -> this.bookingService.cancelBooking(bookingId));
+    }
+
     @Test
     public void whenUpdateNonExistentBooking_thenBookingServiceShouldFail() {
         long bookingId = 2;
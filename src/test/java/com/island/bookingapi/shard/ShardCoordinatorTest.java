@@ -0,0 +1,90 @@
+package com.island.bookingapi.shard;
+
+import com.island.bookingapi.calendar.CalendarIndex;
+import com.island.bookingapi.dto.ShardClaimDTO;
+import com.island.bookingapi.request.ShardClaimRequest;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+public class ShardCoordinatorTest {
+
+    private static final LocalDate NIGHT = LocalDate.now().plusDays(10);
+    private static final String OWNER = "http://other:8080";
+
+    private final ShardLeaseManager leaseManager = Mockito.mock(ShardLeaseManager.class);
+    private final RestTemplate restTemplate = Mockito.mock(RestTemplate.class);
+
+    @Test
+    public void whenOwnedShard_thenDecidedInMemory() {
+        Mockito.when(this.leaseManager.owns(ArgumentMatchers.anyInt())).thenReturn(true);
+        CalendarIndex index = this.loadedIndex(NIGHT.plusDays(5));
+        ShardClaims claims = new ShardClaims(this.leaseManager, index, 10000, 2000);
+        ShardCoordinator coordinator = this.coordinator(claims);
+
+        Assert.assertEquals(Optional.of(Collections.emptyList()), coordinator.claim(Arrays.asList(NIGHT, NIGHT.plusDays(1))));
+        Assert.assertEquals(Optional.of(Collections.singletonList(NIGHT.plusDays(1))),
+                coordinator.claim(Arrays.asList(NIGHT.plusDays(1), NIGHT.plusDays(2))));
+        Assert.assertEquals(Optional.of(Collections.singletonList(NIGHT.plusDays(5))), coordinator.claim(Collections.singletonList(NIGHT.plusDays(5))));
+        // without a transaction the claim completes committed right away and is held for committed-hold-ms
+        claims.evictExpired();
+        Assert.assertEquals(2, claims.size());
+    }
+
+    @Test
+    public void whenCommittedHoldOver_thenNightsLeftToTheIndex() {
+        Mockito.when(this.leaseManager.owns(ArgumentMatchers.anyInt())).thenReturn(true);
+        ShardClaims claims = new ShardClaims(this.leaseManager, this.loadedIndex(), 10000, 0);
+        ShardCoordinator coordinator = this.coordinator(claims);
+
+        Assert.assertEquals(Optional.of(Collections.emptyList()), coordinator.claim(Collections.singletonList(NIGHT)));
+        claims.evictExpired();
+        Assert.assertEquals(0, claims.size());
+        Assert.assertEquals(Optional.of(Collections.emptyList()), coordinator.claim(Collections.singletonList(NIGHT)));
+    }
+
+    @Test
+    public void whenRemoteOwnerRefuses_thenLocalClaimGivenBack() {
+        LocalDate remoteNight = NIGHT.plusDays(1);
+        Mockito.when(this.leaseManager.shardOf(ArgumentMatchers.any())).thenAnswer(call -> call.getArgument(0).equals(remoteNight) ? 1 : 0);
+        Mockito.when(this.leaseManager.owns(0)).thenReturn(true);
+        Mockito.when(this.leaseManager.getOwnerUrl(1)).thenReturn(Optional.of(OWNER));
+        ShardClaims claims = new ShardClaims(this.leaseManager, this.loadedIndex(), 10000, 2000);
+        ShardCoordinator coordinator = this.coordinator(claims);
+        List<LocalDate> stay = Arrays.asList(NIGHT, remoteNight);
+
+        Mockito.when(this.restTemplate.postForObject(ArgumentMatchers.eq(OWNER + ShardCoordinator.CLAIMS_PATH),
+                ArgumentMatchers.any(ShardClaimRequest.class), ArgumentMatchers.eq(ShardClaimDTO.class)))
+                .thenReturn(new ShardClaimDTO("id", Collections.singletonList(remoteNight)));
+        Assert.assertEquals(Optional.of(Collections.singletonList(remoteNight)), coordinator.claim(stay));
+        Assert.assertEquals(0, claims.size());
+
+        Mockito.when(this.restTemplate.postForObject(ArgumentMatchers.anyString(), ArgumentMatchers.any(), ArgumentMatchers.eq(ShardClaimDTO.class)))
+                .thenThrow(new ResourceAccessException("Connection refused"));
+        Assert.assertEquals(Optional.empty(), coordinator.claim(stay));
+        Assert.assertEquals(0, claims.size());
+    }
+
+    private ShardCoordinator coordinator(ShardClaims claims) {
+        RestTemplateBuilder builder = Mockito.mock(RestTemplateBuilder.class, Mockito.RETURNS_SELF);
+        Mockito.when(builder.build()).thenReturn(this.restTemplate);
+        return new ShardCoordinator(this.leaseManager, claims, builder, 200, "secret");
+    }
+
+    private CalendarIndex loadedIndex(LocalDate... bookedDays) {
+        CalendarIndex index = new CalendarIndex();
+        index.beginLoad();
+        index.completeLoad(CalendarIndex.bitmapOf(Arrays.asList(bookedDays)));
+        return index;
+    }
+}
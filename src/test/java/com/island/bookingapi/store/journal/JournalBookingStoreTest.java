@@ -0,0 +1,87 @@
+package com.island.bookingapi.store.journal;
+
+import com.island.bookingapi.model.Booking;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+
+public class JournalBookingStoreTest {
+
+    private static final int SEGMENT_SIZE = 64 * 1024;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void whenReopened_thenStateReplayedFromJournal() throws IOException {
+        Path directory = this.folder.getRoot().toPath();
+        LocalDate day = LocalDate.now().plusDays(3);
+        JournalBookingStore store = this.open(directory);
+        store.bookDays(Arrays.asList(day, day.plusDays(1)));
+        Booking booking = store.saveBooking(new Booking("Pepito", "pepito@gmail.com", day, day.plusDays(2)));
+        store.releaseDays(Collections.singletonList(day.plusDays(1)));
+        // not closed, as after a crash the state comes only from the journal
+
+        JournalBookingStore reopened = this.open(directory);
+        Assert.assertEquals(Collections.singletonList(day), reopened.getBookedDates(day, day.plusDays(5)));
+        Assert.assertEquals("Pepito", reopened.findBookingById(booking.getId()).get().getUserName());
+        Booking next = reopened.saveBooking(new Booking("Otro", "otro@gmail.com", day, day.plusDays(1)));
+        Assert.assertEquals(booking.getId() + 1, (long) next.getId());
+        reopened.close();
+    }
+
+    @Test
+    public void whenCompacted_thenReopenedFromSnapshotAndSegmentsDropped() throws IOException {
+        Path directory = this.folder.getRoot().toPath();
+        LocalDate day = LocalDate.now().plusDays(3);
+        JournalBookingStore store = this.open(directory);
+        // enough records to roll several segments
+        for (int i = 0; i < 2000; i++) {
+            store.bookDays(Collections.singletonList(day.plusDays(i)));
+        }
+        store.compact();
+        store.releaseDays(Collections.singletonList(day));
+        Assert.assertEquals(1, directory.toFile().list((dir, name) -> name.startsWith("snapshot-")).length);
+        Assert.assertEquals(1, directory.toFile().list((dir, name) -> name.startsWith("segment-")).length);
+
+        JournalBookingStore reopened = this.open(directory);
+        Assert.assertEquals(1999, reopened.getBookedDates(day, day.plusDays(2000)).size());
+        reopened.close();
+    }
+
+    @Test
+    public void whenDayAlreadyBooked_thenConstraintViolatedAndTransactionRolledBack() throws IOException {
+        LocalDate day = LocalDate.now().plusDays(3);
+        JournalBookingStore store = this.open(this.folder.getRoot().toPath());
+        store.bookDays(Collections.singletonList(day));
+        TransactionTemplate transactionTemplate = new TransactionTemplate(new JournalTransactionManager(store));
+        Assert.assertThrows(DataIntegrityViolationException.class, () -> transactionTemplate.executeWithoutResult(status -> {
+            store.bookDays(Collections.singletonList(day.plusDays(1)));
+            store.bookDays(Collections.singletonList(day));
+        }));
+        Assert.assertEquals(Collections.singletonList(day), store.getBookedDates(day, day.plusDays(1)));
+
+        transactionTemplate.executeWithoutResult(status -> {
+            store.releaseDays(Collections.singletonList(day));
+            store.bookDays(Arrays.asList(day, day.plusDays(1)));
+            Assert.assertEquals(2, store.getBookedDates(day, day.plusDays(1)).size());
+        });
+        Assert.assertEquals(Arrays.asList(day, day.plusDays(1)), store.getOrderedBookedDates(day, day.plusDays(1)));
+        store.close();
+    }
+
+    private JournalBookingStore open(Path directory) throws IOException {
+        JournalBookingStore store = new JournalBookingStore(directory, SEGMENT_SIZE, true);
+        store.open();
+        return store;
+    }
+}
@@ -0,0 +1,103 @@
+package com.island.bookingapi.waitingroom;
+
+import com.island.bookingapi.contention.DayContention;
+import com.island.bookingapi.contention.DayContentionTracker;
+import com.island.bookingapi.exception.WaitingRoomException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+public class WaitingRoomTest {
+
+    private static final LocalDate HOT_DAY = LocalDate.now().plusDays(5);
+
+    private int clients = 1;
+
+    @Test
+    public void whenReleasedOrHotDay_thenGated() {
+        WaitingRoom waitingRoom = this.waitingRoom();
+        LocalDate today = LocalDate.now();
+        LocalDate released = today.plusDays(30);
+        Assert.assertTrue(waitingRoom.isGated(released.minusDays(1), released.plusDays(1), today.atTime(0, 5)));
+        Assert.assertFalse(waitingRoom.isGated(released.minusDays(1), released.plusDays(1), today.atTime(12, 0)));
+        Assert.assertFalse(waitingRoom.isGated(released.minusDays(2), released, today.atTime(0, 5)));
+        Assert.assertTrue(waitingRoom.isGated(HOT_DAY, HOT_DAY.plusDays(1), today.atTime(12, 0)));
+        Assert.assertFalse(waitingRoom.isGated(HOT_DAY.plusDays(1), HOT_DAY.plusDays(2), today.atTime(12, 0)));
+    }
+
+    @Test
+    public void whenQueued_thenAdmittedInOrderOnce() {
+        WaitingRoom waitingRoom = this.waitingRoom();
+        long start = System.nanoTime();
+        waitingRoom.advance(start);
+        TicketStatus first = this.queue(waitingRoom, null);
+        TicketStatus second = this.queue(waitingRoom, null);
+        Assert.assertEquals(1, first.getPosition());
+        Assert.assertEquals(2, second.getPosition());
+        Assert.assertEquals(1, this.queue(waitingRoom, first.getTicket()).getPosition());
+        // one ticket per client
+        Assert.assertEquals(second.getTicket(), this.queue(waitingRoom, null, "10.0.0.2").getTicket());
+
+        // 10 per second, one admitted after 100 ms
+        waitingRoom.advance(start + TimeUnit.MILLISECONDS.toNanos(100));
+        Assert.assertTrue(waitingRoom.getStatus(first.getTicket()).get().isAdmitted());
+        Assert.assertFalse(waitingRoom.getStatus(second.getTicket()).get().isAdmitted());
+        Assert.assertThrows(IllegalStateException.class, () -> waitingRoom.admit(HOT_DAY, HOT_DAY.plusDays(1), first.getTicket(),
+                "10.0.0.1", () -> {
+                    throw new IllegalStateException("Booking failed");
+                }));
+        Assert.assertEquals("booked", waitingRoom.admit(HOT_DAY, HOT_DAY.plusDays(1), first.getTicket(), "10.0.0.1", () -> "booked"));
+        Assert.assertEquals(2, this.queue(waitingRoom, first.getTicket()).getPosition());
+    }
+
+    @Test
+    public void whenTicketTampered_thenRejected() {
+        WaitingRoom waitingRoom = this.waitingRoom();
+        String ticket = this.queue(waitingRoom, null).getTicket();
+        Assert.assertTrue(waitingRoom.getStatus(ticket).isPresent());
+        String tampered = (ticket.charAt(0) == 'A' ? 'B' : 'A') + ticket.substring(1);
+        Assert.assertFalse(waitingRoom.getStatus(tampered).isPresent());
+        Assert.assertFalse(waitingRoom.getStatus("not-a-ticket").isPresent());
+    }
+
+    @Test
+    public void whenTicketFromAnotherInstance_thenQueuedAtItsIssueTime() throws InterruptedException {
+        WaitingRoom issuing = this.waitingRoom();
+        WaitingRoom waitingRoom = this.waitingRoom();
+        TicketStatus foreign = this.queue(issuing, null);
+        Thread.sleep(2);
+        TicketStatus local = this.queue(waitingRoom, null);
+        Assert.assertEquals(1, this.queue(waitingRoom, foreign.getTicket()).getPosition());
+        Assert.assertEquals(2, this.queue(waitingRoom, local.getTicket()).getPosition());
+        Assert.assertThrows(IllegalStateException.class, () -> new WaitingRoom(Mockito.mock(DayContentionTracker.class),
+                new SimpleMeterRegistry(), true, 10, 15, 120, 900, ""));
+    }
+
+    private TicketStatus queue(WaitingRoom waitingRoom, String ticket) {
+        return this.queue(waitingRoom, ticket, ticket == null ? "10.0.0." + this.clients++ : "10.0.0.0");
+    }
+
+    private TicketStatus queue(WaitingRoom waitingRoom, String ticket, String client) {
+        try {
+            waitingRoom.admit(HOT_DAY, HOT_DAY.plusDays(1), ticket, client, () -> "booked");
+        } catch (WaitingRoomException e) {
+            return e.getTicketStatus();
+        }
+        throw new AssertionError("Booking not queued");
+    }
+
+    private WaitingRoom waitingRoom() {
+        DayContentionTracker contentionTracker = Mockito.mock(DayContentionTracker.class);
+        Mockito.when(contentionTracker.getHeatmap(ArgumentMatchers.any(), ArgumentMatchers.any()))
+                .thenReturn(Collections.singletonList(new DayContention(HOT_DAY, 1000, 10, 900, 300, 2, 250)));
+        WaitingRoom waitingRoom = new WaitingRoom(contentionTracker, new SimpleMeterRegistry(), true, 10, 15, 120, 900, "secret");
+        waitingRoom.refreshHotDays();
+        return waitingRoom;
+    }
+}
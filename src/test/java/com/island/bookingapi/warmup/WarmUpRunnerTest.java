@@ -0,0 +1,140 @@
+package com.island.bookingapi.warmup;
+
+import com.fasterxml.jackson.module.paramnames.ParameterNamesModule;
+import com.island.bookingapi.calendar.EpochDayRange;
+import com.island.bookingapi.contention.DayContentionTracker;
+import com.island.bookingapi.model.Booking;
+import com.island.bookingapi.quota.GuestQuotaTracker;
+import com.island.bookingapi.request.CreateBookingControllerRequest;
+import com.island.bookingapi.service.AvailabilityService;
+import com.island.bookingapi.service.BookingService;
+import com.island.bookingapi.store.BookingStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+
+import javax.validation.Validation;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+public class WarmUpRunnerTest {
+
+    private static final LocalDate DAY = LocalDate.now().plusDays(1);
+
+    private final AvailabilityService availabilityService = Mockito.mock(AvailabilityService.class);
+    private final BookingService bookingService = Mockito.mock(BookingService.class);
+    private final RecordingTransactionManager transactionManager = new RecordingTransactionManager();
+    private final WarmUpHealthIndicator warmUpHealthIndicator = new WarmUpHealthIndicator();
+    private final DayContentionTracker contentionTracker = new DayContentionTracker(300);
+    private final GuestQuotaTracker guestQuotaTracker = new GuestQuotaTracker(Mockito.mock(BookingStore.class), new SimpleMeterRegistry(), true, 3);
+
+    @Test
+    public void whenRoundsStable_thenStopsAfterStableRounds() {
+        this.givenServices();
+
+        this.runner(60_000, 1000.0, 3).run(null);
+
+        // the first round has nothing to compare with
+        Mockito.verify(this.bookingService, Mockito.times(4)).createBooking(ArgumentMatchers.any());
+        Assert.assertEquals(4, this.warmUpHealthIndicator.health().getDetails().get("rounds"));
+        Assert.assertEquals(true, this.warmUpHealthIndicator.health().getDetails().get("stable"));
+    }
+
+    @Test
+    public void whenNeverStable_thenStopsAtBudget() {
+        this.givenServices();
+        long start = System.currentTimeMillis();
+
+        this.runner(50, -1.0, 3).run(null);
+
+        Assert.assertTrue(System.currentTimeMillis() - start < 5_000);
+        Assert.assertTrue((int) this.warmUpHealthIndicator.health().getDetails().get("rounds") >= 1);
+        Assert.assertEquals(false, this.warmUpHealthIndicator.health().getDetails().get("stable"));
+        Assert.assertEquals(Status.UP, this.warmUpHealthIndicator.health().getStatus());
+    }
+
+    @Test
+    public void whenWarmingUp_thenOutOfServiceUntilFinished() {
+        this.givenServices();
+        List<Status> statuses = new ArrayList<>();
+        Mockito.doAnswer(invocation -> {
+            statuses.add(this.warmUpHealthIndicator.health().getStatus());
+            return new Booking();
+        }).when(this.bookingService).createBooking(ArgumentMatchers.any());
+        Assert.assertEquals(Status.OUT_OF_SERVICE, this.warmUpHealthIndicator.health().getStatus());
+
+        this.runner(60_000, 1000.0, 2).run(null);
+
+        Assert.assertEquals(3, statuses.size());
+        Assert.assertTrue(statuses.stream().allMatch(Status.OUT_OF_SERVICE::equals));
+        Assert.assertEquals(Status.UP, this.warmUpHealthIndicator.health().getStatus());
+    }
+
+    @Test
+    public void whenDryRunBooking_thenRolledBackAndNotCountedAsDemand() {
+        this.givenServices();
+
+        this.runner(60_000, 1000.0, 1).run(null);
+
+        Assert.assertEquals(2, this.transactionManager.rollbacks);
+        Assert.assertEquals(0, this.transactionManager.commits);
+        Assert.assertEquals(0, this.guestQuotaTracker.getActiveBookings("warm.up@island.local"));
+        Assert.assertTrue(this.contentionTracker.getHottest(10).isEmpty());
+    }
+
+    /**
+     * Thirty free days, every booking attempt taking guest quota and counted by the contention tracker as the booking service does
+     */
+    private void givenServices() {
+        Mockito.when(this.availabilityService.getAvailableDates(ArgumentMatchers.any(), ArgumentMatchers.any()))
+                .thenReturn(EpochDayRange.ofDays(DAY, DAY.plusDays(29)).asDates());
+        Mockito.when(this.bookingService.createBooking(ArgumentMatchers.any())).thenAnswer(invocation -> {
+            CreateBookingControllerRequest request = invocation.getArgument(0);
+            this.guestQuotaTracker.reserve(request.getUserEmail());
+            this.contentionTracker.recordAttempt(request.getArrivalDate(), request.getDepartureDate());
+            return new Booking();
+        });
+    }
+
+    private WarmUpRunner runner(long budgetMillis, double tolerance, int stableRounds) {
+        return new WarmUpRunner(Jackson2ObjectMapperBuilder.json().modulesToInstall(new ParameterNamesModule()).build(),
+                Validation.buildDefaultValidatorFactory().getValidator(), this.availabilityService, this.bookingService,
+                this.transactionManager, this.warmUpHealthIndicator, this.contentionTracker, budgetMillis, 5, tolerance, stableRounds);
+    }
+
+    /**
+     * Counts the transactions committed and rolled back, nothing is written
+     */
+    private static class RecordingTransactionManager extends AbstractPlatformTransactionManager {
+
+        private int commits;
+        private int rollbacks;
+
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+            this.commits++;
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+            this.rollbacks++;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package database;
+
+import com.island.bookingapi.sql.SqlStatistics;
+import org.junit.Assert;
+
+/**
+ * Pins the number of statements sent to the database by a piece of code, so a change that adds
+ * round trips to the booking hot path fails the build.
+ * <p>
+ * Counters are kept per thread, MockMvc serves the request on the test thread.
+ * <pre>
+ * SqlStatementAssertions.reset();
+ * mvc.perform(post("/booking")...);
+ * SqlStatementAssertions.assertStatementCount(4);
+ * </pre>
+ */
+public final class SqlStatementAssertions {
+
+    private SqlStatementAssertions() {
+    }
+
+    public static void reset() {
+        SqlStatistics.reset();
+    }
+
+    public static long statementCount() {
+        return SqlStatistics.current().getStatements();
+    }
+
+    public static void assertStatementCount(long expected) {
+        Assert.assertEquals("Statements sent to the database", expected, statementCount());
+    }
+
+    public static void assertMaxStatementCount(long max) {
+        long actual = statementCount();
+        Assert.assertTrue(String.format("Expected at most %d statements but %d were sent to the database", max, actual), actual <= max);
+    }
+}